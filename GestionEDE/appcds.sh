@@ -0,0 +1,19 @@
+#!/bin/sh
+# Genera un archivo AppCDS con las clases que carga la aplicación hasta la primera consulta
+# (Hibernate, HikariCP, Ehcache, el driver y las entidades) para reducir el arranque en frío.
+#
+#   ./appcds.sh [opciones de la JVM para la ejecución de entrenamiento, p. ej. -Djakarta.persistence.jdbc.url=...]
+#
+# La ejecución de entrenamiento es herramientas.MedicionArranque, que necesita acceso a la base de datos.
+# Después se arranca la aplicación con el archivo y exactamente el mismo jar:
+#
+#   java -XX:SharedArchiveFile=target/gestion-ede.jsa -jar target/GestionEDE-1.0-SNAPSHOT.jar
+#   java -XX:SharedArchiveFile=target/gestion-ede.jsa -cp target/GestionEDE-1.0-SNAPSHOT.jar org.example.herramientas.MedicionArranque
+set -e
+cd "$(dirname "$0")"
+
+mvn -B -q -Pappcds -DskipTests package
+java -XX:ArchiveClassesAtExit=target/gestion-ede.jsa "$@" \
+    -cp target/GestionEDE-1.0-SNAPSHOT.jar org.example.herramientas.MedicionArranque
+
+echo ">> Archivo AppCDS generado en target/gestion-ede.jsa"
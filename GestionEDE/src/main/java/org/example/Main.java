@@ -3,17 +3,22 @@
  */
 package org.example;
 
-import org.example.entidades.Departamento;
-import org.example.entidades.Empleado;
-import org.example.entidades.Empresa;
+import org.example.busqueda.IndiceEmpleados;
+import org.example.configuracion.ConfiguracionHibernate;
+import org.example.configuracion.ContextoInquilino;
 import org.example.menu.DepartamentoMenu;
 import org.example.menu.EmpleadoMenu;
 import org.example.menu.EmpresaMenu;
+import org.example.metricas.ConsultasLentas;
+import org.example.metricas.EstadisticasCache;
+import org.example.metricas.MetricasOperacion;
+import org.example.metricas.MetricasPool;
 import org.example.repositorios.DepartamentoRepository;
 import org.example.repositorios.EmpleadoRepository;
 import org.example.repositorios.EmpresaRepository;
+import org.example.repositorios.InformeRepository;
+import org.example.repositorios.UnidadDeTrabajo;
 import org.hibernate.SessionFactory;
-import org.hibernate.cfg.Configuration;
 
 import java.util.Scanner;
 
@@ -26,17 +31,24 @@ public class Main {
      */
     public static void main(String[] args) {
         // Configuración de Hibernate y creación de la SessionFactory
-        SessionFactory sessionFactory = new Configuration()
-                .configure("hibernate.cfg.xml") // Archivo de configuración de Hibernate
-                .addAnnotatedClass(Empresa.class) // Clases anotadas para el mapeo
-                .addAnnotatedClass(Departamento.class)
-                .addAnnotatedClass(Empleado.class)
-                .buildSessionFactory();
+        SessionFactory sessionFactory = ConfiguracionHibernate.crearSessionFactory();
 
         // Inicialización de los repositorios
         EmpresaRepository empresaRepository = new EmpresaRepository(sessionFactory);
         DepartamentoRepository departamentoRepository = new DepartamentoRepository(sessionFactory);
         EmpleadoRepository empleadoRepository = new EmpleadoRepository(sessionFactory);
+        InformeRepository informeRepository = new InformeRepository(sessionFactory);
+        UnidadDeTrabajo unidadDeTrabajo = new UnidadDeTrabajo(sessionFactory);
+
+        // Índice de búsqueda de empleados, cargado en segundo plano para no retrasar el menú
+        IndiceEmpleados indiceEmpleados = IndiceEmpleados.registrar(sessionFactory);
+        Thread.ofPlatform().daemon().name("carga-indice-empleados").start(() -> {
+            try {
+                indiceEmpleados.cargar();
+            } catch (RuntimeException e) {
+                System.err.println("xxx No se pudo cargar el índice de búsqueda: " + e.getMessage());
+            }
+        });
 
         // Ciclo principal para la selección del menú
         while (true) {
@@ -46,7 +58,9 @@ public class Main {
             System.out.println("1. Empresa");
             System.out.println("2. Departamento");
             System.out.println("3. Empleado");
-            System.out.println("4. Salir");
+            System.out.println("4. Estadísticas de caché, conexiones y operaciones");
+            System.out.println("5. Empresa de trabajo (actual: " + (ContextoInquilino.actual() == null ? "todas" : ContextoInquilino.actual()) + ")");
+            System.out.println("6. Salir");
             System.out.println("************************************");
 
             // Entrada del usuario para seleccionar una opción
@@ -57,10 +71,17 @@ public class Main {
 
             // Lógica para manejar la selección del menú
             switch (opcion) {
-                case 1 -> new EmpresaMenu(empresaRepository, sessionFactory).mostrarMenu();
-                case 2 -> new DepartamentoMenu(departamentoRepository, empresaRepository, sessionFactory).mostrarMenu();
-                case 3 -> new EmpleadoMenu(empleadoRepository, departamentoRepository).mostrarMenu();
+                case 1 -> new EmpresaMenu(empresaRepository, informeRepository).mostrarMenu();
+                case 2 -> new DepartamentoMenu(departamentoRepository, empresaRepository, informeRepository, unidadDeTrabajo).mostrarMenu();
+                case 3 -> new EmpleadoMenu(empleadoRepository, departamentoRepository, unidadDeTrabajo, indiceEmpleados).mostrarMenu();
                 case 4 -> {
+                    new EstadisticasCache(sessionFactory).imprimir();
+                    MetricasPool.imprimir();
+                    MetricasOperacion.imprimir();
+                    ConsultasLentas.imprimir(sessionFactory);
+                }
+                case 5 -> seleccionarEmpresa(scanner, empresaRepository);
+                case 6 -> {
                     System.out.println("--> Saliendo ...");
                     sessionFactory.close(); // Cerrar la SessionFactory antes de salir
                     return;
@@ -69,4 +90,25 @@ public class Main {
             }
         }
     }
+
+    /**
+     * Limita los menús a los datos de una empresa, o vuelve a mostrar todas.
+     *
+     * @param scanner           Entrada del usuario.
+     * @param empresaRepository Repositorio de empresas, para comprobar que existe.
+     */
+    private static void seleccionarEmpresa(Scanner scanner, EmpresaRepository empresaRepository) {
+        System.out.print(">> Introduzca el ID de la empresa (0 para todas): ");
+        int id = scanner.nextInt();
+        scanner.nextLine(); // Consumir el salto de línea
+        ContextoInquilino.fijar(null); // La comprobación debe ver todas las empresas
+        if (id == 0) {
+            System.out.println("--> Se muestran todas las empresas");
+        } else if (empresaRepository.existe(id)) {
+            ContextoInquilino.fijar(id);
+            System.out.println("--> Se trabaja con la empresa " + id);
+        } else {
+            System.out.println("xxx  No existe la empresa con ID " + id + "  xxx");
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package org.example.busqueda;
+
+/**
+ * Resultado de una búsqueda de empleados, construido desde el índice en memoria sin consultar la base de datos.
+ *
+ * @param dni            DNI del empleado.
+ * @param nombre         Nombre del empleado.
+ * @param apellido       Apellido del empleado.
+ * @param puesto         Puesto del empleado.
+ * @param departamentoId Identificador del departamento del empleado.
+ * @param puntuacion     Relevancia: mayor cuantas más palabras de la búsqueda coinciden completas.
+ */
+public record Coincidencia(String dni, String nombre, String apellido, String puesto, int departamentoId, int puntuacion) {}
@@ -0,0 +1,589 @@
+package org.example.busqueda;
+
+import org.example.configuracion.Replica;
+import org.example.entidades.Empleado;
+import org.example.repositorios.CambiosMasivos;
+import org.example.repositorios.EmpleadoRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria para buscar empleados por nombre, apellido y puesto.
+ * <p>
+ * Cada palabra de esos campos se guarda normalizada (en minúsculas y sin tildes ni diéresis, así que
+ * "Pérez" y "perez" coinciden) en un mapa ordenado que asocia cada palabra con la lista ordenada de
+ * los números internos de los empleados que la contienen. Una búsqueda divide el texto en palabras,
+ * marca en un mapa de bits los empleados con alguna palabra que empieza por cada una (un rango del
+ * mapa ordenado) e interseca los mapas de bits, así que el coste depende del número de coincidencias
+ * y no de comparar cadenas. Los resultados se puntúan (palabras completas antes que prefijos) y se
+ * devuelven solo los k primeros, sin consultar la base de datos.
+ * <p>
+ * El índice se carga con {@link #cargar()} recorriendo la tabla de empleados y se mantiene al día
+ * con los cambios confirmados por esta aplicación. Los cambios hechos por otros procesos (el
+ * importador CSV, el servicio HTTP, SQL manual) se incorporan al volver a cargarlo.
+ *
+ * <pre>{@code
+ * IndiceEmpleados indice = IndiceEmpleados.registrar(sessionFactory);
+ * indice.cargar();
+ * List<Coincidencia> resultados = indice.buscar("gomez soporte tec", 20);
+ * }</pre>
+ */
+public class IndiceEmpleados {
+
+    /**
+     * Marcas diacríticas que quedan separadas de su letra tras la normalización NFD.
+     */
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Separadores de palabras: cualquier carácter que no sea letra ni dígito.
+     */
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Carácter mayor que cualquier otro, para delimitar el rango de palabras con un prefijo.
+     */
+    private static final char FIN_PREFIJO = Character.MAX_VALUE;
+
+    /**
+     * Puntuación de una palabra de la búsqueda que coincide completa con una palabra del empleado.
+     */
+    private static final int PUNTOS_PALABRA = 2;
+
+    /**
+     * Puntuación de una palabra de la búsqueda que solo coincide como prefijo.
+     */
+    private static final int PUNTOS_PREFIJO = 1;
+
+    /**
+     * Número de empleados modificados que se vuelven a leer en cada sesión al reindexarlos.
+     */
+    private static final int TAMANO_BLOQUE_REINDEXADO = 1000;
+
+    /**
+     * Empleado indexado con sus palabras normalizadas, necesarias para retirarlo del índice.
+     *
+     * @param dni            DNI del empleado.
+     * @param nombre         Nombre del empleado.
+     * @param apellido       Apellido del empleado.
+     * @param puesto         Puesto del empleado.
+     * @param departamentoId Departamento del empleado.
+     * @param palabras       Palabras normalizadas de nombre, apellido y puesto, sin repetir.
+     */
+    private record Documento(String dni, String nombre, String apellido, String puesto, int departamentoId, String[] palabras) {}
+
+    /**
+     * Lista ordenada de números internos de empleados que contienen una palabra. Los números nuevos
+     * suelen ser mayores que todos los de la lista y se añaden al final; los reutilizados se insertan
+     * en su posición.
+     */
+    private static final class Apariciones {
+
+        /**
+         * Números internos de los empleados, ordenados; solo son válidas las primeras {@link #tamano} posiciones.
+         */
+        private int[] ids = new int[2];
+
+        /**
+         * Número de empleados en la lista.
+         */
+        private int tamano;
+
+        /**
+         * Añade un empleado a la lista manteniéndola ordenada.
+         *
+         * @param id Número interno del empleado, que no está en la lista.
+         */
+        void anadir(int id) {
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            int posicion = tamano == 0 || ids[tamano - 1] < id ? tamano : -Arrays.binarySearch(ids, 0, tamano, id) - 1;
+            System.arraycopy(ids, posicion, ids, posicion + 1, tamano - posicion);
+            ids[posicion] = id;
+            tamano++;
+        }
+
+        /**
+         * Quita un empleado de la lista.
+         *
+         * @param id Número interno del empleado.
+         */
+        void quitar(int id) {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion >= 0) {
+                System.arraycopy(ids, posicion + 1, ids, posicion, tamano - posicion - 1);
+                tamano--;
+            }
+        }
+
+        /**
+         * Marca los empleados de la lista en un mapa de bits.
+         *
+         * @param bits Mapa de bits indexado por número interno.
+         */
+        void marcar(BitSet bits) {
+            for (int i = 0; i < tamano; i++) {
+                bits.set(ids[i]);
+            }
+        }
+    }
+
+    /**
+     * Empleados indexados por número interno; las posiciones de los empleados borrados o
+     * reindexados quedan a null hasta que se reutilizan.
+     */
+    private final List<Documento> documentos = new ArrayList<>();
+
+    /**
+     * Números internos libres (posiciones a null de {@link #documentos}), que se reutilizan antes de
+     * añadir posiciones nuevas para que la lista y los mapas de bits de las búsquedas no crezcan con
+     * cada actualización.
+     */
+    private final BitSet libres = new BitSet();
+
+    /**
+     * Número interno actual de cada empleado, por DNI.
+     */
+    private final Map<String, Integer> idPorDni = new HashMap<>();
+
+    /**
+     * Índice invertido: empleados que contienen cada palabra normalizada, en orden alfabético.
+     */
+    private final TreeMap<String, Apariciones> palabras = new TreeMap<>();
+
+    /**
+     * Protege las estructuras del índice: las búsquedas se ejecutan en paralelo y las escrituras en exclusiva.
+     */
+    private final ReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+    /**
+     * Repositorio con el que se recorre la tabla de empleados al cargar el índice.
+     */
+    private final EmpleadoRepository empleadoRepository;
+
+    /**
+     * DNI borrados mientras se carga el índice, para que la carga no los vuelva a añadir.
+     */
+    private final Set<String> borradosDuranteCarga = new HashSet<>();
+
+    /**
+     * Departamentos borrados mientras se carga el índice, para que la carga no vuelva a añadir sus empleados.
+     */
+    private final Set<Integer> departamentosBorradosDuranteCarga = new HashSet<>();
+
+    /**
+     * Indica si hay una carga en curso.
+     */
+    private volatile boolean cargando;
+
+    /**
+     * Constructor que crea un índice vacío sin registrarlo en Hibernate.
+     *
+     * @param empleadoRepository Repositorio con el que se cargan los empleados.
+     */
+    public IndiceEmpleados(EmpleadoRepository empleadoRepository) {
+        this.empleadoRepository = empleadoRepository;
+    }
+
+    /**
+     * Crea un índice vacío y lo registra en la fábrica de sesiones para que reciba los empleados
+     * creados, actualizados y borrados tras confirmar cada transacción, también los que los
+     * repositorios modifican sin cargarlos ({@link CambiosMasivos}).
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     * @return Índice registrado, pendiente de cargar.
+     */
+    public static IndiceEmpleados registrar(SessionFactory sessionFactory) {
+        IndiceEmpleados indice = new IndiceEmpleados(new EmpleadoRepository(sessionFactory));
+        OyenteIndice oyente = new OyenteIndice(indice);
+        EventListenerRegistry registro = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, oyente);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, oyente);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, oyente);
+        CambiosMasivos.registrar(sessionFactory, oyente);
+        return indice;
+    }
+
+    /**
+     * Carga en el índice todos los empleados de la base de datos, recorriéndolos con un cursor sin
+     * cargarlos a la vez en memoria. Se puede buscar durante la carga; los empleados aún no
+     * recorridos no aparecen en los resultados.
+     *
+     * @return Número de empleados recorridos.
+     */
+    public long cargar() {
+        cerrojo.writeLock().lock();
+        try {
+            cargando = true;
+            borradosDuranteCarga.clear();
+            departamentosBorradosDuranteCarga.clear();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+        try {
+            return empleadoRepository.recorrer(null, this::indexarSiAusente);
+        } finally {
+            cerrojo.writeLock().lock();
+            try {
+                cargando = false;
+                borradosDuranteCarga.clear();
+                departamentosBorradosDuranteCarga.clear();
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Añade un empleado al índice o lo sustituye si ya estaba.
+     *
+     * @param empleado Empleado a indexar.
+     */
+    public void indexar(Empleado empleado) {
+        Documento documento = documento(empleado);
+        cerrojo.writeLock().lock();
+        try {
+            retirar(documento.dni());
+            anadir(documento);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelve a leer e indexar empleados modificados sin cargarlos en la sesión que los cambió (por
+     * ejemplo con {@code actualizarCampos}). Solo se leen esos empleados, nunca la tabla entera, por
+     * bloques con {@link EmpleadoRepository#leerTodos}, que hace una consulta {@code IN} por lote de DNI;
+     * los que ya no existen se retiran del índice.
+     *
+     * @param dnis DNI de los empleados modificados.
+     */
+    void reindexar(Collection<?> dnis) {
+        List<String> pendientes = dnis.stream().map(String.class::cast).toList();
+        Replica.enPrimaria(() -> { // La réplica puede no tener aún los cambios
+            for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_BLOQUE_REINDEXADO) {
+                List<String> bloque = pendientes.subList(inicio, Math.min(inicio + TAMANO_BLOQUE_REINDEXADO, pendientes.size()));
+                Set<String> leidos = new HashSet<>();
+                for (Empleado empleado : empleadoRepository.leerTodos(bloque)) {
+                    indexar(empleado);
+                    leidos.add(empleado.getDni());
+                }
+                bloque.stream().filter(dni -> !leidos.contains(dni)).forEach(this::eliminar);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Vuelve a leer e indexar los empleados de unos departamentos modificados en bloque sin conocer sus
+     * DNI (tras mover o renombrar empleados). Cada departamento se recorre con
+     * {@link EmpleadoRepository#recorrer}, sin tener a la vez en memoria todos sus empleados.
+     *
+     * @param departamentos Identificadores de los departamentos.
+     */
+    void reindexarDepartamentos(Collection<?> departamentos) {
+        Replica.enPrimaria(() -> { // La réplica puede no tener aún los cambios
+            departamentos.forEach(id -> empleadoRepository.recorrer((Integer) id, this::indexar));
+            return null;
+        });
+    }
+
+    /**
+     * Retira un empleado del índice.
+     *
+     * @param dni DNI del empleado.
+     */
+    public void eliminar(String dni) {
+        cerrojo.writeLock().lock();
+        try {
+            if (cargando) {
+                borradosDuranteCarga.add(dni);
+            }
+            retirar(dni);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retira del índice todos los empleados de unos departamentos borrados junto con sus empleados.
+     *
+     * @param departamentos Identificadores de los departamentos borrados.
+     */
+    void eliminarDepartamentos(Collection<?> departamentos) {
+        Set<Object> borrados = new HashSet<>(departamentos);
+        cerrojo.writeLock().lock();
+        try {
+            if (cargando) {
+                departamentos.forEach(id -> departamentosBorradosDuranteCarga.add((Integer) id));
+            }
+            List<String> dnis = new ArrayList<>();
+            for (Documento documento : documentos) {
+                if (documento != null && borrados.contains(documento.departamentoId())) {
+                    dnis.add(documento.dni());
+                }
+            }
+            dnis.forEach(this::retirar);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los empleados que contienen todas las palabras del texto, completas o como prefijo, en
+     * su nombre, apellido o puesto, sin distinguir mayúsculas ni tildes.
+     *
+     * @param texto  Texto a buscar, por ejemplo "gómez soporte téc".
+     * @param limite Número máximo de resultados.
+     * @return Los resultados más relevantes, de mayor a menor puntuación y después por apellido y nombre.
+     *         Entre empleados con la misma puntuación se eligen primero los de número interno menor.
+     */
+    public List<Coincidencia> buscar(String texto, int limite) {
+        return buscar(texto, limite, departamentoId -> true);
+    }
+
+    /**
+     * Busca como {@link #buscar(String, int)} solo entre los empleados de unos departamentos, por ejemplo
+     * los de la empresa activa. Los demás se descartan antes de elegir los k mejores, así que se devuelven
+     * hasta k resultados de esos departamentos aunque otros empleados puntúen más.
+     *
+     * @param texto         Texto a buscar, por ejemplo "gómez soporte téc".
+     * @param limite        Número máximo de resultados.
+     * @param departamentos Indica si se admiten los empleados de cada departamento; se evalúa con el
+     *                      índice bloqueado para lectura, así que no debe consultar la base de datos.
+     * @return Los resultados más relevantes de esos departamentos, en el orden de {@link #buscar(String, int)}.
+     */
+    public List<Coincidencia> buscar(String texto, int limite, IntPredicate departamentos) {
+        List<String> terminos = List.copyOf(new LinkedHashSet<>(normalizar(texto)));
+        if (terminos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        cerrojo.readLock().lock();
+        try {
+            // Empleados que contienen todos los términos, como palabra completa o como prefijo
+            BitSet candidatos = null;
+            BitSet[] completas = new BitSet[terminos.size()];
+            for (int i = 0; i < terminos.size(); i++) {
+                String termino = terminos.get(i);
+                BitSet conPrefijo = new BitSet(documentos.size());
+                for (Apariciones apariciones : palabras.subMap(termino, true, termino + FIN_PREFIJO, false).values()) {
+                    apariciones.marcar(conPrefijo);
+                }
+                if (candidatos == null) {
+                    candidatos = conPrefijo;
+                } else {
+                    candidatos.and(conPrefijo);
+                }
+                if (candidatos.isEmpty()) {
+                    return List.of(); // Ningún empleado contiene todos los términos
+                }
+
+                completas[i] = new BitSet();
+                Apariciones exactas = palabras.get(termino);
+                if (exactas != null) {
+                    exactas.marcar(completas[i]);
+                }
+            }
+
+            // Puntuación de cada candidato y selección de los k mejores: hay tantos niveles de puntuación
+            // como términos, así que basta con reunir hasta k candidatos por nivel
+            List<List<Integer>> porPuntuacion = new ArrayList<>();
+            for (int nivel = 0; nivel <= terminos.size(); nivel++) {
+                porPuntuacion.add(new ArrayList<>());
+            }
+            int maximo = terminos.size();
+            for (int id = candidatos.nextSetBit(0); id >= 0; id = candidatos.nextSetBit(id + 1)) {
+                if (!departamentos.test(documentos.get(id).departamentoId())) {
+                    continue;
+                }
+                int palabrasCompletas = 0;
+                for (BitSet completa : completas) {
+                    if (completa.get(id)) {
+                        palabrasCompletas++;
+                    }
+                }
+                List<Integer> nivel = porPuntuacion.get(palabrasCompletas);
+                if (nivel.size() < limite) {
+                    nivel.add(id);
+                }
+                if (palabrasCompletas == maximo && nivel.size() == limite) {
+                    break; // Ya hay k candidatos con la puntuación máxima posible
+                }
+            }
+
+            List<Coincidencia> resultados = new ArrayList<>(limite);
+            for (int nivel = maximo; nivel >= 0 && resultados.size() < limite; nivel--) {
+                int puntuacion = nivel * PUNTOS_PALABRA + (maximo - nivel) * PUNTOS_PREFIJO;
+                for (Integer id : porPuntuacion.get(nivel)) {
+                    if (resultados.size() == limite) {
+                        break;
+                    }
+                    Documento documento = documentos.get(id);
+                    resultados.add(new Coincidencia(documento.dni(), documento.nombre(), documento.apellido(),
+                            documento.puesto(), documento.departamentoId(), puntuacion));
+                }
+            }
+            resultados.sort(Comparator.comparingInt(Coincidencia::puntuacion).reversed()
+                    .thenComparing(Coincidencia::apellido)
+                    .thenComparing(Coincidencia::nombre)
+                    .thenComparing(Coincidencia::dni));
+            return resultados;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene el número de empleados indexados.
+     *
+     * @return Número de empleados en el índice.
+     */
+    public int getTamano() {
+        cerrojo.readLock().lock();
+        try {
+            return idPorDni.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene el número de números internos asignados, ocupados o libres.
+     *
+     * @return Tamaño de la lista de documentos, que no pasa del máximo de empleados indexados a la vez.
+     */
+    int getNumerosInternos() {
+        cerrojo.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si hay una carga en curso, durante la cual los resultados pueden estar incompletos.
+     *
+     * @return true mientras se carga el índice.
+     */
+    public boolean isCargando() {
+        return cargando;
+    }
+
+    /**
+     * Añade un empleado recorrido durante la carga, salvo que un cambio confirmado durante la carga
+     * (más reciente que la fila recorrida) ya lo haya añadido o borrado.
+     *
+     * @param empleado Empleado recorrido.
+     */
+    private void indexarSiAusente(Empleado empleado) {
+        Documento documento = documento(empleado);
+        cerrojo.writeLock().lock();
+        try {
+            if (!idPorDni.containsKey(documento.dni()) && !borradosDuranteCarga.contains(documento.dni())
+                    && !departamentosBorradosDuranteCarga.contains(documento.departamentoId())) {
+                anadir(documento);
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Construye el documento de un empleado con sus palabras normalizadas.
+     *
+     * @param empleado Empleado a indexar.
+     * @return Documento del empleado.
+     */
+    private static Documento documento(Empleado empleado) {
+        Set<String> unicas = new LinkedHashSet<>();
+        unicas.addAll(normalizar(empleado.getNombre()));
+        unicas.addAll(normalizar(empleado.getApellido()));
+        unicas.addAll(normalizar(empleado.getPuesto()));
+        return new Documento(empleado.getDni(), empleado.getNombre(), empleado.getApellido(),
+                empleado.getPuesto(), empleado.getDepartamento().getId(), unicas.toArray(String[]::new));
+    }
+
+    /**
+     * Añade un documento con el menor número interno libre, o con uno nuevo si no hay libres.
+     * Requiere el cerrojo de escritura.
+     *
+     * @param documento Documento a añadir.
+     */
+    private void anadir(Documento documento) {
+        int id = libres.nextSetBit(0);
+        if (id >= 0) {
+            libres.clear(id);
+            documentos.set(id, documento);
+        } else {
+            id = documentos.size();
+            documentos.add(documento);
+        }
+        idPorDni.put(documento.dni(), id);
+        for (String palabra : documento.palabras()) {
+            palabras.computeIfAbsent(palabra, p -> new Apariciones()).anadir(id);
+        }
+    }
+
+    /**
+     * Retira el documento de un empleado, eliminando las palabras que se quedan sin empleados, y deja
+     * libre su número interno. Requiere el cerrojo de escritura.
+     *
+     * @param dni DNI del empleado.
+     */
+    private void retirar(String dni) {
+        Integer id = idPorDni.remove(dni);
+        if (id == null) {
+            return;
+        }
+        Documento documento = documentos.set(id, null);
+        libres.set(id);
+        for (String palabra : documento.palabras()) {
+            Apariciones apariciones = palabras.get(palabra);
+            apariciones.quitar(id);
+            if (apariciones.tamano == 0) {
+                palabras.remove(palabra);
+            }
+        }
+    }
+
+    /**
+     * Divide un texto en palabras en minúsculas y sin marcas diacríticas ("Martínez" → "martinez").
+     *
+     * @param texto Texto a dividir (puede ser null).
+     * @return Palabras normalizadas, en el orden del texto.
+     */
+    static List<String> normalizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String sinTildes = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARADORES.split(sinTildes.toLowerCase(Locale.ROOT)))
+                .filter(palabra -> !palabra.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.busqueda;
+
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.repositorios.CambiosMasivos;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Collection;
+
+/**
+ * Mantiene el {@link IndiceEmpleados} al día con los empleados creados, actualizados y borrados,
+ * una vez confirmada su transacción: los cambios deshechos nunca llegan al índice.
+ */
+class OyenteIndice implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener,
+        CambiosMasivos.Oyente {
+
+    /**
+     * Índice que se mantiene.
+     */
+    private final IndiceEmpleados indice;
+
+    /**
+     * Constructor del oyente.
+     *
+     * @param indice Índice que se mantiene.
+     */
+    OyenteIndice(IndiceEmpleados indice) {
+        this.indice = indice;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Empleado empleado) {
+            indice.indexar(empleado);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Empleado empleado) {
+            indice.indexar(empleado);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Empleado) {
+            indice.eliminar((String) event.getId());
+        }
+    }
+
+    @Override
+    public void actualizadas(Class<?> tipo, Collection<?> ids) {
+        if (tipo == Empleado.class) {
+            indice.reindexar(ids);
+        }
+    }
+
+    @Override
+    public void actualizadasEnDepartamentos(Class<?> tipo, Collection<?> departamentos) {
+        if (tipo == Empleado.class) {
+            indice.reindexarDepartamentos(departamentos);
+        }
+    }
+
+    @Override
+    public void borradas(Class<?> tipo, Collection<?> ids) {
+        if (tipo == Empleado.class) {
+            ids.forEach(dni -> indice.eliminar((String) dni));
+        } else if (tipo == Departamento.class) {
+            indice.eliminarDepartamentos(ids); // Borrados con todos sus empleados
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nada que deshacer: el índice solo se modifica tras confirmar
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nada que deshacer: el índice solo se modifica tras confirmar
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nada que deshacer: el índice solo se modifica tras confirmar
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == Empleado.class;
+    }
+}
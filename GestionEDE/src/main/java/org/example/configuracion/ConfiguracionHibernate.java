@@ -0,0 +1,63 @@
+package org.example.configuracion;
+
+import org.example.contadores.OyenteContadores;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import java.util.Properties;
+
+/**
+ * Clase de utilidad que centraliza la construcción de la SessionFactory de Hibernate,
+ * de forma que la aplicación de consola y las herramientas de línea de comandos
+ * compartan exactamente la misma configuración.
+ */
+public final class ConfiguracionHibernate {
+
+    /**
+     * Archivo de configuración de Hibernate en el classpath.
+     */
+    private static final String ARCHIVO_CONFIGURACION = "hibernate.cfg.xml";
+
+    /**
+     * Constructor privado: clase de utilidad no instanciable.
+     */
+    private ConfiguracionHibernate() {}
+
+    /**
+     * Crea la SessionFactory con la configuración por defecto.
+     *
+     * @return SessionFactory lista para usarse.
+     */
+    public static SessionFactory crearSessionFactory() {
+        return crearSessionFactory(new Properties());
+    }
+
+    /**
+     * Crea la SessionFactory aplicando sobre hibernate.cfg.xml las propiedades indicadas.
+     * Las propiedades de sistema que empiezan por "hibernate." o "jakarta.persistence." (por ejemplo
+     * -Djakarta.persistence.jdbc.url=...) también sobrescriben a las del archivo.
+     *
+     * @param sobrescrituras Propiedades que sustituyen a las del archivo de configuración.
+     * @return SessionFactory lista para usarse.
+     */
+    public static SessionFactory crearSessionFactory(Properties sobrescrituras) {
+        Configuration configuration = new Configuration()
+                .configure(ARCHIVO_CONFIGURACION) // Archivo de configuración de Hibernate
+                .addAnnotatedClass(Empresa.class) // Clases anotadas para el mapeo
+                .addAnnotatedClass(Departamento.class)
+                .addAnnotatedClass(Empleado.class);
+
+        // Las propiedades de sistema tienen prioridad sobre el archivo, y las explícitas sobre ambas
+        System.getProperties().stringPropertyNames().stream()
+                .filter(nombre -> nombre.startsWith("hibernate.") || nombre.startsWith("jakarta.persistence."))
+                .forEach(nombre -> configuration.setProperty(nombre, System.getProperty(nombre)));
+        configuration.addProperties(sobrescrituras);
+
+        SessionFactory sessionFactory = configuration.buildSessionFactory();
+        OyenteContadores.registrar(sessionFactory); // Contadores de empleados y departamentos
+        return sessionFactory;
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.configuracion;
+
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.hibernate.ObjectNotFoundException;
+import org.hibernate.Session;
+
+import java.util.function.Supplier;
+
+/**
+ * Empresa (inquilino) con la que trabaja el hilo actual.
+ * <p>
+ * Mientras hay una empresa activa, las sesiones que abren los repositorios y la unidad de trabajo activan
+ * el filtro {@link Empresa#FILTRO_EMPRESA}: las consultas, los informes, los recorridos y las lecturas
+ * por identificador solo ven la empresa, sus departamentos y sus empleados, y las operaciones por
+ * identificador sobre otros datos se comportan como si no existieran. Sin empresa activa se ven todos.
+ * <p>
+ * El filtro no se aplica a las entidades que Hibernate toma de la caché de segundo nivel al leer por
+ * identificador, así que los repositorios comprueban esas lecturas con {@link #visible}.
+ * <p>
+ * El servicio HTTP toma la empresa de cada petición con {@link #conEmpresa}; el menú la fija para el
+ * resto de la sesión con {@link #fijar}.
+ */
+public final class ContextoInquilino {
+
+    /**
+     * Empresa activa en cada hilo, o null si no hay ninguna.
+     */
+    private static final ThreadLocal<Integer> EMPRESA = new ThreadLocal<>();
+
+    /**
+     * Constructor privado: clase de utilidad no instanciable.
+     */
+    private ContextoInquilino() {}
+
+    /**
+     * Ejecuta una operación con una empresa activa, por ejemplo la de una petición HTTP, y restaura
+     * después la que hubiera.
+     *
+     * @param empresaId Empresa con la que se ejecuta la operación, o null para ver todas.
+     * @param operacion Operación a ejecutar.
+     * @param <R>       Tipo del resultado.
+     * @return Resultado de la operación.
+     */
+    public static <R> R conEmpresa(Integer empresaId, Supplier<R> operacion) {
+        Integer anterior = EMPRESA.get();
+        EMPRESA.set(empresaId);
+        try {
+            return operacion.get();
+        } finally {
+            EMPRESA.set(anterior);
+        }
+    }
+
+    /**
+     * Fija la empresa activa del hilo hasta que se cambie.
+     *
+     * @param empresaId Empresa con la que se trabaja, o null para volver a ver todas.
+     */
+    public static void fijar(Integer empresaId) {
+        if (empresaId == null) {
+            EMPRESA.remove();
+        } else {
+            EMPRESA.set(empresaId);
+        }
+    }
+
+    /**
+     * Obtiene la empresa activa del hilo.
+     *
+     * @return Identificador de la empresa, o null si no hay ninguna.
+     */
+    public static Integer actual() {
+        return EMPRESA.get();
+    }
+
+    /**
+     * Activa en una sesión recién abierta el filtro de la empresa activa, si la hay.
+     *
+     * @param session Sesión a filtrar.
+     * @return La misma sesión.
+     */
+    public static Session aplicar(Session session) {
+        Integer empresaId = EMPRESA.get();
+        if (empresaId != null) {
+            session.enableFilter(Empresa.FILTRO_EMPRESA).setParameter(Empresa.PARAMETRO_EMPRESA, empresaId);
+        }
+        return session;
+    }
+
+    /**
+     * Comprueba si una entidad pertenece a la empresa activa. Con un empleado puede cargar su departamento,
+     * así que se llama con la sesión abierta; si el filtro de la sesión impide cargarlo, el empleado no es visible.
+     *
+     * @param entidad Empresa, departamento o empleado.
+     * @return true si no hay empresa activa, si la entidad es de ella o si no es de ninguno de esos tipos.
+     */
+    public static boolean visible(Object entidad) {
+        Integer empresaId = EMPRESA.get();
+        if (empresaId == null) {
+            return true;
+        }
+        if (entidad instanceof Empleado empleado) {
+            return empleado.getDepartamento() != null && visible(empleado.getDepartamento());
+        }
+        if (entidad instanceof Departamento departamento) {
+            try {
+                return departamento.getEmpresa() != null && visible(departamento.getEmpresa());
+            } catch (ObjectNotFoundException e) {
+                return false; // Proxy de un empleado de la caché cuyo departamento oculta el filtro: es de otra empresa
+            }
+        }
+        return !(entidad instanceof Empresa empresa) || empresa.getId() == empresaId; // El proxy da su identificador sin cargarse
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.configuracion;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.metricas.ConsultasLentas;
+import org.example.metricas.MetricasPool;
+import org.hibernate.HibernateException;
+import org.hibernate.cfg.JdbcSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Proveedor de conexiones de Hibernate respaldado por un pool HikariCP.
+ * <p>
+ * Se activa con {@code hibernate.connection.provider_class} en hibernate.cfg.xml. Toma la URL,
+ * el usuario, la contraseña y el driver de las propiedades {@code jakarta.persistence.jdbc.*}, y el
+ * resto de ajustes del pool de las propiedades {@code hibernate.hikari.*} (sin el prefijo). Al
+ * arrancar abre y valida las conexiones mínimas del pool para que la primera operación no pague
+ * su apertura, y registra {@link MetricasPool} para exponer el estado del pool. Las conexiones que
+ * entrega a Hibernate van envueltas por su propio {@link ConsultasLentas}, que detecta las sentencias lentas
+ * de esta SessionFactory y se obtiene con {@code unwrap(ConsultasLentas.class)}.
+ * <p>
+ * Si se configura una réplica ({@link Replica#URL}), abre un segundo pool de solo lectura con los
+ * mismos ajustes y le envía las conexiones que se piden dentro de {@link Replica#soloLectura}.
+ */
+public class ProveedorConexiones implements ConnectionProvider, Configurable, Stoppable {
+
+    /**
+     * Versión de la forma serializada (ConnectionProvider es Serializable; los pools no se serializan).
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Prefijo de las propiedades de hibernate.cfg.xml que se pasan a HikariCP.
+     */
+    private static final String PREFIJO_HIKARI = "hibernate.hikari.";
+
+    /**
+     * Segundos de espera máxima al validar cada conexión durante el calentamiento.
+     */
+    private static final int SEGUNDOS_VALIDACION = 5;
+
+    /**
+     * Pool de conexiones.
+     */
+    private transient HikariDataSource dataSource;
+
+    /**
+     * Pool de conexiones de la réplica, o null si no hay réplica.
+     */
+    private transient HikariDataSource replica;
+
+    /**
+     * Detector de sentencias lentas de las conexiones de este proveedor.
+     */
+    private transient ConsultasLentas consultasLentas;
+
+    @Override
+    public void configure(Map<String, Object> propiedades) {
+        Properties hikari = new Properties();
+        propiedades.forEach((clave, valor) -> {
+            if (clave.startsWith(PREFIJO_HIKARI) && valor != null) {
+                hikari.setProperty(clave.substring(PREFIJO_HIKARI.length()), valor.toString());
+            }
+        });
+
+        HikariConfig config = new HikariConfig(hikari);
+        config.setJdbcUrl((String) propiedades.get(JdbcSettings.JAKARTA_JDBC_URL));
+        config.setUsername((String) propiedades.get(JdbcSettings.JAKARTA_JDBC_USER));
+        config.setPassword((String) propiedades.get(JdbcSettings.JAKARTA_JDBC_PASSWORD));
+        if (propiedades.get(JdbcSettings.JAKARTA_JDBC_DRIVER) != null) {
+            config.setDriverClassName((String) propiedades.get(JdbcSettings.JAKARTA_JDBC_DRIVER));
+        }
+        config.setMetricsTrackerFactory(MetricasPool.FABRICA);
+
+        dataSource = new HikariDataSource(config);
+        consultasLentas = new ConsultasLentas(dataSource.getPoolName(), propiedades, dataSource);
+        calentar(dataSource, config.getMinimumIdle());
+
+        Object urlReplica = propiedades.get(Replica.URL);
+        if (urlReplica != null && !urlReplica.toString().isBlank()) {
+            HikariConfig configReplica = new HikariConfig();
+            config.copyStateTo(configReplica);
+            configReplica.setPoolName(dataSource.getPoolName() + "-replica");
+            configReplica.setJdbcUrl(urlReplica.toString());
+            configReplica.setUsername((String) propiedades.getOrDefault(Replica.USUARIO, config.getUsername()));
+            configReplica.setPassword((String) propiedades.getOrDefault(Replica.CONTRASENA, config.getPassword()));
+            configReplica.setReadOnly(true);
+            replica = new HikariDataSource(configReplica);
+            calentar(replica, configReplica.getMinimumIdle());
+        }
+        Replica.configurar(replica != null,
+                Long.parseLong(String.valueOf(propiedades.getOrDefault(Replica.LEER_ESCRITURAS, "0"))));
+    }
+
+    /**
+     * Abre y valida el número de conexiones indicado, manteniéndolas abiertas a la vez, y las devuelve al pool,
+     * de forma que queden listas antes de la primera operación.
+     *
+     * @param pool       Pool a preparar.
+     * @param conexiones Número de conexiones a preparar.
+     */
+    private void calentar(HikariDataSource pool, int conexiones) {
+        List<Connection> abiertas = new ArrayList<>(conexiones);
+        try {
+            for (int i = 0; i < conexiones; i++) {
+                Connection conexion = pool.getConnection();
+                abiertas.add(conexion);
+                if (!conexion.isValid(SEGUNDOS_VALIDACION)) {
+                    throw new HibernateException("El pool ha devuelto una conexión no válida durante el calentamiento");
+                }
+            }
+        } catch (SQLException e) {
+            stop();
+            throw new HibernateException("No se pudo abrir el pool de conexiones: " + e.getMessage(), e);
+        } finally {
+            for (Connection conexion : abiertas) {
+                try {
+                    conexion.close(); // Devuelve la conexión al pool
+                } catch (SQLException ignorada) {
+                    // El pool descarta la conexión si no se puede devolver
+                }
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replica != null && Replica.enReplica()) {
+            return consultasLentas.envolver(replica.getConnection());
+        }
+        Replica.anotarEscritura();
+        return consultasLentas.envolver(dataSource.getConnection());
+    }
+
+    @Override
+    public void closeConnection(Connection conexion) throws SQLException {
+        conexion.close();
+        Replica.anotarEscritura(); // La espera para leer de la réplica cuenta desde el final de la transacción
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> tipo) {
+        return tipo.isInstance(this) || tipo.isInstance(dataSource) || tipo.isInstance(consultasLentas);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> tipo) {
+        if (tipo.isInstance(this)) {
+            return tipo.cast(this);
+        }
+        if (tipo.isInstance(dataSource)) {
+            return tipo.cast(dataSource); // Por ejemplo DataSource o HikariDataSource
+        }
+        if (tipo.isInstance(consultasLentas)) {
+            return tipo.cast(consultasLentas);
+        }
+        throw new UnknownUnwrapTypeException(tipo);
+    }
+
+    @Override
+    public void stop() {
+        if (consultasLentas != null) {
+            consultasLentas.cerrar();
+        }
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        if (replica != null) {
+            replica.close();
+        }
+    }
+}
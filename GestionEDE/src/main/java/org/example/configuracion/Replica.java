@@ -0,0 +1,162 @@
+package org.example.configuracion;
+
+import java.util.function.Supplier;
+
+/**
+ * Enrutamiento de las lecturas a una réplica de la base de datos.
+ * <p>
+ * Si hibernate.cfg.xml (o {@code -D}) define {@link #URL}, {@link ProveedorConexiones} abre un segundo
+ * pool contra la réplica y le entrega las conexiones que se piden dentro de {@link #soloLectura}: las
+ * lecturas de los repositorios fuera de una unidad de trabajo, los recorridos y los informes. Las
+ * escrituras, las unidades de trabajo y todo lo demás van a la base de datos principal.
+ * <p>
+ * La réplica puede ir algo atrasada. Con {@link #LEER_ESCRITURAS} mayor que cero, tras cada escritura todas
+ * las lecturas van a la principal durante ese tiempo, de modo que quien acaba de escribir ve sus cambios
+ * aunque su siguiente operación la haga otro hilo (el servidor HTTP atiende cada petición en un hilo
+ * virtual). El instante de la última escritura se comparte por toda la aplicación, no por cliente: con
+ * escrituras continuas las lecturas van a la principal, y con varias instancias de la aplicación cada
+ * una solo conoce sus propias escrituras. Además, las sesiones
+ * que leen de la réplica no guardan lo leído en la caché de segundo nivel, para no dejar en ella datos
+ * atrasados. Para probarlo en local basta con dos bases de datos embebidas, por ejemplo
+ * {@code jdbc:h2:mem:principal} y {@code jdbc:h2:mem:replica}.
+ */
+public final class Replica {
+
+    /**
+     * Propiedad con la URL JDBC de la réplica; sin ella todo va a la base de datos principal.
+     */
+    public static final String URL = "hibernate.replica.url";
+
+    /**
+     * Propiedad con el usuario de la réplica (por defecto, el de la principal).
+     */
+    public static final String USUARIO = "hibernate.replica.username";
+
+    /**
+     * Propiedad con la contraseña de la réplica (por defecto, la de la principal).
+     */
+    public static final String CONTRASENA = "hibernate.replica.password";
+
+    /**
+     * Propiedad con los milisegundos que se lee de la principal tras una escritura (0 lo desactiva).
+     */
+    public static final String LEER_ESCRITURAS = "hibernate.replica.leer_escrituras_ms";
+
+    /**
+     * Destino de las conexiones del hilo: null fuera de {@link #soloLectura} y {@link #enPrimaria},
+     * true para la réplica y false para leer de la principal.
+     */
+    private static final ThreadLocal<Boolean> LECTURA = new ThreadLocal<>();
+
+    /**
+     * Instante (System.nanoTime) hasta el que las lecturas van a la principal por una escritura reciente
+     * de cualquier hilo.
+     */
+    private static volatile long principalHasta = System.nanoTime();
+
+    /**
+     * Indica si hay una réplica configurada.
+     */
+    private static volatile boolean configurada;
+
+    /**
+     * Tiempo en nanosegundos que se lee de la principal tras una escritura.
+     */
+    private static volatile long leerEscriturasNanos;
+
+    /**
+     * Constructor privado: clase de utilidad no instanciable.
+     */
+    private Replica() {}
+
+    /**
+     * Activa o desactiva el enrutamiento; lo llama {@link ProveedorConexiones} al arrancar.
+     *
+     * @param hayReplica       true si se ha abierto el pool de la réplica.
+     * @param leerEscriturasMs Milisegundos que se lee de la principal tras una escritura.
+     */
+    static void configurar(boolean hayReplica, long leerEscriturasMs) {
+        configurada = hayReplica;
+        leerEscriturasNanos = Math.max(0, leerEscriturasMs) * 1_000_000;
+    }
+
+    /**
+     * Ejecuta una operación de solo lectura, cuyas conexiones van a la réplica salvo que se haya escrito
+     * hace poco, desde cualquier hilo. Dentro de otra llamada a este método o a {@link #enPrimaria} se mantiene el
+     * destino de la llamada exterior.
+     *
+     * @param lectura Operación a ejecutar.
+     * @param <R>     Tipo del resultado.
+     * @return Resultado de la operación.
+     */
+    public static <R> R soloLectura(Supplier<R> lectura) {
+        if (LECTURA.get() != null) {
+            return lectura.get();
+        }
+        LECTURA.set(configurada && System.nanoTime() - principalHasta >= 0);
+        try {
+            return lectura.get();
+        } finally {
+            LECTURA.remove();
+        }
+    }
+
+    /**
+     * Ejecuta una lectura que debe ver los últimos cambios confirmados, como la del índice de búsqueda
+     * tras una escritura, en la base de datos principal.
+     *
+     * @param lectura Operación a ejecutar.
+     * @param <R>     Tipo del resultado.
+     * @return Resultado de la operación.
+     */
+    public static <R> R enPrimaria(Supplier<R> lectura) {
+        Boolean anterior = LECTURA.get();
+        LECTURA.set(false);
+        try {
+            return lectura.get();
+        } finally {
+            LECTURA.set(anterior);
+        }
+    }
+
+    /**
+     * Prepara una operación para ejecutarla en otro hilo con el destino de las conexiones del hilo actual,
+     * de modo que una tarea lanzada dentro de {@link #soloLectura} o {@link #enPrimaria} lea de la misma
+     * base de datos que quien la lanzó.
+     *
+     * @param operacion Operación a ejecutar más tarde.
+     * @param <R>       Tipo del resultado.
+     * @return Operación que fija el destino capturado mientras se ejecuta.
+     */
+    public static <R> Supplier<R> conDestinoActual(Supplier<R> operacion) {
+        Boolean destino = LECTURA.get();
+        return () -> {
+            Boolean anterior = LECTURA.get();
+            LECTURA.set(destino);
+            try {
+                return operacion.get();
+            } finally {
+                LECTURA.set(anterior);
+            }
+        };
+    }
+
+    /**
+     * Indica si las conexiones que pida ahora el hilo van a la réplica.
+     *
+     * @return true dentro de {@link #soloLectura} con una réplica configurada y sin escrituras recientes.
+     */
+    public static boolean enReplica() {
+        return Boolean.TRUE.equals(LECTURA.get());
+    }
+
+    /**
+     * Anota que el hilo usa una conexión de la principal fuera de una lectura, y por tanto puede escribir:
+     * las lecturas de todos los hilos irán a la principal durante {@link #LEER_ESCRITURAS}.
+     */
+    static void anotarEscritura() {
+        if (configurada && leerEscriturasNanos > 0 && LECTURA.get() == null) {
+            principalHasta = System.nanoTime() + leerEscriturasNanos;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package org.example.contadores;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empresa;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Variaciones de los contadores acumuladas durante una transacción.
+ * <p>
+ * Los cambios se suman por departamento y por empresa mientras dura la transacción y se escriben
+ * justo antes de confirmarla, en la misma conexión y con una sola sentencia por fila afectada, así que
+ * insertar miles de empleados en un departamento produce una única actualización de su contador.
+ * Tras confirmar, se eliminan de la caché de segundo nivel solo los departamentos y empresas
+ * afectados y se invalidan las consultas cacheadas sobre sus tablas.
+ */
+final class CambiosContadores implements Synchronization {
+
+    /**
+     * Tablas cuyas consultas cacheadas se invalidan al cambiar los contadores.
+     */
+    private static final String[] TABLAS = {"Departamentos", "Empresas"};
+
+    /**
+     * Sesión de la transacción.
+     */
+    private final SharedSessionContractImplementor session;
+
+    /**
+     * Acción que se ejecuta al terminar la transacción, confirmada o no.
+     */
+    private final Runnable alTerminar;
+
+    /**
+     * Variación del número de empleados por identificador de departamento.
+     */
+    private final Map<Integer, Integer> empleadosPorDepartamento = new HashMap<>();
+
+    /**
+     * Variación del número de empleados por identificador de empresa.
+     */
+    private final Map<Integer, Integer> empleadosPorEmpresa = new HashMap<>();
+
+    /**
+     * Variación del número de departamentos por identificador de empresa.
+     */
+    private final Map<Integer, Integer> departamentosPorEmpresa = new HashMap<>();
+
+    /**
+     * Empresa de cada departamento borrado en la transacción, que ya no se puede consultar.
+     */
+    private final Map<Integer, Integer> empresaDeDepartamentoBorrado = new HashMap<>();
+
+    /**
+     * Departamentos que han cambiado de empresa: empresa de origen y de destino.
+     */
+    private final Map<Integer, int[]> departamentosMovidos = new LinkedHashMap<>();
+
+    /**
+     * Departamentos cuya entrada de la caché de segundo nivel hay que eliminar.
+     */
+    private final Set<Integer> departamentosAfectados = new HashSet<>();
+
+    /**
+     * Empresas cuya entrada de la caché de segundo nivel hay que eliminar.
+     */
+    private final Set<Integer> empresasAfectadas = new HashSet<>();
+
+    /**
+     * Indica si algún contador ha cambiado.
+     */
+    private boolean hayCambios;
+
+    /**
+     * Constructor de los cambios de una transacción.
+     *
+     * @param session    Sesión de la transacción.
+     * @param alTerminar Acción a ejecutar al terminar la transacción.
+     */
+    CambiosContadores(SharedSessionContractImplementor session, Runnable alTerminar) {
+        this.session = session;
+        this.alTerminar = alTerminar;
+    }
+
+    /**
+     * Registra altas (variación positiva) o bajas (negativa) de empleados en un departamento.
+     *
+     * @param departamentoId Departamento de los empleados.
+     * @param variacion      Número de altas, o de bajas con signo negativo.
+     */
+    void empleado(int departamentoId, int variacion) {
+        sumar(empleadosPorDepartamento, departamentoId, variacion);
+        hayCambios = true;
+    }
+
+    /**
+     * Registra el alta (+1) o la baja (-1) de un departamento en una empresa.
+     *
+     * @param departamentoId Departamento creado o borrado.
+     * @param empresaId      Empresa del departamento.
+     * @param variacion      +1 o -1.
+     */
+    void departamento(int departamentoId, int empresaId, int variacion) {
+        sumar(departamentosPorEmpresa, empresaId, variacion);
+        if (variacion < 0) {
+            empresaDeDepartamentoBorrado.put(departamentoId, empresaId);
+        }
+        hayCambios = true;
+    }
+
+    /**
+     * Registra que un departamento ha pasado de una empresa a otra junto con sus empleados.
+     *
+     * @param departamentoId Departamento movido.
+     * @param origen         Empresa anterior.
+     * @param destino        Empresa nueva.
+     */
+    void departamentoMovido(int departamentoId, int origen, int destino) {
+        int[] movimiento = departamentosMovidos.get(departamentoId);
+        if (movimiento == null) {
+            departamentosMovidos.put(departamentoId, new int[]{origen, destino});
+        } else {
+            movimiento[1] = destino; // Se conserva el origen del primer movimiento
+        }
+        hayCambios = true;
+    }
+
+    /**
+     * Registra un departamento actualizado, para eliminarlo de la caché al confirmar: la entidad
+     * actualizada puede llevar un valor antiguo de su contador.
+     *
+     * @param departamentoId Departamento actualizado.
+     */
+    void departamentoActualizado(int departamentoId) {
+        departamentosAfectados.add(departamentoId);
+    }
+
+    /**
+     * Registra una empresa actualizada, para eliminarla de la caché al confirmar.
+     *
+     * @param empresaId Empresa actualizada.
+     */
+    void empresaActualizada(int empresaId) {
+        empresasAfectadas.add(empresaId);
+    }
+
+    @Override
+    public void beforeCompletion() {
+        if (hayCambios) {
+            session.doWork(this::aplicar);
+        }
+    }
+
+    @Override
+    public void afterCompletion(int estado) {
+        try {
+            if (estado == Status.STATUS_COMMITTED) {
+                invalidarCache();
+            }
+        } finally {
+            alTerminar.run();
+        }
+    }
+
+    /**
+     * Escribe las variaciones acumuladas en la base de datos.
+     *
+     * @param conexion Conexión de la transacción.
+     * @throws SQLException Si falla alguna sentencia.
+     */
+    private void aplicar(Connection conexion) throws SQLException {
+        // 1. Departamentos movidos: sus empleados pasan a la otra empresa (con el contador anterior a esta transacción)
+        if (!departamentosMovidos.isEmpty()) {
+            try (PreparedStatement consulta = conexion.prepareStatement("SELECT num_empleados FROM Departamentos WHERE id = ?")) {
+                for (Map.Entry<Integer, int[]> movido : departamentosMovidos.entrySet()) {
+                    int origen = movido.getValue()[0];
+                    int destino = movido.getValue()[1];
+                    if (origen == destino) {
+                        continue;
+                    }
+                    consulta.setInt(1, movido.getKey());
+                    try (ResultSet fila = consulta.executeQuery()) {
+                        int empleados = fila.next() ? fila.getInt(1) : 0;
+                        sumar(empleadosPorEmpresa, origen, -empleados);
+                        sumar(empleadosPorEmpresa, destino, empleados);
+                    }
+                    sumar(departamentosPorEmpresa, origen, -1);
+                    sumar(departamentosPorEmpresa, destino, 1);
+                }
+            }
+        }
+
+        // 2. Empresa de cada departamento con altas o bajas de empleados
+        List<Integer> sinEmpresa = new ArrayList<>();
+        empleadosPorDepartamento.forEach((departamentoId, variacion) -> {
+            Integer empresaId = empresaDeDepartamentoBorrado.get(departamentoId);
+            if (empresaId != null) {
+                sumar(empleadosPorEmpresa, empresaId, variacion);
+            } else if (variacion != 0) {
+                sinEmpresa.add(departamentoId);
+            }
+        });
+        if (!sinEmpresa.isEmpty()) {
+            String marcadores = String.join(",", Collections.nCopies(sinEmpresa.size(), "?"));
+            try (PreparedStatement consulta = conexion.prepareStatement(
+                    "SELECT id, empresa_id FROM Departamentos WHERE id IN (" + marcadores + ")")) {
+                for (int i = 0; i < sinEmpresa.size(); i++) {
+                    consulta.setInt(i + 1, sinEmpresa.get(i));
+                }
+                try (ResultSet filas = consulta.executeQuery()) {
+                    while (filas.next()) {
+                        sumar(empleadosPorEmpresa, filas.getInt(2), empleadosPorDepartamento.get(filas.getInt(1)));
+                    }
+                }
+            }
+        }
+
+        // 3. Contadores de los departamentos
+        try (PreparedStatement actualizacion = conexion.prepareStatement(
+                "UPDATE Departamentos SET num_empleados = num_empleados + ? WHERE id = ?")) {
+            for (Map.Entry<Integer, Integer> cambio : empleadosPorDepartamento.entrySet()) {
+                if (cambio.getValue() != 0) {
+                    actualizacion.setInt(1, cambio.getValue());
+                    actualizacion.setInt(2, cambio.getKey());
+                    actualizacion.addBatch();
+                    departamentosAfectados.add(cambio.getKey());
+                }
+            }
+            actualizacion.executeBatch();
+        }
+        departamentosAfectados.addAll(departamentosMovidos.keySet());
+
+        // 4. Contadores de las empresas
+        Set<Integer> empresas = new HashSet<>(empleadosPorEmpresa.keySet());
+        empresas.addAll(departamentosPorEmpresa.keySet());
+        try (PreparedStatement actualizacion = conexion.prepareStatement(
+                "UPDATE Empresas SET num_departamentos = num_departamentos + ?, num_empleados = num_empleados + ? WHERE id = ?")) {
+            for (Integer empresaId : empresas) {
+                int departamentos = departamentosPorEmpresa.getOrDefault(empresaId, 0);
+                int empleados = empleadosPorEmpresa.getOrDefault(empresaId, 0);
+                if (departamentos != 0 || empleados != 0) {
+                    actualizacion.setInt(1, departamentos);
+                    actualizacion.setInt(2, empleados);
+                    actualizacion.setInt(3, empresaId);
+                    actualizacion.addBatch();
+                    empresasAfectadas.add(empresaId);
+                }
+            }
+            actualizacion.executeBatch();
+        }
+    }
+
+    /**
+     * Elimina de la caché de segundo nivel los departamentos y empresas afectados e invalida las
+     * consultas cacheadas sobre sus tablas.
+     */
+    private void invalidarCache() {
+        CacheImplementor cache = session.getFactory().getCache();
+        departamentosAfectados.forEach(id -> cache.evictEntityData(Departamento.class, id));
+        empresasAfectadas.forEach(id -> cache.evictEntityData(Empresa.class, id));
+        if (hayCambios) {
+            cache.getTimestampsCache().invalidate(TABLAS, session);
+        }
+    }
+
+    /**
+     * Suma una variación al contador de una clave.
+     *
+     * @param contadores Variaciones por clave.
+     * @param clave      Clave.
+     * @param variacion  Variación a sumar.
+     */
+    private static void sumar(Map<Integer, Integer> contadores, int clave, int variacion) {
+        contadores.merge(clave, variacion, Integer::sum);
+    }
+}
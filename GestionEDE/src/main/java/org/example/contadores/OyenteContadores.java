@@ -0,0 +1,223 @@
+package org.example.contadores;
+
+import jakarta.transaction.Status;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Mantiene los contadores {@code Departamento.numEmpleados}, {@code Empresa.numDepartamentos} y
+ * {@code Empresa.numEmpleados} a partir de los eventos de Hibernate, de modo que se actualizan en la
+ * misma transacción que cualquier alta, baja o cambio de departamento o de empresa hecho desde los
+ * repositorios, desde una unidad de trabajo o en cascada.
+ * <p>
+ * Hibernate no pasa la sesión a los eventos de una StatelessSession, así que las inserciones con
+ * ellas se anotan con {@link #anotarAltas} (como hace el importador CSV), y los cambios que los
+ * repositorios escriben con sentencias propias con {@link #anotarAlta(Session, Object)},
+ * {@link #anotarEmpleados} y {@link #anotarBajaDepartamento}. Los demás cambios con
+ * StatelessSession, y cualquier cambio hecho fuera de la aplicación, los corrige
+ * {@link ReconciliacionContadores}.
+ */
+public class OyenteContadores implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    /**
+     * Cambios pendientes de la transacción en curso de cada sesión.
+     */
+    private static final Map<SharedSessionContractImplementor, CambiosContadores> CAMBIOS = new ConcurrentHashMap<>();
+
+    /**
+     * Registra el oyente en los eventos de inserción, actualización y borrado de una fábrica de sesiones.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     */
+    public static void registrar(SessionFactory sessionFactory) {
+        OyenteContadores oyente = new OyenteContadores();
+        EventListenerRegistry registro = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_INSERT, oyente);
+        // Antes que las retrollamadas @PostUpdate de las entidades, que sustituyen el departamento o la
+        // empresa guardados por los nuevos
+        registro.prependListeners(EventType.POST_UPDATE, oyente);
+        registro.appendListeners(EventType.POST_DELETE, oyente);
+    }
+
+    /**
+     * Anota en la transacción en curso de una StatelessSession las altas de un lote de entidades.
+     * Las StatelessSession no pasan su sesión a los eventos, así que quien inserta con ellas debe
+     * llamar a este método antes de confirmar la transacción.
+     *
+     * @param session   Sesión sin estado con una transacción en curso.
+     * @param entidades Entidades insertadas en la transacción.
+     */
+    public static void anotarAltas(StatelessSession session, Collection<?> entidades) {
+        CambiosContadores cambios = new CambiosContadores((SharedSessionContractImplementor) session, () -> {});
+        entidades.forEach(entidad -> anotarAlta(cambios, entidad));
+        session.getTransaction().registerSynchronization(cambios);
+    }
+
+    /**
+     * Anota en la transacción en curso de una sesión el alta de una entidad insertada con una sentencia
+     * propia del repositorio, que no produce eventos de Hibernate.
+     *
+     * @param session Sesión con una transacción en curso.
+     * @param entidad Entidad insertada.
+     */
+    public static void anotarAlta(Session session, Object entidad) {
+        anotar(session.unwrap(SharedSessionContractImplementor.class), c -> anotarAlta(c, entidad));
+    }
+
+    /**
+     * Anota en la transacción en curso de una sesión altas o bajas de empleados en un departamento
+     * escritas con sentencias sobre conjuntos, como al mover empleados de departamento en bloque.
+     *
+     * @param session        Sesión con una transacción en curso.
+     * @param departamentoId Departamento de los empleados.
+     * @param variacion      Número de altas, o de bajas con signo negativo.
+     */
+    public static void anotarEmpleados(Session session, int departamentoId, int variacion) {
+        anotar(session.unwrap(SharedSessionContractImplementor.class), c -> c.empleado(departamentoId, variacion));
+    }
+
+    /**
+     * Anota en la transacción en curso de una sesión la baja de un departamento y de sus empleados,
+     * borrados con sentencias sobre conjuntos que no producen eventos de Hibernate. Se suma a los
+     * cambios que la transacción ya hubiera anotado, así que los empleados deben contarse después de
+     * enviar a la base de datos los cambios pendientes de la sesión.
+     *
+     * @param session        Sesión con una transacción en curso.
+     * @param departamentoId Departamento borrado.
+     * @param empresaId      Empresa del departamento.
+     * @param empleados      Empleados que tenía el departamento al borrarlo.
+     */
+    public static void anotarBajaDepartamento(Session session, int departamentoId, int empresaId, int empleados) {
+        anotar(session.unwrap(SharedSessionContractImplementor.class), c -> {
+            c.empleado(departamentoId, -empleados);
+            c.departamento(departamentoId, empresaId, -1);
+        });
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getSession() != null) { // Las StatelessSession se anotan con anotarAltas
+            anotar(event.getSession(), c -> anotarAlta(c, event.getEntity()));
+        }
+    }
+
+    /**
+     * Anota el alta de una entidad.
+     *
+     * @param cambios Cambios pendientes de la transacción.
+     * @param entidad Entidad insertada.
+     */
+    private static void anotarAlta(CambiosContadores cambios, Object entidad) {
+        if (entidad instanceof Empleado empleado) {
+            cambios.empleado(empleado.getDepartamento().getId(), 1);
+        } else if (entidad instanceof Departamento departamento) {
+            cambios.departamento(departamento.getId(), departamento.getEmpresa().getId(), 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getSession() == null) {
+            return; // StatelessSession: lo corrige ReconciliacionContadores
+        }
+        if (event.getEntity() instanceof Empleado empleado) {
+            anotar(event.getSession(), c -> c.empleado(empleado.getDepartamento().getId(), -1));
+        } else if (event.getEntity() instanceof Departamento departamento) {
+            anotar(event.getSession(), c -> c.departamento(departamento.getId(), departamento.getEmpresa().getId(), -1));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getSession() == null) {
+            return; // StatelessSession: lo corrige ReconciliacionContadores
+        }
+        if (event.getEntity() instanceof Empleado empleado) {
+            Departamento anterior = (Departamento) valorAnterior(event, "departamento");
+            Integer anteriorId = anterior != null ? Integer.valueOf(anterior.getId()) : empleado.getDepartamentoIdGuardado();
+            if (anteriorId != null && anteriorId != empleado.getDepartamento().getId()) {
+                anotar(event.getSession(), c -> {
+                    c.empleado(anteriorId, -1);
+                    c.empleado(empleado.getDepartamento().getId(), 1);
+                });
+            }
+        } else if (event.getEntity() instanceof Departamento departamento) {
+            Empresa anterior = (Empresa) valorAnterior(event, "empresa");
+            Integer anteriorId = anterior != null ? Integer.valueOf(anterior.getId()) : departamento.getEmpresaIdGuardada();
+            anotar(event.getSession(), c -> {
+                c.departamentoActualizado(departamento.getId());
+                if (anteriorId != null && anteriorId != departamento.getEmpresa().getId()) {
+                    c.departamentoMovido(departamento.getId(), anteriorId, departamento.getEmpresa().getId());
+                }
+            });
+        } else if (event.getEntity() instanceof Empresa empresa) {
+            anotar(event.getSession(), c -> c.empresaActualizada(empresa.getId()));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Obtiene el valor que tenía un atributo antes de la actualización.
+     *
+     * @param event    Evento de actualización.
+     * @param atributo Nombre del atributo.
+     * @return Valor anterior, o null si la sesión no conocía el estado anterior (la entidad se actualizó
+     * sin volver a leerla; entonces se usa el valor que la entidad recordó al leerla).
+     */
+    private static Object valorAnterior(PostUpdateEvent event, String atributo) {
+        Object[] estadoAnterior = event.getOldState();
+        if (estadoAnterior == null) {
+            return null;
+        }
+        int indice = Arrays.asList(event.getPersister().getPropertyNames()).indexOf(atributo);
+        return estadoAnterior[indice];
+    }
+
+    /**
+     * Anota un cambio en los pendientes de la transacción en curso de una sesión, registrándolos en la
+     * transacción la primera vez. Fuera de una transacción, el cambio se aplica al momento.
+     *
+     * @param session Sesión que ha producido el evento.
+     * @param cambio  Cambio a anotar.
+     */
+    private static void anotar(SharedSessionContractImplementor session, Consumer<CambiosContadores> cambio) {
+        if (!session.isTransactionInProgress()) {
+            CambiosContadores inmediatos = new CambiosContadores(session, () -> {});
+            cambio.accept(inmediatos);
+            inmediatos.beforeCompletion();
+            inmediatos.afterCompletion(Status.STATUS_COMMITTED);
+            return;
+        }
+        cambio.accept(CAMBIOS.computeIfAbsent(session, s -> {
+            CambiosContadores nuevos = new CambiosContadores(s, () -> CAMBIOS.remove(s));
+            s.getTransaction().registerSynchronization(nuevos);
+            return nuevos;
+        }));
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.contadores;
+
+import org.example.configuracion.ConfiguracionHibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Comprueba y corrige los contadores de empleados y departamentos recontando las filas reales.
+ * <p>
+ * {@link OyenteContadores} mantiene los contadores en cada transacción de la aplicación; esta tarea
+ * detecta las desviaciones que pueden introducir los cambios hechos fuera de ella (SQL manual,
+ * otras aplicaciones) y los vuelve a calcular con dos sentencias UPDATE masivas. Pensada para
+ * ejecutarse de forma periódica o tras una carga externa.
+ * <p>
+ * Uso: {@code ReconciliacionContadores [--reparar]}. Sin argumentos solo informa de las desviaciones.
+ */
+public class ReconciliacionContadores {
+
+    /**
+     * Desviación entre un contador guardado y el número real de filas.
+     *
+     * @param entidad  Entidad del contador ("Departamento" o "Empresa").
+     * @param id       Identificador de la entidad.
+     * @param contador Nombre del contador.
+     * @param guardado Valor guardado.
+     * @param real     Valor real.
+     */
+    public record Desajuste(String entidad, int id, String contador, long guardado, long real) {}
+
+    /**
+     * Fábrica de sesiones de Hibernate utilizada para las consultas.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Constructor que inicializa la tarea con la fábrica de sesiones de Hibernate.
+     *
+     * @param sessionFactory Fábrica de sesiones utilizada para las consultas.
+     */
+    public ReconciliacionContadores(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Busca los contadores que no coinciden con el número real de filas.
+     *
+     * @return Desviaciones encontradas (vacía si todos los contadores son correctos).
+     */
+    public List<Desajuste> comprobar() {
+        List<Desajuste> desajustes = new ArrayList<>();
+        try (Session session = sessionFactory.openSession()) {
+            session.createQuery(
+                            "SELECT d.id, d.numEmpleados, (SELECT COUNT(e) FROM Empleado e WHERE e.departamento = d) " +
+                                    "FROM Departamento d " +
+                                    "WHERE d.numEmpleados <> (SELECT COUNT(e) FROM Empleado e WHERE e.departamento = d) " +
+                                    "ORDER BY d.id", Object[].class)
+                    .getResultList()
+                    .forEach(fila -> desajustes.add(desajuste("Departamento", "numEmpleados", fila)));
+
+            session.createQuery(
+                            "SELECT em.id, em.numDepartamentos, (SELECT COUNT(d) FROM Departamento d WHERE d.empresa = em) " +
+                                    "FROM Empresa em " +
+                                    "WHERE em.numDepartamentos <> (SELECT COUNT(d) FROM Departamento d WHERE d.empresa = em) " +
+                                    "ORDER BY em.id", Object[].class)
+                    .getResultList()
+                    .forEach(fila -> desajustes.add(desajuste("Empresa", "numDepartamentos", fila)));
+
+            session.createQuery(
+                            "SELECT em.id, em.numEmpleados, (SELECT COUNT(e) FROM Empleado e WHERE e.departamento.empresa = em) " +
+                                    "FROM Empresa em " +
+                                    "WHERE em.numEmpleados <> (SELECT COUNT(e) FROM Empleado e WHERE e.departamento.empresa = em) " +
+                                    "ORDER BY em.id", Object[].class)
+                    .getResultList()
+                    .forEach(fila -> desajustes.add(desajuste("Empresa", "numEmpleados", fila)));
+        }
+        return desajustes;
+    }
+
+    /**
+     * Vuelve a calcular todos los contadores a partir de las filas reales, en una única transacción.
+     * Las actualizaciones masivas invalidan por sí solas las entidades y consultas cacheadas.
+     *
+     * @return Número de filas actualizadas (departamentos más empresas).
+     */
+    public int reparar() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            try {
+                int filas = session.createMutationQuery(
+                                "UPDATE Departamento d " +
+                                        "SET d.numEmpleados = (SELECT COUNT(e) FROM Empleado e WHERE e.departamento = d)")
+                        .executeUpdate();
+                filas += session.createMutationQuery(
+                                "UPDATE Empresa em " +
+                                        "SET em.numDepartamentos = (SELECT COUNT(d) FROM Departamento d WHERE d.empresa = em), " +
+                                        "em.numEmpleados = (SELECT COUNT(e) FROM Empleado e WHERE e.departamento.empresa = em)")
+                        .executeUpdate();
+                session.getTransaction().commit();
+                return filas;
+            } catch (RuntimeException e) {
+                session.getTransaction().rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Construye una desviación a partir de una fila de las consultas de comprobación.
+     *
+     * @param entidad  Entidad del contador.
+     * @param contador Nombre del contador.
+     * @param fila     Identificador, valor guardado y valor real.
+     * @return Desviación.
+     */
+    private static Desajuste desajuste(String entidad, String contador, Object[] fila) {
+        return new Desajuste(entidad, (Integer) fila[0], contador, ((Number) fila[1]).longValue(), ((Number) fila[2]).longValue());
+    }
+
+    /**
+     * Método principal de la herramienta.
+     *
+     * @param args "--reparar" para corregir las desviaciones encontradas (opcional).
+     */
+    public static void main(String[] args) {
+        boolean reparar = args.length > 0 && args[0].equals("--reparar");
+
+        try (SessionFactory sessionFactory = ConfiguracionHibernate.crearSessionFactory()) {
+            ReconciliacionContadores reconciliacion = new ReconciliacionContadores(sessionFactory);
+            List<Desajuste> desajustes = reconciliacion.comprobar();
+            if (desajustes.isEmpty()) {
+                System.out.println(">> Todos los contadores son correctos.");
+                return;
+            }
+
+            System.out.println(">> Contadores desajustados: " + desajustes.size());
+            desajustes.forEach(d -> System.out.printf("- %s %d, %s: guardado %d, real %d%n",
+                    d.entidad(), d.id(), d.contador(), d.guardado(), d.real()));
+            if (reparar) {
+                reconciliacion.reparar();
+                System.out.println(">> Contadores recalculados. Desajustes restantes: " + reconciliacion.comprobar().size());
+            } else {
+                System.out.println(">> Ejecute con --reparar para corregirlos.");
+            }
+        }
+    }
+}
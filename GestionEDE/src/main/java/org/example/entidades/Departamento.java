@@ -1,40 +1,89 @@
 package org.example.entidades;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Filter;
 import java.util.List;
 
 /**
  * Entidad que representa un departamento dentro de una empresa.
+ * Se guarda en la caché de segundo nivel con estrategia de lectura-escritura, y sus actualizaciones
+ * solo escriben las columnas modificadas. Con el filtro {@link Empresa#FILTRO_EMPRESA} activo solo se
+ * ven los departamentos de la empresa.
  */
 @Entity
-@Table(name = "Departamentos")
+@Table(name = "Departamentos", indexes = {
+        // Departamentos de una empresa (informe por empresa y borrado en cascada)
+        @Index(name = "idx_departamentos_empresa", columnList = "empresa_id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
+@Filter(name = Empresa.FILTRO_EMPRESA, condition = "empresa_id = :" + Empresa.PARAMETRO_EMPRESA)
+@NamedEntityGraph(name = Departamento.GRAFO_CON_EMPRESA, attributeNodes = @NamedAttributeNode("empresa"))
 public class Departamento {
 
     /**
-     * Identificador único del departamento.
+     * Grafo de entidad que carga el departamento junto con su empresa.
+     */
+    public static final String GRAFO_CON_EMPRESA = "departamento-with-empresa";
+
+    /**
+     * Identificador único del departamento. Generado automáticamente por bloques de 50 valores.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "departamentos_seq")
+    @SequenceGenerator(name = "departamentos_seq", sequenceName = "Departamentos_seq", allocationSize = 50)
     private int id;
 
     /**
      * Nombre del departamento. No puede ser nulo.
      */
-    @Column(name = "nombre", nullable = false)
+    @Column(name = "nombre", nullable = false, length = 100)
     private String nombre;
 
     /**
      * Empresa a la que pertenece el departamento.
-     * Se define una relación @ManyToOne con la entidad Empresa.
+     * Se define una relación @ManyToOne con la entidad Empresa, cargada de forma diferida:
+     * las operaciones que necesitan la empresa usan {@link #GRAFO_CON_EMPRESA}.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "empresa_id", nullable = false)
     private Empresa empresa;
 
+    /**
+     * Número de empleados del departamento, mantenido por {@link org.example.contadores.OyenteContadores}
+     * en la misma transacción que crea, borra o cambia de departamento a los empleados.
+     * Hibernate no lo incluye en las actualizaciones de la entidad.
+     */
+    @Column(name = "num_empleados", nullable = false, updatable = false)
+    private int numEmpleados;
+
+    /**
+     * Versión de la fila para el control de concurrencia optimista. Hibernate la incrementa en cada
+     * actualización y la añade a la condición del UPDATE, que no modifica ninguna fila si otro usuario
+     * ha guardado un cambio desde que se leyó el departamento.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private int version;
+
+    /**
+     * Identificador de la empresa que tenía el departamento al leerlo o guardarlo por última vez. Cuando el
+     * departamento se actualiza sin volver a leerlo, {@link org.example.contadores.OyenteContadores} lo usa
+     * como empresa anterior: si la versión no ha cambiado, la fila sigue teniendo esa empresa.
+     */
+    @Transient
+    private Integer empresaIdGuardada;
+
     /**
      * Lista de empleados asociados al departamento.
      * Se define una relación @OneToMany con la entidad Empleado.
+     * La colección se guarda en la caché de segundo nivel.
      */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "departamento", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Empleado> empleados;
 
@@ -108,6 +157,53 @@ public class Departamento {
         this.empresa = empresa;
     }
 
+    /**
+     * Obtiene el número de empleados del departamento sin recorrer la tabla de empleados.
+     *
+     * @return Número de empleados del departamento.
+     */
+    public int getNumEmpleados() {
+        return numEmpleados;
+    }
+
+    /**
+     * Obtiene la versión del departamento leída de la base de datos.
+     *
+     * @return Versión de la fila.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Establece la versión del departamento sobre la que se han hecho los cambios, por ejemplo la que envía
+     * un cliente que leyó la entidad antes.
+     *
+     * @param version Versión de la fila.
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Obtiene el identificador de la empresa que tenía el departamento al leerlo o guardarlo por última vez.
+     *
+     * @return Identificador de la empresa, o null si el departamento no se ha leído ni guardado.
+     */
+    public Integer getEmpresaIdGuardada() {
+        return empresaIdGuardada;
+    }
+
+    /**
+     * Recuerda la empresa del departamento tras leerlo o guardarlo.
+     */
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    private void recordarEmpresa() {
+        empresaIdGuardada = empresa == null ? null : empresa.getId();
+    }
+
     /**
      * Obtiene la lista de empleados asociados al departamento.
      *
@@ -1,47 +1,95 @@
 package org.example.entidades;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Filter;
 
 /**
  * Entidad que representa un empleado en la base de datos.
+ * Se guarda en la caché de segundo nivel con estrategia de lectura-escritura, y sus actualizaciones
+ * solo escriben las columnas modificadas. Con el filtro {@link Empresa#FILTRO_EMPRESA} activo solo se
+ * ven los empleados de los departamentos de la empresa.
  */
 @Entity
-@Table(name = "Empleados")
+@Table(name = "Empleados", indexes = {
+        // Empleados de un departamento ordenados por apellido y nombre (InnoDB añade el DNI al final)
+        @Index(name = "idx_empleados_departamento_apellido_nombre", columnList = "departamento_id, apellido, nombre")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
+@Filter(name = Empresa.FILTRO_EMPRESA, condition = "departamento_id IN (SELECT d.id FROM Departamentos d WHERE d.empresa_id = :"
+        + Empresa.PARAMETRO_EMPRESA + ")")
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Empleado.GRAFO_BASICO),
+        @NamedEntityGraph(name = Empleado.GRAFO_CON_DEPARTAMENTO, attributeNodes = @NamedAttributeNode("departamento"))
+})
 public class Empleado {
 
+    /**
+     * Grafo de entidad que carga solo las columnas del empleado.
+     */
+    public static final String GRAFO_BASICO = "empleado-basic";
+
+    /**
+     * Grafo de entidad que carga el empleado junto con su departamento.
+     */
+    public static final String GRAFO_CON_DEPARTAMENTO = "empleado-with-departamento";
+
     /**
      * DNI del empleado, actúa como clave primaria y es único para cada empleado.
+     * Se limita a 20 caracteres porque forma parte de todos los índices secundarios de la tabla.
      */
     @Id
-    @Column(name = "dni", nullable = false, unique = true)
+    @Column(name = "dni", nullable = false, length = 20)
     private String dni;
 
     /**
      * Nombre del empleado. No puede ser nulo.
      */
-    @Column(name = "nombre", nullable = false)
+    @Column(name = "nombre", nullable = false, length = 100)
     private String nombre;
 
     /**
      * Apellido del empleado. No puede ser nulo.
      */
-    @Column(name = "apellido", nullable = false)
+    @Column(name = "apellido", nullable = false, length = 100)
     private String apellido;
 
     /**
      * Puesto o cargo del empleado. No puede ser nulo.
      */
-    @Column(name = "puesto", nullable = false)
+    @Column(name = "puesto", nullable = false, length = 100)
     private String puesto;
 
     /**
      * Departamento al que pertenece el empleado.
-     * Relación @ManyToOne con la entidad Departamento.
+     * Relación @ManyToOne con la entidad Departamento, cargada de forma diferida:
+     * las operaciones que necesitan el departamento usan {@link #GRAFO_CON_DEPARTAMENTO}.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "departamento_id", nullable = false)
     private Departamento departamento;
 
+    /**
+     * Versión de la fila para el control de concurrencia optimista. Hibernate la incrementa en cada
+     * actualización y la añade a la condición del UPDATE, que no modifica ninguna fila si otro usuario
+     * ha guardado un cambio desde que se leyó el empleado.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private int version;
+
+    /**
+     * Identificador del departamento que tenía el empleado al leerlo o guardarlo por última vez. Cuando el
+     * empleado se actualiza sin volver a leerlo, {@link org.example.contadores.OyenteContadores} lo usa como
+     * departamento anterior: si la versión no ha cambiado, la fila sigue teniendo ese departamento.
+     */
+    @Transient
+    private Integer departamentoIdGuardado;
+
     /**
      * Constructor por defecto.
      */
@@ -153,4 +201,42 @@ public class Empleado {
     public void setDepartamento(Departamento departamento) {
         this.departamento = departamento;
     }
+
+    /**
+     * Obtiene la versión del empleado leída de la base de datos.
+     *
+     * @return Versión de la fila.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Establece la versión del empleado sobre la que se han hecho los cambios, por ejemplo la que envía
+     * un cliente que leyó la entidad antes.
+     *
+     * @param version Versión de la fila.
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Obtiene el identificador del departamento que tenía el empleado al leerlo o guardarlo por última vez.
+     *
+     * @return Identificador del departamento, o null si el empleado no se ha leído ni guardado.
+     */
+    public Integer getDepartamentoIdGuardado() {
+        return departamentoIdGuardado;
+    }
+
+    /**
+     * Recuerda el departamento del empleado tras leerlo o guardarlo.
+     */
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    private void recordarDepartamento() {
+        departamentoIdGuardado = departamento == null ? null : departamento.getId();
+    }
 }
@@ -1,34 +1,87 @@
 package org.example.entidades;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
 import java.util.List;
 
 /**
  * Entidad que representa una empresa en la base de datos.
+ * Se guarda en la caché de segundo nivel con estrategia de lectura-escritura, y sus actualizaciones
+ * solo escriben las columnas modificadas.
+ * <p>
+ * Define el filtro {@link #FILTRO_EMPRESA}, que limita las consultas y las lecturas por identificador de
+ * empresas, departamentos y empleados a los de una empresa (ver
+ * {@link org.example.configuracion.ContextoInquilino}).
  */
 @Entity
 @Table(name = "Empresas")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
+@FilterDef(name = Empresa.FILTRO_EMPRESA, parameters = @ParamDef(name = Empresa.PARAMETRO_EMPRESA, type = Integer.class),
+        applyToLoadByKey = true)
+@Filter(name = Empresa.FILTRO_EMPRESA, condition = "id = :" + Empresa.PARAMETRO_EMPRESA)
 public class Empresa {
 
     /**
-     * Identificador único de la empresa. Generado automáticamente.
+     * Filtro de Hibernate que limita los datos a los de una empresa.
+     */
+    public static final String FILTRO_EMPRESA = "empresa";
+
+    /**
+     * Parámetro del filtro {@link #FILTRO_EMPRESA} con el identificador de la empresa.
+     */
+    public static final String PARAMETRO_EMPRESA = "empresaId";
+
+    /**
+     * Identificador único de la empresa. Generado automáticamente por bloques de 50 valores
+     * (optimizador pooled), lo que permite agrupar las inserciones en lotes JDBC.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "empresas_seq")
+    @SequenceGenerator(name = "empresas_seq", sequenceName = "Empresas_seq", allocationSize = 50)
     private int id;
 
     /**
      * Nombre de la empresa. No puede ser nulo.
      */
-    @Column(name = "nombre", nullable = false)
+    @Column(name = "nombre", nullable = false, length = 150)
     private String nombre;
 
     /**
      * Industria o sector al que pertenece la empresa. No puede ser nulo.
      */
-    @Column(name = "industria", nullable = false)
+    @Column(name = "industria", nullable = false, length = 100)
     private String industria;
 
+    /**
+     * Número de departamentos de la empresa, mantenido por {@link org.example.contadores.OyenteContadores}.
+     * Hibernate no lo incluye en las actualizaciones de la entidad.
+     */
+    @Column(name = "num_departamentos", nullable = false, updatable = false)
+    private int numDepartamentos;
+
+    /**
+     * Número de empleados de todos los departamentos de la empresa, mantenido por
+     * {@link org.example.contadores.OyenteContadores}. Hibernate no lo incluye en las actualizaciones de la entidad.
+     */
+    @Column(name = "num_empleados", nullable = false, updatable = false)
+    private int numEmpleados;
+
+    /**
+     * Versión de la fila para el control de concurrencia optimista. Hibernate la incrementa en cada
+     * actualización y la añade a la condición del UPDATE, que no modifica ninguna fila si otro usuario
+     * ha guardado un cambio desde que se leyó la empresa.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private int version;
+
     /**
      * Lista de departamentos asociados a la empresa.
      * Relación @OneToMany con la entidad Departamento.
@@ -106,6 +159,43 @@ public class Empresa {
         this.industria = industria;
     }
 
+    /**
+     * Obtiene el número de departamentos de la empresa.
+     *
+     * @return Número de departamentos.
+     */
+    public int getNumDepartamentos() {
+        return numDepartamentos;
+    }
+
+    /**
+     * Obtiene el número de empleados de la empresa.
+     *
+     * @return Número de empleados de todos sus departamentos.
+     */
+    public int getNumEmpleados() {
+        return numEmpleados;
+    }
+
+    /**
+     * Obtiene la versión de la empresa leída de la base de datos.
+     *
+     * @return Versión de la fila.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Establece la versión de la empresa sobre la que se han hecho los cambios, por ejemplo la que envía
+     * un cliente que leyó la entidad antes.
+     *
+     * @param version Versión de la fila.
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Obtiene la lista de departamentos asociados a la empresa.
      *
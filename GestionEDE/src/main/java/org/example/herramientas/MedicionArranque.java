@@ -0,0 +1,52 @@
+package org.example.herramientas;
+
+import org.example.configuracion.ConfiguracionHibernate;
+import org.example.entidades.Empresa;
+import org.example.repositorios.EmpresaRepository;
+import org.example.repositorios.Page;
+import org.example.repositorios.PageRequest;
+import org.hibernate.SessionFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Herramienta de línea de comandos que mide el tiempo de arranque en frío hasta la primera consulta:
+ * desde que arranca la JVM hasta {@code main}, la construcción de la SessionFactory (incluido el pool
+ * de conexiones) y la primera consulta a la base de datos.
+ * <p>
+ * Cada ejecución mide un único arranque, así que para comparar configuraciones se lanza varias veces,
+ * por ejemplo con y sin {@code -Dhibernate.hbm2ddl.auto=update} o con y sin el archivo AppCDS
+ * ({@code -XX:SharedArchiveFile=target/gestion-ede.jsa}, ver appcds.sh). También sirve como
+ * ejecución de entrenamiento para generar ese archivo.
+ */
+public class MedicionArranque {
+
+    /**
+     * Método principal de la herramienta.
+     *
+     * @param args Argumentos de línea de comandos (no utilizados).
+     */
+    public static void main(String[] args) {
+        long inicioMain = System.nanoTime();
+        Instant inicioJvm = ProcessHandle.current().info().startInstant().orElse(null);
+        Duration hastaMain = inicioJvm == null ? null : Duration.between(inicioJvm, Instant.now());
+
+        try (SessionFactory sessionFactory = ConfiguracionHibernate.crearSessionFactory()) {
+            long finSessionFactory = System.nanoTime();
+
+            Page<Empresa> pagina = new EmpresaRepository(sessionFactory).listar(PageRequest.primera(1));
+            long finConsulta = System.nanoTime();
+
+            System.out.println(">> Tiempo de arranque hasta la primera consulta:");
+            System.out.println("- JVM hasta main:        " + (hastaMain == null ? "no disponible" : hastaMain.toMillis() + " ms"));
+            System.out.printf("- SessionFactory:        %d ms%n", (finSessionFactory - inicioMain) / 1_000_000);
+            System.out.printf("- Primera consulta:      %d ms (%d filas)%n", (finConsulta - finSessionFactory) / 1_000_000,
+                    pagina.contenido().size());
+            System.out.printf("- Total desde main:      %d ms%n", (finConsulta - inicioMain) / 1_000_000);
+            if (hastaMain != null) {
+                System.out.printf("- Total desde la JVM:    %d ms%n", hastaMain.toMillis() + (finConsulta - inicioMain) / 1_000_000);
+            }
+        }
+    }
+}
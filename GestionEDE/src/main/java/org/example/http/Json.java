@@ -0,0 +1,168 @@
+package org.example.http;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.example.informes.DepartamentoResumen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lectura y escritura de JSON en streaming para el servicio HTTP.
+ * <p>
+ * Las entidades se escriben campo a campo directamente sobre la respuesta con un {@link JsonGenerator},
+ * sin construir árboles ni cadenas intermedias. Las asociaciones se escriben solo por su clave
+ * ("empresaId", "departamentoId"), que Hibernate conoce sin inicializar el proxy.
+ */
+final class Json {
+
+    /**
+     * Fábrica de generadores y analizadores; es segura entre hilos y se comparte.
+     */
+    static final JsonFactory FABRICA = new JsonFactory();
+
+    /**
+     * Constructor privado: clase de utilidad no instanciable.
+     */
+    private Json() {}
+
+    /**
+     * Lee un objeto JSON plano (sin objetos ni listas anidados) del cuerpo de una petición.
+     *
+     * @param entrada Cuerpo de la petición.
+     * @return Campos del objeto con su valor (texto, número, booleano o null).
+     * @throws IOException              Si falla la lectura.
+     * @throws IllegalArgumentException Si el cuerpo no es un objeto JSON plano.
+     */
+    static Map<String, Object> leerObjeto(InputStream entrada) throws IOException {
+        Map<String, Object> campos = new LinkedHashMap<>();
+        try (JsonParser parser = FABRICA.createParser(entrada)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("El cuerpo debe ser un objeto JSON");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                JsonToken valor = parser.nextToken();
+                switch (valor) {
+                    case VALUE_STRING -> campos.put(campo, parser.getText());
+                    case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> campos.put(campo, parser.getNumberValue());
+                    case VALUE_TRUE, VALUE_FALSE -> campos.put(campo, parser.getBooleanValue());
+                    case VALUE_NULL -> campos.put(campo, null);
+                    default -> throw new IllegalArgumentException("El campo \"" + campo + "\" debe ser un valor simple");
+                }
+            }
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("JSON no válido: " + e.getOriginalMessage(), e);
+        }
+        return campos;
+    }
+
+    /**
+     * Obtiene un campo de texto obligatorio.
+     *
+     * @param campos Campos de la petición.
+     * @param nombre Nombre del campo.
+     * @return Valor del campo, sin espacios en los extremos.
+     * @throws IllegalArgumentException Si falta el campo o está vacío.
+     */
+    static String texto(Map<String, Object> campos, String nombre) {
+        Object valor = campos.get(nombre);
+        if (valor == null || valor.toString().isBlank()) {
+            throw new IllegalArgumentException("Falta el campo \"" + nombre + "\"");
+        }
+        return valor.toString().trim();
+    }
+
+    /**
+     * Obtiene un campo entero obligatorio.
+     *
+     * @param campos Campos de la petición.
+     * @param nombre Nombre del campo.
+     * @return Valor del campo.
+     * @throws IllegalArgumentException Si falta el campo o no es un entero.
+     */
+    static int entero(Map<String, Object> campos, String nombre) {
+        Object valor = campos.get(nombre);
+        if (valor instanceof Number numero) {
+            return numero.intValue();
+        }
+        return Integer.parseInt(texto(campos, nombre)); // También se admite el número entre comillas
+    }
+
+    /**
+     * Escribe una empresa como objeto JSON.
+     *
+     * @param json    Generador de la respuesta.
+     * @param empresa Empresa a escribir.
+     * @throws IOException Si falla la escritura.
+     */
+    static void escribir(JsonGenerator json, Empresa empresa) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", empresa.getId());
+        json.writeStringField("nombre", empresa.getNombre());
+        json.writeStringField("industria", empresa.getIndustria());
+        json.writeNumberField("numDepartamentos", empresa.getNumDepartamentos());
+        json.writeNumberField("numEmpleados", empresa.getNumEmpleados());
+        json.writeNumberField("version", empresa.getVersion());
+        json.writeEndObject();
+    }
+
+    /**
+     * Escribe un departamento como objeto JSON.
+     *
+     * @param json         Generador de la respuesta.
+     * @param departamento Departamento a escribir.
+     * @throws IOException Si falla la escritura.
+     */
+    static void escribir(JsonGenerator json, Departamento departamento) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", departamento.getId());
+        json.writeStringField("nombre", departamento.getNombre());
+        json.writeNumberField("empresaId", departamento.getEmpresa().getId());
+        json.writeNumberField("numEmpleados", departamento.getNumEmpleados());
+        json.writeNumberField("version", departamento.getVersion());
+        json.writeEndObject();
+    }
+
+    /**
+     * Escribe un empleado como objeto JSON.
+     *
+     * @param json     Generador de la respuesta.
+     * @param empleado Empleado a escribir.
+     * @throws IOException Si falla la escritura.
+     */
+    static void escribir(JsonGenerator json, Empleado empleado) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("dni", empleado.getDni());
+        json.writeStringField("nombre", empleado.getNombre());
+        json.writeStringField("apellido", empleado.getApellido());
+        json.writeStringField("puesto", empleado.getPuesto());
+        json.writeNumberField("departamentoId", empleado.getDepartamento().getId());
+        json.writeNumberField("version", empleado.getVersion());
+        json.writeEndObject();
+    }
+
+    /**
+     * Escribe una fila del informe de departamentos como objeto JSON.
+     *
+     * @param json    Generador de la respuesta.
+     * @param resumen Fila del informe.
+     * @throws IOException Si falla la escritura.
+     */
+    static void escribir(JsonGenerator json, DepartamentoResumen resumen) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", resumen.id());
+        json.writeStringField("nombre", resumen.nombre());
+        json.writeNumberField("numEmpleados", resumen.numEmpleados());
+        json.writeStringField("empresa", resumen.empresa());
+        json.writeEndObject();
+    }
+}
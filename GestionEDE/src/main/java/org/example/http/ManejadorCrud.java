@@ -0,0 +1,493 @@
+package org.example.http;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import jakarta.persistence.EntityExistsException;
+import org.example.configuracion.ContextoInquilino;
+import org.example.repositorios.BaseRepository;
+import org.example.repositorios.ConflictoConcurrenciaException;
+import org.example.repositorios.Page;
+import org.example.repositorios.PageRequest;
+import org.example.repositorios.UnidadDeTrabajo;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.DataException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Manejador HTTP con las operaciones CRUD de un repositorio sobre la ruta de un recurso:
+ * <ul>
+ *     <li>{@code GET /recurso?despuesDe=&tamano=}: página de entidades ordenada por clave.</li>
+ *     <li>{@code POST /recurso}: crea una entidad a partir de un objeto JSON.</li>
+ *     <li>{@code GET /recurso/{id}}, {@code PUT /recurso/{id}} (solo los campos enviados) y {@code DELETE /recurso/{id}}.</li>
+ * </ul>
+ * Con la cabecera {@value #CABECERA_EMPRESA} la petición solo ve y modifica los datos de esa empresa
+ * (véase {@link ContextoInquilino}). En los recursos con empresa obligatoria una petición sin ella responde
+ * 400; en los demás, o si el servidor se arranca con {@link ServidorHttp#ACCESO_SIN_EMPRESA}, se ven todas.
+ * Un PUT con el campo "version" solo se aplica si la entidad sigue en esa versión; si no, responde 409
+ * y el cliente debe volver a leerla. Sin él, los cambios se aplican sobre la versión actual, repitiendo
+ * la lectura y la escritura si otra petición la modifica a la vez.
+ * Las subclases indican cómo se convierte la entidad desde y hacia JSON, y pueden atender
+ * subrecursos como {@code /recurso/{id}/informe}. Las respuestas se escriben en streaming.
+ *
+ * @param <T>  El tipo de entidad del recurso.
+ * @param <ID> El tipo del identificador único de la entidad.
+ */
+abstract class ManejadorCrud<T, ID> implements HttpHandler {
+
+    /**
+     * Tamaño de página por defecto de los listados.
+     */
+    protected static final int TAMANO_PAGINA = 20;
+
+    /**
+     * Cabecera con el identificador de la empresa a la que se limita la petición.
+     */
+    static final String CABECERA_EMPRESA = "X-Empresa";
+
+    /**
+     * Intentos de un PUT sin versión cuando otra petición modifica la misma entidad a la vez.
+     */
+    private static final int INTENTOS_ACTUALIZACION = 3;
+
+    /**
+     * Escritura del cuerpo de una respuesta JSON.
+     */
+    @FunctionalInterface
+    protected interface EscrituraJson {
+
+        /**
+         * Escribe el cuerpo de la respuesta.
+         *
+         * @param json Generador de la respuesta.
+         * @throws IOException Si falla la escritura.
+         */
+        void escribir(JsonGenerator json) throws IOException;
+    }
+
+    /**
+     * Ruta del recurso, por ejemplo "/empresas".
+     */
+    private final String ruta;
+
+    /**
+     * Repositorio del recurso.
+     */
+    protected final BaseRepository<T, ID> repository;
+
+    /**
+     * Unidad de trabajo para agrupar las lecturas y escrituras de cada petición.
+     */
+    protected final UnidadDeTrabajo unidadDeTrabajo;
+
+    /**
+     * Indica si se rechazan las peticiones sin la cabecera {@value #CABECERA_EMPRESA}.
+     */
+    private final boolean empresaObligatoria;
+
+    /**
+     * Constructor que inicializa el manejador con la ruta y el repositorio del recurso.
+     *
+     * @param ruta               Ruta del recurso.
+     * @param repository         Repositorio del recurso.
+     * @param unidadDeTrabajo    Unidad de trabajo compartida por los repositorios.
+     * @param empresaObligatoria true para responder 400 a las peticiones sin la cabecera {@value #CABECERA_EMPRESA}.
+     */
+    protected ManejadorCrud(String ruta, BaseRepository<T, ID> repository, UnidadDeTrabajo unidadDeTrabajo,
+                            boolean empresaObligatoria) {
+        this.ruta = ruta;
+        this.repository = repository;
+        this.unidadDeTrabajo = unidadDeTrabajo;
+        this.empresaObligatoria = empresaObligatoria;
+    }
+
+    /**
+     * Obtiene la ruta del recurso.
+     *
+     * @return Ruta del recurso.
+     */
+    String getRuta() {
+        return ruta;
+    }
+
+    /**
+     * Convierte el identificador recibido en la ruta o en los parámetros.
+     *
+     * @param texto Identificador en texto.
+     * @return Identificador de la entidad.
+     * @throws IllegalArgumentException Si el texto no es un identificador válido.
+     */
+    protected abstract ID convertirId(String texto);
+
+    /**
+     * Obtiene el identificador de una entidad.
+     *
+     * @param entidad Entidad.
+     * @return Identificador de la entidad.
+     */
+    protected abstract ID idDe(T entidad);
+
+    /**
+     * Escribe una entidad como objeto JSON.
+     *
+     * @param json    Generador de la respuesta.
+     * @param entidad Entidad a escribir.
+     * @throws IOException Si falla la escritura.
+     */
+    protected abstract void escribir(JsonGenerator json, T entidad) throws IOException;
+
+    /**
+     * Construye una entidad nueva a partir de los campos de la petición. Se ejecuta dentro de la
+     * unidad de trabajo de la petición, así que puede leer las entidades relacionadas.
+     *
+     * @param campos Campos de la petición.
+     * @return Entidad sin persistir.
+     * @throws IllegalArgumentException Si faltan campos o no son válidos.
+     */
+    protected abstract T nueva(Map<String, Object> campos);
+
+    /**
+     * Aplica a una entidad existente los campos presentes en la petición. Se ejecuta dentro de la
+     * unidad de trabajo de la petición.
+     *
+     * @param entidad Entidad a modificar.
+     * @param campos  Campos de la petición.
+     * @throws IllegalArgumentException Si algún campo no es válido.
+     */
+    protected abstract void aplicar(T entidad, Map<String, Object> campos);
+
+    /**
+     * Atiende una petición a un subrecurso, por ejemplo {@code GET /empresas/1/departamentos}.
+     * Por defecto no hay subrecursos.
+     *
+     * @param exchange  Intercambio HTTP.
+     * @param metodo    Método HTTP.
+     * @param segmentos Segmentos de la ruta a partir del recurso (el primero es el identificador).
+     * @throws IOException Si falla la escritura de la respuesta.
+     */
+    protected void atenderSubrecurso(HttpExchange exchange, String metodo, List<String> segmentos) throws IOException {
+        responderError(exchange, 404, "Ruta no encontrada");
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (!path.equals(ruta) && !path.startsWith(ruta + "/")) {
+                responderError(exchange, 404, "Ruta no encontrada");
+                return;
+            }
+            List<String> segmentos = Arrays.stream(path.substring(ruta.length()).split("/"))
+                    .filter(segmento -> !segmento.isEmpty())
+                    .toList();
+            Integer empresa = empresaDe(exchange);
+            if (empresa == null && empresaObligatoria) {
+                throw new IllegalArgumentException("Falta la cabecera " + CABECERA_EMPRESA + " con el número de la empresa");
+            }
+            ContextoInquilino.fijar(empresa);
+            atender(exchange, exchange.getRequestMethod(), segmentos);
+        } catch (IllegalArgumentException e) {
+            responderSiEsPosible(exchange, 400, e.getMessage());
+        } catch (ConflictoConcurrenciaException e) {
+            responderSiEsPosible(exchange, 409, e.getMessage() + "; vuelva a leerlo y repita el cambio");
+        } catch (RuntimeException e) {
+            if (causaDeTipo(e, DataException.class)) {
+                responderSiEsPosible(exchange, 400, "Algún valor no es válido para la base de datos (por ejemplo, es demasiado largo)");
+            } else if (esConflicto(e)) {
+                responderSiEsPosible(exchange, 409, "La operación entra en conflicto con los datos existentes");
+            } else {
+                System.err.println("xxx Error al atender " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + ": " + e);
+                responderSiEsPosible(exchange, 500, "Error interno del servidor");
+            }
+        } finally {
+            ContextoInquilino.fijar(null); // Los hilos del servidor atienden otras peticiones
+            exchange.close();
+        }
+    }
+
+    /**
+     * Obtiene la empresa a la que se limita la petición.
+     *
+     * @param exchange Intercambio HTTP.
+     * @return Identificador de la cabecera {@value #CABECERA_EMPRESA}, o null si no se envía.
+     * @throws IllegalArgumentException Si la cabecera no es un número.
+     */
+    private static Integer empresaDe(HttpExchange exchange) {
+        String empresa = exchange.getRequestHeaders().getFirst(CABECERA_EMPRESA);
+        if (empresa == null || empresa.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(empresa.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("La cabecera " + CABECERA_EMPRESA + " debe ser el número de una empresa");
+        }
+    }
+
+    /**
+     * Dirige la petición a la operación que corresponde a su método y ruta.
+     *
+     * @param exchange  Intercambio HTTP.
+     * @param metodo    Método HTTP.
+     * @param segmentos Segmentos de la ruta a partir del recurso.
+     * @throws IOException Si falla la lectura de la petición o la escritura de la respuesta.
+     */
+    private void atender(HttpExchange exchange, String metodo, List<String> segmentos) throws IOException {
+        if (segmentos.isEmpty()) {
+            switch (metodo) {
+                case "GET" -> listar(exchange);
+                case "POST" -> crear(exchange);
+                default -> responderError(exchange, 405, "Método no permitido");
+            }
+        } else if (segmentos.size() == 1) {
+            ID id = convertirId(segmentos.get(0));
+            switch (metodo) {
+                case "GET" -> leer(exchange, id);
+                case "PUT" -> actualizar(exchange, id);
+                case "DELETE" -> borrar(exchange, id);
+                default -> responderError(exchange, 405, "Método no permitido");
+            }
+        } else {
+            atenderSubrecurso(exchange, metodo, segmentos);
+        }
+    }
+
+    /**
+     * Responde con una página de entidades ordenada por clave primaria.
+     *
+     * @param exchange Intercambio HTTP.
+     * @throws IOException Si falla la escritura de la respuesta.
+     */
+    private void listar(HttpExchange exchange) throws IOException {
+        Map<String, String> parametros = parametros(exchange);
+        int tamano = tamanoPagina(parametros);
+        Page.Cursor cursor = null;
+        if (parametros.containsKey("despuesDe")) {
+            ID despuesDe = convertirId(parametros.get("despuesDe"));
+            cursor = new Page.Cursor(despuesDe, despuesDe); // Ordenado por clave: valor de orden e id coinciden
+        }
+        Page<T> pagina = repository.listar(new PageRequest(tamano, Map.of(), null, false, cursor, null));
+
+        responder(exchange, 200, json -> {
+            json.writeStartObject();
+            json.writeArrayFieldStart("contenido");
+            for (T entidad : pagina.contenido()) {
+                escribir(json, entidad);
+            }
+            json.writeEndArray();
+            if (pagina.hayMas()) {
+                json.writeStringField("siguiente", String.valueOf(pagina.siguiente().id()));
+            } else {
+                json.writeNullField("siguiente");
+            }
+            json.writeEndObject();
+        });
+    }
+
+    /**
+     * Crea una entidad y responde con ella.
+     *
+     * @param exchange Intercambio HTTP.
+     * @throws IOException Si falla la lectura de la petición o la escritura de la respuesta.
+     */
+    private void crear(HttpExchange exchange) throws IOException {
+        Map<String, Object> campos = Json.leerObjeto(exchange.getRequestBody());
+        T entidad = unidadDeTrabajo.ejecutar(() -> {
+            T nueva = nueva(campos);
+            repository.crear(nueva);
+            return nueva;
+        });
+        exchange.getResponseHeaders().set("Location", ruta + "/" + idDe(entidad));
+        responder(exchange, 201, json -> escribir(json, entidad));
+    }
+
+    /**
+     * Responde con una entidad por su identificador.
+     *
+     * @param exchange Intercambio HTTP.
+     * @param id       Identificador de la entidad.
+     * @throws IOException Si falla la escritura de la respuesta.
+     */
+    private void leer(HttpExchange exchange, ID id) throws IOException {
+        Optional<T> entidad = repository.leer(id);
+        if (entidad.isEmpty()) {
+            responderError(exchange, 404, "No existe " + ruta + "/" + id);
+            return;
+        }
+        responder(exchange, 200, json -> escribir(json, entidad.get()));
+    }
+
+    /**
+     * Modifica los campos enviados de una entidad y responde con ella.
+     *
+     * @param exchange Intercambio HTTP.
+     * @param id       Identificador de la entidad.
+     * @throws IOException Si falla la lectura de la petición o la escritura de la respuesta.
+     */
+    private void actualizar(HttpExchange exchange, ID id) throws IOException {
+        Map<String, Object> campos = Json.leerObjeto(exchange.getRequestBody());
+        Integer version = campos.containsKey("version") ? Json.entero(campos, "version") : null;
+        campos.remove("version");
+        Supplier<Optional<T>> trabajo = () -> repository.leer(id).map(existente -> {
+            if (version != null) {
+                repository.comprobarVersion(existente, version);
+            }
+            aplicar(existente, campos);
+            repository.actualizar(existente);
+            return existente;
+        });
+        // Con versión, un conflicto se devuelve al cliente; sin ella, se repite sobre la versión actual
+        Optional<T> entidad = version != null
+                ? unidadDeTrabajo.ejecutar(trabajo)
+                : unidadDeTrabajo.reintentar(INTENTOS_ACTUALIZACION, trabajo);
+        if (entidad.isEmpty()) {
+            responderError(exchange, 404, "No existe " + ruta + "/" + id);
+            return;
+        }
+        responder(exchange, 200, json -> escribir(json, entidad.get()));
+    }
+
+    /**
+     * Borra una entidad por su identificador.
+     *
+     * @param exchange Intercambio HTTP.
+     * @param id       Identificador de la entidad.
+     * @throws IOException Si falla la escritura de la respuesta.
+     */
+    private void borrar(HttpExchange exchange, ID id) throws IOException {
+        boolean borrada = unidadDeTrabajo.ejecutar(() -> {
+            if (repository.leer(id).isEmpty()) {
+                return false;
+            }
+            repository.borrar(id);
+            return true;
+        });
+        if (!borrada) {
+            responderError(exchange, 404, "No existe " + ruta + "/" + id);
+            return;
+        }
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    /**
+     * Envía una respuesta JSON escribiendo el cuerpo directamente sobre la conexión, con
+     * codificación por bloques para no tener que calcular antes su longitud.
+     *
+     * @param exchange  Intercambio HTTP.
+     * @param estado    Código de estado HTTP.
+     * @param escritura Escritura del cuerpo.
+     * @throws IOException Si falla la escritura.
+     */
+    protected static void responder(HttpExchange exchange, int estado, EscrituraJson escritura) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(estado, 0);
+        try (OutputStream cuerpo = exchange.getResponseBody();
+             JsonGenerator json = Json.FABRICA.createGenerator(cuerpo)) {
+            escritura.escribir(json);
+        }
+    }
+
+    /**
+     * Envía una respuesta de error con el cuerpo {@code {"error": mensaje}}.
+     *
+     * @param exchange Intercambio HTTP.
+     * @param estado   Código de estado HTTP.
+     * @param mensaje  Descripción del error.
+     * @throws IOException Si falla la escritura.
+     */
+    protected static void responderError(HttpExchange exchange, int estado, String mensaje) throws IOException {
+        responder(exchange, estado, json -> {
+            json.writeStartObject();
+            json.writeStringField("error", mensaje);
+            json.writeEndObject();
+        });
+    }
+
+    /**
+     * Envía una respuesta de error si todavía no se han enviado las cabeceras; si la respuesta ya
+     * había empezado (por ejemplo a mitad de un listado en streaming) solo queda cerrar la conexión.
+     *
+     * @param exchange Intercambio HTTP.
+     * @param estado   Código de estado HTTP.
+     * @param mensaje  Descripción del error.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void responderSiEsPosible(HttpExchange exchange, int estado, String mensaje) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            responderError(exchange, estado, mensaje);
+        }
+    }
+
+    /**
+     * Obtiene el tamaño de página del parámetro "tamano" de un listado.
+     *
+     * @param parametros Parámetros de la petición.
+     * @return Tamaño indicado, o {@link #TAMANO_PAGINA} si no se indica.
+     * @throws IllegalArgumentException Si no es un número entre 1 y {@link PageRequest#TAMANO_MAXIMO}.
+     */
+    protected static int tamanoPagina(Map<String, String> parametros) {
+        int tamano = parametros.containsKey("tamano") ? Integer.parseInt(parametros.get("tamano")) : TAMANO_PAGINA;
+        if (tamano < 1 || tamano > PageRequest.TAMANO_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + PageRequest.TAMANO_MAXIMO);
+        }
+        return tamano;
+    }
+
+    /**
+     * Obtiene los parámetros de la cadena de consulta de la petición.
+     *
+     * @param exchange Intercambio HTTP.
+     * @return Parámetros decodificados; si un parámetro se repite, prevalece el último.
+     */
+    protected static Map<String, String> parametros(HttpExchange exchange) {
+        Map<String, String> parametros = new HashMap<>();
+        String consulta = exchange.getRequestURI().getRawQuery();
+        if (consulta != null) {
+            for (String par : consulta.split("&")) {
+                int igual = par.indexOf('=');
+                if (igual > 0) {
+                    parametros.put(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                            URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parametros;
+    }
+
+    /**
+     * Indica si una excepción se debe a una restricción de la base de datos (clave duplicada,
+     * clave ajena inexistente...), buscando en toda la cadena de causas.
+     *
+     * @param e Excepción producida.
+     * @return true si es un conflicto con los datos existentes.
+     */
+    private static boolean esConflicto(Throwable e) {
+        return causaDeTipo(e, ConstraintViolationException.class) || causaDeTipo(e, EntityExistsException.class);
+    }
+
+    /**
+     * Indica si una excepción o alguna de sus causas es del tipo indicado.
+     *
+     * @param e    Excepción producida.
+     * @param tipo Tipo de excepción buscado.
+     * @return true si aparece en la cadena de causas.
+     */
+    private static boolean causaDeTipo(Throwable e, Class<? extends Throwable> tipo) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (tipo.isInstance(causa)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
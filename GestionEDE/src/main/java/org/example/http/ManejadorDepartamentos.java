@@ -0,0 +1,126 @@
+package org.example.http;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empresa;
+import org.example.repositorios.DepartamentoRepository;
+import org.example.repositorios.EmpleadoRepository;
+import org.example.repositorios.EmpresaRepository;
+import org.example.repositorios.UnidadDeTrabajo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Recurso {@code /departamentos}: CRUD de departamentos y el informe
+ * {@code GET /departamentos/{id}/empleados}, que envía todos los empleados del departamento a
+ * medida que se leen de la base de datos, sin cargarlos antes en memoria.
+ */
+class ManejadorDepartamentos extends ManejadorCrud<Departamento, Integer> {
+
+    /**
+     * Repositorio para gestionar las operaciones de la entidad Empresa.
+     */
+    private final EmpresaRepository empresaRepository;
+
+    /**
+     * Repositorio para gestionar las operaciones de la entidad Empleado.
+     */
+    private final EmpleadoRepository empleadoRepository;
+
+    /**
+     * Constructor que inicializa el manejador con los repositorios.
+     *
+     * @param departamentoRepository Repositorio de departamentos.
+     * @param empresaRepository      Repositorio de empresas.
+     * @param empleadoRepository     Repositorio de empleados.
+     * @param unidadDeTrabajo        Unidad de trabajo compartida por los repositorios.
+     * @param empresaObligatoria     true para rechazar las peticiones sin empresa.
+     */
+    ManejadorDepartamentos(DepartamentoRepository departamentoRepository, EmpresaRepository empresaRepository,
+                           EmpleadoRepository empleadoRepository, UnidadDeTrabajo unidadDeTrabajo, boolean empresaObligatoria) {
+        super("/departamentos", departamentoRepository, unidadDeTrabajo, empresaObligatoria);
+        this.empresaRepository = empresaRepository;
+        this.empleadoRepository = empleadoRepository;
+    }
+
+    @Override
+    protected Integer convertirId(String texto) {
+        return Integer.valueOf(texto);
+    }
+
+    @Override
+    protected Integer idDe(Departamento departamento) {
+        return departamento.getId();
+    }
+
+    @Override
+    protected void escribir(JsonGenerator json, Departamento departamento) throws IOException {
+        Json.escribir(json, departamento);
+    }
+
+    @Override
+    protected Departamento nueva(Map<String, Object> campos) {
+        return new Departamento(Json.texto(campos, "nombre"), empresa(Json.entero(campos, "empresaId")));
+    }
+
+    @Override
+    protected void aplicar(Departamento departamento, Map<String, Object> campos) {
+        if (campos.containsKey("nombre")) {
+            departamento.setNombre(Json.texto(campos, "nombre"));
+        }
+        if (campos.containsKey("empresaId")) {
+            departamento.setEmpresa(empresa(Json.entero(campos, "empresaId")));
+        }
+    }
+
+    /**
+     * Busca la empresa a la que se asigna un departamento.
+     *
+     * @param empresaId Identificador de la empresa.
+     * @return Empresa existente.
+     * @throws IllegalArgumentException Si la empresa no existe.
+     */
+    private Empresa empresa(int empresaId) {
+        return empresaRepository.leer(empresaId)
+                .orElseThrow(() -> new IllegalArgumentException("No existe la empresa " + empresaId));
+    }
+
+    @Override
+    protected void atenderSubrecurso(HttpExchange exchange, String metodo, List<String> segmentos) throws IOException {
+        if (segmentos.size() != 2 || !segmentos.get(1).equals("empleados") || !metodo.equals("GET")) {
+            super.atenderSubrecurso(exchange, metodo, segmentos);
+            return;
+        }
+        int departamentoId = convertirId(segmentos.get(0));
+        Optional<Departamento> departamento = repository.leer(departamentoId);
+        if (departamento.isEmpty()) {
+            responderError(exchange, 404, "No existe /departamentos/" + departamentoId);
+            return;
+        }
+
+        responder(exchange, 200, json -> {
+            json.writeStartObject();
+            json.writeNumberField("id", departamentoId);
+            json.writeStringField("nombre", departamento.get().getNombre());
+            json.writeArrayFieldStart("empleados");
+            try {
+                empleadoRepository.recorrer(departamentoId, empleado -> {
+                    try {
+                        Json.escribir(json, empleado);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // El cliente ha cerrado la conexión
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        });
+    }
+}
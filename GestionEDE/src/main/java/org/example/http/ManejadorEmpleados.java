@@ -0,0 +1,88 @@
+package org.example.http;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.repositorios.DepartamentoRepository;
+import org.example.repositorios.EmpleadoRepository;
+import org.example.repositorios.UnidadDeTrabajo;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Recurso {@code /empleados}: CRUD de empleados, identificados por su DNI.
+ */
+class ManejadorEmpleados extends ManejadorCrud<Empleado, String> {
+
+    /**
+     * Repositorio para gestionar las operaciones de la entidad Departamento.
+     */
+    private final DepartamentoRepository departamentoRepository;
+
+    /**
+     * Constructor que inicializa el manejador con los repositorios.
+     *
+     * @param empleadoRepository     Repositorio de empleados.
+     * @param departamentoRepository Repositorio de departamentos.
+     * @param unidadDeTrabajo        Unidad de trabajo compartida por los repositorios.
+     * @param empresaObligatoria     true para rechazar las peticiones sin empresa.
+     */
+    ManejadorEmpleados(EmpleadoRepository empleadoRepository, DepartamentoRepository departamentoRepository,
+                       UnidadDeTrabajo unidadDeTrabajo, boolean empresaObligatoria) {
+        super("/empleados", empleadoRepository, unidadDeTrabajo, empresaObligatoria);
+        this.departamentoRepository = departamentoRepository;
+    }
+
+    @Override
+    protected String convertirId(String texto) {
+        if (texto.isBlank()) {
+            throw new IllegalArgumentException("El DNI no puede estar vacío");
+        }
+        return texto;
+    }
+
+    @Override
+    protected String idDe(Empleado empleado) {
+        return empleado.getDni();
+    }
+
+    @Override
+    protected void escribir(JsonGenerator json, Empleado empleado) throws IOException {
+        Json.escribir(json, empleado);
+    }
+
+    @Override
+    protected Empleado nueva(Map<String, Object> campos) {
+        return new Empleado(Json.texto(campos, "dni"), Json.texto(campos, "nombre"), Json.texto(campos, "apellido"),
+                Json.texto(campos, "puesto"), departamento(Json.entero(campos, "departamentoId")));
+    }
+
+    @Override
+    protected void aplicar(Empleado empleado, Map<String, Object> campos) {
+        if (campos.containsKey("nombre")) {
+            empleado.setNombre(Json.texto(campos, "nombre"));
+        }
+        if (campos.containsKey("apellido")) {
+            empleado.setApellido(Json.texto(campos, "apellido"));
+        }
+        if (campos.containsKey("puesto")) {
+            empleado.setPuesto(Json.texto(campos, "puesto"));
+        }
+        if (campos.containsKey("departamentoId")) {
+            empleado.setDepartamento(departamento(Json.entero(campos, "departamentoId")));
+        }
+    }
+
+    /**
+     * Busca el departamento al que se asigna un empleado.
+     *
+     * @param departamentoId Identificador del departamento.
+     * @return Departamento existente.
+     * @throws IllegalArgumentException Si el departamento no existe.
+     */
+    private Departamento departamento(int departamentoId) {
+        return departamentoRepository.leer(departamentoId)
+                .orElseThrow(() -> new IllegalArgumentException("No existe el departamento " + departamentoId));
+    }
+}
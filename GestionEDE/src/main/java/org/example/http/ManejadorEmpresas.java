@@ -0,0 +1,102 @@
+package org.example.http;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import org.example.entidades.Empresa;
+import org.example.informes.DepartamentoResumen;
+import org.example.repositorios.EmpresaRepository;
+import org.example.repositorios.InformeRepository;
+import org.example.repositorios.UnidadDeTrabajo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recurso {@code /empresas}: CRUD de empresas y el informe
+ * {@code GET /empresas/{id}/departamentos?despuesDe=&tamano=} con los departamentos de la empresa
+ * y su número de empleados.
+ */
+class ManejadorEmpresas extends ManejadorCrud<Empresa, Integer> {
+
+    /**
+     * Repositorio de solo lectura para los informes.
+     */
+    private final InformeRepository informeRepository;
+
+    /**
+     * Constructor que inicializa el manejador con los repositorios.
+     *
+     * @param empresaRepository Repositorio de empresas.
+     * @param informeRepository Repositorio de informes.
+     * @param unidadDeTrabajo   Unidad de trabajo compartida por los repositorios.
+     */
+    ManejadorEmpresas(EmpresaRepository empresaRepository, InformeRepository informeRepository, UnidadDeTrabajo unidadDeTrabajo) {
+        super("/empresas", empresaRepository, unidadDeTrabajo, false); // Sin empresa se dan de alta empresas nuevas
+        this.informeRepository = informeRepository;
+    }
+
+    @Override
+    protected Integer convertirId(String texto) {
+        return Integer.valueOf(texto);
+    }
+
+    @Override
+    protected Integer idDe(Empresa empresa) {
+        return empresa.getId();
+    }
+
+    @Override
+    protected void escribir(JsonGenerator json, Empresa empresa) throws IOException {
+        Json.escribir(json, empresa);
+    }
+
+    @Override
+    protected Empresa nueva(Map<String, Object> campos) {
+        return new Empresa(Json.texto(campos, "nombre"), Json.texto(campos, "industria"));
+    }
+
+    @Override
+    protected void aplicar(Empresa empresa, Map<String, Object> campos) {
+        if (campos.containsKey("nombre")) {
+            empresa.setNombre(Json.texto(campos, "nombre"));
+        }
+        if (campos.containsKey("industria")) {
+            empresa.setIndustria(Json.texto(campos, "industria"));
+        }
+    }
+
+    @Override
+    protected void atenderSubrecurso(HttpExchange exchange, String metodo, List<String> segmentos) throws IOException {
+        if (segmentos.size() != 2 || !segmentos.get(1).equals("departamentos") || !metodo.equals("GET")) {
+            super.atenderSubrecurso(exchange, metodo, segmentos);
+            return;
+        }
+        int empresaId = convertirId(segmentos.get(0));
+        if (!repository.existe(empresaId)) {
+            responderError(exchange, 404, "No existe /empresas/" + empresaId);
+            return;
+        }
+
+        Map<String, String> parametros = parametros(exchange);
+        int despuesDe = Integer.parseInt(parametros.getOrDefault("despuesDe", "0"));
+        int tamano = tamanoPagina(parametros);
+        List<DepartamentoResumen> departamentos = informeRepository.departamentosConEmpleados(empresaId, despuesDe, tamano);
+
+        responder(exchange, 200, json -> {
+            json.writeStartObject();
+            json.writeArrayFieldStart("contenido");
+            for (DepartamentoResumen departamento : departamentos) {
+                Json.escribir(json, departamento);
+            }
+            json.writeEndArray();
+            // Una página completa indica que puede haber más departamentos
+            if (departamentos.size() == tamano) {
+                json.writeStringField("siguiente", String.valueOf(departamentos.get(tamano - 1).id()));
+            } else {
+                json.writeNullField("siguiente");
+            }
+            json.writeEndObject();
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.example.metricas.ExportadorPrometheus;
+import org.hibernate.SessionFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Recurso {@code GET /metrics}: todas las métricas de la aplicación en el formato de texto de
+ * Prometheus (ver {@link ExportadorPrometheus}).
+ */
+class ManejadorMetricas implements HttpHandler {
+
+    /**
+     * Ruta del recurso.
+     */
+    static final String RUTA = "/metrics";
+
+    /**
+     * Fábrica de sesiones cuyas estadísticas se exportan.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Constructor que inicializa el manejador con la fábrica de sesiones.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     */
+    ManejadorMetricas(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") || !exchange.getRequestURI().getPath().equals(RUTA)) {
+                ManejadorCrud.responderError(exchange, 404, "Ruta no encontrada");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", ExportadorPrometheus.TIPO_CONTENIDO);
+            exchange.sendResponseHeaders(200, 0); // Respuesta por bloques
+            try (Writer salida = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                ExportadorPrometheus.escribir(salida, sessionFactory);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.example.configuracion.ConfiguracionHibernate;
+import org.example.repositorios.DepartamentoRepository;
+import org.example.repositorios.EmpleadoRepository;
+import org.example.repositorios.EmpresaRepository;
+import org.example.repositorios.InformeRepository;
+import org.example.repositorios.UnidadDeTrabajo;
+import org.hibernate.SessionFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servicio HTTP/JSON sobre los repositorios, alternativo a los menús de consola.
+ * <p>
+ * Usa el servidor HTTP del JDK con un hilo virtual por petición. Los repositorios y la
+ * SessionFactory se crean una sola vez al arrancar y se comparten entre todas las peticiones.
+ * Recursos: {@code /empresas}, {@code /departamentos} y {@code /empleados} (ver {@link ManejadorCrud}),
+ * más los informes {@code /empresas/{id}/departamentos} y {@code /departamentos/{id}/empleados}
+ * y las métricas en formato Prometheus en {@code /metrics}.
+ * <p>
+ * Las peticiones a {@code /departamentos} y {@code /empleados} deben llevar la cabecera {@code X-Empresa}
+ * y solo ven esa empresa; el acceso a todas las empresas sin ella se habilita expresamente con
+ * {@code -D}{@value #ACCESO_SIN_EMPRESA}{@code =true}, por ejemplo para tareas de administración.
+ * <p>
+ * Uso: {@code ServidorHttp [puerto]} (por defecto {@value #PUERTO_POR_DEFECTO}).
+ */
+public class ServidorHttp {
+
+    /**
+     * Puerto en el que escucha el servidor si no se indica otro.
+     */
+    public static final int PUERTO_POR_DEFECTO = 8080;
+
+    /**
+     * Propiedad del sistema que permite atender sin la cabecera {@code X-Empresa} las peticiones a
+     * departamentos y empleados, con acceso a todas las empresas.
+     */
+    public static final String ACCESO_SIN_EMPRESA = "gestion.http.acceso_sin_empresa";
+
+    /**
+     * Número máximo de conexiones pendientes de aceptar.
+     */
+    private static final int CONEXIONES_PENDIENTES = 1024;
+
+    /**
+     * Segundos que se espera a que terminen las peticiones en curso al detener el servidor.
+     */
+    private static final int SEGUNDOS_PARADA = 5;
+
+    /**
+     * Servidor HTTP del JDK.
+     */
+    private final HttpServer servidor;
+
+    /**
+     * Ejecutor que atiende cada petición en un hilo virtual.
+     */
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Constructor que crea el servidor y registra los recursos sobre la fábrica de sesiones indicada,
+     * con la empresa obligatoria en departamentos y empleados.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate, compartida por todas las peticiones.
+     * @param puerto         Puerto en el que escuchar (0 para elegir uno libre).
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public ServidorHttp(SessionFactory sessionFactory, int puerto) throws IOException {
+        this(sessionFactory, puerto, false);
+    }
+
+    /**
+     * Constructor que crea el servidor y registra los recursos sobre la fábrica de sesiones indicada.
+     *
+     * @param sessionFactory   Fábrica de sesiones de Hibernate, compartida por todas las peticiones.
+     * @param puerto           Puerto en el que escuchar (0 para elegir uno libre).
+     * @param accesoSinEmpresa true para atender sin la cabecera {@code X-Empresa} las peticiones a
+     *                         departamentos y empleados, con acceso a todas las empresas.
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public ServidorHttp(SessionFactory sessionFactory, int puerto, boolean accesoSinEmpresa) throws IOException {
+        EmpresaRepository empresaRepository = new EmpresaRepository(sessionFactory);
+        DepartamentoRepository departamentoRepository = new DepartamentoRepository(sessionFactory);
+        EmpleadoRepository empleadoRepository = new EmpleadoRepository(sessionFactory);
+        InformeRepository informeRepository = new InformeRepository(sessionFactory);
+        UnidadDeTrabajo unidadDeTrabajo = new UnidadDeTrabajo(sessionFactory);
+
+        servidor = HttpServer.create(new InetSocketAddress(puerto), CONEXIONES_PENDIENTES);
+        servidor.setExecutor(executor);
+        for (ManejadorCrud<?, ?> manejador : List.of(
+                new ManejadorEmpresas(empresaRepository, informeRepository, unidadDeTrabajo),
+                new ManejadorDepartamentos(departamentoRepository, empresaRepository, empleadoRepository, unidadDeTrabajo,
+                        !accesoSinEmpresa),
+                new ManejadorEmpleados(empleadoRepository, departamentoRepository, unidadDeTrabajo, !accesoSinEmpresa))) {
+            servidor.createContext(manejador.getRuta(), manejador);
+        }
+        servidor.createContext(ManejadorMetricas.RUTA, new ManejadorMetricas(sessionFactory));
+    }
+
+    /**
+     * Empieza a atender peticiones.
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Obtiene el puerto en el que escucha el servidor.
+     *
+     * @return Puerto local.
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Deja de aceptar peticiones y espera un tiempo limitado a que terminen las que están en curso.
+     */
+    public void detener() {
+        servidor.stop(SEGUNDOS_PARADA);
+        executor.close();
+    }
+
+    /**
+     * Método principal que arranca el servidor hasta que se detiene el proceso.
+     *
+     * @param args Puerto en el que escuchar (opcional).
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public static void main(String[] args) throws IOException {
+        int puerto = args.length > 0 ? Integer.parseInt(args[0]) : PUERTO_POR_DEFECTO;
+        SessionFactory sessionFactory = ConfiguracionHibernate.crearSessionFactory();
+        ServidorHttp servidor = new ServidorHttp(sessionFactory, puerto, Boolean.getBoolean(ACCESO_SIN_EMPRESA));
+
+        // Al detener el proceso (Ctrl+C) se terminan las peticiones en curso y se cierra el pool
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.detener();
+            sessionFactory.close();
+        }));
+
+        servidor.iniciar();
+        System.out.println(">> Servidor HTTP escuchando en el puerto " + servidor.getPuerto());
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.importacion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilidades para leer y escribir registros CSV de una sola línea, separados por comas.
+ * Los campos que contienen comas o comillas se encierran entre comillas dobles y las
+ * comillas internas se duplican.
+ */
+public final class FormatoCsv {
+
+    /**
+     * Separador de campos.
+     */
+    public static final char SEPARADOR = ',';
+
+    /**
+     * Constructor privado: clase de utilidad no instanciable.
+     */
+    private FormatoCsv() {}
+
+    /**
+     * Divide una línea CSV en sus campos.
+     *
+     * @param linea Línea a dividir.
+     * @return Campos de la línea, sin comillas envolventes ni espacios laterales.
+     * @throws IllegalArgumentException Si la línea tiene comillas sin cerrar.
+     */
+    public static String[] dividir(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    campo.append('"'); // Comilla escapada
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == SEPARADOR) {
+                campos.add(campo.toString().trim());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+
+        if (entreComillas) {
+            throw new IllegalArgumentException("comillas sin cerrar");
+        }
+        campos.add(campo.toString().trim());
+        return campos.toArray(new String[0]);
+    }
+
+    /**
+     * Compone una línea CSV a partir de sus campos, sin salto de línea final.
+     *
+     * @param campos Valores de los campos.
+     * @return Línea CSV.
+     */
+    public static String unir(Object... campos) {
+        StringBuilder linea = new StringBuilder();
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) {
+                linea.append(SEPARADOR);
+            }
+            String valor = String.valueOf(campos[i]);
+            if (valor.indexOf(SEPARADOR) >= 0 || valor.indexOf('"') >= 0) {
+                linea.append('"').append(valor.replace("\"", "\"\"")).append('"');
+            } else {
+                linea.append(valor);
+            }
+        }
+        return linea.toString();
+    }
+}
@@ -0,0 +1,419 @@
+package org.example.importacion;
+
+import org.example.configuracion.ConfiguracionHibernate;
+import org.example.contadores.OyenteContadores;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Importador masivo de empresas, departamentos o empleados desde ficheros CSV.
+ * <p>
+ * La importación es una tubería acotada de tres etapas: lectura y análisis de líneas,
+ * validación y resolución de claves foráneas, e inserción por lotes con una StatelessSession.
+ * Las colas entre etapas tienen capacidad fija, por lo que la memoria usada no depende del
+ * tamaño del fichero. Cada transacción guarda además la última línea de su lote en la tabla
+ * {@code Importaciones} (migración V6), de modo que el punto de control se confirma o se deshace
+ * junto con las filas y al reanudar la importación tras un fallo no se repite ningún lote.
+ * <p>
+ * El fichero debe tener una línea de cabecera; las columnas se describen en {@link TipoImportacion}.
+ * <p>
+ * Uso: {@code ImportadorCsv <empresas|departamentos|empleados> <fichero.csv> [--reanudar]}
+ */
+public class ImportadorCsv {
+
+    /**
+     * Número de filas insertadas en cada transacción (y entre puntos de control).
+     */
+    private static final int TAMANO_TRANSACCION = 1000;
+
+    /**
+     * Número máximo de filas cuyas claves foráneas se resuelven juntas.
+     */
+    private static final int TAMANO_RESOLUCION = 500;
+
+    /**
+     * Capacidad de cada cola entre etapas de la tubería.
+     */
+    private static final int CAPACIDAD_COLA = 10_000;
+
+    /**
+     * Intervalo mínimo entre dos informes de progreso, en nanosegundos.
+     */
+    private static final long INTERVALO_INFORME = 5_000_000_000L;
+
+    /**
+     * Línea leída y dividida en campos.
+     *
+     * @param linea  Número de línea en el fichero.
+     * @param campos Campos de la línea.
+     */
+    private record Fila(long linea, String[] campos) {}
+
+    /**
+     * Entidad validada lista para insertarse.
+     *
+     * @param linea   Número de línea en el fichero.
+     * @param entidad Entidad a insertar.
+     */
+    private record Registro(long linea, Object entidad) {}
+
+    /**
+     * Marca de fin de la cola de filas.
+     */
+    private static final Fila FIN_FILAS = new Fila(-1, null);
+
+    /**
+     * Marca de fin de la cola de registros.
+     */
+    private static final Registro FIN_REGISTROS = new Registro(-1, null);
+
+    /**
+     * Fábrica de sesiones de Hibernate.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Tipo de registros a importar.
+     */
+    private final TipoImportacion tipo;
+
+    /**
+     * Fichero CSV de origen.
+     */
+    private final Path fichero;
+
+    /**
+     * Clave del fichero en la tabla de puntos de control: su ruta absoluta.
+     */
+    private final String clave;
+
+    /**
+     * Cola entre la etapa de lectura y la de validación.
+     */
+    private final BlockingQueue<Fila> filas = new ArrayBlockingQueue<>(CAPACIDAD_COLA);
+
+    /**
+     * Cola entre la etapa de validación y la de inserción.
+     */
+    private final BlockingQueue<Registro> registros = new ArrayBlockingQueue<>(CAPACIDAD_COLA);
+
+    /**
+     * Número de filas rechazadas por errores de formato o de validación.
+     */
+    private final AtomicLong rechazadas = new AtomicLong();
+
+    /**
+     * Indica que la inserción ha fallado y las demás etapas deben detenerse.
+     */
+    private volatile boolean cancelado;
+
+    /**
+     * Error de lectura del fichero, si lo hubo.
+     */
+    private volatile IOException errorLectura;
+
+    /**
+     * Error al resolver las claves foráneas, si lo hubo.
+     */
+    private volatile RuntimeException errorValidacion;
+
+    /**
+     * Constructor que prepara la importación de un fichero.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     * @param tipo           Tipo de registros del fichero.
+     * @param fichero        Fichero CSV de origen.
+     */
+    public ImportadorCsv(SessionFactory sessionFactory, TipoImportacion tipo, Path fichero) {
+        this.sessionFactory = sessionFactory;
+        this.tipo = tipo;
+        this.fichero = fichero;
+        this.clave = fichero.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Ejecuta la importación completa.
+     *
+     * @param reanudar Si es true, se omiten las líneas ya confirmadas según el punto de control.
+     * @return Número de filas insertadas.
+     * @throws IOException          Si no se puede leer el fichero.
+     * @throws InterruptedException Si se interrumpe el hilo durante la importación.
+     */
+    public long importar(boolean reanudar) throws IOException, InterruptedException {
+        long desdeLinea = reanudar ? leerPuntoControl() : 0;
+        if (desdeLinea > 0) {
+            System.out.println(">> Reanudando la importación a partir de la línea " + (desdeLinea + 1));
+        }
+
+        ResolutorReferencias referencias = new ResolutorReferencias(sessionFactory, tipo);
+        Thread lector = Thread.ofPlatform().name("importador-lector").start(() -> leer(desdeLinea));
+        Thread validador = Thread.ofPlatform().name("importador-validador").start(() -> validar(referencias));
+
+        try {
+            long insertadas = insertar();
+            if (errorValidacion != null) {
+                throw errorValidacion;
+            }
+            lector.join();
+            validador.join();
+            if (errorLectura != null) {
+                throw errorLectura;
+            }
+            borrarPuntoControl(); // Importación completa: ya no hace falta reanudar
+            System.out.println(">> Importación terminada: " + insertadas + " filas insertadas, "
+                    + rechazadas.get() + " rechazadas.");
+            return insertadas;
+        } catch (RuntimeException | IOException e) {
+            cancelado = true;
+            lector.interrupt();
+            validador.interrupt();
+            throw e;
+        } finally {
+            // La StatelessSession no pasa por la caché de segundo nivel: descartar las colecciones afectadas
+            sessionFactory.getCache().evictCollectionData();
+        }
+    }
+
+    /**
+     * Etapa 1: lee el fichero línea a línea y divide cada línea en campos.
+     *
+     * @param desdeLinea Última línea ya confirmada en una ejecución anterior (0 si no hay).
+     */
+    private void leer(long desdeLinea) {
+        try (BufferedReader lector = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            String linea;
+            long numero = 0;
+            while (!cancelado && (linea = lector.readLine()) != null) {
+                numero++;
+                if (numero == 1 || numero <= desdeLinea || linea.isBlank()) {
+                    continue; // Cabecera, líneas ya importadas o líneas vacías
+                }
+                try {
+                    filas.put(new Fila(numero, FormatoCsv.dividir(linea)));
+                } catch (IllegalArgumentException e) {
+                    rechazar(numero, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            errorLectura = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            terminar(filas, FIN_FILAS);
+        }
+    }
+
+    /**
+     * Etapa 2: valida cada fila y la convierte en entidad resolviendo sus claves foráneas. Las filas se
+     * toman por bloques de hasta {@link #TAMANO_RESOLUCION} y las claves de cada bloque se comprueban juntas.
+     *
+     * @param referencias Resolutor de claves foráneas.
+     */
+    private void validar(ResolutorReferencias referencias) {
+        List<Fila> bloque = new ArrayList<>(TAMANO_RESOLUCION);
+        try {
+            boolean fin = false;
+            while (!cancelado && !fin) {
+                bloque.add(filas.take());
+                filas.drainTo(bloque, TAMANO_RESOLUCION - 1);
+                fin = bloque.get(bloque.size() - 1) == FIN_FILAS; // La marca de fin es siempre lo último de la cola
+                if (fin) {
+                    bloque.remove(bloque.size() - 1);
+                }
+                referencias.cargar(bloque.stream()
+                        .map(fila -> tipo.referencia(fila.campos()))
+                        .filter(Objects::nonNull)
+                        .toList());
+                for (Fila fila : bloque) {
+                    try {
+                        registros.put(new Registro(fila.linea(), tipo.validarYConvertir(fila.campos(), referencias)));
+                    } catch (IllegalArgumentException e) {
+                        rechazar(fila.linea(), e.getMessage());
+                    }
+                }
+                bloque.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            errorValidacion = e; // Error de la base de datos: se detiene la importación tras el último lote
+            cancelado = true;
+        } finally {
+            terminar(registros, FIN_REGISTROS);
+        }
+    }
+
+    /**
+     * Envía la marca de fin a la siguiente etapa. Si la importación se ha cancelado,
+     * el hilo ya está interrumpido y la espera termina de inmediato.
+     *
+     * @param cola Cola de la siguiente etapa.
+     * @param fin  Marca de fin.
+     * @param <E>  Tipo de los elementos de la cola.
+     */
+    private static <E> void terminar(BlockingQueue<E> cola, E fin) {
+        try {
+            cola.put(fin);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Etapa 3: inserta los registros por lotes, confirmando una transacción cada
+     * {@link #TAMANO_TRANSACCION} filas junto con el punto de control.
+     *
+     * @return Número de filas insertadas.
+     * @throws InterruptedException Si se interrumpe el hilo durante la espera.
+     */
+    private long insertar() throws InterruptedException {
+        long insertadas = 0;
+        long inicio = System.nanoTime();
+        long ultimoInforme = inicio;
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            List<Registro> lote = new ArrayList<>(TAMANO_TRANSACCION);
+            Registro registro;
+            do {
+                registro = registros.take();
+                if (registro != FIN_REGISTROS) {
+                    lote.add(registro);
+                }
+                if (lote.size() == TAMANO_TRANSACCION || (registro == FIN_REGISTROS && !lote.isEmpty())) {
+                    escribirLote(session, lote);
+                    insertadas += lote.size();
+                    lote.clear();
+
+                    long ahora = System.nanoTime();
+                    if (ahora - ultimoInforme >= INTERVALO_INFORME) {
+                        informar(insertadas, ahora - inicio);
+                        ultimoInforme = ahora;
+                    }
+                }
+            } while (registro != FIN_REGISTROS);
+        }
+
+        informar(insertadas, System.nanoTime() - inicio);
+        return insertadas;
+    }
+
+    /**
+     * Inserta un lote y actualiza el punto de control en la misma transacción.
+     *
+     * @param session Sesión sin estado usada para insertar.
+     * @param lote    Registros a insertar.
+     */
+    private void escribirLote(StatelessSession session, List<Registro> lote) {
+        session.beginTransaction();
+        try {
+            List<Object> entidades = lote.stream().map(Registro::entidad).toList();
+            entidades.forEach(session::insert);
+            OyenteContadores.anotarAltas(session, entidades); // Contadores de departamentos y empresas
+            guardarPuntoControl(session, lote.get(lote.size() - 1).linea());
+            session.getTransaction().commit();
+        } catch (RuntimeException e) {
+            session.getTransaction().rollback();
+            throw new IllegalStateException("Error al insertar el lote que termina en la línea "
+                    + lote.get(lote.size() - 1).linea() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lee la última línea confirmada en una ejecución anterior.
+     *
+     * @return Número de línea, o 0 si no hay punto de control.
+     */
+    private long leerPuntoControl() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return session.createNativeQuery("SELECT ultima_linea FROM Importaciones WHERE fichero = :fichero", Long.class)
+                    .setParameter("fichero", clave)
+                    .uniqueResultOptional()
+                    .orElse(0L);
+        }
+    }
+
+    /**
+     * Guarda la última línea del lote en la transacción en curso, de modo que se confirma o se deshace
+     * junto con las filas del lote.
+     *
+     * @param session Sesión sin estado con una transacción en curso.
+     * @param linea   Número de línea.
+     */
+    private void guardarPuntoControl(StatelessSession session, long linea) {
+        session.createNativeMutationQuery("INSERT INTO Importaciones (fichero, ultima_linea) VALUES (:fichero, :linea) "
+                        + "ON DUPLICATE KEY UPDATE ultima_linea = VALUES(ultima_linea)")
+                .setParameter("fichero", clave)
+                .setParameter("linea", linea)
+                .executeUpdate();
+    }
+
+    /**
+     * Borra el punto de control de una importación terminada.
+     */
+    private void borrarPuntoControl() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.beginTransaction();
+            session.createNativeMutationQuery("DELETE FROM Importaciones WHERE fichero = :fichero")
+                    .setParameter("fichero", clave)
+                    .executeUpdate();
+            session.getTransaction().commit();
+        }
+    }
+
+    /**
+     * Registra una fila rechazada.
+     *
+     * @param linea  Número de línea.
+     * @param motivo Motivo del rechazo.
+     */
+    private void rechazar(long linea, String motivo) {
+        rechazadas.incrementAndGet();
+        System.err.println("xxx Línea " + linea + " rechazada: " + motivo);
+    }
+
+    /**
+     * Muestra el progreso y el rendimiento de la importación.
+     *
+     * @param insertadas Filas insertadas hasta el momento.
+     * @param nanos      Tiempo transcurrido desde el inicio.
+     */
+    private void informar(long insertadas, long nanos) {
+        double segundos = Math.max(nanos, 1) / 1_000_000_000.0;
+        System.out.printf(">> %d filas insertadas en %.1f s (%.0f filas/s)%n", insertadas, segundos, insertadas / segundos);
+    }
+
+    /**
+     * Método principal de la herramienta de importación.
+     *
+     * @param args Tipo de fichero, ruta del fichero y, opcionalmente, --reanudar.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: ImportadorCsv <empresas|departamentos|empleados> <fichero.csv> [--reanudar]");
+            System.exit(2);
+        }
+        TipoImportacion tipo = TipoImportacion.valueOf(args[0].toUpperCase(Locale.ROOT));
+        boolean reanudar = args.length > 2 && args[2].equals("--reanudar");
+
+        try (SessionFactory sessionFactory = ConfiguracionHibernate.crearSessionFactory()) {
+            new ImportadorCsv(sessionFactory, tipo, Path.of(args[1])).importar(reanudar);
+        } catch (Exception e) {
+            System.err.println("xxx La importación se ha detenido: " + e.getMessage());
+            System.err.println("xxx Corrija el problema y vuelva a ejecutar con --reanudar.");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.importacion;
+
+import org.example.entidades.Departamento;
+import org.example.entidades.Empresa;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resuelve las claves foráneas (empresa_id, departamento_id) de los registros importados.
+ * <p>
+ * Los identificadores se comprueban por bloques, con una consulta {@code IN} por cada bloque de filas
+ * ({@link #cargar}), y el resultado se guarda en una caché acotada a {@link #TAMANO_CACHE} identificadores
+ * que descarta los menos usados, de modo que la memoria no depende del número de empresas o
+ * departamentos existentes. Solo lo usa la etapa de validación del importador, desde un único hilo.
+ */
+public class ResolutorReferencias {
+
+    /**
+     * Número máximo de identificadores recordados.
+     */
+    private static final int TAMANO_CACHE = 10_000;
+
+    /**
+     * Número máximo de identificadores en cada consulta.
+     */
+    private static final int TAMANO_CONSULTA = 500;
+
+    /**
+     * Fábrica de sesiones de Hibernate.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Entidad a la que apuntan las claves foráneas del tipo de importación, o null si no tiene.
+     */
+    private final Class<?> referenciada;
+
+    /**
+     * Identificadores ya comprobados, con si existen o no, en orden de uso.
+     */
+    private final Map<Integer, Boolean> existentes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> mayor) {
+            return size() > TAMANO_CACHE;
+        }
+    };
+
+    /**
+     * Constructor del resolutor para un tipo de importación.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     * @param tipo           Tipo de registros que se van a importar.
+     */
+    public ResolutorReferencias(SessionFactory sessionFactory, TipoImportacion tipo) {
+        this.sessionFactory = sessionFactory;
+        this.referenciada = switch (tipo) {
+            case EMPRESAS -> null;
+            case DEPARTAMENTOS -> Empresa.class;
+            case EMPLEADOS -> Departamento.class;
+        };
+    }
+
+    /**
+     * Comprueba con una consulta por cada {@link #TAMANO_CONSULTA} identificadores cuáles de ellos existen,
+     * omitiendo los que ya están en la caché.
+     *
+     * @param ids Identificadores de las filas del bloque que se va a validar.
+     */
+    public void cargar(Collection<Integer> ids) {
+        if (referenciada == null) {
+            return;
+        }
+        List<Integer> pendientes = ids.stream().distinct().filter(id -> !existentes.containsKey(id)).toList();
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_CONSULTA) {
+                List<Integer> bloque = pendientes.subList(inicio, Math.min(inicio + TAMANO_CONSULTA, pendientes.size()));
+                Set<Integer> encontrados = Set.copyOf(session.createQuery(
+                                "SELECT r.id FROM " + referenciada.getSimpleName() + " r WHERE r.id IN :ids", Integer.class)
+                        .setParameter("ids", bloque)
+                        .getResultList());
+                bloque.forEach(id -> existentes.put(id, encontrados.contains(id)));
+            }
+        }
+    }
+
+    /**
+     * Obtiene la referencia a una empresa existente.
+     *
+     * @param id Identificador de la empresa.
+     * @return Referencia a la empresa, con solo el identificador informado.
+     * @throws IllegalArgumentException Si la empresa no existe.
+     */
+    public Empresa empresa(int id) {
+        if (!existe(id)) {
+            throw new IllegalArgumentException("la empresa " + id + " no existe");
+        }
+        Empresa empresa = new Empresa();
+        empresa.setId(id);
+        return empresa;
+    }
+
+    /**
+     * Obtiene la referencia a un departamento existente.
+     *
+     * @param id Identificador del departamento.
+     * @return Referencia al departamento, con solo el identificador informado.
+     * @throws IllegalArgumentException Si el departamento no existe.
+     */
+    public Departamento departamento(int id) {
+        if (!existe(id)) {
+            throw new IllegalArgumentException("el departamento " + id + " no existe");
+        }
+        Departamento departamento = new Departamento();
+        departamento.setId(id);
+        return departamento;
+    }
+
+    /**
+     * Indica si existe la entidad referenciada con un identificador, consultándolo si no está en la caché
+     * (por ejemplo, si no se cargó con su bloque).
+     *
+     * @param id Identificador de la entidad.
+     * @return true si existe.
+     */
+    private boolean existe(int id) {
+        Boolean existe = existentes.get(id);
+        if (existe == null) {
+            cargar(List.of(id));
+            existe = existentes.get(id);
+        }
+        return existe;
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.importacion;
+
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+
+/**
+ * Tipos de fichero que admite el importador, con sus columnas y la conversión de cada fila a entidad.
+ */
+public enum TipoImportacion {
+
+    /**
+     * Columnas: nombre, industria.
+     */
+    EMPRESAS(2, -1) {
+        @Override
+        Object convertir(String[] campos, ResolutorReferencias referencias) {
+            return new Empresa(requerido(campos[0], "nombre"), requerido(campos[1], "industria"));
+        }
+    },
+
+    /**
+     * Columnas: nombre, empresa_id.
+     */
+    DEPARTAMENTOS(2, 1) {
+        @Override
+        Object convertir(String[] campos, ResolutorReferencias referencias) {
+            return new Departamento(requerido(campos[0], "nombre"),
+                    referencias.empresa(entero(campos[1], "empresa_id")));
+        }
+    },
+
+    /**
+     * Columnas: dni, nombre, apellido, puesto, departamento_id.
+     */
+    EMPLEADOS(5, 4) {
+        @Override
+        Object convertir(String[] campos, ResolutorReferencias referencias) {
+            return new Empleado(requerido(campos[0], "dni"), requerido(campos[1], "nombre"),
+                    requerido(campos[2], "apellido"), requerido(campos[3], "puesto"),
+                    referencias.departamento(entero(campos[4], "departamento_id")));
+        }
+    };
+
+    /**
+     * Número de columnas que debe tener cada fila.
+     */
+    private final int columnas;
+
+    /**
+     * Posición de la columna con la clave foránea, o -1 si el tipo no tiene.
+     */
+    private final int columnaReferencia;
+
+    /**
+     * Constructor del tipo de importación.
+     *
+     * @param columnas          Número de columnas esperadas.
+     * @param columnaReferencia Posición de la columna con la clave foránea, o -1 si no tiene.
+     */
+    TipoImportacion(int columnas, int columnaReferencia) {
+        this.columnas = columnas;
+        this.columnaReferencia = columnaReferencia;
+    }
+
+    /**
+     * Obtiene la clave foránea de una fila, para resolverla junto con las de las demás filas del bloque.
+     *
+     * @param campos Campos de la fila.
+     * @return Identificador referenciado, o null si el tipo no tiene clave foránea o la fila no la trae válida.
+     */
+    Integer referencia(String[] campos) {
+        if (columnaReferencia < 0 || campos.length != columnas) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(campos[columnaReferencia]);
+        } catch (NumberFormatException e) {
+            return null; // La rechaza validarYConvertir
+        }
+    }
+
+    /**
+     * Valida una fila y la convierte en la entidad correspondiente.
+     *
+     * @param campos      Campos de la fila.
+     * @param referencias Resolutor de claves foráneas.
+     * @return Entidad lista para insertarse.
+     * @throws IllegalArgumentException Si la fila no es válida.
+     */
+    Object validarYConvertir(String[] campos, ResolutorReferencias referencias) {
+        if (campos.length != columnas) {
+            throw new IllegalArgumentException("se esperaban " + columnas + " columnas y hay " + campos.length);
+        }
+        return convertir(campos, referencias);
+    }
+
+    /**
+     * Convierte los campos ya contados de una fila en la entidad correspondiente.
+     *
+     * @param campos      Campos de la fila.
+     * @param referencias Resolutor de claves foráneas.
+     * @return Entidad lista para insertarse.
+     */
+    abstract Object convertir(String[] campos, ResolutorReferencias referencias);
+
+    /**
+     * Comprueba que un campo obligatorio tiene valor.
+     *
+     * @param valor  Valor del campo.
+     * @param nombre Nombre de la columna, para el mensaje de error.
+     * @return El mismo valor.
+     */
+    private static String requerido(String valor, String nombre) {
+        if (valor.isEmpty()) {
+            throw new IllegalArgumentException("la columna " + nombre + " está vacía");
+        }
+        return valor;
+    }
+
+    /**
+     * Convierte un campo numérico obligatorio.
+     *
+     * @param valor  Valor del campo.
+     * @param nombre Nombre de la columna, para el mensaje de error.
+     * @return Valor entero.
+     */
+    private static int entero(String valor, String nombre) {
+        try {
+            return Integer.parseInt(requerido(valor, nombre));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("la columna " + nombre + " no es un número: " + valor);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.informes;
+
+/**
+ * Fila del informe de departamentos de una empresa con su número de empleados.
+ * Se construye directamente desde la consulta HQL, sin cargar entidades.
+ *
+ * @param id           Identificador del departamento.
+ * @param nombre       Nombre del departamento.
+ * @param numEmpleados Número de empleados del departamento.
+ * @param empresa      Nombre de la empresa a la que pertenece.
+ */
+public record DepartamentoResumen(int id, String nombre, long numEmpleados, String empresa) {}
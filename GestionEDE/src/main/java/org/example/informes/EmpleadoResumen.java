@@ -0,0 +1,13 @@
+package org.example.informes;
+
+/**
+ * Fila del informe de empleados de un departamento.
+ * Se construye directamente desde la consulta HQL, sin cargar entidades.
+ *
+ * @param dni          DNI del empleado.
+ * @param nombre       Nombre del empleado.
+ * @param apellido     Apellido del empleado.
+ * @param puesto       Puesto del empleado.
+ * @param departamento Nombre del departamento al que pertenece.
+ */
+public record EmpleadoResumen(String dni, String nombre, String apellido, String puesto, String departamento) {}
@@ -4,12 +4,16 @@
 package org.example.menu;
 
 import org.example.entidades.Departamento;
+import org.example.informes.EmpleadoResumen;
+import org.example.repositorios.ConflictoConcurrenciaException;
 import org.example.repositorios.DepartamentoRepository;
 import org.example.repositorios.EmpresaRepository;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
+import org.example.repositorios.InformeRepository;
+import org.example.repositorios.UnidadDeTrabajo;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Clase que implementa el menú para gestionar departamentos, incluyendo las opciones de crear,
@@ -28,21 +32,29 @@ public class DepartamentoMenu extends Menu<Departamento, Integer> {
     private final EmpresaRepository empresaRepository;
 
     /**
-     * Fábrica de sesiones de Hibernate para realizar consultas personalizadas.
+     * Repositorio de solo lectura para los informes.
      */
-    private final SessionFactory sessionFactory;
+    private final InformeRepository informeRepository;
 
     /**
-     * Constructor que inicializa el menú con los repositorios y la fábrica de sesiones.
+     * Unidad de trabajo para agrupar la comprobación de la empresa y la escritura del departamento.
+     */
+    private final UnidadDeTrabajo unidadDeTrabajo;
+
+    /**
+     * Constructor que inicializa el menú con los repositorios.
      *
      * @param departamentoRepository Repositorio de departamentos.
      * @param empresaRepository      Repositorio de empresas.
-     * @param sessionFactory         Fábrica de sesiones de Hibernate.
+     * @param informeRepository      Repositorio de informes.
+     * @param unidadDeTrabajo        Unidad de trabajo compartida por los repositorios.
      */
-    public DepartamentoMenu(DepartamentoRepository departamentoRepository, EmpresaRepository empresaRepository, SessionFactory sessionFactory) {
+    public DepartamentoMenu(DepartamentoRepository departamentoRepository, EmpresaRepository empresaRepository,
+                            InformeRepository informeRepository, UnidadDeTrabajo unidadDeTrabajo) {
         this.departamentoRepository = departamentoRepository;
         this.empresaRepository = empresaRepository;
-        this.sessionFactory = sessionFactory;
+        this.informeRepository = informeRepository;
+        this.unidadDeTrabajo = unidadDeTrabajo;
     }
 
     /**
@@ -57,11 +69,13 @@ public class DepartamentoMenu extends Menu<Departamento, Integer> {
         int empresaId = sc.nextInt();
         sc.nextLine();
 
-        empresaRepository.leer(empresaId).ifPresentOrElse(empresa -> {
-            Departamento departamento = new Departamento(nombre, empresa);
-            departamentoRepository.crear(departamento);
-            System.out.println(">> Departamento creado exitosamente.");
-        }, () -> System.out.println("xxx Empresa no encontrada xxx"));
+        // Comprobar la empresa e insertar el departamento en la misma sesión y transacción
+        boolean creado = unidadDeTrabajo.ejecutar(() -> empresaRepository.leer(empresaId).map(empresa -> {
+            departamentoRepository.crear(new Departamento(nombre, empresa));
+            return true;
+        }).orElse(false));
+
+        System.out.println(creado ? ">> Departamento creado exitosamente." : "xxx Empresa no encontrada xxx");
     }
 
     /**
@@ -73,7 +87,7 @@ public class DepartamentoMenu extends Menu<Departamento, Integer> {
         int id = sc.nextInt();
         sc.nextLine();
 
-        departamentoRepository.leer(id).ifPresentOrElse(
+        departamentoRepository.leer(id, Departamento.GRAFO_CON_EMPRESA).ifPresentOrElse(
                 departamento ->
                         System.out.println(">> Departamento encontrado: " + departamento.getNombre() +
                                 ", Empresa: " + departamento.getEmpresa().getNombre()),
@@ -92,18 +106,36 @@ public class DepartamentoMenu extends Menu<Departamento, Integer> {
 
         departamentoRepository.leer(id).ifPresentOrElse(departamento -> {
 
-            System.out.print("• Ingrese el nuevo nombre del departamento: ");
-            departamento.setNombre(sc.nextLine());
-
-            System.out.print("• Ingrese la ID de la nueva empresa asociada: ");
-            int empresaId = sc.nextInt();
-            sc.nextLine();
+            // Solo se envían los campos que cambian, de modo que el UPDATE escribe solo esas columnas
+            Map<String, Object> cambios = new LinkedHashMap<>();
+            System.out.print("• Ingrese el nuevo nombre del departamento (o presione Enter para no cambiar): ");
+            String nuevoNombre = sc.nextLine();
+            if (!nuevoNombre.isEmpty()) {
+                cambios.put("nombre", nuevoNombre);
+            }
 
-            empresaRepository.leer(empresaId).ifPresentOrElse(empresa -> {
-                departamento.setEmpresa(empresa);
-                departamentoRepository.actualizar(departamento);
-                System.out.println(">> Departamento actualizado exitosamente.");
-            }, () -> System.out.println("xxx Empresa no encontrada xxx"));
+            System.out.print("• Ingrese la ID de la nueva empresa asociada (o presione Enter para no cambiar): ");
+            String nuevaEmpresaId = sc.nextLine();
+
+            // Comprobar la nueva empresa y guardar el departamento en la misma sesión y transacción, solo si
+            // nadie lo ha modificado desde que se leyó
+            try {
+                boolean actualizado = unidadDeTrabajo.ejecutar(() -> {
+                    if (!nuevaEmpresaId.isEmpty()) {
+                        int empresaId = Integer.parseInt(nuevaEmpresaId);
+                        if (empresaRepository.existe(empresaId)) {
+                            cambios.put("empresa", empresaId);
+                        } else {
+                            System.out.println("xxx Empresa no encontrada. No se cambió la empresa xxx");
+                        }
+                    }
+                    return cambios.isEmpty() || departamentoRepository.actualizarCampos(id, departamento.getVersion(), cambios);
+                });
+
+                System.out.println(actualizado ? ">> Departamento actualizado exitosamente." : "xxx El departamento ya no existe xxx");
+            } catch (ConflictoConcurrenciaException e) {
+                System.out.println("xxx " + e.getMessage() + ". Vuelva a leerlo y repita el cambio xxx");
+            }
         }, () -> System.out.println("xxx Departamento no encontrado xxx"));
     }
 
@@ -120,7 +152,7 @@ public class DepartamentoMenu extends Menu<Departamento, Integer> {
     }
 
     /**
-     * Lista los empleados de un departamento específico.
+     * Lista los empleados de un departamento específico, mostrando los resultados por páginas.
      */
     // Método para listar los empleados asociados a un departamento específico
     public void listaEmpleadosDepartamento() {
@@ -129,38 +161,37 @@ public class DepartamentoMenu extends Menu<Departamento, Integer> {
         int departmentId = sc.nextInt();
         sc.nextLine();
 
-        // Abrir una sesión de Hibernate para interactuar con la base de datos
-        try (Session session = sessionFactory.openSession()) {
-
-            session.beginTransaction();
-
-            // Obtener la información del departamento especificado por el usuario
-            Departamento departamento = session.createQuery(
-                            "SELECT d FROM Departamento d WHERE d.id = :id", Departamento.class)
-                    .setParameter("id", departmentId)
-                    .uniqueResult();
-
-            // Obtener la lista de empleados asociados al departamento mediante una consulta HQL
-            List<Object[]> empleados = session.createQuery(
-                            "SELECT e.nombre, e.apellido, e.puesto FROM Empleado e WHERE e.departamento.id = :id", Object[].class)
-                    .setParameter("id", departmentId)
-                    .getResultList();
+        // Recorrer los empleados por páginas, continuando cada página tras el último empleado mostrado
+        EmpleadoResumen ultimo = null;
+        boolean primeraPagina = true;
+        while (true) {
+            List<EmpleadoResumen> empleados;
+            try {
+                empleados = informeRepository.empleadosDeDepartamento(departmentId, ultimo, TAMANO_PAGINA);
+            } catch (Exception e) {
+                // Log de error mejorado para entender la causa de la excepción
+                System.err.println("xxx Error al listar empleados del departamento: " + e.getMessage());
+                return;
+            }
 
             // Verificar si el departamento tiene empleados asignados
-            if (empleados.isEmpty()) {
-                System.out.println("No hay empleados asignados a este departamento.");
-            } else {
-                System.out.println("Empleados en el departamento de " + departamento.getNombre() + ":");
-                // Iterar y mostrar cada empleado asociado al departamento
-                empleados.forEach(empleado -> System.out.println(
-                        "- Nombre: " + empleado[0] + ", Apellido: " + empleado[1] + ", Puesto: " + empleado[2]));
+            if (primeraPagina) {
+                if (empleados.isEmpty()) {
+                    System.out.println("No hay empleados asignados a este departamento o el departamento no existe.");
+                    return;
+                }
+                System.out.println("Empleados en el departamento de " + empleados.get(0).departamento() + ":");
+                primeraPagina = false;
             }
 
-            // Confirmar la transacción después de realizar las operaciones
-            session.getTransaction().commit();
-        } catch (Exception e) {
-            // Log de error mejorado para entender la causa de la excepción
-            System.err.println("xxx Error al listar empleados del departamento: " + e.getMessage());
+            // Iterar y mostrar cada empleado de la página
+            empleados.forEach(empleado -> System.out.println(
+                    "- Nombre: " + empleado.nombre() + ", Apellido: " + empleado.apellido() + ", Puesto: " + empleado.puesto()));
+
+            if (empleados.size() < TAMANO_PAGINA || !continuarPaginando()) {
+                return;
+            }
+            ultimo = empleados.get(empleados.size() - 1);
         }
     }
 
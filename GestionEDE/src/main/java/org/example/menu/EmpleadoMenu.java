@@ -3,16 +3,41 @@
  */
 package org.example.menu;
 
+import jakarta.persistence.EntityExistsException;
+import org.example.busqueda.Coincidencia;
+import org.example.busqueda.IndiceEmpleados;
+import org.example.configuracion.ContextoInquilino;
+import org.example.repositorios.ConflictoConcurrenciaException;
 import org.example.repositorios.DepartamentoRepository;
 import org.example.entidades.Empleado;
 import org.example.repositorios.EmpleadoRepository;
+import org.example.repositorios.UnidadDeTrabajo;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Clase que implementa el menú para gestionar empleados, incluyendo las opciones de crear,
- * leer, actualizar y eliminar empleados.
+ * leer, actualizar, eliminar, buscar y exportar empleados, y de moverlos o renombrar su puesto en bloque.
  */
 public class EmpleadoMenu extends Menu<Empleado, String> {
 
+    /**
+     * Número máximo de resultados de una búsqueda.
+     */
+    private static final int MAXIMO_RESULTADOS = 20;
+
     /**
      * Repositorio para gestionar las operaciones de la entidad Empleado.
      */
@@ -23,15 +48,30 @@ public class EmpleadoMenu extends Menu<Empleado, String> {
      */
     private final DepartamentoRepository departamentoRepository;
 
+    /**
+     * Unidad de trabajo para agrupar las lecturas y escrituras de una misma operación.
+     */
+    private final UnidadDeTrabajo unidadDeTrabajo;
+
+    /**
+     * Índice en memoria para buscar empleados por nombre, apellido y puesto.
+     */
+    private final IndiceEmpleados indiceEmpleados;
+
     /**
      * Constructor que inicializa el menú con los repositorios de empleado y departamento.
      *
-     * @param repository            Repositorio de empleados.
+     * @param repository             Repositorio de empleados.
      * @param departamentoRepository Repositorio de departamentos.
+     * @param unidadDeTrabajo        Unidad de trabajo compartida por los repositorios.
+     * @param indiceEmpleados        Índice de búsqueda de empleados.
      */
-    public EmpleadoMenu(EmpleadoRepository repository, DepartamentoRepository departamentoRepository) {
+    public EmpleadoMenu(EmpleadoRepository repository, DepartamentoRepository departamentoRepository,
+                        UnidadDeTrabajo unidadDeTrabajo, IndiceEmpleados indiceEmpleados) {
         this.repository = repository;
         this.departamentoRepository = departamentoRepository;
+        this.unidadDeTrabajo = unidadDeTrabajo;
+        this.indiceEmpleados = indiceEmpleados;
     }
 
     /**
@@ -42,12 +82,6 @@ public class EmpleadoMenu extends Menu<Empleado, String> {
         System.out.print("• Ingrese el DNI del empleado: ");
         String dni = sc.nextLine();
 
-        // Verificar si el DNI ya está registrado
-        if (repository.leer(dni).isPresent()) {
-            System.out.println(">> El empleado con DNI " + dni + " ya está registrado en la base de datos.");
-            return;
-        }
-
         // Solicitar otros datos del empleado
         System.out.print("• Ingrese el nombre del empleado: ");
         String nombre = sc.nextLine();
@@ -62,17 +96,23 @@ public class EmpleadoMenu extends Menu<Empleado, String> {
         int departamentoId = sc.nextInt();
         sc.nextLine(); // Consumir salto de línea
 
-        // Verificar si el departamento existe
-        departamentoRepository.leer(departamentoId).ifPresentOrElse(departamento -> {
-            Empleado empleado = new Empleado(dni, nombre, apellido, puesto, departamento);
-            try {
-                repository.crear(empleado);
-                System.out.println(">> Empleado creado exitosamente.");
-            } catch (Exception e) {
+        // Verificar si el departamento existe e insertar el empleado en la misma sesión y transacción. No se
+        // comprueba antes si el DNI existe: la clave primaria rechaza el duplicado en la propia inserción
+        try {
+            boolean creado = unidadDeTrabajo.ejecutar(() -> departamentoRepository.leer(departamentoId).map(departamento -> {
+                repository.crear(new Empleado(dni, nombre, apellido, puesto, departamento));
+                return true;
+            }).orElse(false));
+
+            System.out.println(creado ? ">> Empleado creado exitosamente."
+                    : "xxx Departamento no encontrado. No se pudo registrar el empleado xxx");
+        } catch (Exception e) {
+            if (esDuplicado(e)) {
+                System.out.println(">> El empleado con DNI " + dni + " ya está registrado en la base de datos.");
+            } else {
                 System.out.println("xxx Ocurrió un error al registrar el empleado: " + e.getMessage());
             }
-
-        }, () -> System.out.println("xxx Departamento no encontrado. No se pudo registrar el empleado xxx"));
+        }
     }
 
     /**
@@ -83,7 +123,7 @@ public class EmpleadoMenu extends Menu<Empleado, String> {
         System.out.print("• Ingrese el DNI del empleado: ");
         String dni = sc.nextLine();
 
-        repository.leer(dni).ifPresentOrElse(
+        repository.leer(dni, Empleado.GRAFO_CON_DEPARTAMENTO).ifPresentOrElse(
                 empleado -> System.out.println(">> Empleado encontrado: " + empleado.getNombre() + " " + empleado.getApellido() +
                         ", Puesto: " + empleado.getPuesto() + ", Departamento: " + empleado.getDepartamento().getNombre()),
                 () -> System.out.println("xxx Empleado no encontrado xxx")
@@ -98,42 +138,54 @@ public class EmpleadoMenu extends Menu<Empleado, String> {
         System.out.print("• Ingrese el DNI del empleado a actualizar: ");
         String dni = sc.nextLine();
 
-        repository.leer(dni).ifPresentOrElse(empleado -> {
+        repository.leer(dni, Empleado.GRAFO_CON_DEPARTAMENTO).ifPresentOrElse(empleado -> {
             System.out.println(">> Empleado encontrado: ");
             System.out.println("Nombre actual: " + empleado.getNombre());
             System.out.println("Apellido actual: " + empleado.getApellido());
             System.out.println("Puesto actual: " + empleado.getPuesto());
             System.out.println("Departamento actual: " + empleado.getDepartamento().getNombre());
 
+            // Solo se envían los campos que cambian, en un UPDATE de esas columnas sin volver a leer el empleado
+            Map<String, Object> cambios = new LinkedHashMap<>();
             System.out.print("• Ingrese el nuevo nombre del empleado (o presione Enter para no cambiar): ");
             String nuevoNombre = sc.nextLine();
             if (!nuevoNombre.isEmpty()) {
-                empleado.setNombre(nuevoNombre);
+                cambios.put("nombre", nuevoNombre);
             }
 
             System.out.print("• Ingrese el nuevo apellido del empleado (o presione Enter para no cambiar): ");
             String nuevoApellido = sc.nextLine();
             if (!nuevoApellido.isEmpty()) {
-                empleado.setApellido(nuevoApellido);
+                cambios.put("apellido", nuevoApellido);
             }
 
             System.out.print("• Ingrese el nuevo puesto del empleado (o presione Enter para no cambiar): ");
             String nuevoPuesto = sc.nextLine();
             if (!nuevoPuesto.isEmpty()) {
-                empleado.setPuesto(nuevoPuesto);
+                cambios.put("puesto", nuevoPuesto);
             }
 
             System.out.print("• Ingrese la ID del nuevo departamento (o presione Enter para no cambiar): ");
             String nuevoDepartamentoId = sc.nextLine();
-            if (!nuevoDepartamentoId.isEmpty()) {
-                int depId = Integer.parseInt(nuevoDepartamentoId);
-                departamentoRepository.leer(depId).ifPresentOrElse(departamento -> {
-                    empleado.setDepartamento(departamento);
-                }, () -> System.out.println("xxx Departamento no encontrado. No se cambió el departamento xxx"));
-            }
 
-            repository.actualizar(empleado);
-            System.out.println(">> Empleado actualizado exitosamente.");
+            // Comprobar el nuevo departamento y guardar el empleado en la misma sesión y transacción. El empleado
+            // se leyó antes de pedir los cambios, así que se guarda solo si nadie lo ha modificado desde entonces.
+            try {
+                boolean actualizado = unidadDeTrabajo.ejecutar(() -> {
+                    if (!nuevoDepartamentoId.isEmpty()) {
+                        int depId = Integer.parseInt(nuevoDepartamentoId);
+                        if (departamentoRepository.existe(depId)) {
+                            cambios.put("departamento", depId);
+                        } else {
+                            System.out.println("xxx Departamento no encontrado. No se cambió el departamento xxx");
+                        }
+                    }
+                    return cambios.isEmpty() || repository.actualizarCampos(dni, empleado.getVersion(), cambios);
+                });
+                System.out.println(actualizado ? ">> Empleado actualizado exitosamente." : "xxx El empleado ya no existe xxx");
+            } catch (ConflictoConcurrenciaException e) {
+                System.out.println("xxx " + e.getMessage() + ". Vuelva a leerlo y repita el cambio xxx");
+            }
         }, () -> System.out.println("xxx Empleado no encontrado xxx"));
     }
 
@@ -145,9 +197,173 @@ public class EmpleadoMenu extends Menu<Empleado, String> {
         System.out.print("• Ingrese el DNI del empleado a eliminar: ");
         String dni = sc.nextLine();
 
-        repository.leer(dni).ifPresentOrElse(empleado -> {
+        // La lectura deja el empleado en la sesión compartida, así que el borrado no vuelve a consultarlo
+        boolean borrado = unidadDeTrabajo.ejecutar(() -> {
+            if (repository.leer(dni).isEmpty()) {
+                return false;
+            }
             repository.borrar(dni);
-            System.out.println(">> Empleado eliminado exitosamente.");
-        }, () -> System.out.println("xxx Empleado no encontrado xxx"));
+            return true;
+        });
+
+        System.out.println(borrado ? ">> Empleado eliminado exitosamente." : "xxx Empleado no encontrado xxx");
+    }
+
+    /**
+     * Busca empleados por nombre, apellido o puesto, sin distinguir mayúsculas ni tildes y admitiendo
+     * palabras incompletas, y muestra los más relevantes. Con una empresa de trabajo solo muestra sus empleados.
+     */
+    public void buscar() {
+        System.out.print("• Ingrese el texto a buscar (nombre, apellido o puesto): ");
+        String texto = sc.nextLine();
+
+        if (indiceEmpleados.isCargando()) {
+            System.out.println(">> El índice de búsqueda se está cargando; los resultados pueden estar incompletos.");
+        }
+        Integer empresa = ContextoInquilino.actual();
+        List<Coincidencia> resultados;
+        if (empresa == null) {
+            resultados = indiceEmpleados.buscar(texto, MAXIMO_RESULTADOS);
+        } else {
+            // El índice tiene los empleados de todas las empresas: se filtra por los departamentos de la activa antes de elegir los mejores
+            Set<Integer> departamentos = departamentoRepository.idsDeEmpresa(empresa);
+            resultados = indiceEmpleados.buscar(texto, MAXIMO_RESULTADOS, departamentos::contains);
+        }
+        if (resultados.isEmpty()) {
+            System.out.println("No se encontraron empleados.");
+            return;
+        }
+        resultados.forEach(empleado -> System.out.println("- DNI: " + empleado.dni() + ", Nombre: " + empleado.nombre()
+                + ", Apellido: " + empleado.apellido() + ", Puesto: " + empleado.puesto()
+                + ", Departamento: " + empleado.departamentoId()));
+    }
+
+    /**
+     * Exporta los empleados de un departamento (o todos) en formato CSV a un fichero o a la consola.
+     * Los empleados se escriben a medida que se leen, sin cargarlos todos en memoria.
+     */
+    public void exportar() {
+        System.out.print("• Ingrese la ID del departamento (o presione Enter para exportar todos): ");
+        String departamento = sc.nextLine().trim();
+        Integer departamentoId = departamento.isEmpty() ? null : Integer.parseInt(departamento);
+
+        System.out.print("• Ingrese la ruta del fichero de destino (o presione Enter para mostrarlo en consola): ");
+        String ruta = sc.nextLine().trim();
+
+        try {
+            long exportados;
+            if (ruta.isEmpty()) {
+                // No se cierra el escritor para no cerrar la salida estándar
+                Writer consola = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                exportados = repository.exportar(departamentoId, consola);
+            } else {
+                try (Writer fichero = Files.newBufferedWriter(Path.of(ruta), StandardCharsets.UTF_8)) {
+                    exportados = repository.exportar(departamentoId, fichero);
+                }
+            }
+            System.out.println(">> " + exportados + " empleados exportados.");
+        } catch (IOException e) {
+            System.out.println("xxx Ocurrió un error al exportar los empleados: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mueve a otro departamento todos los empleados de un departamento, de un puesto o de ambos,
+     * con una sola sentencia en lugar de actualizar los empleados uno a uno.
+     */
+    public void mover() {
+        System.out.print("• Ingrese la ID del departamento de origen (o presione Enter para cualquiera): ");
+        String origen = sc.nextLine().trim();
+        System.out.print("• Ingrese el puesto de los empleados a mover (o presione Enter para cualquiera): ");
+        String puesto = sc.nextLine().trim();
+        System.out.print("• Ingrese la ID del departamento de destino: ");
+        int destino = sc.nextInt();
+        sc.nextLine(); // Consumir salto de línea
+
+        try {
+            int movidos = repository.moverEmpleados(origen.isEmpty() ? null : Integer.parseInt(origen),
+                    puesto.isEmpty() ? null : puesto, destino);
+            System.out.println(">> " + movidos + " empleados movidos al departamento " + destino + ".");
+        } catch (IllegalArgumentException | ConflictoConcurrenciaException e) {
+            System.out.println("xxx " + e.getMessage() + " xxx");
+        }
+    }
+
+    /**
+     * Cambia el nombre de un puesto en todos los empleados de una empresa con una sola sentencia.
+     */
+    public void renombrarPuesto() {
+        System.out.print("• Ingrese la ID de la empresa: ");
+        int empresaId = sc.nextInt();
+        sc.nextLine(); // Consumir salto de línea
+        System.out.print("• Ingrese el puesto actual: ");
+        String puesto = sc.nextLine().trim();
+        System.out.print("• Ingrese el nuevo puesto: ");
+        String nuevoPuesto = sc.nextLine().trim();
+
+        try {
+            int renombrados = repository.renombrarPuesto(empresaId, puesto, nuevoPuesto);
+            System.out.println(">> " + renombrados + " empleados con el puesto " + nuevoPuesto + ".");
+        } catch (ConflictoConcurrenciaException e) {
+            System.out.println("xxx " + e.getMessage() + " xxx");
+        }
+    }
+
+    /**
+     * Muestra el menú principal de opciones para gestionar empleados.
+     */
+    @Override
+    public void mostrarMenu() {
+        while (true) {
+            System.out.println("\n----------------------------------------------------");
+            System.out.println("----------------- Menú Empleado --------------------");
+            System.out.println("----------------------------------------------------");
+            System.out.println("|| 1. Crear                                       ||");
+            System.out.println("|| 2. Leer                                        ||");
+            System.out.println("|| 3. Actualizar                                  ||");
+            System.out.println("|| 4. Eliminar                                    ||");
+            System.out.println("|| 5. Exportar empleados a CSV                    ||");
+            System.out.println("|| 6. Buscar por nombre, apellido o puesto        ||");
+            System.out.println("|| 7. Mover empleados de departamento             ||");
+            System.out.println("|| 8. Renombrar un puesto en una empresa          ||");
+            System.out.println("|| 9. Salir                                       ||");
+            System.out.println("----------------------------------------------------");
+
+            System.out.print(">> Seleccione una opción: ");
+            int option = sc.nextInt();
+            sc.nextLine(); // Consumir el salto de línea
+
+            switch (option) {
+                case 1 -> crear();
+                case 2 -> leer();
+                case 3 -> actualizar();
+                case 4 -> borrar();
+                case 5 -> exportar();
+                case 6 -> buscar();
+                case 7 -> mover();
+                case 8 -> renombrarPuesto();
+                case 9 -> {
+                    System.out.println("--> Saliendo del menú ...");
+                    return;
+                }
+                default -> System.out.println("xxx  Opción inválida  xxx");
+            }
+        }
+    }
+
+    /**
+     * Indica si una excepción se debe a que ya existe una fila con la misma clave.
+     *
+     * @param e Excepción producida al insertar.
+     * @return true si alguna de sus causas es una violación de clave primaria o única.
+     */
+    private static boolean esDuplicado(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof EntityExistsException
+                    || causa instanceof ConstraintViolationException violacion && violacion.getKind() == ConstraintKind.UNIQUE) {
+                return true;
+            }
+        }
+        return false;
     }
 }
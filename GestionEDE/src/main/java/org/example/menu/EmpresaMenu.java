@@ -1,11 +1,14 @@
 package org.example.menu;
 
 import org.example.entidades.Empresa;
+import org.example.informes.DepartamentoResumen;
+import org.example.repositorios.ConflictoConcurrenciaException;
 import org.example.repositorios.EmpresaRepository;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
+import org.example.repositorios.InformeRepository;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Clase que implementa el menú para gestionar empresas, incluyendo las opciones de crear,
@@ -19,19 +22,19 @@ public class EmpresaMenu extends Menu<Empresa, Integer> {
     private final EmpresaRepository repository;
 
     /**
-     * Fábrica de sesiones de Hibernate para realizar consultas personalizadas.
+     * Repositorio de solo lectura para los informes.
      */
-    private final SessionFactory sessionFactory;
+    private final InformeRepository informeRepository;
 
     /**
-     * Constructor que inicializa el menú con el repositorio y la fábrica de sesiones.
+     * Constructor que inicializa el menú con los repositorios de empresas y de informes.
      *
-     * @param repository     Repositorio de empresas.
-     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     * @param repository        Repositorio de empresas.
+     * @param informeRepository Repositorio de informes.
      */
-    public EmpresaMenu(EmpresaRepository repository, SessionFactory sessionFactory) {
+    public EmpresaMenu(EmpresaRepository repository, InformeRepository informeRepository) {
         this.repository = repository;
-        this.sessionFactory = sessionFactory;
+        this.informeRepository = informeRepository;
     }
 
     /**
@@ -75,12 +78,26 @@ public class EmpresaMenu extends Menu<Empresa, Integer> {
         sc.nextLine();
 
         repository.leer(id).ifPresentOrElse(empresa -> {
-            System.out.print("• Ingrese el nuevo nombre de la empresa: ");
-            empresa.setNombre(sc.nextLine());
-            System.out.print("• Ingrese la nueva industria, ¿Qué hace la empresa?: ");
-            empresa.setIndustria(sc.nextLine());
-            repository.actualizar(empresa);
-            System.out.println(">> Empresa actualizada exitosamente.");
+            // Solo se envían los campos que cambian, en un UPDATE de esas columnas sin volver a leer la empresa
+            Map<String, Object> cambios = new LinkedHashMap<>();
+            System.out.print("• Ingrese el nuevo nombre de la empresa (o presione Enter para no cambiar): ");
+            String nuevoNombre = sc.nextLine();
+            if (!nuevoNombre.isEmpty()) {
+                cambios.put("nombre", nuevoNombre);
+            }
+            System.out.print("• Ingrese la nueva industria, ¿Qué hace la empresa? (o presione Enter para no cambiar): ");
+            String nuevaIndustria = sc.nextLine();
+            if (!nuevaIndustria.isEmpty()) {
+                cambios.put("industria", nuevaIndustria);
+            }
+
+            // La empresa se leyó antes de pedir los cambios, así que se guarda solo si nadie la ha modificado desde entonces
+            try {
+                boolean actualizada = cambios.isEmpty() || repository.actualizarCampos(id, empresa.getVersion(), cambios);
+                System.out.println(actualizada ? ">> Empresa actualizada exitosamente." : "xxx La empresa ya no existe xxx");
+            } catch (ConflictoConcurrenciaException e) {
+                System.out.println("xxx " + e.getMessage() + ". Vuelva a leerlo y repita el cambio xxx");
+            }
         }, () -> System.out.println("xxx Empresa no encontrada xxx"));
     }
 
@@ -97,47 +114,43 @@ public class EmpresaMenu extends Menu<Empresa, Integer> {
     }
 
     /**
-     * Lista los departamentos de una empresa junto con el número de empleados en cada uno.
+     * Lista los departamentos de una empresa junto con el número de empleados en cada uno,
+     * mostrando los resultados por páginas.
      */
     public void listaDepartamentosEmpleados() {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            System.out.print("• Ingrese la ID de la empresa: ");
-            int companyId = sc.nextInt();
-            sc.nextLine(); // Consumir salto de línea
-
-            // Consulta HQL para obtener el nombre de la empresa
-            Empresa empresa = session.createQuery(
-                            "SELECT e FROM Empresa e WHERE e.id = :id", Empresa.class)
-                    .setParameter("id", companyId)
-                    .uniqueResult();
-
-            // Realizar la consulta con HQL para obtener departamentos y conteo de empleados
-            List<Object[]> resultados = session.createQuery(
-                            "SELECT d.nombre, COUNT(e) " +
-                                    "FROM Departamento d " +
-                                    "LEFT JOIN d.empleados e " +
-                                    "WHERE d.empresa.id = :empresaId " +
-                                    "GROUP BY d.id", Object[].class)
-                    .setParameter("empresaId", companyId)
-                    .getResultList();
-
-            if (resultados.isEmpty()) {
-                System.out.println("xxx La empresa no tiene departamentos registrados o no existe xxx");
-            } else {
-                System.out.println(">> Departamentos de la empresa " + empresa.getNombre() + " con ID " + companyId + ":");
-                resultados.forEach(resultado -> {
-                    String nombreDepartamento = (String) resultado[0];
-                    Long numeroEmpleados = (Long) resultado[1]; // El conteo se devuelve como Long
-                    System.out.println("- " + nombreDepartamento + " (Número de empleados: " + numeroEmpleados + ")");
-                });
+        System.out.print("• Ingrese la ID de la empresa: ");
+        int companyId = sc.nextInt();
+        sc.nextLine(); // Consumir salto de línea
+
+        // Recorrer los departamentos por páginas, continuando cada página tras el último ID mostrado
+        int ultimoId = 0;
+        boolean primeraPagina = true;
+        while (true) {
+            List<DepartamentoResumen> resultados;
+            try {
+                resultados = informeRepository.departamentosConEmpleados(companyId, ultimoId, TAMANO_PAGINA);
+            } catch (Exception e) {
+                // Log de error mejorado para entender la causa de la excepción
+                System.err.println("xxx Error al listar los departamentos de una empresa: " + e.getMessage());
+                return;
             }
 
-            session.getTransaction().commit();
-        } catch (Exception e) {
-            // Log de error mejorado para entender la causa de la excepción
-            System.err.println("xxx Error al listar los departamentos de una empresa: " + e.getMessage());
+            if (primeraPagina) {
+                if (resultados.isEmpty()) {
+                    System.out.println("xxx La empresa no tiene departamentos registrados o no existe xxx");
+                    return;
+                }
+                System.out.println(">> Departamentos de la empresa " + resultados.get(0).empresa() + " con ID " + companyId + ":");
+                primeraPagina = false;
+            }
+
+            resultados.forEach(resultado -> System.out.println(
+                    "- " + resultado.nombre() + " (Número de empleados: " + resultado.numEmpleados() + ")"));
+
+            if (resultados.size() < TAMANO_PAGINA || !continuarPaginando()) {
+                return;
+            }
+            ultimoId = resultados.get(resultados.size() - 1).id();
         }
     }
 
@@ -18,6 +18,21 @@ public abstract class Menu<T, ID> {
      */
     protected final Scanner sc = new Scanner(System.in);
 
+    /**
+     * Número de filas que se muestran en cada página de los listados.
+     */
+    protected static final int TAMANO_PAGINA = 20;
+
+    /**
+     * Pregunta al usuario si quiere ver la siguiente página de un listado.
+     *
+     * @return true si el usuario quiere continuar, false si escribe "s" para salir.
+     */
+    protected boolean continuarPaginando() {
+        System.out.print("-- Pulse Enter para ver más resultados o escriba 's' para salir: ");
+        return !sc.nextLine().trim().equalsIgnoreCase("s");
+    }
+
     /**
      * Método abstracto para crear un elemento.
      * Debe ser implementado por las clases concretas que hereden esta clase.
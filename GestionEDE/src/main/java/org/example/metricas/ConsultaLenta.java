@@ -0,0 +1,144 @@
+package org.example.metricas;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Sentencia SQL que superó el umbral de {@link ConsultasLentas}, con sus parámetros, su origen y,
+ * si está activado, su plan de ejecución.
+ */
+public class ConsultaLenta {
+
+    /**
+     * Momento en que terminó la sentencia.
+     */
+    private final Instant momento;
+
+    /**
+     * Texto SQL de la sentencia.
+     */
+    private final String sql;
+
+    /**
+     * Parámetros enlazados, en orden de posición (los de la última fila en un lote).
+     */
+    private final List<Object> parametros;
+
+    /**
+     * Filas del lote JDBC, o 0 si no se ejecutó como lote.
+     */
+    private final int filasLote;
+
+    /**
+     * Duración de la ejecución en nanosegundos.
+     */
+    private final long nanos;
+
+    /**
+     * Operación medida y método de la aplicación desde los que se ejecutó.
+     */
+    private final String origen;
+
+    /**
+     * Salida de EXPLAIN, o null si no se ha capturado (todavía).
+     */
+    private volatile String plan;
+
+    /**
+     * Constructor de una sentencia lenta.
+     *
+     * @param momento    Momento en que terminó.
+     * @param sql        Texto SQL.
+     * @param parametros Parámetros enlazados.
+     * @param filasLote  Filas del lote JDBC, o 0.
+     * @param nanos      Duración en nanosegundos.
+     * @param origen     Operación y método de origen.
+     */
+    ConsultaLenta(Instant momento, String sql, List<Object> parametros, int filasLote, long nanos, String origen) {
+        this.momento = momento;
+        this.sql = sql;
+        this.parametros = parametros;
+        this.filasLote = filasLote;
+        this.nanos = nanos;
+        this.origen = origen;
+    }
+
+    /**
+     * Obtiene el momento en que terminó la sentencia.
+     *
+     * @return Momento de finalización.
+     */
+    public Instant getMomento() {
+        return momento;
+    }
+
+    /**
+     * Obtiene el texto SQL de la sentencia.
+     *
+     * @return Texto SQL.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Obtiene los parámetros enlazados.
+     *
+     * @return Parámetros en orden de posición.
+     */
+    public List<Object> getParametros() {
+        return parametros;
+    }
+
+    /**
+     * Obtiene el número de filas del lote JDBC.
+     *
+     * @return Filas del lote, o 0 si no fue un lote.
+     */
+    public int getFilasLote() {
+        return filasLote;
+    }
+
+    /**
+     * Obtiene la duración de la sentencia.
+     *
+     * @return Duración en milisegundos.
+     */
+    public double getDuracionMs() {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Obtiene la operación y el método de la aplicación desde los que se ejecutó.
+     *
+     * @return Origen de la sentencia.
+     */
+    public String getOrigen() {
+        return origen;
+    }
+
+    /**
+     * Obtiene el plan de ejecución capturado con EXPLAIN.
+     *
+     * @return Plan, o null si no se ha capturado.
+     */
+    public String getPlan() {
+        return plan;
+    }
+
+    /**
+     * Guarda el plan de ejecución capturado.
+     *
+     * @param plan Salida de EXPLAIN.
+     */
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f ms en %s: %s %s%s%s", getDuracionMs(), origen, sql, parametros,
+                filasLote > 0 ? " (lote de " + filasLote + " filas)" : "",
+                plan == null ? "" : "\n    plan: " + plan.replace("\n", "\n          "));
+    }
+}
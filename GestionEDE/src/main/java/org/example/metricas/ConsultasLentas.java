@@ -0,0 +1,388 @@
+package org.example.metricas;
+
+import org.apache.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detector de sentencias SQL lentas.
+ * <p>
+ * {@link org.example.configuracion.ProveedorConexiones} envuelve cada conexión del pool para medir la
+ * ejecución de sus sentencias. Las que superan el umbral se escriben en el logger
+ * {@code org.example.consultas_lentas} con su duración, sus parámetros y su origen (la operación de
+ * {@link MetricasOperacion} en curso y el método de la aplicación que la lanzó), y se guardan en un
+ * búfer circular de tamaño fijo que se puede consultar en JMX
+ * ({@code org.example:type=ConsultasLentas,name=<pool>}) o desde el menú de métricas. Opcionalmente se
+ * captura su plan con EXPLAIN en un hilo aparte, con una conexión propia, para no alargar la operación
+ * que la lanzó.
+ * <p>
+ * Cada proveedor de conexiones, y por tanto cada SessionFactory, tiene su propio detector con su propia
+ * configuración; {@link #de} obtiene el de una SessionFactory. Se configura en hibernate.cfg.xml (o con
+ * {@code -D}) con las propiedades {@link #UMBRAL}, {@link #EXPLAIN} y {@link #CAPACIDAD}. Con un umbral
+ * negativo las conexiones no se envuelven.
+ */
+public final class ConsultasLentas implements ConsultasLentasMXBean {
+
+    /**
+     * Propiedad con el umbral en milisegundos; un valor negativo desactiva el detector.
+     */
+    public static final String UMBRAL = "hibernate.consultas_lentas.umbral_ms";
+
+    /**
+     * Propiedad que activa la captura del plan de ejecución de las sentencias lentas.
+     */
+    public static final String EXPLAIN = "hibernate.consultas_lentas.explain";
+
+    /**
+     * Propiedad con el número de sentencias lentas que se guardan.
+     */
+    public static final String CAPACIDAD = "hibernate.consultas_lentas.capacidad";
+
+    /**
+     * Umbral por defecto en milisegundos.
+     */
+    private static final long UMBRAL_POR_DEFECTO = 500;
+
+    /**
+     * Número de sentencias lentas que se guardan por defecto.
+     */
+    private static final int CAPACIDAD_POR_DEFECTO = 100;
+
+    /**
+     * Planes pendientes de capturar como máximo; si hay más, se descartan.
+     */
+    private static final int PLANES_PENDIENTES = 32;
+
+    /**
+     * Segundos de espera máxima de cada EXPLAIN.
+     */
+    private static final int SEGUNDOS_EXPLAIN = 10;
+
+    /**
+     * Logger en el que se escriben las sentencias lentas.
+     */
+    private static final Logger LOG = Logger.getLogger("org.example.consultas_lentas");
+
+    /**
+     * Umbral en nanosegundos, o negativo si el detector está desactivado.
+     */
+    private volatile long umbralNanos = -1;
+
+    /**
+     * Indica si se captura el plan de ejecución de las sentencias lentas.
+     */
+    private volatile boolean explain;
+
+    /**
+     * Pool del que se obtienen las conexiones para capturar los planes.
+     */
+    private final DataSource dataSource;
+
+    /**
+     * Nombre con el que está registrado en JMX, o null si no se pudo registrar.
+     */
+    private final ObjectName nombreJmx;
+
+    /**
+     * Búfer circular con las últimas sentencias lentas.
+     */
+    private final ConsultaLenta[] guardadas;
+
+    /**
+     * Número de sentencias guardadas desde el arranque; su resto con la capacidad es la siguiente posición.
+     */
+    private long guardadasTotal;
+
+    /**
+     * Sentencias lentas detectadas desde el arranque.
+     */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Hilo que captura los planes de ejecución, con una cola acotada.
+     */
+    private final ThreadPoolExecutor capturaPlanes = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(PLANES_PENDIENTES), tarea -> {
+                Thread hilo = new Thread(tarea, "explain-consultas-lentas");
+                hilo.setDaemon(true);
+                return hilo;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    /**
+     * Crea el detector de un proveedor de conexiones, configurado con las propiedades de Hibernate (las
+     * propiedades de sistema tienen prioridad), y lo registra en JMX con el nombre del pool.
+     *
+     * @param nombre      Nombre del pool, distinto en cada SessionFactory.
+     * @param propiedades Propiedades de configuración.
+     * @param dataSource  Pool del que se obtienen las conexiones para capturar los planes.
+     */
+    public ConsultasLentas(String nombre, Map<String, Object> propiedades, DataSource dataSource) {
+        this.dataSource = dataSource;
+        setUmbralMs(Long.parseLong(propiedad(propiedades, UMBRAL, String.valueOf(UMBRAL_POR_DEFECTO))));
+        setExplain(Boolean.parseBoolean(propiedad(propiedades, EXPLAIN, "false")));
+        int capacidad = Integer.parseInt(propiedad(propiedades, CAPACIDAD, String.valueOf(CAPACIDAD_POR_DEFECTO)));
+        guardadas = new ConsultaLenta[Math.max(1, capacidad)];
+
+        ObjectName registrado = null;
+        try {
+            registrado = new ObjectName("org.example:type=ConsultasLentas,name=" + ObjectName.quote(nombre));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, registrado);
+        } catch (JMException e) {
+            registrado = null;
+            System.err.println("xxx No se pudo registrar en JMX el detector de sentencias lentas de " + nombre + ": " + e.getMessage());
+        }
+        nombreJmx = registrado;
+    }
+
+    /**
+     * Obtiene el detector de sentencias lentas de una SessionFactory.
+     *
+     * @param sessionFactory Fábrica de sesiones.
+     * @return Detector de su proveedor de conexiones, o null si el proveedor no es
+     *         {@link org.example.configuracion.ProveedorConexiones}.
+     */
+    public static ConsultasLentas de(SessionFactory sessionFactory) {
+        ConnectionProvider proveedor = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(ConnectionProvider.class);
+        return proveedor != null && proveedor.isUnwrappableAs(ConsultasLentas.class)
+                ? proveedor.unwrap(ConsultasLentas.class)
+                : null;
+    }
+
+    /**
+     * Detiene la captura de planes y quita el detector de JMX, al cerrar su proveedor de conexiones.
+     */
+    public void cerrar() {
+        capturaPlanes.shutdownNow();
+        if (nombreJmx != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(nombreJmx);
+            } catch (JMException e) {
+                // Ya no estaba registrado
+            }
+        }
+    }
+
+    /**
+     * Lee una propiedad de configuración.
+     *
+     * @param propiedades Propiedades de Hibernate.
+     * @param clave       Nombre de la propiedad.
+     * @param porDefecto  Valor si no está definida.
+     * @return Valor de la propiedad de sistema, o de Hibernate, o el valor por defecto.
+     */
+    private static String propiedad(Map<String, Object> propiedades, String clave, String porDefecto) {
+        Object valor = System.getProperty(clave, Objects.toString(propiedades.get(clave), porDefecto));
+        return valor.toString().trim();
+    }
+
+    /**
+     * Envuelve una conexión para medir sus sentencias, si el detector está activado.
+     *
+     * @param conexion Conexión del pool.
+     * @return Conexión envuelta, o la misma conexión si el detector está desactivado.
+     */
+    public Connection envolver(Connection conexion) {
+        if (umbralNanos < 0) {
+            return conexion;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new SentenciasMedidas.DeConexion(conexion, this));
+    }
+
+    /**
+     * Anota una sentencia ejecutada si ha superado el umbral.
+     *
+     * @param sql        Texto SQL.
+     * @param parametros Parámetros enlazados, o null si la sentencia no tiene.
+     * @param filasLote  Filas del lote JDBC, o 0.
+     * @param nanos      Duración de la ejecución en nanosegundos.
+     */
+    void anotar(String sql, List<Object> parametros, int filasLote, long nanos) {
+        long umbral = umbralNanos;
+        if (umbral < 0 || nanos < umbral) {
+            return;
+        }
+        ConsultaLenta consulta = new ConsultaLenta(Instant.now(), sql,
+                parametros == null ? List.of() : Collections.unmodifiableList(new ArrayList<>(parametros)), filasLote, nanos, origen());
+        total.increment();
+        synchronized (this) {
+            guardadas[(int) (guardadasTotal++ % guardadas.length)] = consulta;
+        }
+        LOG.warn(consulta);
+        if (explain && admiteExplain(sql)) {
+            capturaPlanes.execute(() -> capturarPlan(consulta));
+        }
+    }
+
+    /**
+     * Determina el origen de la sentencia en curso: la operación medida y el primer método de la
+     * aplicación en la pila que no pertenece a la infraestructura de acceso a datos.
+     *
+     * @return Origen de la sentencia.
+     */
+    private static String origen() {
+        String operacion = MetricasOperacion.operacionActual();
+        String llamada = StackWalker.getInstance().walk(pila -> pila
+                .filter(marco -> marco.getClassName().startsWith("org.example.")
+                        && !marco.getClassName().startsWith("org.example.metricas.")
+                        && !marco.getClassName().startsWith("org.example.configuracion.")
+                        && !marco.getClassName().startsWith("org.example.repositorios."))
+                .findFirst()
+                .map(marco -> marco.getClassName().substring(marco.getClassName().lastIndexOf('.') + 1)
+                        + "." + marco.getMethodName() + ":" + marco.getLineNumber())
+                .orElse(null));
+        if (operacion == null) {
+            return llamada == null ? "?" : llamada;
+        }
+        return llamada == null ? operacion : operacion + " desde " + llamada;
+    }
+
+    /**
+     * Indica si se puede pedir el plan de una sentencia: solo consultas y modificaciones de filas.
+     *
+     * @param sql Texto SQL.
+     * @return true si admite EXPLAIN.
+     */
+    private static boolean admiteExplain(String sql) {
+        String inicio = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return inicio.startsWith("select") || inicio.startsWith("with") || inicio.startsWith("update")
+                || inicio.startsWith("delete");
+    }
+
+    /**
+     * Captura el plan de ejecución de una sentencia lenta con una conexión sin medir y lo escribe en el log.
+     *
+     * @param consulta Sentencia lenta.
+     */
+    private void capturarPlan(ConsultaLenta consulta) {
+        try (Connection conexion = dataSource.getConnection();
+             PreparedStatement sentencia = conexion.prepareStatement("EXPLAIN " + consulta.getSql())) {
+            sentencia.setQueryTimeout(SEGUNDOS_EXPLAIN);
+            List<Object> parametros = consulta.getParametros();
+            for (int i = 0; i < parametros.size(); i++) {
+                sentencia.setObject(i + 1, parametros.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet filas = sentencia.executeQuery()) {
+                ResultSetMetaData columnas = filas.getMetaData();
+                while (filas.next()) {
+                    if (!plan.isEmpty()) {
+                        plan.append('\n');
+                    }
+                    for (int i = 1; i <= columnas.getColumnCount(); i++) {
+                        Object valor = filas.getObject(i);
+                        if (valor != null) {
+                            plan.append(i > 1 ? ", " : "").append(columnas.getColumnLabel(i)).append('=').append(valor);
+                        }
+                    }
+                }
+            }
+            consulta.setPlan(plan.toString());
+            LOG.warn("Plan de la sentencia lenta " + consulta.getSql() + "\n    " + plan.toString().replace("\n", "\n    "));
+        } catch (SQLException e) {
+            LOG.warn("No se pudo capturar el plan de " + consulta.getSql() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene las sentencias lentas guardadas, de la más reciente a la más antigua.
+     *
+     * @return Sentencias lentas guardadas.
+     */
+    public synchronized List<ConsultaLenta> recientes() {
+        int guardadasAhora = (int) Math.min(guardadasTotal, guardadas.length);
+        List<ConsultaLenta> recientes = new ArrayList<>(guardadasAhora);
+        for (int i = 1; i <= guardadasAhora; i++) {
+            recientes.add(guardadas[(int) ((guardadasTotal - i) % guardadas.length)]);
+        }
+        return recientes;
+    }
+
+    /**
+     * Obtiene las sentencias lentas guardadas más lentas.
+     *
+     * @param limite Número máximo de sentencias.
+     * @return Sentencias lentas, de la más lenta a la más rápida.
+     */
+    public List<ConsultaLenta> peores(int limite) {
+        return recientes().stream()
+                .sorted(Comparator.comparingDouble(ConsultaLenta::getDuracionMs).reversed())
+                .limit(limite)
+                .toList();
+    }
+
+    /**
+     * Imprime por consola las sentencias lentas más lentas guardadas por el detector de una SessionFactory.
+     *
+     * @param sessionFactory Fábrica de sesiones.
+     */
+    public static void imprimir(SessionFactory sessionFactory) {
+        ConsultasLentas detector = de(sessionFactory);
+        if (detector == null || detector.umbralNanos < 0) {
+            System.out.println(">> Detector de sentencias lentas desactivado (" + UMBRAL + " < 0).");
+            return;
+        }
+        List<ConsultaLenta> peores = detector.peores(10);
+        System.out.printf(">> Sentencias lentas (> %d ms): %d desde el arranque%n", detector.getUmbralMs(),
+                detector.getTotal());
+        for (ConsultaLenta consulta : peores) {
+            System.out.println("- " + consulta);
+        }
+    }
+
+    @Override
+    public long getUmbralMs() {
+        long umbral = umbralNanos;
+        return umbral < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(umbral);
+    }
+
+    @Override
+    public void setUmbralMs(long umbralMs) {
+        umbralNanos = umbralMs < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(umbralMs);
+    }
+
+    @Override
+    public boolean isExplain() {
+        return explain;
+    }
+
+    @Override
+    public void setExplain(boolean explain) {
+        this.explain = explain;
+    }
+
+    @Override
+    public long getTotal() {
+        return total.sum();
+    }
+
+    @Override
+    public String[] getPeores() {
+        return peores(Integer.MAX_VALUE).stream().map(ConsultaLenta::toString).toArray(String[]::new);
+    }
+}
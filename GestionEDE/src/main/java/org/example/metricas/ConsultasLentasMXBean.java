@@ -0,0 +1,49 @@
+package org.example.metricas;
+
+/**
+ * Vista JMX del detector de sentencias lentas de un pool ({@code org.example:type=ConsultasLentas,name=<pool>}).
+ */
+public interface ConsultasLentasMXBean {
+
+    /**
+     * Obtiene el umbral a partir del cual una sentencia se considera lenta.
+     *
+     * @return Umbral en milisegundos, o un valor negativo si el detector está desactivado.
+     */
+    long getUmbralMs();
+
+    /**
+     * Cambia el umbral; se aplica a las conexiones que se obtengan del pool a partir de ahora.
+     *
+     * @param umbralMs Umbral en milisegundos, o un valor negativo para desactivar el detector.
+     */
+    void setUmbralMs(long umbralMs);
+
+    /**
+     * Indica si se captura el plan de ejecución de las sentencias lentas.
+     *
+     * @return true si se ejecuta EXPLAIN para cada sentencia lenta.
+     */
+    boolean isExplain();
+
+    /**
+     * Activa o desactiva la captura de planes de ejecución.
+     *
+     * @param explain true para ejecutar EXPLAIN para cada sentencia lenta.
+     */
+    void setExplain(boolean explain);
+
+    /**
+     * Obtiene el número de sentencias lentas detectadas desde el arranque.
+     *
+     * @return Número de sentencias lentas.
+     */
+    long getTotal();
+
+    /**
+     * Obtiene las sentencias lentas más recientes guardadas, de la más lenta a la más rápida.
+     *
+     * @return Descripción de cada sentencia, con su duración, origen, parámetros y plan.
+     */
+    String[] getPeores();
+}
@@ -0,0 +1,96 @@
+package org.example.metricas;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consulta los contadores de aciertos y fallos de la caché de segundo nivel y de la caché
+ * de consultas a partir de las estadísticas de Hibernate (hibernate.generate_statistics).
+ */
+public class EstadisticasCache {
+
+    /**
+     * Contadores de una región de la caché.
+     *
+     * @param region     Nombre de la región.
+     * @param aciertos   Lecturas resueltas desde la caché.
+     * @param fallos     Lecturas que tuvieron que ir a la base de datos.
+     * @param escrituras Entradas guardadas en la caché.
+     * @param elementos  Entradas que hay ahora en memoria.
+     */
+    public record Region(String region, long aciertos, long fallos, long escrituras, long elementos) {
+
+        /**
+         * Calcula la proporción de aciertos sobre el total de lecturas.
+         *
+         * @return Valor entre 0 y 1, o 0 si todavía no hay lecturas.
+         */
+        public double ratioAciertos() {
+            long lecturas = aciertos + fallos;
+            return lecturas == 0 ? 0 : (double) aciertos / lecturas;
+        }
+    }
+
+    /**
+     * Estadísticas de la SessionFactory.
+     */
+    private final Statistics statistics;
+
+    /**
+     * Constructor que obtiene las estadísticas de la fábrica de sesiones.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     */
+    public EstadisticasCache(SessionFactory sessionFactory) {
+        this.statistics = sessionFactory.getStatistics();
+    }
+
+    /**
+     * Obtiene los contadores de cada región de la caché de segundo nivel.
+     *
+     * @return Contadores por región, ordenados por nombre.
+     */
+    public List<Region> regiones() {
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(nombre -> {
+                    CacheRegionStatistics region = statistics.getCacheRegionStatistics(nombre);
+                    return new Region(nombre, region.getHitCount(), region.getMissCount(),
+                            region.getPutCount(), region.getElementCountInMemory());
+                })
+                .toList();
+    }
+
+    /**
+     * Obtiene los contadores globales de la caché de consultas.
+     *
+     * @return Contadores de la caché de consultas.
+     */
+    public Region consultas() {
+        return new Region("consultas", statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(), CacheRegionStatistics.NO_EXTENDED_STAT_SUPPORT_RETURN);
+    }
+
+    /**
+     * Muestra por consola los contadores de todas las regiones y de la caché de consultas.
+     */
+    public void imprimir() {
+        System.out.println(">> Estadísticas de la caché:");
+        regiones().forEach(EstadisticasCache::imprimir);
+        imprimir(consultas());
+    }
+
+    /**
+     * Muestra por consola los contadores de una región.
+     *
+     * @param region Contadores a mostrar.
+     */
+    private static void imprimir(Region region) {
+        System.out.printf("- %s: %d aciertos, %d fallos (%.1f %%), %d escrituras%n", region.region(),
+                region.aciertos(), region.fallos(), region.ratioAciertos() * 100, region.escrituras());
+    }
+}
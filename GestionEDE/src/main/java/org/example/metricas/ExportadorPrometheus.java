@@ -0,0 +1,204 @@
+package org.example.metricas;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Escribe todas las métricas de la aplicación en el formato de texto de Prometheus (versión 0.0.4):
+ * operaciones de los repositorios ({@link MetricasOperacion}), sesiones, sentencias y cachés de
+ * Hibernate ({@link Statistics}) y pools de conexiones ({@link MetricasPool}). Lo usa el endpoint
+ * {@code GET /metrics} del servicio HTTP y sirve también para volcarlas a un fichero.
+ */
+public final class ExportadorPrometheus {
+
+    /**
+     * Tipo de contenido de la respuesta en formato de texto de Prometheus.
+     */
+    public static final String TIPO_CONTENIDO = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Constructor privado: clase de utilidad no instanciable.
+     */
+    private ExportadorPrometheus() {}
+
+    /**
+     * Escribe todas las métricas.
+     *
+     * @param salida         Destino del texto.
+     * @param sessionFactory Fábrica de sesiones cuyas estadísticas se exportan.
+     * @throws IOException Si falla la escritura.
+     */
+    public static void escribir(Writer salida, SessionFactory sessionFactory) throws IOException {
+        escribirOperaciones(salida);
+        escribirHibernate(salida, sessionFactory.getStatistics());
+        escribirPools(salida);
+        ConsultasLentas consultasLentas = ConsultasLentas.de(sessionFactory);
+        if (consultasLentas != null) {
+            contador(salida, "gestion_consultas_lentas_total", "Sentencias SQL que superaron el umbral de sentencias lentas.",
+                    consultasLentas.getTotal());
+        }
+    }
+
+    /**
+     * Escribe las métricas de las operaciones de los repositorios.
+     *
+     * @param salida Destino del texto.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void escribirOperaciones(Writer salida) throws IOException {
+        List<MetricasOperacion> operaciones = MetricasOperacion.operaciones().stream()
+                .sorted(Comparator.comparing(MetricasOperacion::getNombre))
+                .toList();
+
+        tipo(salida, "gestion_operacion_duracion_segundos", "histogram", "Latencia de las operaciones de los repositorios.");
+        for (MetricasOperacion operacion : operaciones) {
+            String etiqueta = "operacion=\"" + escapar(operacion.getNombre()) + "\"";
+            long[] porIntervalo = operacion.getLatencias().muestrasPorIntervalo();
+            long acumuladas = 0;
+            for (int i = 0; i < porIntervalo.length; i++) {
+                acumuladas += porIntervalo[i];
+                String limite = i < Histograma.INTERVALOS ? numero(Histograma.limiteSegundos(i)) : "+Inf";
+                linea(salida, "gestion_operacion_duracion_segundos_bucket{" + etiqueta + ",le=\"" + limite + "\"}", acumuladas);
+            }
+            linea(salida, "gestion_operacion_duracion_segundos_sum{" + etiqueta + "}", operacion.getLatencias().getSumaSegundos());
+            linea(salida, "gestion_operacion_duracion_segundos_count{" + etiqueta + "}", acumuladas);
+        }
+
+        tipo(salida, "gestion_operacion_errores_total", "counter", "Llamadas terminadas con una excepción.");
+        for (MetricasOperacion operacion : operaciones) {
+            linea(salida, "gestion_operacion_errores_total{operacion=\"" + escapar(operacion.getNombre()) + "\"}", operacion.getErrores());
+        }
+        tipo(salida, "gestion_operacion_sentencias_total", "counter", "Sentencias SQL preparadas por las operaciones.");
+        for (MetricasOperacion operacion : operaciones) {
+            linea(salida, "gestion_operacion_sentencias_total{operacion=\"" + escapar(operacion.getNombre()) + "\"}", operacion.getSentencias());
+        }
+        tipo(salida, "gestion_operacion_filas_total", "counter", "Filas devueltas o escritas por las operaciones.");
+        for (MetricasOperacion operacion : operaciones) {
+            linea(salida, "gestion_operacion_filas_total{operacion=\"" + escapar(operacion.getNombre()) + "\"}", operacion.getFilas());
+        }
+    }
+
+    /**
+     * Escribe los contadores de Hibernate: sesiones, transacciones, sentencias y cachés.
+     *
+     * @param salida     Destino del texto.
+     * @param statistics Estadísticas de la fábrica de sesiones.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void escribirHibernate(Writer salida, Statistics statistics) throws IOException {
+        contador(salida, "gestion_hibernate_sesiones_abiertas_total", "Sesiones abiertas.", statistics.getSessionOpenCount());
+        contador(salida, "gestion_hibernate_sesiones_cerradas_total", "Sesiones cerradas.", statistics.getSessionCloseCount());
+        contador(salida, "gestion_hibernate_transacciones_total", "Transacciones terminadas.", statistics.getTransactionCount());
+        contador(salida, "gestion_hibernate_sentencias_preparadas_total", "Sentencias JDBC preparadas.", statistics.getPrepareStatementCount());
+        contador(salida, "gestion_hibernate_consultas_total", "Consultas HQL y SQL ejecutadas.", statistics.getQueryExecutionCount());
+
+        String[] regiones = statistics.getSecondLevelCacheRegionNames();
+        tipo(salida, "gestion_cache_aciertos_total", "counter", "Lecturas resueltas desde la caché de segundo nivel.");
+        for (String region : regiones) {
+            linea(salida, "gestion_cache_aciertos_total{region=\"" + escapar(region) + "\"}",
+                    statistics.getCacheRegionStatistics(region).getHitCount());
+        }
+        linea(salida, "gestion_cache_aciertos_total{region=\"consultas\"}", statistics.getQueryCacheHitCount());
+        tipo(salida, "gestion_cache_fallos_total", "counter", "Lecturas de la caché de segundo nivel que fueron a la base de datos.");
+        for (String region : regiones) {
+            linea(salida, "gestion_cache_fallos_total{region=\"" + escapar(region) + "\"}",
+                    statistics.getCacheRegionStatistics(region).getMissCount());
+        }
+        linea(salida, "gestion_cache_fallos_total{region=\"consultas\"}", statistics.getQueryCacheMissCount());
+    }
+
+    /**
+     * Escribe el estado de los pools de conexiones.
+     *
+     * @param salida Destino del texto.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void escribirPools(Writer salida) throws IOException {
+        tipo(salida, "gestion_pool_conexiones", "gauge", "Conexiones del pool por estado.");
+        for (MetricasPool pool : MetricasPool.pools()) {
+            String etiqueta = "pool=\"" + escapar(pool.getNombre()) + "\"";
+            linea(salida, "gestion_pool_conexiones{" + etiqueta + ",estado=\"activas\"}", pool.getActivas());
+            linea(salida, "gestion_pool_conexiones{" + etiqueta + ",estado=\"inactivas\"}", pool.getInactivas());
+        }
+        tipo(salida, "gestion_pool_hilos_en_espera", "gauge", "Hilos esperando una conexión.");
+        for (MetricasPool pool : MetricasPool.pools()) {
+            linea(salida, "gestion_pool_hilos_en_espera{pool=\"" + escapar(pool.getNombre()) + "\"}", pool.getEnEspera());
+        }
+        tipo(salida, "gestion_pool_obtenciones_total", "counter", "Conexiones obtenidas del pool.");
+        for (MetricasPool pool : MetricasPool.pools()) {
+            linea(salida, "gestion_pool_obtenciones_total{pool=\"" + escapar(pool.getNombre()) + "\"}", pool.getObtenciones());
+        }
+        tipo(salida, "gestion_pool_esperas_agotadas_total", "counter", "Esperas de conexión que agotaron el tiempo.");
+        for (MetricasPool pool : MetricasPool.pools()) {
+            linea(salida, "gestion_pool_esperas_agotadas_total{pool=\"" + escapar(pool.getNombre()) + "\"}", pool.getEsperasAgotadas());
+        }
+    }
+
+    /**
+     * Escribe un contador sin etiquetas con su cabecera.
+     *
+     * @param salida Destino del texto.
+     * @param nombre Nombre de la métrica.
+     * @param ayuda  Descripción de la métrica.
+     * @param valor  Valor del contador.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void contador(Writer salida, String nombre, String ayuda, long valor) throws IOException {
+        tipo(salida, nombre, "counter", ayuda);
+        linea(salida, nombre, valor);
+    }
+
+    /**
+     * Escribe las líneas HELP y TYPE de una métrica.
+     *
+     * @param salida Destino del texto.
+     * @param nombre Nombre de la métrica.
+     * @param tipo   Tipo de Prometheus (counter, gauge, histogram).
+     * @param ayuda  Descripción de la métrica.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void tipo(Writer salida, String nombre, String tipo, String ayuda) throws IOException {
+        salida.write("# HELP " + nombre + " " + ayuda + "\n");
+        salida.write("# TYPE " + nombre + " " + tipo + "\n");
+    }
+
+    /**
+     * Escribe una muestra.
+     *
+     * @param salida Destino del texto.
+     * @param serie  Nombre de la métrica con sus etiquetas.
+     * @param valor  Valor de la muestra.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void linea(Writer salida, String serie, double valor) throws IOException {
+        salida.write(serie + " " + numero(valor) + "\n");
+    }
+
+    /**
+     * Da formato a un número sin notación regional ni decimales innecesarios.
+     *
+     * @param valor Número.
+     * @return Representación del número.
+     */
+    private static String numero(double valor) {
+        return valor == Math.rint(valor) && Math.abs(valor) < 1e15
+                ? Long.toString((long) valor)
+                : BigDecimal.valueOf(valor).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Escapa el valor de una etiqueta (barras invertidas, comillas y saltos de línea).
+     *
+     * @param valor Valor de la etiqueta.
+     * @return Valor escapado.
+     */
+    private static String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.metricas;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con intervalos de anchura creciente en potencias de dos, desde 1 µs hasta
+ * unos 17 s. Registrar una muestra cuesta un cálculo de bits y un incremento de {@link LongAdder},
+ * sin bloqueos ni reservas de memoria, así que puede estar siempre activo. Los percentiles se
+ * estiman con el límite superior del intervalo en que caen (error máximo del doble).
+ */
+public class Histograma {
+
+    /**
+     * Número de intervalos con límite finito: el intervalo i recoge las muestras de hasta 2^i µs.
+     */
+    static final int INTERVALOS = 25;
+
+    /**
+     * Muestras de cada intervalo; la última posición recoge las que superan el mayor límite.
+     */
+    private final LongAdder[] muestras = new LongAdder[INTERVALOS + 1];
+
+    /**
+     * Suma de todas las muestras, en nanosegundos.
+     */
+    private final LongAdder sumaNanos = new LongAdder();
+
+    /**
+     * Mayor muestra registrada, en nanosegundos.
+     */
+    private final LongAccumulator maximoNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructor de un histograma vacío.
+     */
+    public Histograma() {
+        for (int i = 0; i < muestras.length; i++) {
+            muestras[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registra una muestra.
+     *
+     * @param nanos Duración en nanosegundos.
+     */
+    public void registrar(long nanos) {
+        long micros = Math.max(nanos, 0) / 1_000;
+        int intervalo = micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1); // ceil(log2(micros))
+        muestras[Math.min(intervalo, INTERVALOS)].increment();
+        sumaNanos.add(nanos);
+        maximoNanos.accumulate(nanos);
+    }
+
+    /**
+     * Obtiene el límite superior de un intervalo.
+     *
+     * @param intervalo Posición del intervalo, entre 0 y {@link #INTERVALOS} - 1.
+     * @return Límite superior en segundos.
+     */
+    static double limiteSegundos(int intervalo) {
+        return (1L << intervalo) / 1_000_000.0;
+    }
+
+    /**
+     * Obtiene el número de muestras de cada intervalo (no acumulado).
+     *
+     * @return Muestras por intervalo; la última posición corresponde a +Inf.
+     */
+    public long[] muestrasPorIntervalo() {
+        long[] copia = new long[muestras.length];
+        for (int i = 0; i < muestras.length; i++) {
+            copia[i] = muestras[i].sum();
+        }
+        return copia;
+    }
+
+    /**
+     * Obtiene el número total de muestras.
+     *
+     * @return Número de muestras.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (LongAdder intervalo : muestras) {
+            total += intervalo.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene la suma de todas las muestras.
+     *
+     * @return Suma en segundos.
+     */
+    public double getSumaSegundos() {
+        return sumaNanos.sum() / 1_000_000_000.0;
+    }
+
+    /**
+     * Obtiene la latencia media.
+     *
+     * @return Media en milisegundos, o 0 si no hay muestras.
+     */
+    public double getMediaMs() {
+        long total = getTotal();
+        return total == 0 ? 0 : sumaNanos.sum() / (total * 1_000_000.0);
+    }
+
+    /**
+     * Obtiene la mayor latencia registrada.
+     *
+     * @return Máximo en milisegundos.
+     */
+    public double getMaximoMs() {
+        return maximoNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Estima un percentil como el límite superior del intervalo que lo contiene.
+     *
+     * @param percentil Percentil entre 0 y 100.
+     * @return Estimación en milisegundos (el máximo si cae en el último intervalo), o 0 si no hay muestras.
+     */
+    public double percentilMs(double percentil) {
+        long[] porIntervalo = muestrasPorIntervalo();
+        long total = 0;
+        for (long n : porIntervalo) {
+            total += n;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = (long) Math.ceil(total * percentil / 100.0);
+        long acumuladas = 0;
+        for (int i = 0; i < INTERVALOS; i++) {
+            acumuladas += porIntervalo[i];
+            if (acumuladas >= Math.max(objetivo, 1)) {
+                return Math.min(limiteSegundos(i) * 1_000, getMaximoMs());
+            }
+        }
+        return getMaximoMs();
+    }
+}
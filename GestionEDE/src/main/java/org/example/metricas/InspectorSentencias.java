@@ -0,0 +1,39 @@
+package org.example.metricas;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que prepara Hibernate en cada hilo, para atribuirlas a la operación
+ * que se está midiendo ({@link MetricasOperacion}). Se registra con
+ * {@code hibernate.session_factory.statement_inspector} y no modifica las sentencias.
+ * <p>
+ * Cuenta preparaciones: un lote JDBC que reutiliza la misma sentencia cuenta una vez, y las
+ * sentencias JDBC escritas a mano (por ejemplo las de los contadores) no se cuentan.
+ */
+public class InspectorSentencias implements StatementInspector {
+
+    /**
+     * Versión de la forma serializada (StatementInspector es Serializable y la clase no tiene estado de instancia).
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Sentencias preparadas por cada hilo desde que empezó.
+     */
+    private static final ThreadLocal<long[]> SENTENCIAS_HILO = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        SENTENCIAS_HILO.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Obtiene el número de sentencias preparadas por el hilo actual desde que empezó.
+     *
+     * @return Sentencias preparadas por el hilo.
+     */
+    static long sentenciasHilo() {
+        return SENTENCIAS_HILO.get()[0];
+    }
+}
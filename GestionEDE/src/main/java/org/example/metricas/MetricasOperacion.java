@@ -0,0 +1,212 @@
+package org.example.metricas;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Métricas de una operación de los repositorios (por ejemplo "EmpleadoRepository.leer"): histograma
+ * de latencias, llamadas con error, sentencias SQL preparadas y filas devueltas o escritas.
+ * <p>
+ * Las métricas de cada operación se crean la primera vez que se mide y se registran en JMX.
+ * Medir una llamada cuesta dos lecturas del reloj, dos del contador de sentencias del hilo y unos
+ * incrementos de {@link LongAdder}, por lo que la instrumentación puede quedarse activa en producción.
+ */
+public class MetricasOperacion implements MetricasOperacionMXBean {
+
+    /**
+     * Métricas de cada operación, indexadas por nombre.
+     */
+    private static final Map<String, MetricasOperacion> OPERACIONES = new ConcurrentHashMap<>();
+
+    /**
+     * Operación que se está midiendo en cada hilo, para atribuirle las sentencias lentas.
+     */
+    private static final ThreadLocal<String> OPERACION_ACTUAL = new ThreadLocal<>();
+
+    /**
+     * Nombre de la operación.
+     */
+    private final String nombre;
+
+    /**
+     * Latencias de las llamadas.
+     */
+    private final Histograma latencias = new Histograma();
+
+    /**
+     * Llamadas terminadas con una excepción.
+     */
+    private final LongAdder errores = new LongAdder();
+
+    /**
+     * Sentencias SQL preparadas por las llamadas.
+     */
+    private final LongAdder sentencias = new LongAdder();
+
+    /**
+     * Filas devueltas o escritas por las llamadas.
+     */
+    private final LongAdder filas = new LongAdder();
+
+    /**
+     * Constructor de las métricas de una operación.
+     *
+     * @param nombre Nombre de la operación.
+     */
+    private MetricasOperacion(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * Obtiene las métricas de una operación, creándolas y registrándolas en JMX la primera vez.
+     *
+     * @param nombre Nombre de la operación, por ejemplo "EmpleadoRepository.leer".
+     * @return Métricas de la operación.
+     */
+    public static MetricasOperacion de(String nombre) {
+        MetricasOperacion metricas = OPERACIONES.get(nombre);
+        return metricas != null ? metricas : OPERACIONES.computeIfAbsent(nombre, MetricasOperacion::crear);
+    }
+
+    /**
+     * Obtiene las métricas de todas las operaciones medidas.
+     *
+     * @return Métricas de cada operación.
+     */
+    public static Collection<MetricasOperacion> operaciones() {
+        return OPERACIONES.values();
+    }
+
+    /**
+     * Crea las métricas de una operación y las registra en el servidor JMX de la plataforma.
+     *
+     * @param nombre Nombre de la operación.
+     * @return Métricas creadas.
+     */
+    private static MetricasOperacion crear(String nombre) {
+        MetricasOperacion metricas = new MetricasOperacion(nombre);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metricas,
+                    new ObjectName("org.example:type=Operacion,name=" + ObjectName.quote(nombre)));
+        } catch (JMException e) {
+            System.err.println("xxx No se pudieron registrar en JMX las métricas de " + nombre + ": " + e.getMessage());
+        }
+        return metricas;
+    }
+
+    /**
+     * Ejecuta y mide una llamada a la operación.
+     *
+     * @param llamada Trabajo de la operación.
+     * @param filas   Función que obtiene del resultado el número de filas devueltas o escritas.
+     * @param <R>     Tipo del resultado.
+     * @return Resultado de la llamada.
+     */
+    public <R> R medir(Supplier<R> llamada, ToLongFunction<? super R> filas) {
+        long sentenciasInicio = InspectorSentencias.sentenciasHilo();
+        String exterior = OPERACION_ACTUAL.get();
+        OPERACION_ACTUAL.set(nombre);
+        long inicio = System.nanoTime();
+        boolean correcta = false;
+        try {
+            R resultado = llamada.get();
+            this.filas.add(filas.applyAsLong(resultado));
+            correcta = true;
+            return resultado;
+        } finally {
+            latencias.registrar(System.nanoTime() - inicio);
+            OPERACION_ACTUAL.set(exterior);
+            sentencias.add(InspectorSentencias.sentenciasHilo() - sentenciasInicio);
+            if (!correcta) {
+                errores.increment();
+            }
+        }
+    }
+
+    /**
+     * Obtiene la operación que se está midiendo en el hilo actual.
+     *
+     * @return Nombre de la operación más interna en curso, o null si no hay ninguna.
+     */
+    static String operacionActual() {
+        return OPERACION_ACTUAL.get();
+    }
+
+    /**
+     * Obtiene el nombre de la operación.
+     *
+     * @return Nombre de la operación.
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Obtiene el histograma de latencias de la operación.
+     *
+     * @return Histograma de latencias.
+     */
+    public Histograma getLatencias() {
+        return latencias;
+    }
+
+    @Override
+    public long getLlamadas() {
+        return latencias.getTotal();
+    }
+
+    @Override
+    public long getErrores() {
+        return errores.sum();
+    }
+
+    @Override
+    public double getLatenciaMediaMs() {
+        return latencias.getMediaMs();
+    }
+
+    @Override
+    public double getLatenciaP50Ms() {
+        return latencias.percentilMs(50);
+    }
+
+    @Override
+    public double getLatenciaP99Ms() {
+        return latencias.percentilMs(99);
+    }
+
+    @Override
+    public double getLatenciaMaximaMs() {
+        return latencias.getMaximoMs();
+    }
+
+    @Override
+    public long getSentencias() {
+        return sentencias.sum();
+    }
+
+    @Override
+    public long getFilas() {
+        return filas.sum();
+    }
+
+    /**
+     * Muestra por consola las métricas de todas las operaciones medidas, ordenadas por nombre.
+     */
+    public static void imprimir() {
+        System.out.println(">> Métricas de las operaciones:");
+        operaciones().stream()
+                .sorted((a, b) -> a.getNombre().compareTo(b.getNombre()))
+                .forEach(op -> System.out.printf(
+                        "- %s: %d llamadas (%d errores), media %.3f ms, p50 %.3f ms, p99 %.3f ms, máxima %.3f ms; %d sentencias, %d filas%n",
+                        op.getNombre(), op.getLlamadas(), op.getErrores(), op.getLatenciaMediaMs(), op.getLatenciaP50Ms(),
+                        op.getLatenciaP99Ms(), op.getLatenciaMaximaMs(), op.getSentencias(), op.getFilas()));
+    }
+}
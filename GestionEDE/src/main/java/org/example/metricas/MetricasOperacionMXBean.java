@@ -0,0 +1,63 @@
+package org.example.metricas;
+
+/**
+ * Vista JMX de las métricas de una operación ({@code org.example:type=Operacion,name=...}).
+ */
+public interface MetricasOperacionMXBean {
+
+    /**
+     * Obtiene el número de llamadas terminadas, con o sin error.
+     *
+     * @return Número de llamadas.
+     */
+    long getLlamadas();
+
+    /**
+     * Obtiene el número de llamadas que terminaron con una excepción.
+     *
+     * @return Número de errores.
+     */
+    long getErrores();
+
+    /**
+     * Obtiene la latencia media.
+     *
+     * @return Latencia media en milisegundos.
+     */
+    double getLatenciaMediaMs();
+
+    /**
+     * Obtiene el percentil 50 estimado de la latencia.
+     *
+     * @return Percentil 50 en milisegundos.
+     */
+    double getLatenciaP50Ms();
+
+    /**
+     * Obtiene el percentil 99 estimado de la latencia.
+     *
+     * @return Percentil 99 en milisegundos.
+     */
+    double getLatenciaP99Ms();
+
+    /**
+     * Obtiene la latencia máxima.
+     *
+     * @return Latencia máxima en milisegundos.
+     */
+    double getLatenciaMaximaMs();
+
+    /**
+     * Obtiene las sentencias SQL preparadas por todas las llamadas.
+     *
+     * @return Número de sentencias.
+     */
+    long getSentencias();
+
+    /**
+     * Obtiene las filas devueltas o escritas por todas las llamadas.
+     *
+     * @return Número de filas.
+     */
+    long getFilas();
+}
@@ -0,0 +1,193 @@
+package org.example.metricas;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de un pool de conexiones HikariCP: conexiones activas, inactivas y en espera,
+ * y latencia de obtención de conexiones. HikariCP informa de cada obtención a través de
+ * {@link IMetricsTracker}; los contadores no usan bloqueos para que puedan estar siempre activos.
+ */
+public class MetricasPool implements IMetricsTracker {
+
+    /**
+     * Métricas de cada pool creado, indexadas por el nombre del pool.
+     */
+    private static final Map<String, MetricasPool> POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * Fábrica que se registra en la configuración de HikariCP para crear las métricas de cada pool.
+     */
+    public static final MetricsTrackerFactory FABRICA = (nombre, estadisticas) -> {
+        MetricasPool metricas = new MetricasPool(nombre, estadisticas);
+        POOLS.put(nombre, metricas);
+        return metricas;
+    };
+
+    /**
+     * Nombre del pool.
+     */
+    private final String nombre;
+
+    /**
+     * Estado instantáneo del pool que mantiene HikariCP.
+     */
+    private final PoolStats estadisticas;
+
+    /**
+     * Número de conexiones obtenidas del pool.
+     */
+    private final LongAdder obtenciones = new LongAdder();
+
+    /**
+     * Suma de los tiempos de obtención, en nanosegundos.
+     */
+    private final LongAdder nanosObtencion = new LongAdder();
+
+    /**
+     * Mayor tiempo de obtención observado, en nanosegundos.
+     */
+    private final LongAccumulator maximoNanosObtencion = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Número de veces que se agotó el tiempo de espera sin obtener conexión.
+     */
+    private final LongAdder esperasAgotadas = new LongAdder();
+
+    /**
+     * Constructor de las métricas de un pool.
+     *
+     * @param nombre       Nombre del pool.
+     * @param estadisticas Estado del pool proporcionado por HikariCP.
+     */
+    private MetricasPool(String nombre, PoolStats estadisticas) {
+        this.nombre = nombre;
+        this.estadisticas = estadisticas;
+    }
+
+    /**
+     * Obtiene las métricas de todos los pools creados.
+     *
+     * @return Métricas de cada pool.
+     */
+    public static Collection<MetricasPool> pools() {
+        return POOLS.values();
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long nanos) {
+        obtenciones.increment();
+        nanosObtencion.add(nanos);
+        maximoNanosObtencion.accumulate(nanos);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        esperasAgotadas.increment();
+    }
+
+    @Override
+    public void close() {
+        POOLS.remove(nombre, this);
+    }
+
+    /**
+     * Obtiene el nombre del pool.
+     *
+     * @return Nombre del pool.
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Obtiene el número de conexiones en uso.
+     *
+     * @return Conexiones activas.
+     */
+    public int getActivas() {
+        return estadisticas.getActiveConnections();
+    }
+
+    /**
+     * Obtiene el número de conexiones abiertas y libres.
+     *
+     * @return Conexiones inactivas.
+     */
+    public int getInactivas() {
+        return estadisticas.getIdleConnections();
+    }
+
+    /**
+     * Obtiene el número de hilos que esperan una conexión.
+     *
+     * @return Hilos en espera.
+     */
+    public int getEnEspera() {
+        return estadisticas.getPendingThreads();
+    }
+
+    /**
+     * Obtiene el número máximo de conexiones del pool.
+     *
+     * @return Tamaño máximo del pool.
+     */
+    public int getMaximo() {
+        return estadisticas.getMaxConnections();
+    }
+
+    /**
+     * Obtiene el número de conexiones obtenidas del pool.
+     *
+     * @return Número de obtenciones.
+     */
+    public long getObtenciones() {
+        return obtenciones.sum();
+    }
+
+    /**
+     * Obtiene la latencia media de obtención de una conexión.
+     *
+     * @return Latencia media en milisegundos, o 0 si todavía no hay obtenciones.
+     */
+    public double getLatenciaMediaMs() {
+        long total = obtenciones.sum();
+        return total == 0 ? 0 : nanosObtencion.sum() / (total * 1_000_000.0);
+    }
+
+    /**
+     * Obtiene la mayor latencia de obtención de una conexión.
+     *
+     * @return Latencia máxima en milisegundos.
+     */
+    public double getLatenciaMaximaMs() {
+        return maximoNanosObtencion.get() / 1_000_000.0;
+    }
+
+    /**
+     * Obtiene el número de esperas agotadas sin conseguir conexión.
+     *
+     * @return Número de esperas agotadas.
+     */
+    public long getEsperasAgotadas() {
+        return esperasAgotadas.sum();
+    }
+
+    /**
+     * Muestra por consola las métricas de todos los pools.
+     */
+    public static void imprimir() {
+        System.out.println(">> Estadísticas del pool de conexiones:");
+        pools().forEach(pool -> System.out.printf(
+                "- %s: %d activas, %d inactivas, %d en espera (máximo %d); %d obtenciones, latencia media %.3f ms, máxima %.3f ms, %d esperas agotadas%n",
+                pool.getNombre(), pool.getActivas(), pool.getInactivas(), pool.getEnEspera(), pool.getMaximo(),
+                pool.getObtenciones(), pool.getLatenciaMediaMs(), pool.getLatenciaMaximaMs(), pool.getEsperasAgotadas()));
+    }
+}
@@ -0,0 +1,241 @@
+package org.example.metricas;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Envoltorios JDBC del detector de sentencias lentas: la conexión envuelve las sentencias que crea, y
+ * cada sentencia guarda sus parámetros y mide sus ejecuciones para pasárselas a {@link ConsultasLentas}.
+ * <p>
+ * Guardar un parámetro es una escritura en una lista y medir una ejecución son dos lecturas del reloj;
+ * el resto del trabajo (copiar los parámetros, recorrer la pila, escribir el log) solo se hace con las
+ * sentencias que superan el umbral.
+ */
+final class SentenciasMedidas {
+
+    /**
+     * Métodos de ejecución que se miden.
+     */
+    private static final Set<String> EJECUCIONES = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    /**
+     * Constructor privado: clase de utilidad no instanciable.
+     */
+    private SentenciasMedidas() {}
+
+    /**
+     * Invoca un método sobre el objeto envuelto, relanzando la excepción original.
+     *
+     * @param objetivo Objeto JDBC envuelto.
+     * @param metodo   Método invocado.
+     * @param args     Argumentos.
+     * @return Resultado del método.
+     * @throws Throwable La excepción lanzada por el método.
+     */
+    private static Object delegar(Object objetivo, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(objetivo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Resuelve {@code equals} y {@code hashCode} por identidad del envoltorio, ya que Hibernate guarda
+     * las sentencias en tablas hash.
+     *
+     * @param envoltorio Objeto proxy.
+     * @param metodo     Método invocado.
+     * @param args       Argumentos.
+     * @return Resultado, o null si el método no es {@code equals} ni {@code hashCode}.
+     */
+    private static Object identidad(Object envoltorio, Method metodo, Object[] args) {
+        return switch (metodo.getName()) {
+            case "equals" -> args != null && args.length == 1 ? envoltorio == args[0] : null;
+            case "hashCode" -> args == null ? System.identityHashCode(envoltorio) : null;
+            default -> null;
+        };
+    }
+
+    /**
+     * Envoltorio de una conexión del pool.
+     */
+    static final class DeConexion implements InvocationHandler {
+
+        /**
+         * Conexión envuelta.
+         */
+        private final Connection conexion;
+
+        /**
+         * Detector al que se pasan las ejecuciones de las sentencias de la conexión.
+         */
+        private final ConsultasLentas detector;
+
+        /**
+         * Constructor del envoltorio.
+         *
+         * @param conexion Conexión del pool.
+         * @param detector Detector de sentencias lentas del pool.
+         */
+        DeConexion(Connection conexion, ConsultasLentas detector) {
+            this.conexion = conexion;
+            this.detector = detector;
+        }
+
+        @Override
+        public Object invoke(Object envoltorio, Method metodo, Object[] args) throws Throwable {
+            Object identidad = identidad(envoltorio, metodo, args);
+            if (identidad != null) {
+                return identidad;
+            }
+            Object resultado = delegar(conexion, metodo, args);
+            return switch (metodo.getName()) {
+                case "prepareStatement" -> envolver(resultado, PreparedStatement.class, (String) args[0], envoltorio);
+                case "prepareCall" -> envolver(resultado, CallableStatement.class, (String) args[0], envoltorio);
+                case "createStatement" -> envolver(resultado, Statement.class, null, envoltorio);
+                default -> resultado;
+            };
+        }
+
+        /**
+         * Envuelve una sentencia creada por la conexión.
+         *
+         * @param sentencia  Sentencia JDBC.
+         * @param tipo       Interfaz JDBC de la sentencia.
+         * @param sql        Texto SQL de la sentencia preparada, o null si se indica al ejecutarla.
+         * @param envoltorio Conexión envuelta, que devuelve {@code getConnection()}.
+         * @return Sentencia envuelta.
+         */
+        private Object envolver(Object sentencia, Class<?> tipo, String sql, Object envoltorio) {
+            return Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo},
+                    new DeSentencia((Statement) sentencia, sql, (Connection) envoltorio, detector));
+        }
+    }
+
+    /**
+     * Envoltorio de una sentencia: guarda los parámetros y mide las ejecuciones.
+     */
+    static final class DeSentencia implements InvocationHandler {
+
+        /**
+         * Sentencia envuelta.
+         */
+        private final Statement sentencia;
+
+        /**
+         * Conexión envuelta que creó la sentencia.
+         */
+        private final Connection conexion;
+
+        /**
+         * Detector al que se pasan las ejecuciones.
+         */
+        private final ConsultasLentas detector;
+
+        /**
+         * Texto SQL de la sentencia, o de la última ejecución si no es una sentencia preparada.
+         */
+        private String sql;
+
+        /**
+         * Parámetros enlazados, en orden de posición; se crea con el primer parámetro.
+         */
+        private List<Object> parametros;
+
+        /**
+         * Filas añadidas al lote en curso.
+         */
+        private int filasLote;
+
+        /**
+         * Constructor del envoltorio.
+         *
+         * @param sentencia Sentencia JDBC.
+         * @param sql       Texto SQL de la sentencia preparada, o null.
+         * @param conexion  Conexión envuelta que creó la sentencia.
+         * @param detector  Detector al que se pasan las ejecuciones.
+         */
+        DeSentencia(Statement sentencia, String sql, Connection conexion, ConsultasLentas detector) {
+            this.sentencia = sentencia;
+            this.sql = sql;
+            this.conexion = conexion;
+            this.detector = detector;
+        }
+
+        @Override
+        public Object invoke(Object envoltorio, Method metodo, Object[] args) throws Throwable {
+            Object identidad = identidad(envoltorio, metodo, args);
+            if (identidad != null) {
+                return identidad;
+            }
+            String nombre = metodo.getName();
+            if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer posicion) {
+                guardarParametro(posicion, nombre.equals("setNull") ? null : args[1]);
+            } else if (nombre.equals("clearParameters") && parametros != null) {
+                parametros.clear();
+            } else if (nombre.equals("addBatch")) {
+                filasLote++;
+                if (args != null && args.length == 1) {
+                    sql = (String) args[0]; // Lote de sentencias no preparadas: se guarda la última
+                }
+            } else if (nombre.equals("clearBatch")) {
+                filasLote = 0;
+            } else if (nombre.equals("getConnection")) {
+                return conexion;
+            } else if (EJECUCIONES.contains(nombre)) {
+                return ejecutar(metodo, args);
+            }
+            return delegar(sentencia, metodo, args);
+        }
+
+        /**
+         * Guarda el valor de un parámetro.
+         *
+         * @param posicion Posición JDBC del parámetro (desde 1).
+         * @param valor    Valor enlazado.
+         */
+        private void guardarParametro(int posicion, Object valor) {
+            if (parametros == null) {
+                parametros = new ArrayList<>();
+            }
+            while (parametros.size() < posicion) {
+                parametros.add(null);
+            }
+            parametros.set(posicion - 1, valor);
+        }
+
+        /**
+         * Ejecuta la sentencia midiendo su duración y se la pasa al detector.
+         *
+         * @param metodo Método de ejecución.
+         * @param args   Argumentos (el texto SQL en las sentencias no preparadas).
+         * @return Resultado de la ejecución.
+         * @throws Throwable La excepción lanzada por la ejecución.
+         */
+        private Object ejecutar(Method metodo, Object[] args) throws Throwable {
+            String texto = args != null && args.length > 0 && args[0] instanceof String sqlDirecto ? sqlDirecto : sql;
+            boolean lote = metodo.getName().endsWith("Batch");
+            long inicio = System.nanoTime();
+            try {
+                return delegar(sentencia, metodo, args);
+            } finally {
+                long nanos = System.nanoTime() - inicio;
+                detector.anotar(texto, parametros, lote ? filasLote : 0, nanos);
+                if (lote) {
+                    filasLote = 0;
+                }
+            }
+        }
+    }
+}
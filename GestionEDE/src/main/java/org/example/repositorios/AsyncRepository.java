@@ -0,0 +1,140 @@
+package org.example.repositorios;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fachada asíncrona de un {@link BaseRepository}: cada operación se ejecuta en un hilo virtual a
+ * través de un {@link EjecutorRepositorios} y devuelve un {@link CompletableFuture}.
+ * <p>
+ * Cada operación usa su propia sesión, como en el repositorio síncrono; una unidad de trabajo del
+ * hilo que llama no se propaga al hilo virtual, pero sí su empresa activa ({@code ContextoInquilino})
+ * y si lee de la réplica o de la principal ({@code Replica}).
+ *
+ * @param <T>  El tipo de entidad que manejará el repositorio.
+ * @param <ID> El tipo del identificador único de la entidad.
+ */
+public class AsyncRepository<T, ID> {
+
+    /**
+     * Repositorio síncrono que realiza las operaciones.
+     */
+    private final BaseRepository<T, ID> repository;
+
+    /**
+     * Ejecutor que limita las operaciones simultáneas.
+     */
+    private final EjecutorRepositorios ejecutor;
+
+    /**
+     * Constructor que envuelve un repositorio síncrono.
+     *
+     * @param repository Repositorio síncrono.
+     * @param ejecutor   Ejecutor compartido por los repositorios de la misma fábrica de sesiones.
+     */
+    public AsyncRepository(BaseRepository<T, ID> repository, EjecutorRepositorios ejecutor) {
+        this.repository = repository;
+        this.ejecutor = ejecutor;
+    }
+
+    /**
+     * Crea una nueva entidad en la base de datos.
+     * @param entity Entidad a persistir.
+     * @return Futuro que se completa al confirmar la inserción.
+     */
+    public CompletableFuture<Void> crear(T entity) {
+        return ejecutor.ejecutar(() -> {
+            repository.crear(entity);
+            return null;
+        });
+    }
+
+    /**
+     * Lee una entidad desde la base de datos por su identificador.
+     * @param id Identificador de la entidad.
+     * @return Futuro con la entidad, si existe.
+     */
+    public CompletableFuture<Optional<T>> leer(ID id) {
+        return ejecutor.ejecutar(() -> repository.leer(id));
+    }
+
+    /**
+     * Lee una entidad por su identificador cargando las asociaciones del grafo de entidad indicado.
+     * @param id    Identificador de la entidad.
+     * @param grafo Nombre del grafo de entidad a aplicar.
+     * @return Futuro con la entidad, si existe.
+     */
+    public CompletableFuture<Optional<T>> leer(ID id, String grafo) {
+        return ejecutor.ejecutar(() -> repository.leer(id, grafo));
+    }
+
+    /**
+     * Actualiza una entidad existente en la base de datos.
+     * @param entity Entidad a actualizar.
+     * @return Futuro que se completa al confirmar la actualización.
+     */
+    public CompletableFuture<Void> actualizar(T entity) {
+        return ejecutor.ejecutar(() -> {
+            repository.actualizar(entity);
+            return null;
+        });
+    }
+
+    /**
+     * Borra una entidad de la base de datos por su identificador.
+     * @param id Identificador de la entidad a borrar.
+     * @return Futuro que se completa al confirmar el borrado.
+     */
+    public CompletableFuture<Void> borrar(ID id) {
+        return ejecutor.ejecutar(() -> {
+            repository.borrar(id);
+            return null;
+        });
+    }
+
+    /**
+     * Crea varias entidades en una única transacción con lotes JDBC.
+     * @param entidades Entidades a persistir.
+     * @return Futuro que se completa al confirmar las inserciones.
+     */
+    public CompletableFuture<Void> crearTodos(Collection<T> entidades) {
+        return ejecutor.ejecutar(() -> {
+            repository.crearTodos(entidades);
+            return null;
+        });
+    }
+
+    /**
+     * Actualiza varias entidades en una única transacción con lotes JDBC.
+     * @param entidades Entidades a actualizar.
+     * @return Futuro que se completa al confirmar las actualizaciones.
+     */
+    public CompletableFuture<Void> actualizarTodos(Collection<T> entidades) {
+        return ejecutor.ejecutar(() -> {
+            repository.actualizarTodos(entidades);
+            return null;
+        });
+    }
+
+    /**
+     * Borra varias entidades por su identificador en una única transacción.
+     * @param ids Identificadores de las entidades a borrar.
+     * @return Futuro que se completa al confirmar los borrados.
+     */
+    public CompletableFuture<Void> borrarTodos(Collection<ID> ids) {
+        return ejecutor.ejecutar(() -> {
+            repository.borrarTodos(ids);
+            return null;
+        });
+    }
+
+    /**
+     * Lista una página de entidades con paginación por clave.
+     * @param peticion Tamaño, filtros, orden y cursor de la página.
+     * @return Futuro con la página.
+     */
+    public CompletableFuture<Page<T>> listar(PageRequest peticion) {
+        return ejecutor.ejecutar(() -> repository.listar(peticion));
+    }
+}
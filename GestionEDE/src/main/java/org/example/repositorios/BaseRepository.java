@@ -1,8 +1,45 @@
 package org.example.repositorios;
 
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.example.configuracion.ContextoInquilino;
+import org.example.configuracion.Replica;
+import org.example.contadores.OyenteContadores;
+import org.example.metricas.MetricasOperacion;
+import org.hibernate.CacheMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.Assigned;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.jpa.SpecHints;
+import org.hibernate.type.Type;
+
+import java.lang.invoke.MethodType;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 /**
  * Clase abstracta que proporciona las operaciones CRUD (Crear, Leer, Actualizar, Borrar) básicas
@@ -13,6 +50,12 @@ import java.util.Optional;
  */
 public abstract class BaseRepository<T, ID> {
 
+    /**
+     * Número de entidades tras el cual las operaciones por lotes vacían y limpian la sesión.
+     * Coincide con hibernate.jdbc.batch_size para que cada vaciado envíe un lote JDBC completo.
+     */
+    protected static final int TAMANO_LOTE = 50;
+
     /**
      * Clase de la entidad gestionada por este repositorio.
      */
@@ -23,6 +66,17 @@ public abstract class BaseRepository<T, ID> {
      */
     private final SessionFactory sessionFactory;
 
+    /**
+     * Nombre del atributo que actúa como clave primaria ("id" o "dni").
+     */
+    private final String atributoId;
+
+    /**
+     * Métricas de cada método del repositorio, por nombre de método, para no construir el nombre
+     * completo de la operación en cada llamada.
+     */
+    private final Map<String, MetricasOperacion> metricas = new ConcurrentHashMap<>();
+
     /**
      * Constructor que inicializa el repositorio con el tipo de entidad y la fábrica de sesiones.
      * @param type           Clase de la entidad gestionada.
@@ -31,18 +85,163 @@ public abstract class BaseRepository<T, ID> {
     public BaseRepository(Class<T> type, SessionFactory sessionFactory) {
         this.type = type;
         this.sessionFactory = sessionFactory;
+        this.atributoId = sessionFactory.getMetamodel().entity(type).getSingularAttributes().stream()
+                .filter(SingularAttribute::isId)
+                .map(Attribute::getName)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * Obtiene la fábrica de sesiones, para las consultas específicas de cada repositorio.
+     * @return Fábrica de sesiones de Hibernate.
+     */
+    protected SessionFactory getSessionFactory() {
+        return sessionFactory;
+    }
+
+    /**
+     * Ejecuta una operación de lectura. Dentro de una {@link UnidadDeTrabajo} reutiliza su sesión;
+     * fuera de ella abre una sesión solo para la operación, que lee de la réplica si la hay (ver {@link Replica}).
+     * @param operacion Operación a ejecutar con la sesión.
+     * @param <R>       Tipo del resultado.
+     * @return Resultado de la operación.
+     */
+    protected <R> R enSesion(Function<Session, R> operacion) {
+        Session compartida = UnidadDeTrabajo.sesionActual(sessionFactory);
+        if (compartida != null) {
+            return operacion.apply(compartida);
+        }
+        return Replica.soloLectura(() -> {
+            try (Session session = ContextoInquilino.aplicar(sessionFactory.openSession())) {
+                if (Replica.enReplica()) {
+                    session.setCacheMode(CacheMode.GET); // No guardar en la caché datos que pueden ir atrasados
+                }
+                return operacion.apply(session);
+            }
+        });
+    }
+
+    /**
+     * Ejecuta una operación de escritura. Dentro de una {@link UnidadDeTrabajo} reutiliza su sesión
+     * y su transacción, que confirma la unidad al terminar; fuera de ella abre una sesión y una
+     * transacción solo para la operación.
+     * @param operacion Operación a ejecutar con la sesión.
+     */
+    protected void enTransaccion(Consumer<Session> operacion) {
+        Session compartida = UnidadDeTrabajo.sesionActual(sessionFactory);
+        if (compartida != null) {
+            operacion.accept(compartida);
+            return;
+        }
+        try (Session session = ContextoInquilino.aplicar(sessionFactory.openSession())) {
+            session.beginTransaction();
+            operacion.accept(session);
+            session.getTransaction().commit(); // Confirmar la transacción.
+        }
+    }
+
+    /**
+     * Ejecuta y mide una llamada a un método del repositorio: latencia, sentencias SQL y filas
+     * (operación "NombreRepositorio.metodo" en {@link MetricasOperacion}).
+     * @param metodo  Nombre del método.
+     * @param llamada Trabajo del método.
+     * @param filas   Función que obtiene del resultado el número de filas devueltas o escritas.
+     * @param <R>     Tipo del resultado.
+     * @return Resultado de la llamada.
+     */
+    protected <R> R medir(String metodo, Supplier<R> llamada, ToLongFunction<? super R> filas) {
+        MetricasOperacion operacion = metricas.get(metodo);
+        if (operacion == null) {
+            operacion = metricas.computeIfAbsent(metodo, m -> MetricasOperacion.de(getClass().getSimpleName() + "." + m));
+        }
+        return operacion.medir(llamada, filas);
+    }
+
+    /**
+     * Ejecuta y mide una llamada sin resultado a un método del repositorio.
+     * @param metodo  Nombre del método.
+     * @param filas   Número de filas escritas por la llamada.
+     * @param llamada Trabajo del método.
+     */
+    protected void medir(String metodo, long filas, Runnable llamada) {
+        medir(metodo, () -> {
+            llamada.run();
+            return null;
+        }, resultado -> filas);
+    }
+
+    /**
+     * Envía a la base de datos el lote pendiente de una operación por lotes y libera las entidades ya
+     * escritas. Dentro de una unidad de trabajo no se limpia la sesión, porque las demás operaciones
+     * de la unidad pueden seguir usando sus entidades.
+     * @param session Sesión de la operación.
+     */
+    private void vaciarLote(Session session) {
+        session.flush(); // Enviar el lote pendiente a la base de datos.
+        if (UnidadDeTrabajo.sesionActual(sessionFactory) != session) {
+            session.clear(); // Liberar las entidades ya escritas del contexto de persistencia.
+        }
     }
 
     /**
      * Crea una nueva entidad en la base de datos.
      * @param entity Entidad a persistir.
+     * @throws IllegalArgumentException Si hay una empresa activa y la entidad no es de ella.
      */
     public void crear(T entity) {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
+        medir("crear", 1, () -> enTransaccion(session -> {
+            comprobarEmpresa(session, entity, false);
             session.persist(entity); // Persistir la entidad en la base de datos.
-            session.getTransaction().commit(); // Confirmar la transacción.
+        }));
+    }
+
+    /**
+     * Crea una entidad o, si ya existe otra con el mismo identificador, la sustituye por ella.
+     * <p>
+     * Con identificador asignado y sin empresa activa se hace de forma atómica con una sola sentencia
+     * {@code INSERT ... ON DUPLICATE KEY UPDATE}: no hace falta comprobar antes si existe, ni hay carrera
+     * entre la comprobación y la inserción. La actualización no comprueba la versión (gana la última
+     * escritura) e incrementa la versión de la fila. Si cambia una asociación de una entidad existente
+     * (por ejemplo el departamento de un empleado, del que dependen los contadores), la asociación se
+     * cambia después sobre la entidad.
+     * <p>
+     * En los demás casos no es una única sentencia ni es atómico frente a otra inserción simultánea:
+     * <ul>
+     *     <li>Con una empresa activa ({@link ContextoInquilino}) la sentencia podría sustituir la fila de
+     *     otra empresa, así que la entidad se busca y después se crea o modifica a través de la sesión; si
+     *     otro usuario la inserta entre medias, la inserción falla por la clave primaria.</li>
+     *     <li>Las entidades con identificador generado se crean con {@link #crear} si son nuevas y se
+     *     actualizan con {@link #actualizar}, comprobando la versión, si no.</li>
+     * </ul>
+     * @param entity Entidad a crear o actualizar.
+     * @return true si se ha creado, false si existía y se ha actualizado.
+     * @throws IllegalArgumentException       Si hay una empresa activa y la entidad no es de ella.
+     * @throws ConflictoConcurrenciaException Si es una entidad con identificador generado que otro usuario ha modificado.
+     */
+    public boolean crearOActualizar(T entity) {
+        EntityPersister persister = persister();
+        Object id = sessionFactory.getPersistenceUnitUtil().getIdentifier(entity);
+        if (!(persister.getGenerator() instanceof Assigned)) {
+            boolean nueva = persister.getIdentifierMapping().getUnsavedStrategy().isUnsaved(id);
+            if (nueva) {
+                crear(entity);
+            } else {
+                actualizar(entity);
+            }
+            return nueva;
         }
+        AtomicBoolean creada = new AtomicBoolean();
+        medir("crearOActualizar", 1, () -> enTransaccion(session -> {
+            try {
+                creada.set(ContextoInquilino.actual() != null
+                        ? crearOActualizarEntidad(session, entity, id)
+                        : insertarOActualizarFila(session, entity, id));
+            } catch (RuntimeException e) {
+                throw conflictoSiLoEs(e, id);
+            }
+        }));
+        return creada.get();
     }
 
     /**
@@ -51,37 +250,700 @@ public abstract class BaseRepository<T, ID> {
      * @return Un Optional que contiene la entidad si existe, o vacío en caso contrario.
      */
     public Optional<T> leer(ID id) {
-        try (Session session = sessionFactory.openSession()) {
-            return Optional.ofNullable(session.get(type, id)); // Buscar la entidad por su identificador.
-        }
+        return medir("leer", () -> enSesion(session -> Optional.ofNullable(buscar(session, id))), // Buscar la entidad por su identificador.
+                BaseRepository::filas);
     }
 
     /**
-     * Actualiza una entidad existente en la base de datos.
-     * @param entity Entidad a actualizar.
+     * Indica si existe una entidad con el identificador indicado, con una consulta que solo devuelve una
+     * constante: no carga la entidad ni sus asociaciones.
+     * @param id Identificador de la entidad.
+     * @return true si existe.
+     */
+    public boolean existe(ID id) {
+        return medir("existe", () -> enSesion(session -> !session.createSelectionQuery(
+                        "select 1 from " + type.getName() + " e where e." + atributoId + " = :id",
+                        Integer.class)
+                .setParameter("id", id)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty()), existe -> existe ? 1 : 0);
+    }
+
+    /**
+     * Lee una entidad por su identificador cargando exactamente las asociaciones del grafo
+     * de entidad indicado (por ejemplo {@code Empleado.GRAFO_CON_DEPARTAMENTO}).
+     * @param id    Identificador de la entidad.
+     * @param grafo Nombre del grafo de entidad a aplicar.
+     * @return Un Optional que contiene la entidad si existe, o vacío en caso contrario.
+     */
+    public Optional<T> leer(ID id, String grafo) {
+        return medir("leer", () -> enSesion(session -> {
+            Map<String, Object> hints = Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, session.getEntityGraph(grafo));
+            return Optional.ofNullable(session.find(type, id, hints)).filter(ContextoInquilino::visible);
+        }), BaseRepository::filas);
+    }
+
+    /**
+     * Lee varias entidades por su identificador en una única sesión, con una consulta {@code IN} por bloque
+     * de identificadores en lugar de una por entidad. Las que no existen (o no son de la empresa activa)
+     * no aparecen en el resultado.
+     * @param ids Identificadores de las entidades.
+     * @return Entidades encontradas, sin un orden definido.
+     */
+    public List<T> leerTodos(Collection<ID> ids) {
+        return medir("leerTodos", () -> enSesion(session -> {
+            List<ID> pendientes = new ArrayList<>(ids);
+            List<T> encontradas = new ArrayList<>(pendientes.size());
+            for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_LOTE) {
+                List<ID> bloque = pendientes.subList(inicio, Math.min(inicio + TAMANO_LOTE, pendientes.size()));
+                for (T entity : session.byMultipleIds(type).multiLoad(bloque)) {
+                    if (entity != null && ContextoInquilino.visible(entity)) {
+                        encontradas.add(entity);
+                    }
+                }
+            }
+            return encontradas;
+        }), List::size);
+    }
+
+    /**
+     * Actualiza una entidad existente en la base de datos con un único
+     * {@code UPDATE ... WHERE id = ? AND version = ?}, sin volver a leerla aunque se leyera en otra sesión.
+     * El UPDATE se envía al momento, también dentro de una unidad de trabajo, para informar aquí del conflicto.
+     * Una entidad leída en otra sesión se escribe con todas sus columnas; para escribir solo las que cambian
+     * se usa {@link #actualizarCampos}, o se lee y modifica la entidad dentro de la misma unidad de trabajo.
+     * @param entity Entidad a actualizar, con la versión con la que se leyó.
+     * @throws IllegalArgumentException       Si hay una empresa activa y la entidad no es de ella.
+     * @throws ConflictoConcurrenciaException Si otro usuario ha modificado o borrado la entidad desde que se leyó.
      */
     public void actualizar(T entity) {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-            session.merge(entity); // Actualizar la entidad en la base de datos.
-            session.getTransaction().commit(); // Confirmar la transacción.
+        medir("actualizar", 1, () -> enTransaccion(session -> {
+            try {
+                comprobarEmpresa(session, entity, true);
+                adjuntar(session, entity);
+                session.flush(); // Enviar el UPDATE versionado
+            } catch (RuntimeException e) {
+                throw conflictoSiLoEs(e, sessionFactory.getPersistenceUnitUtil().getIdentifier(entity));
+            }
+        }));
+    }
+
+    /**
+     * Comprueba que una entidad tiene la versión esperada, por ejemplo la que envía un cliente que la leyó antes.
+     * @param entity          Entidad leída.
+     * @param versionEsperada Versión sobre la que se han hecho los cambios.
+     * @throws ConflictoConcurrenciaException Si la versión de la entidad es otra.
+     */
+    public void comprobarVersion(T entity, Object versionEsperada) {
+        EntityPersister persister = persister();
+        if (!String.valueOf(persister.getVersion(entity)).equals(String.valueOf(versionEsperada))) {
+            throw new ConflictoConcurrenciaException(type.getSimpleName(),
+                    sessionFactory.getPersistenceUnitUtil().getIdentifier(entity), null);
         }
     }
 
+    /**
+     * Actualiza solo los atributos indicados de una entidad, sin leerla antes: un único UPDATE de sus
+     * columnas que además incrementa la versión. Si la entidad ya está en la sesión de la unidad de trabajo,
+     * o si cambia una asociación (por ejemplo el departamento de un empleado, del que dependen los
+     * contadores), los cambios se aplican sobre la entidad y Hibernate escribe solo las columnas modificadas.
+     * Con una empresa activa ({@link ContextoInquilino}) también se aplican sobre la entidad, que solo se
+     * encuentra si es de esa empresa.
+     * @param id              Identificador de la entidad.
+     * @param versionEsperada Versión sobre la que se han hecho los cambios, o null para no comprobarla.
+     * @param campos          Nuevo valor de cada atributo; las asociaciones se indican con el identificador
+     *                        de la entidad asociada.
+     * @return true si se ha actualizado la entidad, false si no existe.
+     * @throws IllegalArgumentException       Si algún atributo no existe, no se puede modificar o su valor no es de su tipo.
+     * @throws ConflictoConcurrenciaException Si la entidad ya no tiene la versión esperada.
+     */
+    public boolean actualizarCampos(ID id, Object versionEsperada, Map<String, ?> campos) {
+        Map<SingularAttribute<? super T, ?>, Object> valores = validarCampos(campos);
+        AtomicBoolean actualizada = new AtomicBoolean();
+        medir("actualizarCampos", 1, () -> enTransaccion(session -> {
+            try {
+                boolean porEntidad = cargada(session, id) || ContextoInquilino.actual() != null
+                        || valores.keySet().stream().anyMatch(Attribute::isAssociation);
+                actualizada.set(porEntidad
+                        ? actualizarEntidad(session, id, versionEsperada, valores)
+                        : actualizarFila(session, id, versionEsperada, valores));
+            } catch (RuntimeException e) {
+                throw conflictoSiLoEs(e, id);
+            }
+        }));
+        return actualizada.get();
+    }
+
+    /**
+     * Actualiza solo los atributos indicados de una entidad, sin leerla ni comprobar su versión.
+     * @param id     Identificador de la entidad.
+     * @param campos Nuevo valor de cada atributo.
+     * @return true si se ha actualizado la entidad, false si no existe.
+     * @see #actualizarCampos(Object, Object, Map)
+     */
+    public boolean actualizarCampos(ID id, Map<String, ?> campos) {
+        return actualizarCampos(id, null, campos);
+    }
+
     /**
      * Borra una entidad de la base de datos por su identificador.
      * @param id Identificador de la entidad a borrar.
      */
     public void borrar(ID id) {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-            T entity = session.get(type, id); // Buscar la entidad por su identificador.
+        medir("borrar", 1, () -> enTransaccion(session -> {
+            T entity = buscar(session, id); // Buscar la entidad por su identificador.
             if (entity != null) {
                 session.remove(entity); // Eliminar la entidad si existe.
             }
-            session.getTransaction().commit(); // Confirmar la transacción.
+        }));
+    }
+
+    /**
+     * Crea varias entidades en una única sesión y transacción, enviando las inserciones en lotes JDBC.
+     * @param entidades Entidades a persistir.
+     * @throws IllegalArgumentException Si hay una empresa activa y alguna entidad no es de ella.
+     */
+    public void crearTodos(Collection<T> entidades) {
+        medir("crearTodos", entidades.size(), () -> enTransaccion(session -> {
+            int procesadas = 0;
+            for (T entity : entidades) {
+                comprobarEmpresa(session, entity, false);
+                session.persist(entity);
+                if (++procesadas % TAMANO_LOTE == 0) {
+                    vaciarLote(session);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Actualiza varias entidades en una única sesión y transacción, enviando los UPDATE versionados en
+     * lotes JDBC sin volver a leerlas.
+     * @param entidades Entidades a actualizar, con la versión con la que se leyeron.
+     * @throws IllegalArgumentException       Si hay una empresa activa y alguna entidad no es de ella.
+     * @throws ConflictoConcurrenciaException Si otro usuario ha modificado o borrado alguna de ellas desde que se leyó.
+     */
+    public void actualizarTodos(Collection<T> entidades) {
+        medir("actualizarTodos", entidades.size(), () -> enTransaccion(session -> {
+            try {
+                int procesadas = 0;
+                for (T entity : entidades) {
+                    comprobarEmpresa(session, entity, true);
+                    adjuntar(session, entity);
+                    if (++procesadas % TAMANO_LOTE == 0) {
+                        vaciarLote(session);
+                    }
+                }
+                session.flush(); // Enviar el último lote
+            } catch (RuntimeException e) {
+                throw conflictoSiLoEs(e, null);
+            }
+        }));
+    }
+
+    /**
+     * Borra varias entidades por su identificador en una única sesión y transacción.
+     * Las entidades se cargan por bloques con una sola consulta por bloque y se eliminan en lotes JDBC.
+     * @param ids Identificadores de las entidades a borrar.
+     */
+    public void borrarTodos(Collection<ID> ids) {
+        medir("borrarTodos", ids.size(), () -> enTransaccion(session -> {
+            List<ID> pendientes = new ArrayList<>(ids);
+            for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_LOTE) {
+                List<ID> bloque = pendientes.subList(inicio, Math.min(inicio + TAMANO_LOTE, pendientes.size()));
+                for (T entity : session.byMultipleIds(type).multiLoad(bloque)) {
+                    if (entity != null && ContextoInquilino.visible(entity)) {
+                        session.remove(entity); // Eliminar solo las entidades que existen.
+                    }
+                }
+                vaciarLote(session);
+            }
+        }));
+    }
+
+    /**
+     * Lista una página de entidades usando paginación por clave ("seek"): la página continúa
+     * después del cursor de la petición con una condición sobre la columna de ordenación y la
+     * clave primaria, en lugar de saltar filas, así que su coste no depende de la profundidad.
+     * @param peticion Tamaño, filtros, orden y cursor de la página.
+     * @return Página con las entidades y el cursor de la siguiente página.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Page<T> listar(PageRequest peticion) {
+        return medir("listar", () -> enSesion(session -> {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<Tuple> query = cb.createTupleQuery();
+            Root<T> root = query.from(type);
+
+            Path<Comparable> id = root.get(atributoId);
+            Path<Comparable> orden = peticion.ordenarPor() == null ? id : ruta(root, peticion.ordenarPor());
+
+            // Filtros de igualdad
+            List<Predicate> condiciones = new ArrayList<>();
+            for (Map.Entry<String, Object> filtro : peticion.filtros().entrySet()) {
+                condiciones.add(cb.equal(ruta(root, filtro.getKey()), filtro.getValue()));
+            }
+
+            // Condición de búsqueda por clave: (orden, id) posterior al cursor
+            Page.Cursor cursor = peticion.despuesDe();
+            if (cursor != null) {
+                Comparable ultimoId = (Comparable) cursor.id();
+                Predicate idPosterior = peticion.descendente() ? cb.lessThan(id, ultimoId) : cb.greaterThan(id, ultimoId);
+                if (orden == id) {
+                    condiciones.add(idPosterior);
+                } else {
+                    Comparable ultimoValor = (Comparable) cursor.valorOrden();
+                    Predicate ordenPosterior = peticion.descendente()
+                            ? cb.lessThan(orden, ultimoValor) : cb.greaterThan(orden, ultimoValor);
+                    condiciones.add(cb.or(ordenPosterior, cb.and(cb.equal(orden, ultimoValor), idPosterior)));
+                }
+            }
+
+            List<Order> ordenes = new ArrayList<>();
+            ordenes.add(peticion.descendente() ? cb.desc(orden) : cb.asc(orden));
+            if (orden != id) {
+                ordenes.add(peticion.descendente() ? cb.desc(id) : cb.asc(id)); // Desempate estable
+            }
+
+            query.multiselect(root, orden, id)
+                    .where(condiciones.toArray(new Predicate[0]))
+                    .orderBy(ordenes);
+
+            // Se pide una fila de más para saber si existe una página siguiente
+            var consulta = session.createQuery(query).setMaxResults(peticion.tamano() + 1);
+            if (peticion.grafo() != null) {
+                consulta.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, session.getEntityGraph(peticion.grafo()));
+            }
+            List<Tuple> filas = consulta.getResultList();
+
+            boolean hayMas = filas.size() > peticion.tamano();
+            List<Tuple> pagina = hayMas ? filas.subList(0, peticion.tamano()) : filas;
+            List<T> contenido = pagina.stream().map(fila -> fila.get(0, type)).toList();
+            Page.Cursor siguiente = null;
+            if (hayMas) {
+                Tuple ultima = pagina.get(pagina.size() - 1);
+                siguiente = new Page.Cursor(ultima.get(1), ultima.get(2));
+            }
+            return new Page<>(contenido, siguiente);
+        }), pagina -> pagina.contenido().size());
+    }
+
+    /**
+     * Asocia a la sesión una entidad modificada para que se actualice al vaciarla. Las entidades leídas en
+     * otra sesión se vuelven a asociar sin consultarlas, de modo que Hibernate escribe todas sus columnas con
+     * la versión que traen en la condición; si la sesión ya tiene otra instancia de la misma fila, se copia
+     * sobre ella con merge, que tampoco consulta y también comprueba la versión.
+     * @param session Sesión de la operación.
+     * @param entity  Entidad modificada.
+     */
+    @SuppressWarnings("deprecation") // update es la única forma de asociar una entidad modificada sin leerla
+    private void adjuntar(Session session, T entity) {
+        if (session.contains(entity)) {
+            return; // Ya gestionada: Hibernate detecta sus cambios al vaciar la sesión
+        }
+        if (cargada(session, sessionFactory.getPersistenceUnitUtil().getIdentifier(entity))) {
+            session.merge(entity);
+        } else {
+            session.update(entity);
         }
     }
-}
 
+    /**
+     * Convierte en {@link ConflictoConcurrenciaException} las excepciones de bloqueo optimista.
+     * @param e  Excepción producida al escribir.
+     * @param id Identificador de la entidad que se estaba actualizando, o null si eran varias.
+     * @return Conflicto de concurrencia, o la misma excepción si no se debe a un conflicto de versión.
+     */
+    private RuntimeException conflictoSiLoEs(RuntimeException e, Object id) {
+        ConflictoConcurrenciaException conflicto = ConflictoConcurrenciaException.desde(e);
+        if (conflicto == null) {
+            return e;
+        }
+        // Hibernate no siempre indica la fila del UPDATE que no modificó nada
+        return conflicto == e || id == null ? conflicto : new ConflictoConcurrenciaException(type.getSimpleName(), id, e);
+    }
+
+    /**
+     * Obtiene el persister de Hibernate de la entidad, con su correspondencia entre atributos y columnas.
+     * @return Persister de la entidad.
+     */
+    private EntityPersister persister() {
+        return sessionFactory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel().getEntityDescriptor(type);
+    }
+
+    /**
+     * Indica si la sesión ya tiene una instancia de la entidad con el identificador indicado, sin consultarla.
+     * @param session Sesión de la operación.
+     * @param id      Identificador de la entidad.
+     * @return true si la entidad está en el contexto de persistencia de la sesión.
+     */
+    private boolean cargada(Session session, Object id) {
+        SessionImplementor implementor = session.unwrap(SessionImplementor.class);
+        return implementor.getPersistenceContextInternal().getEntity(implementor.generateEntityKey(id, persister())) != null;
+    }
+
+    /**
+     * Lee una entidad por su identificador dentro de una operación. Con una empresa activa descarta las
+     * de otras empresas, que pueden llegar de la caché de segundo nivel sin pasar por el filtro.
+     * @param session Sesión de la operación.
+     * @param id      Identificador de la entidad.
+     * @return La entidad, o null si no existe o no es de la empresa activa.
+     */
+    private T buscar(Session session, Object id) {
+        T entity = session.get(type, id);
+        return entity != null && ContextoInquilino.visible(entity) ? entity : null;
+    }
+
+    /**
+     * Obtiene la entidad asociada que se asigna en una actualización. Sin empresa activa es una referencia
+     * que no se consulta; con ella se lee para comprobar que es de esa empresa.
+     * @param session Sesión de la operación.
+     * @param tipo    Clase de la entidad asociada.
+     * @param id      Identificador de la entidad asociada.
+     * @return Entidad o referencia asociada.
+     * @throws IllegalArgumentException Si hay una empresa activa y la entidad asociada no es de ella.
+     */
+    private Object asociada(Session session, Class<?> tipo, Object id) {
+        if (ContextoInquilino.actual() == null) {
+            return session.getReference(tipo, id);
+        }
+        Object asociada = session.get(tipo, id);
+        if (asociada == null || !ContextoInquilino.visible(asociada)) {
+            throw new IllegalArgumentException("No existe " + tipo.getSimpleName() + " " + id);
+        }
+        return asociada;
+    }
+
+    /**
+     * Comprueba, con una empresa activa, que una entidad que se va a crear o modificar es de esa empresa.
+     * Las entidades asociadas (el departamento de un empleado, la empresa de un departamento) se leen en la
+     * sesión por su identificador, porque las que trae la entidad pueden ser referencias sin inicializar de
+     * otra sesión; una entidad sin asociaciones, como una empresa, se compara directamente. Al modificarla
+     * también se comprueba su fila actual, para no pasar a la empresa activa una entidad de otra.
+     * @param session   Sesión de la operación.
+     * @param entity    Entidad a crear o modificar.
+     * @param existente true si la entidad ya existe y se va a modificar.
+     * @throws IllegalArgumentException Si la entidad, su fila actual o alguna entidad asociada no es de la empresa activa.
+     */
+    private void comprobarEmpresa(Session session, T entity, boolean existente) {
+        if (ContextoInquilino.actual() == null) {
+            return;
+        }
+        EntityPersister persister = persister();
+        Object[] valores = persister.getValues(entity);
+        Type[] tipos = persister.getPropertyTypes();
+        boolean conAsociaciones = false;
+        for (int i = 0; i < valores.length; i++) {
+            if (tipos[i].isEntityType()) {
+                conAsociaciones = true;
+                if (valores[i] == null) {
+                    throw new IllegalArgumentException(type.getSimpleName() + " sin " + persister.getPropertyNames()[i]
+                            + " no es de la empresa activa");
+                }
+                asociada(session, tipos[i].getReturnedClass(), sessionFactory.getPersistenceUnitUtil().getIdentifier(valores[i]));
+            }
+        }
+        Object id = sessionFactory.getPersistenceUnitUtil().getIdentifier(entity);
+        if (!conAsociaciones && !ContextoInquilino.visible(entity)) {
+            throw new IllegalArgumentException(type.getSimpleName() + " " + id + " no es de la empresa activa");
+        }
+        if (existente) {
+            T actual = session.get(type, id); // Si no existe, el UPDATE versionado informa del conflicto
+            if (actual != null && !ContextoInquilino.visible(actual)) {
+                throw new IllegalArgumentException(type.getSimpleName() + " " + id + " no es de la empresa activa");
+            }
+        }
+    }
+
+    /**
+     * Separa de la sesión las entidades cargadas que ha dejado obsoletas un borrado o una actualización
+     * con sentencias sobre conjuntos, para que la sesión no vuelva a escribirlas ni las devuelva.
+     * Los cambios pendientes de la sesión deben haberse enviado antes a la base de datos.
+     * @param session  Sesión de la operación.
+     * @param afectada Condición que cumplen las entidades obsoletas.
+     */
+    protected void separar(Session session, java.util.function.Predicate<Object> afectada) {
+        List<Object> obsoletas = new ArrayList<>();
+        for (var entrada : session.unwrap(SessionImplementor.class).getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (afectada.test(entrada.getKey())) {
+                obsoletas.add(entrada.getKey());
+            }
+        }
+        obsoletas.forEach(entidad -> {
+            if (session.contains(entidad)) { // Puede haberse separado ya en cascada
+                session.detach(entidad);
+            }
+        });
+    }
+
+    /**
+     * Comprueba los atributos de una actualización parcial contra el metamodelo y convierte sus valores.
+     * @param campos Nuevo valor de cada atributo.
+     * @return Valor de cada atributo, del tipo del atributo (o del identificador de la entidad asociada).
+     * @throws IllegalArgumentException Si algún atributo no existe, no se puede modificar o su valor no es de su tipo.
+     */
+    private Map<SingularAttribute<? super T, ?>, Object> validarCampos(Map<String, ?> campos) {
+        if (campos.isEmpty()) {
+            throw new IllegalArgumentException("No hay campos que actualizar");
+        }
+        EntityType<T> entidad = sessionFactory.getMetamodel().entity(type);
+        EntityPersister persister = persister();
+        Map<SingularAttribute<? super T, ?>, Object> valores = new LinkedHashMap<>();
+        for (Map.Entry<String, ?> campo : campos.entrySet()) {
+            Attribute<? super T, ?> atributo = entidad.getAttributes().stream()
+                    .filter(a -> a.getName().equals(campo.getKey()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No existe el campo \"" + campo.getKey() + "\""));
+            if (!(atributo instanceof SingularAttribute<? super T, ?> singular) || singular.isId() || singular.isVersion()
+                    || !persister.getPropertyUpdateability()[persister.getPropertyIndex(singular.getName())]) {
+                throw new IllegalArgumentException("El campo \"" + campo.getKey() + "\" no se puede modificar");
+            }
+            Class<?> tipoValor = singular.isAssociation()
+                    ? sessionFactory.getMetamodel().entity(singular.getJavaType()).getIdType().getJavaType()
+                    : singular.getJavaType();
+            valores.put(singular, convertir(campo.getKey(), campo.getValue(), tipoValor));
+        }
+        return valores;
+    }
 
+    /**
+     * Convierte el valor de un atributo al tipo del atributo. Los números se convierten entre tipos numéricos.
+     * @param campo Nombre del atributo.
+     * @param valor Valor recibido.
+     * @param tipo  Tipo del atributo.
+     * @return Valor convertido.
+     * @throws IllegalArgumentException Si el valor no es del tipo del atributo.
+     */
+    private static Object convertir(String campo, Object valor, Class<?> tipo) {
+        if (valor == null) {
+            if (tipo.isPrimitive()) {
+                throw new IllegalArgumentException("El campo \"" + campo + "\" no puede ser nulo");
+            }
+            return null;
+        }
+        Class<?> envoltorio = MethodType.methodType(tipo).wrap().returnType();
+        if (envoltorio.isInstance(valor)) {
+            return valor;
+        }
+        if (valor instanceof Number numero) {
+            if (envoltorio == Integer.class) {
+                return numero.intValue();
+            } else if (envoltorio == Long.class) {
+                return numero.longValue();
+            } else if (envoltorio == Short.class) {
+                return numero.shortValue();
+            } else if (envoltorio == Double.class) {
+                return numero.doubleValue();
+            } else if (envoltorio == Float.class) {
+                return numero.floatValue();
+            }
+        }
+        throw new IllegalArgumentException("El campo \"" + campo + "\" debe ser de tipo " + envoltorio.getSimpleName());
+    }
+
+    /**
+     * Aplica una actualización parcial sobre la entidad cargada, de modo que pasa por los eventos de
+     * Hibernate (contadores, índice de búsqueda, caché) y solo se escriben las columnas modificadas.
+     * @param session         Sesión de la operación.
+     * @param id              Identificador de la entidad.
+     * @param versionEsperada Versión esperada, o null.
+     * @param valores         Valor de cada atributo.
+     * @return true si se ha actualizado la entidad, false si no existe.
+     */
+    private boolean actualizarEntidad(Session session, ID id, Object versionEsperada,
+                                      Map<SingularAttribute<? super T, ?>, Object> valores) {
+        T entity = buscar(session, id);
+        if (entity == null) {
+            return false;
+        }
+        if (versionEsperada != null) {
+            comprobarVersion(entity, versionEsperada);
+        }
+        EntityPersister persister = persister();
+        valores.forEach((atributo, valor) -> persister.setValue(entity, persister.getPropertyIndex(atributo.getName()),
+                atributo.isAssociation() && valor != null ? asociada(session, atributo.getJavaType(), valor) : valor));
+        session.flush(); // Enviar el UPDATE versionado
+        return true;
+    }
+
+    /**
+     * Aplica una actualización parcial con un UPDATE de las columnas indicadas y de la versión, sin cargar la
+     * entidad. Tras confirmar, {@link CambiosMasivos} elimina la fila de la caché y avisa al índice de búsqueda.
+     * @param session         Sesión de la operación.
+     * @param id              Identificador de la entidad.
+     * @param versionEsperada Versión esperada, o null.
+     * @param valores         Valor de cada atributo (sin asociaciones).
+     * @return true si se ha actualizado la entidad, false si no existe.
+     * @throws ConflictoConcurrenciaException Si la entidad existe pero ya no tiene la versión esperada.
+     */
+    private boolean actualizarFila(Session session, ID id, Object versionEsperada,
+                                   Map<SingularAttribute<? super T, ?>, Object> valores) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) persister();
+        List<String> asignaciones = new ArrayList<>();
+        List<Object> parametros = new ArrayList<>();
+        valores.forEach((atributo, valor) -> {
+            asignaciones.add(persister.getPropertyColumnNames(atributo.getName())[0] + " = ?");
+            parametros.add(valor);
+        });
+        String version = persister.isVersioned() ? persister.getVersionColumnName() : null;
+        if (version != null) {
+            asignaciones.add(version + " = " + version + " + 1");
+        }
+        StringBuilder sql = new StringBuilder("UPDATE ").append(persister.getTableName())
+                .append(" SET ").append(String.join(", ", asignaciones))
+                .append(" WHERE ").append(persister.getIdentifierColumnNames()[0]).append(" = ?");
+        parametros.add(id);
+        if (version != null && versionEsperada != null) {
+            sql.append(" AND ").append(version).append(" = ?");
+            parametros.add(versionEsperada);
+        }
+
+        int filas = session.doReturningWork(conexion -> {
+            try (PreparedStatement actualizacion = conexion.prepareStatement(sql.toString())) {
+                for (int i = 0; i < parametros.size(); i++) {
+                    actualizacion.setObject(i + 1, parametros.get(i));
+                }
+                return actualizacion.executeUpdate();
+            }
+        });
+        if (filas == 0) {
+            if (versionEsperada != null && session.get(type, id) != null) {
+                throw new ConflictoConcurrenciaException(type.getSimpleName(), id, null);
+            }
+            return false;
+        }
+        CambiosMasivos.actualizadas(session, type, List.of(id));
+        return true;
+    }
+
+    /**
+     * Inserta una entidad con un {@code INSERT ... ON DUPLICATE KEY UPDATE} de todas sus columnas, que si
+     * la fila ya existe actualiza las modificables salvo las asociaciones e incrementa la versión. Las
+     * asociaciones de una fila existente se cambian después sobre la entidad, para que los oyentes de
+     * Hibernate vean el cambio. Tras confirmar, {@link CambiosMasivos} elimina la fila de la caché y
+     * avisa al índice de búsqueda.
+     * @param session Sesión de la operación.
+     * @param entity  Entidad a crear o actualizar.
+     * @param id      Identificador asignado de la entidad.
+     * @return true si se ha insertado, false si existía.
+     */
+    private boolean insertarOActualizarFila(Session session, T entity, Object id) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) persister();
+        boolean estabaCargada = cargada(session, id);
+        if (estabaCargada) {
+            session.flush(); // No perder los cambios pendientes de la entidad al refrescarla
+        }
+        List<String> columnas = new ArrayList<>(List.of(persister.getIdentifierColumnNames()[0]));
+        List<Object> parametros = new ArrayList<>(List.of(id));
+        List<String> asignaciones = new ArrayList<>();
+        Map<Integer, Object> asociaciones = new LinkedHashMap<>();
+        Object[] valores = persister.getValues(entity);
+        Type[] tipos = persister.getPropertyTypes();
+        for (int i = 0; i < valores.length; i++) {
+            if (!persister.getPropertyInsertability()[i] || tipos[i].isCollectionType()) {
+                continue; // Las colecciones no tienen columnas en esta tabla
+            }
+            String columna = persister.getPropertyColumnNames(i)[0];
+            Object valor = valores[i];
+            if (tipos[i].isEntityType()) {
+                valor = valor == null ? null : sessionFactory.getPersistenceUnitUtil().getIdentifier(valor);
+                asociaciones.put(i, valor);
+            } else if (persister.isVersioned() && i == persister.getVersionProperty()) {
+                asignaciones.add(columna + " = " + columna + " + 1");
+            } else if (persister.getPropertyUpdateability()[i]) {
+                asignaciones.add(columna + " = VALUES(" + columna + ")");
+            }
+            columnas.add(columna);
+            parametros.add(valor);
+        }
+        if (asignaciones.isEmpty()) {
+            asignaciones.add(columnas.get(0) + " = " + columnas.get(0)); // Ninguna columna que actualizar
+        }
+        String sql = "INSERT INTO " + persister.getTableName() + " (" + String.join(", ", columnas) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columnas.size(), "?")) + ") ON DUPLICATE KEY UPDATE "
+                + String.join(", ", asignaciones);
+
+        // MySQL devuelve 1 si ha insertado la fila y 2 si la ha actualizado
+        boolean creada = session.doReturningWork(conexion -> {
+            try (PreparedStatement insercion = conexion.prepareStatement(sql)) {
+                for (int i = 0; i < parametros.size(); i++) {
+                    insercion.setObject(i + 1, parametros.get(i));
+                }
+                return insercion.executeUpdate() == 1;
+            }
+        });
+        if (creada) {
+            OyenteContadores.anotarAlta(session, entity);
+        } else if (estabaCargada || !asociaciones.isEmpty()) {
+            sessionFactory.getCache().evictEntityData(type, id); // La caché aún tiene la fila anterior
+            T actual = estabaCargada ? session.get(type, id) : session.byId(type).with(CacheMode.IGNORE).load(id);
+            if (estabaCargada) {
+                session.refresh(actual);
+            }
+            asociaciones.forEach((indice, asociado) -> persister.setValue(actual, indice, asociado == null
+                    ? null : session.getReference(tipos[indice].getReturnedClass(), asociado)));
+            session.flush(); // Enviar el cambio de las asociaciones, si lo hay
+        }
+        CambiosMasivos.actualizadas(session, type, List.of(id));
+        return creada;
+    }
+
+    /**
+     * Crea o sustituye una entidad a través de la sesión, de modo que la lectura pasa por el filtro de la
+     * empresa activa y los eventos de Hibernate mantienen los contadores, el índice y la caché.
+     * @param session Sesión de la operación.
+     * @param entity  Entidad a crear o actualizar.
+     * @param id      Identificador asignado de la entidad.
+     * @return true si se ha creado, false si existía.
+     * @throws IllegalArgumentException Si la entidad no es de la empresa activa.
+     */
+    private boolean crearOActualizarEntidad(Session session, T entity, Object id) {
+        if (!ContextoInquilino.visible(entity)) {
+            throw new IllegalArgumentException(type.getSimpleName() + " " + id + " no es de la empresa activa");
+        }
+        T actual = buscar(session, id);
+        if (actual == null) {
+            session.persist(entity); // Si la fila es de otra empresa, falla por clave duplicada
+            session.flush();
+            return true;
+        }
+        EntityPersister persister = persister();
+        Object[] valores = persister.getValues(entity);
+        Type[] tipos = persister.getPropertyTypes();
+        for (int i = 0; i < valores.length; i++) {
+            boolean version = persister.isVersioned() && i == persister.getVersionProperty();
+            if (persister.getPropertyUpdateability()[i] && !tipos[i].isCollectionType() && !version) {
+                persister.setValue(actual, i, valores[i]);
+            }
+        }
+        session.flush(); // Enviar el UPDATE versionado
+        return false;
+    }
+
+    /**
+     * Cuenta las filas devueltas por una lectura por identificador.
+     * @param entidad Resultado de la lectura.
+     * @return 1 si se encontró la entidad, 0 si no.
+     */
+    private static long filas(Optional<?> entidad) {
+        return entidad.isPresent() ? 1 : 0;
+    }
+
+    /**
+     * Resuelve una ruta de atributos separada por puntos, por ejemplo "departamento.id".
+     * @param root Raíz de la consulta.
+     * @param ruta Ruta de atributos.
+     * @return Expresión de la ruta.
+     */
+    @SuppressWarnings("rawtypes")
+    private static Path<Comparable> ruta(Root<?> root, String ruta) {
+        Path<?> path = root;
+        for (String atributo : ruta.split("\\.")) {
+            path = path.get(atributo);
+        }
+        @SuppressWarnings("unchecked")
+        Path<Comparable> comparable = (Path<Comparable>) path;
+        return comparable;
+    }
+}
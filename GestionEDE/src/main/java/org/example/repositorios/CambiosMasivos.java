@@ -0,0 +1,155 @@
+package org.example.repositorios;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cambios que los repositorios escriben con sentencias propias, sin pasar por las entidades ni por los
+ * eventos de Hibernate (por ejemplo {@link BaseRepository#actualizarCampos}).
+ * <p>
+ * Tras confirmar la transacción se eliminan de la caché de segundo nivel solo las filas afectadas, en
+ * lugar de toda la región como haría Hibernate con un UPDATE o DELETE de HQL, se invalidan las consultas
+ * cacheadas sobre la tabla y se avisa a los {@link Oyente} registrados, como el índice de búsqueda,
+ * que mantienen copias de los datos fuera de la base de datos.
+ */
+public final class CambiosMasivos {
+
+    /**
+     * Componente que se entera de los cambios hechos con sentencias propias tras confirmarlos.
+     */
+    public interface Oyente {
+
+        /**
+         * Recibe las entidades modificadas en una transacción confirmada.
+         *
+         * @param tipo Clase de las entidades.
+         * @param ids  Identificadores de las entidades modificadas.
+         */
+        void actualizadas(Class<?> tipo, Collection<?> ids);
+
+        /**
+         * Recibe los departamentos cuyas entidades se han modificado en bloque, sin conocer sus
+         * identificadores, en una transacción confirmada.
+         *
+         * @param tipo          Clase de las entidades.
+         * @param departamentos Identificadores de los departamentos de las entidades modificadas.
+         */
+        void actualizadasEnDepartamentos(Class<?> tipo, Collection<?> departamentos);
+
+        /**
+         * Recibe las entidades borradas en una transacción confirmada.
+         *
+         * @param tipo Clase de las entidades.
+         * @param ids  Identificadores de las entidades borradas.
+         */
+        void borradas(Class<?> tipo, Collection<?> ids);
+    }
+
+    /**
+     * Oyentes registrados en cada fábrica de sesiones.
+     */
+    private static final Map<SessionFactory, List<Oyente>> OYENTES = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor privado: clase de utilidad no instanciable.
+     */
+    private CambiosMasivos() {}
+
+    /**
+     * Registra un oyente de los cambios hechos con sentencias propias sobre una fábrica de sesiones.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     * @param oyente         Oyente a registrar.
+     */
+    public static void registrar(SessionFactory sessionFactory, Oyente oyente) {
+        OYENTES.computeIfAbsent(sessionFactory, f -> new CopyOnWriteArrayList<>()).add(oyente);
+    }
+
+    /**
+     * Anota en la transacción en curso que se han modificado unas entidades.
+     *
+     * @param session Sesión con la transacción en curso.
+     * @param tipo    Clase de las entidades.
+     * @param ids     Identificadores de las entidades modificadas.
+     */
+    static void actualizadas(Session session, Class<?> tipo, Collection<?> ids) {
+        anotar(session, tipo, ids, cache -> ids.forEach(id -> cache.evictEntityData(tipo, id)),
+                oyente -> oyente.actualizadas(tipo, ids));
+    }
+
+    /**
+     * Anota en la transacción en curso que se han modificado en bloque las entidades de unos departamentos.
+     * Como no se conocen sus identificadores, tras confirmar se vacía toda la región de caché de la entidad.
+     *
+     * @param session       Sesión con la transacción en curso.
+     * @param tipo          Clase de las entidades.
+     * @param departamentos Identificadores de los departamentos de las entidades modificadas.
+     */
+    static void actualizadasEnDepartamentos(Session session, Class<?> tipo, Collection<?> departamentos) {
+        anotar(session, tipo, departamentos, cache -> cache.evictEntityData(tipo),
+                oyente -> oyente.actualizadasEnDepartamentos(tipo, departamentos));
+    }
+
+    /**
+     * Anota en la transacción en curso que se han borrado unas entidades.
+     *
+     * @param session Sesión con la transacción en curso.
+     * @param tipo    Clase de las entidades.
+     * @param ids     Identificadores de las entidades borradas.
+     */
+    static void borradas(Session session, Class<?> tipo, Collection<?> ids) {
+        anotar(session, tipo, ids, cache -> ids.forEach(id -> cache.evictEntityData(tipo, id)),
+                oyente -> oyente.borradas(tipo, ids));
+    }
+
+    /**
+     * Registra en la transacción en curso la limpieza de la caché y el aviso a los oyentes tras confirmarla.
+     *
+     * @param session Sesión con la transacción en curso.
+     * @param tipo    Clase de las entidades.
+     * @param claves  Identificadores de las entidades o de sus departamentos; si está vacía no se anota nada.
+     * @param limpiar Eliminación de las filas afectadas de la caché de segundo nivel.
+     * @param avisar  Aviso a cada oyente.
+     */
+    private static void anotar(Session session, Class<?> tipo, Collection<?> claves, Consumer<CacheImplementor> limpiar,
+                               Consumer<Oyente> avisar) {
+        if (claves.isEmpty()) {
+            return;
+        }
+        SharedSessionContractImplementor implementor = session.unwrap(SharedSessionContractImplementor.class);
+        session.getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+                // Los cambios ya están escritos
+            }
+
+            @Override
+            public void afterCompletion(int estado) {
+                if (estado != Status.STATUS_COMMITTED) {
+                    return;
+                }
+                SessionFactoryImplementor fabrica = implementor.getFactory();
+                CacheImplementor cache = fabrica.getCache();
+                limpiar.accept(cache);
+                String[] tablas = Arrays.stream(fabrica.getMappingMetamodel().getEntityDescriptor(tipo).getQuerySpaces())
+                        .map(String::valueOf)
+                        .toArray(String[]::new);
+                cache.getTimestampsCache().invalidate(tablas, implementor);
+                OYENTES.getOrDefault(fabrica, List.of()).forEach(avisar);
+            }
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.repositorios;
+
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.StaleStateException;
+
+/**
+ * Excepción lanzada cuando una actualización no se aplica porque otro usuario ha modificado o borrado
+ * la entidad desde que se leyó (su versión ya no coincide).
+ * <p>
+ * La transacción en curso queda deshecha. Quien la recibe puede volver a leer la entidad y repetir el
+ * cambio, o hacerlo automáticamente con {@link UnidadDeTrabajo#reintentar}.
+ */
+public class ConflictoConcurrenciaException extends RuntimeException {
+
+    /**
+     * Versión de la forma serializada (el identificador es transient y no se serializa).
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Nombre de la entidad en conflicto, o null si no se conoce.
+     */
+    private final String entidad;
+
+    /**
+     * Identificador de la entidad en conflicto, o null si no se conoce.
+     */
+    private final transient Object id;
+
+    /**
+     * Constructor de la excepción.
+     *
+     * @param entidad Nombre de la entidad en conflicto, o null si no se conoce.
+     * @param id      Identificador de la entidad en conflicto, o null si no se conoce.
+     * @param causa   Excepción de Hibernate que detectó el conflicto, o null.
+     */
+    public ConflictoConcurrenciaException(String entidad, Object id, Throwable causa) {
+        super(entidad == null
+                ? "Otro usuario ha modificado los datos desde que se leyeron"
+                : "Otro usuario ha modificado " + entidad + (id == null ? "" : " " + id) + " desde que se leyó", causa);
+        this.entidad = entidad;
+        this.id = id;
+    }
+
+    /**
+     * Convierte una excepción de bloqueo optimista de Hibernate o de JPA en un conflicto de concurrencia.
+     *
+     * @param e Excepción producida al vaciar la sesión o al confirmar la transacción.
+     * @return Conflicto de concurrencia, o null si la excepción no se debe a un conflicto de versión.
+     */
+    static ConflictoConcurrenciaException desde(RuntimeException e) {
+        if (e instanceof ConflictoConcurrenciaException conflicto) {
+            return conflicto;
+        }
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof StaleObjectStateException obsoleta) {
+                String entidad = obsoleta.getEntityName();
+                return new ConflictoConcurrenciaException(entidad.substring(entidad.lastIndexOf('.') + 1),
+                        obsoleta.getIdentifier(), e);
+            }
+            if (causa instanceof OptimisticLockException bloqueo && bloqueo.getEntity() != null) {
+                return new ConflictoConcurrenciaException(bloqueo.getEntity().getClass().getSimpleName(), null, e);
+            }
+        }
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof StaleStateException || causa instanceof OptimisticLockException) {
+                return new ConflictoConcurrenciaException(null, null, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene el nombre de la entidad en conflicto.
+     *
+     * @return Nombre de la entidad, o null si no se conoce.
+     */
+    public String getEntidad() {
+        return entidad;
+    }
+
+    /**
+     * Obtiene el identificador de la entidad en conflicto.
+     *
+     * @return Identificador, o null si no se conoce.
+     */
+    public Object getId() {
+        return id;
+    }
+}
@@ -1,8 +1,18 @@
 package org.example.repositorios;
 
+import org.example.contadores.OyenteContadores;
 import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Repositorio específico para gestionar las operaciones CRUD de la entidad Departamento.
  */
@@ -15,5 +25,84 @@ public class DepartamentoRepository extends BaseRepository<Departamento, Integer
     public DepartamentoRepository(SessionFactory sessionFactory) {
         super(Departamento.class, sessionFactory);
     }
-}
 
+    /**
+     * Obtiene los identificadores de los departamentos de una empresa, sin cargarlos.
+     * @param empresaId Identificador de la empresa.
+     * @return Identificadores de sus departamentos.
+     */
+    public Set<Integer> idsDeEmpresa(int empresaId) {
+        return medir("idsDeEmpresa", () -> enSesion(session -> Set.copyOf(session.createSelectionQuery(
+                        "select d.id from Departamento d where d.empresa.id = :empresa", Integer.class)
+                .setParameter("empresa", empresaId)
+                .getResultList())), Set::size);
+    }
+
+    /**
+     * Borra un departamento junto con sus empleados con dos sentencias DELETE, sin cargarlos.
+     * @param id Identificador del departamento a borrar.
+     */
+    @Override
+    public void borrar(Integer id) {
+        medir("borrar", 1, () -> enTransaccion(session -> borrarEnCascada(session, List.of(id))));
+    }
+
+    /**
+     * Borra varios departamentos junto con sus empleados, con dos sentencias DELETE por bloque.
+     * @param ids Identificadores de los departamentos a borrar.
+     */
+    @Override
+    public void borrarTodos(Collection<Integer> ids) {
+        medir("borrarTodos", ids.size(), () -> enTransaccion(session -> {
+            List<Integer> pendientes = new ArrayList<>(ids);
+            for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_LOTE) {
+                borrarEnCascada(session, pendientes.subList(inicio, Math.min(inicio + TAMANO_LOTE, pendientes.size())));
+            }
+        }));
+    }
+
+    /**
+     * Borra unos departamentos y sus empleados con sentencias sobre conjuntos.
+     * <p>
+     * Con session.remove, la cascada de {@code Departamento.empleados} cargaría cada empleado y lo
+     * borraría con su propio DELETE. Aquí se borran con un DELETE por tabla; no se confía en el
+     * ON DELETE CASCADE de las migraciones porque el esquema generado por Hibernate no lo tiene.
+     * Hibernate vacía las regiones de caché de las tablas afectadas, los contadores de las empresas
+     * se corrigen con {@link OyenteContadores} y el índice de búsqueda con {@link CambiosMasivos}.
+     * @param session Sesión de la operación.
+     * @param ids     Identificadores de los departamentos a borrar.
+     */
+    private void borrarEnCascada(Session session, List<Integer> ids) {
+        session.flush(); // Los cambios pendientes de la sesión deben contarse y no escribirse después
+        List<Object[]> filas = session.createSelectionQuery(
+                        "select d.id, d.empresa.id, count(e) from Departamento d left join d.empleados e "
+                                + "where d.id in :ids group by d.id, d.empresa.id", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        if (filas.isEmpty()) {
+            return;
+        }
+        Set<Integer> departamentos = new HashSet<>();
+        Set<Integer> empresas = new HashSet<>();
+        for (Object[] fila : filas) {
+            departamentos.add((Integer) fila[0]);
+            empresas.add((Integer) fila[1]);
+        }
+        // Las empresas cargadas tienen los contadores y la lista de departamentos obsoletos
+        separar(session, entidad -> entidad instanceof Empleado empleado && departamentos.contains(empleado.getDepartamentoIdGuardado())
+                || entidad instanceof Departamento departamento && departamentos.contains(departamento.getId())
+                || entidad instanceof Empresa empresa && empresas.contains(empresa.getId()));
+
+        session.createMutationQuery("delete from Empleado e where e.departamento.id in :ids")
+                .setParameter("ids", departamentos)
+                .executeUpdate();
+        session.createMutationQuery("delete from Departamento d where d.id in :ids")
+                .setParameter("ids", departamentos)
+                .executeUpdate();
+
+        for (Object[] fila : filas) {
+            OyenteContadores.anotarBajaDepartamento(session, (Integer) fila[0], (Integer) fila[1], ((Long) fila[2]).intValue());
+        }
+        CambiosMasivos.borradas(session, Departamento.class, departamentos);
+    }
+}
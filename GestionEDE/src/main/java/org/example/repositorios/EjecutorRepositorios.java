@@ -0,0 +1,125 @@
+package org.example.repositorios;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.configuracion.ContextoInquilino;
+import org.example.configuracion.Replica;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta operaciones de los repositorios en hilos virtuales, limitando cuántas se ejecutan a la vez.
+ * <p>
+ * Cada operación ocupa un permiso mientras usa su sesión, y el número de permisos coincide con el
+ * tamaño del pool de conexiones, así que miles de operaciones pendientes esperan un permiso en su
+ * hilo virtual (sin coste de un hilo del sistema) en lugar de agotar el pool y fallar por el tiempo
+ * de espera de conexión. Se comparte entre todos los {@link AsyncRepository} de la misma fábrica de sesiones.
+ */
+public class EjecutorRepositorios implements AutoCloseable {
+
+    /**
+     * Ejecutor que crea un hilo virtual por operación.
+     */
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Permisos de ejecución, uno por conexión disponible.
+     */
+    private final Semaphore permisos;
+
+    /**
+     * Número máximo de operaciones simultáneas.
+     */
+    private final int maximoConcurrentes;
+
+    /**
+     * Constructor que limita las operaciones simultáneas al tamaño máximo del pool de conexiones
+     * de la fábrica de sesiones.
+     *
+     * @param sessionFactory Fábrica de sesiones configurada con {@code ProveedorConexiones}.
+     */
+    public EjecutorRepositorios(SessionFactory sessionFactory) {
+        this(tamanoPool(sessionFactory));
+    }
+
+    /**
+     * Constructor con un número máximo de operaciones simultáneas explícito.
+     *
+     * @param maximoConcurrentes Número máximo de operaciones simultáneas.
+     */
+    public EjecutorRepositorios(int maximoConcurrentes) {
+        if (maximoConcurrentes < 1) {
+            throw new IllegalArgumentException("El número máximo de operaciones simultáneas debe ser al menos 1");
+        }
+        this.maximoConcurrentes = maximoConcurrentes;
+        this.permisos = new Semaphore(maximoConcurrentes, true); // Equitativo: se atiende por orden de llegada
+    }
+
+    /**
+     * Obtiene el tamaño máximo del pool de conexiones de una fábrica de sesiones.
+     *
+     * @param sessionFactory Fábrica de sesiones.
+     * @return Número máximo de conexiones del pool.
+     */
+    private static int tamanoPool(SessionFactory sessionFactory) {
+        ConnectionProvider proveedor = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(ConnectionProvider.class);
+        if (proveedor == null || !proveedor.isUnwrappableAs(HikariDataSource.class)) {
+            throw new IllegalStateException("La fábrica de sesiones no usa un pool HikariCP; indique el máximo de operaciones simultáneas");
+        }
+        return proveedor.unwrap(HikariDataSource.class).getMaximumPoolSize();
+    }
+
+    /**
+     * Ejecuta una operación en un hilo virtual en cuanto haya un permiso libre, con la empresa activa y
+     * el destino de las conexiones (réplica o principal) que tenía el hilo que la lanza.
+     *
+     * @param operacion Operación de repositorio.
+     * @param <R>       Tipo del resultado.
+     * @return Futuro con el resultado, o completado con la excepción de la operación.
+     */
+    public <R> CompletableFuture<R> ejecutar(Supplier<R> operacion) {
+        Integer empresa = ContextoInquilino.actual(); // Los ThreadLocal no pasan al hilo virtual
+        Supplier<R> conDestino = Replica.conDestinoActual(operacion);
+        return CompletableFuture.supplyAsync(() -> {
+            permisos.acquireUninterruptibly();
+            try {
+                return ContextoInquilino.conEmpresa(empresa, conDestino);
+            } finally {
+                permisos.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Obtiene el número máximo de operaciones simultáneas.
+     *
+     * @return Número de permisos.
+     */
+    public int getMaximoConcurrentes() {
+        return maximoConcurrentes;
+    }
+
+    /**
+     * Obtiene el número de operaciones que esperan un permiso.
+     *
+     * @return Operaciones en espera (estimación).
+     */
+    public int getEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    /**
+     * Deja de aceptar operaciones y espera a que terminen las pendientes.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
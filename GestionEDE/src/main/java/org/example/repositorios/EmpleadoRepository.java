@@ -1,13 +1,42 @@
 package org.example.repositorios;
 
+import jakarta.persistence.LockModeType;
+import org.example.configuracion.ContextoInquilino;
+import org.example.configuracion.Replica;
+import org.example.contadores.OyenteContadores;
+import org.example.entidades.Departamento;
 import org.example.entidades.Empleado;
+import org.example.importacion.FormatoCsv;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.query.Query;
+import org.hibernate.query.SelectionQuery;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Repositorio específico para gestionar las operaciones CRUD de la entidad Empleado.
  */
 public class EmpleadoRepository extends BaseRepository<Empleado, String> {
 
+    /**
+     * Número de filas que el servidor envía en cada viaje cuando se recorren empleados con un cursor.
+     * Requiere useCursorFetch=true en la URL de MySQL para que el cursor sea del lado del servidor.
+     * También es el intervalo con el que se limpia la sesión durante el recorrido.
+     */
+    private static final int TAMANO_FETCH = 1000;
+
     /**
      * Constructor que inicializa el repositorio con la fábrica de sesiones de Hibernate.
      * @param sessionFactory Fábrica de sesiones utilizada para las operaciones de base de datos.
@@ -15,4 +44,202 @@ public class EmpleadoRepository extends BaseRepository<Empleado, String> {
     public EmpleadoRepository(SessionFactory sessionFactory) {
         super(Empleado.class, sessionFactory);
     }
+
+    /**
+     * Recorre los empleados con un cursor de solo avance, entregándolos uno a uno sin
+     * construir ninguna lista intermedia. La sesión se limpia periódicamente, por lo que
+     * la memoria usada es constante aunque haya millones de empleados. Si hay una réplica, se lee de ella.
+     * @param departamentoId Departamento cuyos empleados se recorren, o null para recorrer todos.
+     * @param consumidor     Acción que se ejecuta para cada empleado.
+     * @return Número de empleados recorridos.
+     */
+    public long recorrer(Integer departamentoId, Consumer<Empleado> consumidor) {
+        return medir("recorrer", () -> Replica.soloLectura(() -> recorrerSinMedir(departamentoId, consumidor)), recorridos -> recorridos);
+    }
+
+    /**
+     * Recorre los empleados con un cursor de solo avance (ver {@link #recorrer}).
+     * @param departamentoId Departamento cuyos empleados se recorren, o null para recorrer todos.
+     * @param consumidor     Acción que se ejecuta para cada empleado.
+     * @return Número de empleados recorridos.
+     */
+    private long recorrerSinMedir(Integer departamentoId, Consumer<Empleado> consumidor) {
+        try (Session session = ContextoInquilino.aplicar(getSessionFactory().openSession())) {
+            session.setDefaultReadOnly(true); // Sin instantáneas para la comprobación de cambios
+            session.setCacheMode(CacheMode.GET); // Leer de la caché de segundo nivel sin llenarla de empleados
+            session.beginTransaction();
+
+            Query<Empleado> query = session.createQuery(departamentoId == null
+                            ? "FROM Empleado e"
+                            : "FROM Empleado e WHERE e.departamento.id = :id", Empleado.class)
+                    .setFetchSize(TAMANO_FETCH);
+            if (departamentoId != null) {
+                query.setParameter("id", departamentoId);
+            }
+
+            long recorridos = 0;
+            try (ScrollableResults<Empleado> cursor = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (cursor.next()) {
+                    consumidor.accept(cursor.get());
+                    if (++recorridos % TAMANO_FETCH == 0) {
+                        session.clear(); // Liberar los empleados ya entregados
+                    }
+                }
+            }
+
+            session.getTransaction().commit();
+            return recorridos;
+        }
+    }
+
+    /**
+     * Exporta empleados en formato CSV (el mismo que admite el importador) directamente
+     * sobre el destino indicado, sin cargarlos antes en memoria.
+     * @param departamentoId Departamento cuyos empleados se exportan, o null para exportar todos.
+     * @param destino        Destino de la exportación (fichero, salida estándar...). No se cierra.
+     * @return Número de empleados exportados.
+     * @throws IOException Si falla la escritura en el destino.
+     */
+    public long exportar(Integer departamentoId, Writer destino) throws IOException {
+        destino.write("dni,nombre,apellido,puesto,departamento_id\n");
+        try {
+            long exportados = recorrer(departamentoId, empleado -> {
+                try {
+                    destino.write(FormatoCsv.unir(empleado.getDni(), empleado.getNombre(), empleado.getApellido(),
+                            empleado.getPuesto(), empleado.getDepartamento().getId()));
+                    destino.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            destino.flush();
+            return exportados;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Mueve a otro departamento, con un único UPDATE, todos los empleados de un departamento, de un puesto
+     * o de ambos, sin cargarlos. Los contadores de los departamentos y empresas afectados, la caché y el
+     * índice de búsqueda se corrigen en la misma transacción o al confirmarla.
+     * @param departamentoOrigen  Departamento de los empleados a mover, o null para cualquiera.
+     * @param puesto              Puesto de los empleados a mover, o null para cualquiera.
+     * @param departamentoDestino Departamento al que se mueven.
+     * @return Número de empleados movidos.
+     * @throws IllegalArgumentException       Si no se indica ni el departamento de origen ni el puesto, o si
+     *                                        no existe el departamento de destino.
+     * @throws ConflictoConcurrenciaException Si otro usuario modifica a la vez alguno de los empleados.
+     */
+    public int moverEmpleados(Integer departamentoOrigen, String puesto, int departamentoDestino) {
+        if (departamentoOrigen == null && puesto == null) {
+            throw new IllegalArgumentException("Indique el departamento de origen o el puesto de los empleados a mover");
+        }
+        String filtro = " where e.departamento <> :destino"
+                + (departamentoOrigen != null ? " and e.departamento.id = :origen" : "")
+                + (puesto != null ? " and e.puesto = :puesto" : "");
+        return medir("moverEmpleados", () -> {
+            AtomicInteger movidos = new AtomicInteger();
+            enTransaccion(session -> {
+                Departamento destino = session.get(Departamento.class, departamentoDestino);
+                if (destino == null || !ContextoInquilino.visible(destino)) {
+                    throw new IllegalArgumentException("No existe el departamento " + departamentoDestino);
+                }
+                Map<String, Object> parametros = new HashMap<>();
+                parametros.put("destino", destino);
+                if (departamentoOrigen != null) {
+                    parametros.put("origen", departamentoOrigen);
+                }
+                if (puesto != null) {
+                    parametros.put("puesto", puesto);
+                }
+                movidos.set(actualizarEnBloque(session, "e.departamento = :destino", Map.of(), filtro, parametros, departamentoDestino));
+            });
+            return movidos.get();
+        }, movidos -> movidos);
+    }
+
+    /**
+     * Cambia el puesto de todos los empleados de una empresa que lo tienen, con un único UPDATE y sin cargarlos.
+     * @param empresaId   Empresa de los empleados.
+     * @param puesto      Puesto actual.
+     * @param nuevoPuesto Nuevo puesto.
+     * @return Número de empleados modificados.
+     * @throws ConflictoConcurrenciaException Si otro usuario modifica a la vez alguno de los empleados.
+     */
+    public int renombrarPuesto(int empresaId, String puesto, String nuevoPuesto) {
+        String filtro = " where e.puesto = :puesto"
+                + " and e.departamento.id in (select d.id from Departamento d where d.empresa.id = :empresa)";
+        return medir("renombrarPuesto", () -> {
+            AtomicInteger renombrados = new AtomicInteger();
+            enTransaccion(session -> renombrados.set(actualizarEnBloque(session, "e.puesto = :nuevoPuesto",
+                    Map.of("nuevoPuesto", nuevoPuesto), filtro, Map.of("puesto", puesto, "empresa", empresaId), null)));
+            return renombrados.get();
+        }, renombrados -> renombrados);
+    }
+
+    /**
+     * Modifica con un único {@code UPDATE versioned} los empleados que cumplen un filtro.
+     * <p>
+     * Antes se bloquean los afectados ({@code SELECT ... FOR UPDATE}, recorridos sin guardarlos), de modo
+     * que otra transacción no puede cambiarlos ni sacarlos del filtro hasta confirmar esta, y se cuentan por
+     * departamento con una consulta agrupada para corregir los contadores. Si aun así el UPDATE no modifica
+     * ese número de empleados es que otra transacción ha añadido alguno al filtro, y se lanza un conflicto
+     * para deshacerlo en lugar de dejar los contadores descuadrados. Hibernate vacía la región de caché de los
+     * empleados y la de las listas de empleados de los departamentos; los empleados de los departamentos
+     * afectados cargados en la sesión se separan de ella, y el índice de búsqueda vuelve a leer esos
+     * departamentos tras confirmar.
+     * @param session             Sesión con una transacción en curso.
+     * @param asignaciones        Asignaciones del UPDATE sobre el alias "e".
+     * @param valores             Parámetros usados solo en las asignaciones.
+     * @param filtro              Cláusula WHERE sobre el alias "e".
+     * @param parametros          Parámetros del filtro, que también pueden usar las asignaciones.
+     * @param departamentoDestino Departamento al que pasan los empleados, o null si no cambian de departamento.
+     * @return Número de empleados modificados.
+     * @throws ConflictoConcurrenciaException Si otra transacción ha añadido a la vez empleados que cumplen el filtro.
+     */
+    private int actualizarEnBloque(Session session, String asignaciones, Map<String, ?> valores, String filtro,
+                                   Map<String, ?> parametros, Integer departamentoDestino) {
+        session.flush(); // Los cambios pendientes de la sesión no deben escribirse después
+        SelectionQuery<String> bloqueo = session.createSelectionQuery("select e.dni from Empleado e" + filtro, String.class)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setFetchSize(TAMANO_FETCH);
+        parametros.forEach(bloqueo::setParameter);
+        try (ScrollableResults<String> cursor = bloqueo.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (cursor.next()) {
+                // Solo se bloquean las filas; los DNI no se guardan
+            }
+        }
+
+        SelectionQuery<Object[]> recuento = session.createSelectionQuery(
+                "select e.departamento.id, count(e) from Empleado e" + filtro + " group by e.departamento.id", Object[].class);
+        parametros.forEach(recuento::setParameter);
+        Map<Integer, Integer> porDepartamento = new HashMap<>();
+        int afectados = 0;
+        for (Object[] fila : recuento.getResultList()) {
+            int empleados = ((Long) fila[1]).intValue();
+            porDepartamento.put((Integer) fila[0], empleados);
+            afectados += empleados;
+        }
+        if (afectados == 0) {
+            return 0;
+        }
+        separar(session, entidad -> entidad instanceof Empleado empleado
+                && porDepartamento.containsKey(empleado.getDepartamento().getId())); // El proxy da su identificador sin cargarse
+
+        MutationQuery actualizacion = session.createMutationQuery("update versioned Empleado e set " + asignaciones + filtro);
+        parametros.forEach(actualizacion::setParameter);
+        valores.forEach(actualizacion::setParameter);
+        int filas = actualizacion.executeUpdate();
+        if (filas != afectados) {
+            throw new ConflictoConcurrenciaException("Empleado", null, null);
+        }
+        if (departamentoDestino != null) {
+            porDepartamento.forEach((origen, empleados) -> OyenteContadores.anotarEmpleados(session, origen, -empleados));
+            OyenteContadores.anotarEmpleados(session, departamentoDestino, filas);
+        }
+        CambiosMasivos.actualizadasEnDepartamentos(session, Empleado.class,
+                departamentoDestino != null ? Set.of(departamentoDestino) : porDepartamento.keySet());
+        return filas;
+    }
 }
@@ -1,8 +1,18 @@
 package org.example.repositorios;
 
+import org.example.configuracion.ContextoInquilino;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
 import org.example.entidades.Empresa;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Repositorio específico para gestionar las operaciones CRUD de la entidad Empresa.
  */
@@ -15,6 +25,75 @@ public class EmpresaRepository extends BaseRepository<Empresa, Integer> {
     public EmpresaRepository(SessionFactory sessionFactory) {
         super(Empresa.class, sessionFactory);
     }
-}
 
+    /**
+     * Borra una empresa junto con sus departamentos y empleados con tres sentencias DELETE, sin cargarlos.
+     * @param id Identificador de la empresa a borrar.
+     */
+    @Override
+    public void borrar(Integer id) {
+        medir("borrar", 1, () -> enTransaccion(session -> borrarEnCascada(session, List.of(id))));
+    }
 
+    /**
+     * Borra varias empresas junto con sus departamentos y empleados, con tres sentencias DELETE por bloque.
+     * @param ids Identificadores de las empresas a borrar.
+     */
+    @Override
+    public void borrarTodos(Collection<Integer> ids) {
+        medir("borrarTodos", ids.size(), () -> enTransaccion(session -> {
+            List<Integer> pendientes = new ArrayList<>(ids);
+            for (int inicio = 0; inicio < pendientes.size(); inicio += TAMANO_LOTE) {
+                borrarEnCascada(session, pendientes.subList(inicio, Math.min(inicio + TAMANO_LOTE, pendientes.size())));
+            }
+        }));
+    }
+
+    /**
+     * Borra unas empresas, sus departamentos y sus empleados con sentencias sobre conjuntos.
+     * <p>
+     * Con session.remove, la cascada de {@code Empresa.departamentos} y {@code Departamento.empleados}
+     * cargaría todos los departamentos y empleados y los borraría uno a uno. Aquí se borran con un
+     * DELETE por tabla, de los hijos a la empresa; no se confía en el ON DELETE CASCADE de las
+     * migraciones porque el esquema generado por Hibernate no lo tiene. Hibernate vacía las regiones
+     * de caché de las tablas afectadas y el índice de búsqueda se corrige con {@link CambiosMasivos}.
+     * Las empresas borradas no tienen contadores que corregir. Con una empresa activa
+     * ({@link ContextoInquilino}) solo se borra esa, si está entre las indicadas.
+     * @param session Sesión de la operación.
+     * @param ids     Identificadores de las empresas a borrar.
+     */
+    private void borrarEnCascada(Session session, List<Integer> ids) {
+        session.flush(); // Los cambios pendientes de la sesión no deben escribirse después
+        if (ContextoInquilino.actual() != null) {
+            ids = session.createSelectionQuery("select e.id from Empresa e where e.id in :ids", Integer.class)
+                    .setParameter("ids", ids)
+                    .getResultList(); // El filtro de la sesión deja solo la empresa activa
+            if (ids.isEmpty()) {
+                return;
+            }
+        }
+        Set<Integer> empresas = new HashSet<>(ids);
+        Set<Integer> departamentos = new HashSet<>(session.createSelectionQuery(
+                        "select d.id from Departamento d where d.empresa.id in :ids", Integer.class)
+                .setParameter("ids", ids)
+                .getResultList());
+        separar(session, entidad -> entidad instanceof Empleado empleado && departamentos.contains(empleado.getDepartamentoIdGuardado())
+                || entidad instanceof Departamento departamento && departamentos.contains(departamento.getId())
+                || entidad instanceof Empresa empresa && empresas.contains(empresa.getId()));
+
+        if (!departamentos.isEmpty()) {
+            session.createMutationQuery("delete from Empleado e where e.departamento.id in :ids")
+                    .setParameter("ids", departamentos)
+                    .executeUpdate();
+            session.createMutationQuery("delete from Departamento d where d.empresa.id in :ids")
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        session.createMutationQuery("delete from Empresa e where e.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+
+        CambiosMasivos.borradas(session, Departamento.class, departamentos);
+        CambiosMasivos.borradas(session, Empresa.class, ids);
+    }
+}
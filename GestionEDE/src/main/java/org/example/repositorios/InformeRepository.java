@@ -0,0 +1,141 @@
+package org.example.repositorios;
+
+import org.example.configuracion.ContextoInquilino;
+import org.example.configuracion.Replica;
+import org.example.informes.DepartamentoResumen;
+import org.example.informes.EmpleadoResumen;
+import org.example.metricas.MetricasOperacion;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.List;
+
+/**
+ * Repositorio de solo lectura para los informes de los menús.
+ * Cada página de un informe se obtiene con una única consulta HQL que construye directamente
+ * los registros de resultado (expresión SELECT NEW), sin cargar entidades en el contexto de
+ * persistencia ni comprobar cambios sobre ellas. Las páginas continúan tras la clave de la
+ * última fila de la página anterior. Si hay una réplica, los informes se leen de ella (ver {@link Replica}).
+ */
+public class InformeRepository {
+
+    /**
+     * Métricas del informe de departamentos de una empresa.
+     */
+    private static final MetricasOperacion METRICAS_DEPARTAMENTOS = MetricasOperacion.de("InformeRepository.departamentosConEmpleados");
+
+    /**
+     * Métricas del informe de empleados de un departamento.
+     */
+    private static final MetricasOperacion METRICAS_EMPLEADOS = MetricasOperacion.de("InformeRepository.empleadosDeDepartamento");
+
+    /**
+     * Fábrica de sesiones de Hibernate utilizada para las consultas.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Constructor que inicializa el repositorio con la fábrica de sesiones de Hibernate.
+     * @param sessionFactory Fábrica de sesiones utilizada para las consultas.
+     */
+    public InformeRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Obtiene una página de los departamentos de una empresa con el número de empleados de cada uno.
+     * El número se lee del contador del departamento, sin contar los empleados en la consulta.
+     * @param empresaId Identificador de la empresa.
+     * @param despuesDe Identificador del último departamento de la página anterior (0 para la primera).
+     * @param tamano    Número máximo de filas.
+     * @return Departamentos ordenados por identificador.
+     */
+    public List<DepartamentoResumen> departamentosConEmpleados(int empresaId, int despuesDe, int tamano) {
+        return METRICAS_DEPARTAMENTOS.medir(() -> Replica.soloLectura(() -> consultarDepartamentos(empresaId, despuesDe, tamano)), List::size);
+    }
+
+    /**
+     * Consulta una página del informe de departamentos (ver {@link #departamentosConEmpleados}).
+     * @param empresaId Identificador de la empresa.
+     * @param despuesDe Identificador del último departamento de la página anterior (0 para la primera).
+     * @param tamano    Número máximo de filas.
+     * @return Departamentos ordenados por identificador.
+     */
+    private List<DepartamentoResumen> consultarDepartamentos(int empresaId, int despuesDe, int tamano) {
+        try (Session session = abrirSesion()) {
+            return session.createQuery(
+                            "SELECT NEW org.example.informes.DepartamentoResumen(d.id, d.nombre, CAST(d.numEmpleados AS Long), d.empresa.nombre) " +
+                                    "FROM Departamento d " +
+                                    "WHERE d.empresa.id = :empresaId AND d.id > :despuesDe " +
+                                    "ORDER BY d.id", DepartamentoResumen.class)
+                    .setParameter("empresaId", empresaId)
+                    .setParameter("despuesDe", despuesDe)
+                    .setMaxResults(tamano)
+                    .setCacheable(true) // Resultado reutilizable desde la caché de consultas
+                    .getResultList();
+        }
+    }
+
+    /**
+     * Obtiene una página de los empleados de un departamento en orden alfabético. El orden coincide con
+     * el del índice (departamento_id, apellido, nombre), que lleva el DNI al final, así que cada página
+     * se lee como un rango del índice sin ordenar filas.
+     * @param departamentoId Identificador del departamento.
+     * @param despuesDe      Último empleado de la página anterior (null para la primera).
+     * @param tamano         Número máximo de filas.
+     * @return Empleados ordenados por apellido, nombre y DNI.
+     */
+    public List<EmpleadoResumen> empleadosDeDepartamento(int departamentoId, EmpleadoResumen despuesDe, int tamano) {
+        return METRICAS_EMPLEADOS.medir(() -> Replica.soloLectura(() -> consultarEmpleados(departamentoId, despuesDe, tamano)), List::size);
+    }
+
+    /**
+     * Consulta una página del informe de empleados (ver {@link #empleadosDeDepartamento}).
+     * @param departamentoId Identificador del departamento.
+     * @param despuesDe      Último empleado de la página anterior (null para la primera).
+     * @param tamano         Número máximo de filas.
+     * @return Empleados ordenados por apellido, nombre y DNI.
+     */
+    private List<EmpleadoResumen> consultarEmpleados(int departamentoId, EmpleadoResumen despuesDe, int tamano) {
+        try (Session session = abrirSesion()) {
+            if (despuesDe == null) {
+                return session.createQuery(
+                                "SELECT NEW org.example.informes.EmpleadoResumen(e.dni, e.nombre, e.apellido, e.puesto, e.departamento.nombre) " +
+                                        "FROM Empleado e " +
+                                        "WHERE e.departamento.id = :departamentoId " +
+                                        "ORDER BY e.apellido, e.nombre, e.dni", EmpleadoResumen.class)
+                        .setParameter("departamentoId", departamentoId)
+                        .setMaxResults(tamano)
+                        .getResultList();
+            }
+            return session.createQuery(
+                            "SELECT NEW org.example.informes.EmpleadoResumen(e.dni, e.nombre, e.apellido, e.puesto, e.departamento.nombre) " +
+                                    "FROM Empleado e " +
+                                    "WHERE e.departamento.id = :departamentoId " +
+                                    "AND (e.apellido > :apellido " +
+                                    "OR (e.apellido = :apellido AND (e.nombre > :nombre " +
+                                    "OR (e.nombre = :nombre AND e.dni > :dni)))) " +
+                                    "ORDER BY e.apellido, e.nombre, e.dni", EmpleadoResumen.class)
+                    .setParameter("departamentoId", departamentoId)
+                    .setParameter("apellido", despuesDe.apellido())
+                    .setParameter("nombre", despuesDe.nombre())
+                    .setParameter("dni", despuesDe.dni())
+                    .setMaxResults(tamano)
+                    .getResultList();
+        }
+    }
+
+    /**
+     * Abre una sesión para una página de un informe. Si lee de la réplica, no guarda los resultados en
+     * la caché de consultas, porque pueden ir atrasados.
+     * @return Sesión nueva.
+     */
+    private Session abrirSesion() {
+        Session session = ContextoInquilino.aplicar(sessionFactory.openSession());
+        if (Replica.enReplica()) {
+            session.setCacheMode(CacheMode.GET);
+        }
+        return session;
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.repositorios;
+
+import java.util.List;
+
+/**
+ * Página de resultados devuelta por {@link BaseRepository#listar(PageRequest)}.
+ *
+ * @param contenido Entidades de la página, en el orden solicitado.
+ * @param siguiente Cursor para pedir la página siguiente, o null si no hay más resultados.
+ * @param <T>       Tipo de entidad.
+ */
+public record Page<T>(List<T> contenido, Cursor siguiente) {
+
+    /**
+     * Posición en el listado a partir de la cual continúa la página siguiente: valores de la
+     * columna de ordenación y de la clave primaria de la última fila devuelta.
+     *
+     * @param valorOrden Valor de la columna de ordenación en la última fila.
+     * @param id         Clave primaria de la última fila.
+     */
+    public record Cursor(Object valorOrden, Object id) {}
+
+    /**
+     * Indica si hay más resultados después de esta página.
+     *
+     * @return true si existe una página siguiente.
+     */
+    public boolean hayMas() {
+        return siguiente != null;
+    }
+}
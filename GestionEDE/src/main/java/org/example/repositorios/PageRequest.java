@@ -0,0 +1,92 @@
+package org.example.repositorios;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Petición de una página para {@link BaseRepository#listar(PageRequest)}.
+ * <p>
+ * La paginación es por clave ("seek"): en lugar de saltar filas con OFFSET, cada página empieza
+ * justo después del {@link Page.Cursor} de la anterior, por lo que el coste de una página no
+ * depende de lo profunda que esté. La clave primaria siempre se añade como último criterio de
+ * orden para que el orden sea estable aunque la columna de ordenación tenga valores repetidos.
+ *
+ * @param tamano      Número máximo de entidades por página (entre 1 y {@link #TAMANO_MAXIMO}).
+ * @param filtros     Condiciones de igualdad por atributo; admite rutas como "departamento.id".
+ * @param ordenarPor  Atributo por el que se ordena, o null para ordenar por la clave primaria.
+ * @param descendente Si es true, el orden es descendente.
+ * @param despuesDe   Cursor de la página anterior, o null para pedir la primera página.
+ * @param grafo       Grafo de entidad con las asociaciones a cargar, o null para no cargar ninguna.
+ */
+public record PageRequest(int tamano, Map<String, Object> filtros, String ordenarPor,
+                          boolean descendente, Page.Cursor despuesDe, String grafo) {
+
+    /**
+     * Tamaño máximo permitido para una página.
+     */
+    public static final int TAMANO_MAXIMO = 1000;
+
+    /**
+     * Constructor que valida el tamaño y copia los filtros.
+     */
+    public PageRequest {
+        if (tamano < 1 || tamano > TAMANO_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + TAMANO_MAXIMO);
+        }
+        filtros = Map.copyOf(filtros);
+    }
+
+    /**
+     * Crea la petición de la primera página, ordenada por clave primaria y sin filtros.
+     *
+     * @param tamano Número máximo de entidades por página.
+     * @return Petición de página.
+     */
+    public static PageRequest primera(int tamano) {
+        return new PageRequest(tamano, Map.of(), null, false, null, null);
+    }
+
+    /**
+     * Devuelve una copia de la petición con un filtro de igualdad adicional.
+     *
+     * @param atributo Atributo o ruta de atributos (por ejemplo "departamento.id").
+     * @param valor    Valor que debe tener.
+     * @return Nueva petición.
+     */
+    public PageRequest filtrando(String atributo, Object valor) {
+        Map<String, Object> nuevos = new LinkedHashMap<>(filtros);
+        nuevos.put(atributo, valor);
+        return new PageRequest(tamano, nuevos, ordenarPor, descendente, despuesDe, grafo);
+    }
+
+    /**
+     * Devuelve una copia de la petición ordenada por otro atributo.
+     *
+     * @param atributo    Atributo por el que ordenar.
+     * @param descendente Si es true, el orden es descendente.
+     * @return Nueva petición.
+     */
+    public PageRequest ordenando(String atributo, boolean descendente) {
+        return new PageRequest(tamano, filtros, atributo, descendente, despuesDe, grafo);
+    }
+
+    /**
+     * Devuelve la petición de la página que sigue a la indicada.
+     *
+     * @param pagina Página actual.
+     * @return Nueva petición, con el cursor de la página actual.
+     */
+    public PageRequest siguiente(Page<?> pagina) {
+        return new PageRequest(tamano, filtros, ordenarPor, descendente, pagina.siguiente(), grafo);
+    }
+
+    /**
+     * Devuelve una copia de la petición que carga las asociaciones del grafo de entidad indicado.
+     *
+     * @param grafo Nombre del grafo de entidad.
+     * @return Nueva petición.
+     */
+    public PageRequest conGrafo(String grafo) {
+        return new PageRequest(tamano, filtros, ordenarPor, descendente, despuesDe, grafo);
+    }
+}
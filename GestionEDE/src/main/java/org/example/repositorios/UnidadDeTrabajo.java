@@ -0,0 +1,147 @@
+package org.example.repositorios;
+
+import org.example.configuracion.ContextoInquilino;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Unidad de trabajo: agrupa varias llamadas a los repositorios en una única sesión y transacción.
+ * <p>
+ * Mientras se ejecuta el trabajo, la sesión queda asociada al hilo actual y los métodos de
+ * {@link BaseRepository} la reutilizan en lugar de abrir la suya, de modo que comparten la caché
+ * de primer nivel (una entidad leída no se vuelve a consultar) y una sola conexión, y sus cambios
+ * se confirman o se deshacen juntos. Si el trabajo lanza una excepción, la transacción se deshace.
+ * Una unidad de trabajo iniciada dentro de otra se une a la exterior. Los conflictos de versión, también
+ * los detectados al confirmar, se lanzan como {@link ConflictoConcurrenciaException}, y
+ * {@link #reintentar} repite el trabajo completo cuando se producen.
+ *
+ * <pre>{@code
+ * unidadDeTrabajo.ejecutar(() -> {
+ *     if (empleadoRepository.leer(dni).isPresent()) {
+ *         empleadoRepository.borrar(dni);
+ *     }
+ * });
+ * }</pre>
+ */
+public class UnidadDeTrabajo {
+
+    /**
+     * Sesión de la unidad de trabajo en curso en cada hilo.
+     */
+    private static final ThreadLocal<Session> SESION_ACTUAL = new ThreadLocal<>();
+
+    /**
+     * Espera máxima en milisegundos antes del primer reintento; se duplica en cada uno.
+     */
+    private static final long ESPERA_REINTENTO_MS = 10;
+
+    /**
+     * Fábrica de sesiones de Hibernate con la que se abren las sesiones.
+     */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Constructor que inicializa la unidad de trabajo con la fábrica de sesiones.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     */
+    public UnidadDeTrabajo(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Ejecuta un trabajo en una única sesión y transacción y devuelve su resultado.
+     *
+     * @param trabajo Llamadas a los repositorios que forman la unidad.
+     * @param <R>     Tipo del resultado.
+     * @return Resultado del trabajo.
+     */
+    public <R> R ejecutar(Supplier<R> trabajo) {
+        Session actual = SESION_ACTUAL.get();
+        if (actual != null && actual.getSessionFactory() == sessionFactory) {
+            return trabajo.get(); // Se une a la unidad de trabajo exterior
+        }
+
+        try (Session session = ContextoInquilino.aplicar(sessionFactory.openSession())) {
+            SESION_ACTUAL.set(session);
+            session.beginTransaction();
+            try {
+                R resultado = trabajo.get();
+                session.getTransaction().commit(); // Confirmar todos los cambios juntos.
+                return resultado;
+            } catch (RuntimeException e) {
+                if (session.getTransaction().isActive()) {
+                    session.getTransaction().rollback(); // Deshacer todos los cambios de la unidad.
+                }
+                ConflictoConcurrenciaException conflicto = ConflictoConcurrenciaException.desde(e);
+                throw conflicto != null ? conflicto : e;
+            }
+        } finally {
+            if (actual == null) {
+                SESION_ACTUAL.remove();
+            } else {
+                SESION_ACTUAL.set(actual); // Restaurar la unidad de otra fábrica de sesiones
+            }
+        }
+    }
+
+    /**
+     * Ejecuta un trabajo sin resultado en una única sesión y transacción.
+     *
+     * @param trabajo Llamadas a los repositorios que forman la unidad.
+     */
+    public void ejecutar(Runnable trabajo) {
+        ejecutar(() -> {
+            trabajo.run();
+            return null;
+        });
+    }
+
+    /**
+     * Ejecuta un trabajo en una única sesión y transacción, repitiéndolo entero en una sesión nueva si
+     * termina en un conflicto de versión. El trabajo debe volver a leer lo que modifica, de modo que cada
+     * intento parte de los datos actuales; entre intentos se espera un tiempo aleatorio creciente para
+     * que los usuarios en conflicto no vuelvan a coincidir. Dentro de otra unidad de trabajo no se
+     * reintenta, porque el conflicto deshace también la unidad exterior.
+     *
+     * @param intentos Número máximo de intentos (al menos 1).
+     * @param trabajo  Llamadas a los repositorios que forman la unidad.
+     * @param <R>      Tipo del resultado.
+     * @return Resultado del primer intento sin conflicto.
+     * @throws ConflictoConcurrenciaException Si todos los intentos terminan en conflicto.
+     */
+    public <R> R reintentar(int intentos, Supplier<R> trabajo) {
+        if (sesionActual(sessionFactory) != null) {
+            return trabajo.get();
+        }
+        for (int intento = 1; ; intento++) {
+            try {
+                return ejecutar(trabajo);
+            } catch (ConflictoConcurrenciaException e) {
+                if (intento >= intentos) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, (ESPERA_REINTENTO_MS << (intento - 1)) + 1));
+                } catch (InterruptedException interrupcion) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene la sesión de la unidad de trabajo en curso en el hilo actual para la fábrica indicada.
+     *
+     * @param sessionFactory Fábrica de sesiones del repositorio que la solicita.
+     * @return Sesión compartida, o null si no hay una unidad de trabajo en curso.
+     */
+    static Session sesionActual(SessionFactory sessionFactory) {
+        Session session = SESION_ACTUAL.get();
+        return session != null && session.getSessionFactory() == sessionFactory ? session : null;
+    }
+}
@@ -0,0 +1,28 @@
+-- Esquema inicial de gestion_empresas (las tablas que crea PruebaDB_Empresa.sql, sin datos de ejemplo).
+-- Las bases de datos creadas antes con PruebaDB_Empresa.sql se marcan como versión 1 sin ejecutar
+-- este script (baselineOnMigrate en pom.xml).
+
+-- Crear la tabla de empresas
+CREATE TABLE Empresas (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    nombre VARCHAR(255) NOT NULL,
+    industria VARCHAR(255) NOT NULL
+);
+
+-- Crear la tabla de departamentos
+CREATE TABLE Departamentos (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    nombre VARCHAR(255) NOT NULL,
+    empresa_id INT NOT NULL,
+    FOREIGN KEY (empresa_id) REFERENCES Empresas(id) ON DELETE CASCADE
+);
+
+-- Crear la tabla de empleados
+CREATE TABLE Empleados (
+    dni VARCHAR(20) PRIMARY KEY,
+    nombre VARCHAR(255) NOT NULL,
+    apellido VARCHAR(255) NOT NULL,
+    puesto VARCHAR(255) NOT NULL,
+    departamento_id INT NOT NULL,
+    FOREIGN KEY (departamento_id) REFERENCES Departamentos(id) ON DELETE CASCADE
+);
@@ -0,0 +1,16 @@
+-- Contadores de empleados y departamentos, mantenidos por la aplicación (OyenteContadores).
+-- Se inicializan con los datos existentes; ReconciliacionContadores los vuelve a calcular si se desajustan.
+
+ALTER TABLE Departamentos
+    ADD COLUMN num_empleados INT NOT NULL DEFAULT 0;
+
+ALTER TABLE Empresas
+    ADD COLUMN num_departamentos INT NOT NULL DEFAULT 0,
+    ADD COLUMN num_empleados INT NOT NULL DEFAULT 0;
+
+UPDATE Departamentos d
+SET num_empleados = (SELECT COUNT(*) FROM Empleados e WHERE e.departamento_id = d.id);
+
+UPDATE Empresas em
+SET num_departamentos = (SELECT COUNT(*) FROM Departamentos d WHERE d.empresa_id = em.id),
+    num_empleados = (SELECT COALESCE(SUM(d.num_empleados), 0) FROM Departamentos d WHERE d.empresa_id = em.id);
@@ -0,0 +1,23 @@
+-- Índices para los accesos reales y longitudes de columna ajustadas a los datos.
+-- Si alguna fila existente supera las nuevas longitudes, la migración falla (modo estricto de MySQL)
+-- sin truncar datos; hay que corregir esas filas antes de volver a ejecutarla.
+
+-- Empleados de un departamento ordenados por apellido y nombre. El índice empieza por departamento_id,
+-- así que también sirve a la clave ajena y sustituye al índice que MySQL creó para ella.
+ALTER TABLE Empleados
+    MODIFY nombre VARCHAR(100) NOT NULL,
+    MODIFY apellido VARCHAR(100) NOT NULL,
+    MODIFY puesto VARCHAR(100) NOT NULL,
+    ADD INDEX idx_empleados_departamento_apellido_nombre (departamento_id, apellido, nombre);
+
+ALTER TABLE Empleados
+    DROP INDEX departamento_id;
+
+-- Departamentos de una empresa: se renombra el índice de la clave ajena con el nombre declarado en la entidad
+ALTER TABLE Departamentos
+    MODIFY nombre VARCHAR(100) NOT NULL,
+    RENAME INDEX empresa_id TO idx_departamentos_empresa;
+
+ALTER TABLE Empresas
+    MODIFY nombre VARCHAR(150) NOT NULL,
+    MODIFY industria VARCHAR(100) NOT NULL;
@@ -0,0 +1,11 @@
+-- Versión de cada fila para el control de concurrencia optimista (@Version en las entidades).
+-- Las filas existentes empiezan en la versión 0.
+
+ALTER TABLE Empresas
+    ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE Departamentos
+    ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE Empleados
+    ADD COLUMN version INT NOT NULL DEFAULT 0;
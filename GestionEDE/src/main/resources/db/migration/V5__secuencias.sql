@@ -0,0 +1,21 @@
+-- Tablas que emulan en MySQL las secuencias de identificadores de Empresa y Departamento
+-- (@SequenceGenerator con allocationSize = 50). Las bases de datos marcadas como versión 1 sin ejecutar
+-- V1 no las tienen; las creadas con el PruebaDB_Empresa.sql actual sí, y se dejan como están.
+--
+-- Hibernate lee next_val, lo incrementa en 50 y usa el bloque que termina en el valor leído
+-- (next_val - 49 .. next_val), así que el valor inicial es MAX(id) + 50: el primer bloque empieza justo
+-- después del último identificador AUTO_INCREMENT existente.
+
+CREATE TABLE IF NOT EXISTS Empresas_seq (
+    next_val BIGINT
+);
+INSERT INTO Empresas_seq (next_val)
+SELECT m.siguiente FROM (SELECT COALESCE(MAX(id), 0) + 50 AS siguiente FROM Empresas) m
+WHERE NOT EXISTS (SELECT 1 FROM Empresas_seq);
+
+CREATE TABLE IF NOT EXISTS Departamentos_seq (
+    next_val BIGINT
+);
+INSERT INTO Departamentos_seq (next_val)
+SELECT m.siguiente FROM (SELECT COALESCE(MAX(id), 0) + 50 AS siguiente FROM Departamentos) m
+WHERE NOT EXISTS (SELECT 1 FROM Departamentos_seq);
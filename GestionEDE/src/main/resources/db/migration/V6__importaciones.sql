@@ -0,0 +1,8 @@
+-- Punto de control de las importaciones CSV (ImportadorCsv): la última línea confirmada de cada fichero.
+-- Se escribe en la misma transacción que el lote de filas, así que nunca queda por detrás de los datos
+-- y --reanudar no vuelve a insertar un lote ya confirmado. La fila se borra al terminar la importación.
+
+CREATE TABLE Importaciones (
+    fichero VARCHAR(500) PRIMARY KEY,
+    ultima_linea BIGINT NOT NULL
+);
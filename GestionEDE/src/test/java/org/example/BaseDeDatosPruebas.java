@@ -0,0 +1,65 @@
+package org.example;
+
+import org.example.configuracion.ConfiguracionHibernate;
+import org.hibernate.SessionFactory;
+
+import java.util.Properties;
+
+/**
+ * Base de datos H2 en memoria, en modo MySQL, para las pruebas.
+ * <p>
+ * Usa la misma configuración que la aplicación (hibernate.cfg.xml, pool, lotes, caché de segundo nivel
+ * y estadísticas), cambiando solo la conexión y el dialecto, y crea el esquema desde las entidades.
+ */
+public final class BaseDeDatosPruebas {
+
+    /**
+     * Constructor privado: clase de utilidad no instanciable.
+     */
+    private BaseDeDatosPruebas() {}
+
+    /**
+     * Crea una SessionFactory sobre una base de datos H2 en memoria vacía.
+     *
+     * @param nombre Nombre de la base de datos, distinto en cada clase de prueba.
+     * @return SessionFactory lista para usarse.
+     */
+    public static SessionFactory crearSessionFactory(String nombre) {
+        return crearSessionFactory(nombre, new Properties());
+    }
+
+    /**
+     * Crea una SessionFactory sobre una base de datos H2 en memoria vacía con propiedades adicionales.
+     *
+     * @param nombre         Nombre de la base de datos, distinto en cada clase de prueba.
+     * @param sobrescrituras Propiedades que sustituyen a las de la base de datos de pruebas.
+     * @return SessionFactory lista para usarse.
+     */
+    public static SessionFactory crearSessionFactory(String nombre, Properties sobrescrituras) {
+        Properties propiedades = new Properties();
+        propiedades.setProperty("jakarta.persistence.jdbc.url", url(nombre));
+        propiedades.setProperty("jakarta.persistence.jdbc.driver", "org.h2.Driver");
+        propiedades.setProperty("jakarta.persistence.jdbc.user", "sa");
+        propiedades.setProperty("jakarta.persistence.jdbc.password", "");
+        propiedades.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        propiedades.setProperty("jakarta.persistence.database-product-name", "H2");
+        propiedades.setProperty("jakarta.persistence.database-major-version", "2");
+        propiedades.setProperty("jakarta.persistence.database-minor-version", "2");
+        propiedades.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        propiedades.setProperty("hibernate.hikari.poolName", "Pruebas-" + nombre);
+        propiedades.setProperty("hibernate.hikari.minimumIdle", "1");
+        propiedades.setProperty("hibernate.hikari.registerMbeans", "false");
+        propiedades.putAll(sobrescrituras);
+        return ConfiguracionHibernate.crearSessionFactory(propiedades);
+    }
+
+    /**
+     * Construye la URL JDBC de una base de datos H2 en memoria de pruebas.
+     *
+     * @param nombre Nombre de la base de datos.
+     * @return URL JDBC en modo MySQL.
+     */
+    public static String url(String nombre) {
+        return "jdbc:h2:mem:" + nombre + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+}
@@ -0,0 +1,125 @@
+package org.example;
+
+import org.example.contadores.ReconciliacionContadores;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.example.repositorios.DepartamentoRepository;
+import org.example.repositorios.EmpleadoRepository;
+import org.example.repositorios.EmpresaRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Base de las pruebas que escriben en una base de datos de {@link BaseDeDatosPruebas}: cada clase de
+ * prueba la abre con {@link #abrir} desde su propio {@code @BeforeAll}, y esta clase la cierra al final,
+ * numera las pruebas para que sus datos no se repitan y comprueba tras cada prueba que los contadores
+ * de empleados y departamentos siguen cuadrando.
+ * <p>
+ * Los campos son estáticos, como los de {@code @BeforeAll}; JUnit ejecuta las clases de prueba una tras
+ * otra, así que pertenecen a la clase en curso.
+ */
+public abstract class PruebaConBaseDeDatos {
+
+    /**
+     * Fábrica de sesiones de la base de datos de pruebas.
+     */
+    protected static SessionFactory sessionFactory;
+
+    /**
+     * Repositorio de empresas.
+     */
+    protected static EmpresaRepository empresaRepository;
+
+    /**
+     * Repositorio de departamentos.
+     */
+    protected static DepartamentoRepository departamentoRepository;
+
+    /**
+     * Repositorio de empleados.
+     */
+    protected static EmpleadoRepository empleadoRepository;
+
+    /**
+     * Número de la prueba en curso, para que los DNI y los nombres no se repitan entre pruebas.
+     */
+    protected static int prueba;
+
+    /**
+     * Abre una base de datos de pruebas vacía y crea los repositorios sobre ella.
+     *
+     * @param nombre Nombre de la base de datos, distinto en cada clase de prueba.
+     */
+    protected static void abrir(String nombre) {
+        abrir(nombre, new Properties());
+    }
+
+    /**
+     * Abre una base de datos de pruebas vacía con propiedades adicionales y crea los repositorios sobre ella.
+     *
+     * @param nombre         Nombre de la base de datos, distinto en cada clase de prueba.
+     * @param sobrescrituras Propiedades que sustituyen a las de la base de datos de pruebas.
+     */
+    protected static void abrir(String nombre, Properties sobrescrituras) {
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory(nombre, sobrescrituras);
+        empresaRepository = new EmpresaRepository(sessionFactory);
+        departamentoRepository = new DepartamentoRepository(sessionFactory);
+        empleadoRepository = new EmpleadoRepository(sessionFactory);
+    }
+
+    @AfterAll
+    protected static void cerrarBaseDeDatos() {
+        sessionFactory.close();
+    }
+
+    @BeforeEach
+    protected void siguientePrueba() {
+        prueba++;
+    }
+
+    @AfterEach
+    protected void comprobarContadores() {
+        assertEquals(List.of(), new ReconciliacionContadores(sessionFactory).comprobar());
+    }
+
+    /**
+     * Crea una empresa con un nombre propio de la prueba en curso.
+     *
+     * @param nombre Comienzo del nombre de la empresa.
+     * @return Empresa creada.
+     */
+    protected static Empresa crearEmpresa(String nombre) {
+        Empresa empresa = new Empresa(nombre + prueba, "Pruebas");
+        empresaRepository.crear(empresa);
+        return empresa;
+    }
+
+    /**
+     * Crea un empleado sin persistir con un DNI propio de la prueba en curso.
+     *
+     * @param numero       Número del empleado dentro de la prueba.
+     * @param departamento Departamento del empleado.
+     * @return Empleado nuevo.
+     */
+    protected static Empleado empleado(int numero, Departamento departamento) {
+        return new Empleado(dni(numero), "Nombre" + numero, "Apellido" + numero, "Puesto", departamento);
+    }
+
+    /**
+     * Construye el DNI de un empleado de la prueba en curso.
+     *
+     * @param numero Número del empleado dentro de la prueba.
+     * @return DNI único.
+     */
+    protected static String dni(int numero) {
+        return "P" + prueba + "-" + numero;
+    }
+}
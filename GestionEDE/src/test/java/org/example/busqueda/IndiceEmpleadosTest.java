@@ -0,0 +1,125 @@
+package org.example.busqueda;
+
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que {@link IndiceEmpleados} reutiliza los números internos de los empleados retirados, de
+ * modo que actualizar y borrar empleados no hace crecer el índice, y que las búsquedas siguen siendo
+ * correctas con los números reutilizados, y que el filtro por departamento se aplica antes de elegir los
+ * mejores resultados.
+ */
+class IndiceEmpleadosTest {
+
+    /**
+     * Departamento de los empleados indexados.
+     */
+    private static final Departamento DEPARTAMENTO = departamento(1);
+
+    /**
+     * Índice a probar, sin base de datos.
+     */
+    private IndiceEmpleados indice;
+
+    @BeforeEach
+    void crearIndice() {
+        indice = new IndiceEmpleados(null);
+        indice.indexar(empleado("1", "Ana", "Gómez", "Soporte técnico"));
+        indice.indexar(empleado("2", "Luis", "Pérez", "Ventas"));
+        indice.indexar(empleado("3", "Eva", "Gómez", "Ventas"));
+    }
+
+    @Test
+    void reindexarReutilizaElNumeroInterno() {
+        for (int i = 0; i < 100; i++) {
+            indice.indexar(empleado("2", "Luis", "Pérez", "Puesto" + i));
+        }
+
+        assertEquals(3, indice.getTamano());
+        assertEquals(3, indice.getNumerosInternos());
+        assertEquals(List.of("2"), dnis("puesto99"));
+        assertEquals(List.of(), dnis("puesto98"));
+        assertEquals(List.of("3"), dnis("ventas"));
+    }
+
+    @Test
+    void borrarYCrearReutilizaElNumeroInterno() {
+        indice.eliminar("1");
+        indice.indexar(empleado("4", "Raúl", "Gómez", "Ventas"));
+
+        assertEquals(3, indice.getNumerosInternos());
+        assertEquals(List.of("3", "4"), dnis("gomez"));
+        assertEquals(List.of(), dnis("soporte"));
+    }
+
+    @Test
+    void numeroReutilizadoSeOrdenaEnLasApariciones() {
+        indice.eliminar("1");
+        indice.eliminar("2");
+        indice.indexar(empleado("5", "Ana", "Zapata", "Ventas")); // Reutiliza el número interno 0, antes que el de "3"
+
+        assertEquals(List.of("3", "5"), dnis("ventas"));
+        assertEquals(List.of("5"), dnis("ventas zap"));
+        assertEquals(3, indice.getNumerosInternos());
+        indice.indexar(empleado("6", "Juan", "Ruiz", "Ventas"));
+        indice.indexar(empleado("7", "Sara", "Ruiz", "Ventas"));
+        assertEquals(4, indice.getNumerosInternos());
+        assertEquals(List.of("6", "7"), dnis("ruiz ventas"));
+    }
+
+    @Test
+    void elFiltroPorDepartamentoSeAplicaAntesDeElegirLosMejores() {
+        Departamento otro = departamento(2);
+        for (int i = 0; i < 5; i++) {
+            indice.indexar(new Empleado("O" + i, "V", "Otro" + i, "Ventas", otro)); // Puntúan más con "ventas v"
+        }
+
+        List<String> todos = indice.buscar("ventas v", 2).stream().map(Coincidencia::dni).toList();
+        List<String> delPrimero = indice.buscar("ventas v", 2, departamentoId -> departamentoId == 1).stream()
+                .map(Coincidencia::dni).toList();
+
+        assertEquals(List.of("O0", "O1"), todos);
+        assertEquals(List.of("3", "2"), delPrimero);
+    }
+
+    /**
+     * Busca un texto en el índice.
+     *
+     * @param texto Texto a buscar.
+     * @return DNI de los resultados, en orden.
+     */
+    private List<String> dnis(String texto) {
+        return indice.buscar(texto, 10).stream().map(Coincidencia::dni).toList();
+    }
+
+    /**
+     * Crea un empleado del departamento de prueba.
+     *
+     * @param dni      DNI del empleado.
+     * @param nombre   Nombre del empleado.
+     * @param apellido Apellido del empleado.
+     * @param puesto   Puesto del empleado.
+     * @return Empleado sin persistir.
+     */
+    private static Empleado empleado(String dni, String nombre, String apellido, String puesto) {
+        return new Empleado(dni, nombre, apellido, puesto, DEPARTAMENTO);
+    }
+
+    /**
+     * Crea un departamento de prueba con un identificador fijo.
+     *
+     * @param id Identificador del departamento.
+     * @return Departamento sin persistir.
+     */
+    private static Departamento departamento(int id) {
+        Departamento departamento = new Departamento("Ventas", null);
+        departamento.setId(id);
+        return departamento;
+    }
+}
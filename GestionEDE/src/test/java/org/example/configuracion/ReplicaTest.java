@@ -0,0 +1,122 @@
+package org.example.configuracion;
+
+import org.example.BaseDeDatosPruebas;
+import org.example.entidades.Empresa;
+import org.example.repositorios.EmpresaRepository;
+import org.example.repositorios.UnidadDeTrabajo;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba el enrutamiento a la réplica con dos bases de datos H2, una principal y una réplica que no
+ * recibe los cambios: sin escrituras recientes las lecturas van a la réplica, y tras una escritura van a
+ * la principal durante {@link Replica#LEER_ESCRITURAS}, también las de otros hilos, como las de la
+ * siguiente petición HTTP de un cliente.
+ */
+class ReplicaTest {
+
+    /**
+     * Milisegundos que se lee de la principal tras una escritura.
+     */
+    private static final long VENTANA_MS = 500;
+
+    /**
+     * Fábrica de sesiones de la réplica, que solo crea y mantiene su esquema.
+     */
+    private static SessionFactory replica;
+
+    /**
+     * Fábrica de sesiones de la aplicación, con la principal y la réplica.
+     */
+    private static SessionFactory sessionFactory;
+
+    /**
+     * Repositorio de empresas.
+     */
+    private static EmpresaRepository empresaRepository;
+
+    @BeforeAll
+    static void crearBasesDeDatos() {
+        replica = BaseDeDatosPruebas.crearSessionFactory("replica");
+        Properties propiedades = new Properties();
+        propiedades.setProperty(Replica.URL, BaseDeDatosPruebas.url("replica"));
+        propiedades.setProperty(Replica.LEER_ESCRITURAS, String.valueOf(VENTANA_MS));
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory("principal", propiedades);
+        empresaRepository = new EmpresaRepository(sessionFactory);
+    }
+
+    @AfterAll
+    static void cerrar() {
+        sessionFactory.close();
+        replica.close();
+    }
+
+    @BeforeEach
+    void vaciarCache() {
+        sessionFactory.getCache().evictAllRegions(); // Las lecturas van a la base de datos
+    }
+
+    @Test
+    void sinEscriturasRecientesLasLecturasVanALaReplica() throws InterruptedException {
+        Empresa empresa = crearEmpresa();
+        esperarVentana();
+
+        assertTrue(Replica.soloLectura(Replica::enReplica));
+        assertFalse(empresaRepository.existe(empresa.getId())); // La réplica no tiene la empresa
+        assertTrue(Replica.enPrimaria(() -> empresaRepository.existe(empresa.getId())));
+    }
+
+    @Test
+    void trasEscribirLasLecturasVanALaPrincipal() {
+        Empresa empresa = crearEmpresa();
+
+        assertFalse(Replica.soloLectura(Replica::enReplica));
+        assertTrue(empresaRepository.leer(empresa.getId()).isPresent());
+    }
+
+    @Test
+    void trasEscribirTambienLeeDeLaPrincipalOtroHilo() {
+        Empresa empresa = crearEmpresa();
+
+        boolean existe = CompletableFuture.supplyAsync(() -> empresaRepository.existe(empresa.getId())).join();
+        assertTrue(existe);
+    }
+
+    @Test
+    void lasUnidadesDeTrabajoLeenDeLaPrincipal() throws InterruptedException {
+        Empresa empresa = crearEmpresa();
+        esperarVentana();
+
+        assertTrue(new UnidadDeTrabajo(sessionFactory).ejecutar(() -> empresaRepository.leer(empresa.getId()).isPresent()));
+    }
+
+    /**
+     * Crea una empresa, que solo llega a la base de datos principal.
+     *
+     * @return Empresa creada.
+     */
+    private static Empresa crearEmpresa() {
+        Empresa empresa = new Empresa("Empresa", "Pruebas");
+        empresaRepository.crear(empresa);
+        sessionFactory.getCache().evictAllRegions();
+        return empresa;
+    }
+
+    /**
+     * Espera a que pase el tiempo en que se lee de la principal tras la última escritura.
+     *
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    private static void esperarVentana() throws InterruptedException {
+        Thread.sleep(VENTANA_MS + 100);
+    }
+}
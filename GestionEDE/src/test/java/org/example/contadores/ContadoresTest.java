@@ -0,0 +1,197 @@
+package org.example.contadores;
+
+import org.example.PruebaConBaseDeDatos;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.example.repositorios.UnidadDeTrabajo;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que {@link OyenteContadores} mantiene los contadores de empleados y departamentos al crear,
+ * mover y borrar entidades, que no los cambia si la transacción se deshace y que
+ * {@link ReconciliacionContadores} detecta y repara las desviaciones.
+ */
+class ContadoresTest extends PruebaConBaseDeDatos {
+
+    /**
+     * Unidad de trabajo compartida por los repositorios.
+     */
+    private static UnidadDeTrabajo unidadDeTrabajo;
+
+    /**
+     * Empresa de la prueba.
+     */
+    private Empresa empresa;
+
+    /**
+     * Otra empresa, a la que se mueven departamentos.
+     */
+    private Empresa otraEmpresa;
+
+    /**
+     * Departamento de la empresa de la prueba.
+     */
+    private Departamento departamento;
+
+    /**
+     * Segundo departamento de la empresa de la prueba.
+     */
+    private Departamento otroDepartamento;
+
+    @BeforeAll
+    static void crearBaseDeDatos() {
+        abrir("contadores");
+        unidadDeTrabajo = new UnidadDeTrabajo(sessionFactory);
+    }
+
+    @BeforeEach
+    void crearEmpresas() {
+        empresa = crearEmpresa("Empresa");
+        otraEmpresa = crearEmpresa("Otra");
+        departamento = new Departamento("Ventas", empresa);
+        otroDepartamento = new Departamento("Compras", empresa);
+        departamentoRepository.crear(departamento);
+        departamentoRepository.crear(otroDepartamento);
+    }
+
+    @Test
+    void crearDepartamentosCuentaEnLaEmpresa() {
+        assertEquals(2, empresa().getNumDepartamentos());
+        assertEquals(0, empresa().getNumEmpleados());
+    }
+
+    @Test
+    void crearEmpleadosUnoAUnoYPorLotes() {
+        empleadoRepository.crear(empleado(0, departamento));
+        empleadoRepository.crearTodos(List.of(empleado(1, otroDepartamento), empleado(2, otroDepartamento), empleado(3, otroDepartamento)));
+
+        assertEquals(1, departamento().getNumEmpleados());
+        assertEquals(3, otroDepartamento().getNumEmpleados());
+        assertEquals(4, empresa().getNumEmpleados());
+    }
+
+    @Test
+    void moverEmpleadoDeDepartamento() {
+        empleadoRepository.crearTodos(List.of(empleado(0, departamento), empleado(1, departamento)));
+        empresa(); // En la caché de segundo nivel, que debe actualizarse
+
+        Empleado movido = empleadoRepository.leer(dni(0)).orElseThrow();
+        movido.setDepartamento(otroDepartamento);
+        empleadoRepository.actualizar(movido);
+
+        assertEquals(1, departamento().getNumEmpleados());
+        assertEquals(1, otroDepartamento().getNumEmpleados());
+        assertEquals(2, empresa().getNumEmpleados());
+    }
+
+    @Test
+    void moverDepartamentoDeEmpresaMueveSusEmpleados() {
+        empleadoRepository.crearTodos(List.of(empleado(0, departamento), empleado(1, departamento), empleado(2, otroDepartamento)));
+
+        Departamento movido = departamentoRepository.leer(departamento.getId(), Departamento.GRAFO_CON_EMPRESA).orElseThrow();
+        movido.setEmpresa(otraEmpresa);
+        departamentoRepository.actualizar(movido);
+
+        assertEquals(1, empresa().getNumDepartamentos());
+        assertEquals(1, empresa().getNumEmpleados());
+        Empresa destino = empresaRepository.leer(otraEmpresa.getId()).orElseThrow();
+        assertEquals(1, destino.getNumDepartamentos());
+        assertEquals(2, destino.getNumEmpleados());
+    }
+
+    @Test
+    void borrarEmpleadoYDepartamento() {
+        empleadoRepository.crearTodos(List.of(empleado(0, departamento), empleado(1, departamento), empleado(2, otroDepartamento)));
+
+        empleadoRepository.borrar(dni(2));
+        assertEquals(0, otroDepartamento().getNumEmpleados());
+        assertEquals(2, empresa().getNumEmpleados());
+
+        departamentoRepository.borrar(departamento.getId());
+        assertEquals(1, empresa().getNumDepartamentos());
+        assertEquals(0, empresa().getNumEmpleados());
+    }
+
+    @Test
+    void transaccionDeshechaNoCambiaLosContadores() {
+        empleadoRepository.crear(empleado(0, departamento));
+
+        assertThrows(IllegalStateException.class, () -> unidadDeTrabajo.ejecutar(() -> {
+            empleadoRepository.crear(empleado(1, departamento));
+            empleadoRepository.borrar(dni(0));
+            throw new IllegalStateException("Deshacer");
+        }));
+
+        assertEquals(1, departamento().getNumEmpleados());
+        assertEquals(1, empresa().getNumEmpleados());
+        assertTrue(empleadoRepository.existe(dni(0)));
+    }
+
+    @Test
+    void muchasAltasEnUnaTransaccionSeSumanEnUnaSentencia() {
+        List<Empleado> empleados = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            empleados.add(empleado(i, departamento));
+        }
+        empleadoRepository.crearTodos(empleados);
+
+        assertEquals(120, departamento().getNumEmpleados());
+        assertEquals(120, empresa().getNumEmpleados());
+    }
+
+    @Test
+    void reconciliacionDetectaYReparaLasDesviaciones() {
+        empleadoRepository.crear(empleado(0, departamento));
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createNativeMutationQuery("update Departamentos set num_empleados = 99 where id = :id")
+                    .setParameter("id", departamento.getId())
+                    .executeUpdate();
+            session.getTransaction().commit();
+        }
+
+        ReconciliacionContadores reconciliacion = new ReconciliacionContadores(sessionFactory);
+        assertEquals(List.of(new ReconciliacionContadores.Desajuste("Departamento", departamento.getId(), "numEmpleados", 99, 1)),
+                reconciliacion.comprobar());
+        assertTrue(reconciliacion.reparar() > 0);
+        assertEquals(1, departamento().getNumEmpleados());
+    }
+
+    /**
+     * Lee la empresa de la prueba.
+     *
+     * @return Empresa con sus contadores actuales.
+     */
+    private Empresa empresa() {
+        return empresaRepository.leer(empresa.getId()).orElseThrow();
+    }
+
+    /**
+     * Lee el primer departamento de la prueba.
+     *
+     * @return Departamento con su contador actual.
+     */
+    private Departamento departamento() {
+        return departamentoRepository.leer(departamento.getId()).orElseThrow();
+    }
+
+    /**
+     * Lee el segundo departamento de la prueba.
+     *
+     * @return Departamento con su contador actual.
+     */
+    private Departamento otroDepartamento() {
+        return departamentoRepository.leer(otroDepartamento.getId()).orElseThrow();
+    }
+}
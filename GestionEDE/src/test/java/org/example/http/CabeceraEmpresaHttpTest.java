@@ -0,0 +1,129 @@
+package org.example.http;
+
+import org.example.BaseDeDatosPruebas;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.example.repositorios.DepartamentoRepository;
+import org.example.repositorios.EmpleadoRepository;
+import org.example.repositorios.EmpresaRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que el servicio HTTP exige la cabecera {@value ManejadorCrud#CABECERA_EMPRESA} en
+ * {@code /departamentos} y {@code /empleados}, que con ella solo se ve esa empresa, y que el acceso
+ * a todas las empresas sin ella solo se atiende si el servidor lo habilita expresamente.
+ */
+class CabeceraEmpresaHttpTest {
+
+    /**
+     * Fábrica de sesiones de la base de datos de pruebas.
+     */
+    private static SessionFactory sessionFactory;
+
+    /**
+     * Servidor con la empresa obligatoria, como se arranca por defecto.
+     */
+    private static ServidorHttp servidor;
+
+    /**
+     * Servidor arrancado con acceso a todas las empresas sin cabecera.
+     */
+    private static ServidorHttp servidorSinEmpresa;
+
+    /**
+     * Cliente HTTP de las pruebas.
+     */
+    private static final HttpClient CLIENTE = HttpClient.newHttpClient();
+
+    /**
+     * Empresa con la que se hacen las peticiones.
+     */
+    private static Empresa propia;
+
+    /**
+     * Empleado de otra empresa.
+     */
+    private static Empleado ajeno;
+
+    @BeforeAll
+    static void arrancar() throws IOException {
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory("cabecera_http");
+        EmpresaRepository empresaRepository = new EmpresaRepository(sessionFactory);
+        DepartamentoRepository departamentoRepository = new DepartamentoRepository(sessionFactory);
+        propia = new Empresa("Propia", "Pruebas");
+        Empresa otra = new Empresa("Otra", "Pruebas");
+        empresaRepository.crearTodos(List.of(propia, otra));
+        Departamento departamento = new Departamento("Compras", otra);
+        departamentoRepository.crear(departamento);
+        ajeno = new Empleado("H-ajeno", "Nombre", "Apellido", "Puesto", departamento);
+        new EmpleadoRepository(sessionFactory).crear(ajeno);
+        servidor = new ServidorHttp(sessionFactory, 0);
+        servidor.iniciar();
+        servidorSinEmpresa = new ServidorHttp(sessionFactory, 0, true);
+        servidorSinEmpresa.iniciar();
+    }
+
+    @AfterAll
+    static void detener() {
+        servidor.detener();
+        servidorSinEmpresa.detener();
+        sessionFactory.close();
+    }
+
+    @Test
+    void sinCabeceraDepartamentosYEmpleadosResponden400() throws Exception {
+        for (String ruta : new String[]{"/departamentos", "/empleados", "/empleados/" + ajeno.getDni()}) {
+            HttpResponse<String> respuesta = get(servidor, ruta, null);
+            assertEquals(400, respuesta.statusCode(), ruta);
+            assertTrue(respuesta.body().contains(ManejadorCrud.CABECERA_EMPRESA), respuesta.body());
+        }
+        assertEquals(200, get(servidor, "/empresas", null).statusCode()); // Las empresas se listan y se dan de alta sin ella
+    }
+
+    @Test
+    void conCabeceraSoloSeVeEsaEmpresa() throws Exception {
+        String empresa = String.valueOf(propia.getId());
+
+        assertEquals(404, get(servidor, "/empleados/" + ajeno.getDni(), empresa).statusCode());
+        HttpResponse<String> listado = get(servidor, "/empleados", empresa);
+        assertEquals(200, listado.statusCode());
+        assertFalse(listado.body().contains(ajeno.getDni()), listado.body());
+    }
+
+    @Test
+    void elServidorPuedeHabilitarElAccesoSinEmpresa() throws Exception {
+        assertEquals(200, get(servidorSinEmpresa, "/empleados/" + ajeno.getDni(), null).statusCode());
+    }
+
+    /**
+     * Envía una petición GET a un servidor de pruebas.
+     *
+     * @param destino Servidor al que se envía.
+     * @param ruta    Ruta con la cadena de consulta.
+     * @param empresa Valor de la cabecera de empresa, o null para no enviarla.
+     * @return Respuesta recibida.
+     * @throws Exception Si falla la petición.
+     */
+    private static HttpResponse<String> get(ServidorHttp destino, String ruta, String empresa) throws Exception {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + destino.getPuerto() + ruta));
+        if (empresa != null) {
+            peticion.header(ManejadorCrud.CABECERA_EMPRESA, empresa);
+        }
+        return CLIENTE.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
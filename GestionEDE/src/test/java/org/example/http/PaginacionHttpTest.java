@@ -0,0 +1,103 @@
+package org.example.http;
+
+import org.example.BaseDeDatosPruebas;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empresa;
+import org.example.repositorios.DepartamentoRepository;
+import org.example.repositorios.EmpresaRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que los listados paginados del servicio HTTP rechazan con 400 los tamaños de página fuera
+ * de rango, en lugar de fallar con un error interno.
+ */
+class PaginacionHttpTest {
+
+    /**
+     * Fábrica de sesiones de la base de datos de pruebas.
+     */
+    private static SessionFactory sessionFactory;
+
+    /**
+     * Servidor HTTP en un puerto libre.
+     */
+    private static ServidorHttp servidor;
+
+    /**
+     * Cliente HTTP de las pruebas.
+     */
+    private static final HttpClient CLIENTE = HttpClient.newHttpClient();
+
+    /**
+     * Empresa con departamentos.
+     */
+    private static Empresa empresa;
+
+    @BeforeAll
+    static void arrancar() throws IOException {
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory("paginacion_http");
+        empresa = new Empresa("Empresa", "Pruebas");
+        new EmpresaRepository(sessionFactory).crear(empresa);
+        DepartamentoRepository departamentoRepository = new DepartamentoRepository(sessionFactory);
+        departamentoRepository.crear(new Departamento("Ventas", empresa));
+        departamentoRepository.crear(new Departamento("Compras", empresa));
+        servidor = new ServidorHttp(sessionFactory, 0);
+        servidor.iniciar();
+    }
+
+    @AfterAll
+    static void detener() {
+        servidor.detener();
+        sessionFactory.close();
+    }
+
+    @Test
+    void departamentosDeEmpresaConTamanoFueraDeRangoResponde400() throws Exception {
+        for (String tamano : new String[]{"0", "-1", "1001", "abc"}) {
+            assertEquals(400, get("/empresas/" + empresa.getId() + "/departamentos?tamano=" + tamano).statusCode(), tamano);
+        }
+    }
+
+    @Test
+    void departamentosDeEmpresaConTamanoValidoPagina() throws Exception {
+        HttpResponse<String> respuesta = get("/empresas/" + empresa.getId() + "/departamentos?tamano=1");
+
+        assertEquals(200, respuesta.statusCode());
+        assertTrue(respuesta.body().contains("\"siguiente\":\""), respuesta.body());
+    }
+
+    @Test
+    void listadoConTamanoFueraDeRangoResponde400() throws Exception {
+        assertEquals(400, get("/empresas?tamano=0").statusCode());
+        HttpRequest departamentos = HttpRequest.newBuilder(URI.create("http://localhost:" + servidor.getPuerto() + "/departamentos?tamano=5000"))
+                .header(ManejadorCrud.CABECERA_EMPRESA, String.valueOf(empresa.getId()))
+                .build();
+        HttpResponse<String> respuesta = CLIENTE.send(departamentos, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, respuesta.statusCode());
+        assertTrue(respuesta.body().contains("entre 1 y"), respuesta.body()); // Por el tamaño, no por la cabecera
+    }
+
+    /**
+     * Envía una petición GET al servidor de pruebas.
+     *
+     * @param ruta Ruta con la cadena de consulta.
+     * @return Respuesta recibida.
+     * @throws Exception Si falla la petición.
+     */
+    private static HttpResponse<String> get(String ruta) throws Exception {
+        return CLIENTE.send(HttpRequest.newBuilder(URI.create("http://localhost:" + servidor.getPuerto() + ruta)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
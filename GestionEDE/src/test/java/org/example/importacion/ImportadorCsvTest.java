@@ -0,0 +1,160 @@
+package org.example.importacion;
+
+import org.example.BaseDeDatosPruebas;
+import org.example.contadores.ReconciliacionContadores;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.example.repositorios.DepartamentoRepository;
+import org.example.repositorios.EmpleadoRepository;
+import org.example.repositorios.EmpresaRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Comprueba que {@link ImportadorCsv} guarda el punto de control en la misma transacción que cada lote,
+ * de modo que al reanudar no repite los lotes confirmados, y que {@link ResolutorReferencias} rechaza
+ * las filas cuyas claves foráneas no existen.
+ */
+class ImportadorCsvTest {
+
+    /**
+     * Fábrica de sesiones de la base de datos de pruebas.
+     */
+    private static SessionFactory sessionFactory;
+
+    /**
+     * Repositorio de empleados.
+     */
+    private static EmpleadoRepository empleadoRepository;
+
+    /**
+     * Departamento al que se importan los empleados.
+     */
+    private static Departamento departamento;
+
+    /**
+     * Directorio temporal de los ficheros CSV.
+     */
+    @TempDir
+    Path directorio;
+
+    @BeforeAll
+    static void crearBaseDeDatos() throws IOException {
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory("importacion");
+        try (InputStream migracion = ImportadorCsvTest.class.getResourceAsStream("/db/migration/V6__importaciones.sql");
+             Session session = sessionFactory.openSession()) {
+            String sql = new String(migracion.readAllBytes(), StandardCharsets.UTF_8);
+            session.beginTransaction();
+            session.createNativeMutationQuery(sql).executeUpdate(); // Tabla de puntos de control
+            session.getTransaction().commit();
+        }
+        empleadoRepository = new EmpleadoRepository(sessionFactory);
+        Empresa empresa = new Empresa("Importadora", "Pruebas");
+        new EmpresaRepository(sessionFactory).crear(empresa);
+        departamento = new Departamento("Altas", empresa);
+        new DepartamentoRepository(sessionFactory).crear(departamento);
+    }
+
+    @AfterAll
+    static void cerrar() {
+        sessionFactory.close();
+    }
+
+    @AfterEach
+    void comprobarContadores() {
+        assertEquals(List.of(), new ReconciliacionContadores(sessionFactory).comprobar());
+    }
+
+    @Test
+    void alReanudarNoSeRepiteElLoteConfirmado() throws Exception {
+        // El segundo lote (líneas 1002 a 2001) choca con un empleado que ya existe
+        empleadoRepository.crear(new Empleado("R-1800", "Nombre", "Apellido", "Puesto", departamento));
+        List<String> lineas = new ArrayList<>();
+        for (int i = 1; i <= 2500; i++) {
+            lineas.add("R-" + i + ",Nombre,Apellido,Puesto," + departamento.getId());
+        }
+        Path fichero = escribir("reanudar.csv", lineas);
+
+        assertThrows(IllegalStateException.class,
+                () -> new ImportadorCsv(sessionFactory, TipoImportacion.EMPLEADOS, fichero).importar(false));
+        assertEquals(1001, contarEmpleados("R-%"));
+        assertEquals(Optional.of(1001L), puntoControl(fichero));
+
+        empleadoRepository.borrar("R-1800");
+        assertEquals(1500, new ImportadorCsv(sessionFactory, TipoImportacion.EMPLEADOS, fichero).importar(true));
+        assertEquals(2500, contarEmpleados("R-%"));
+        assertEquals(Optional.empty(), puntoControl(fichero));
+    }
+
+    @Test
+    void seRechazanLasReferenciasQueNoExisten() throws Exception {
+        Path fichero = escribir("referencias.csv", List.of(
+                "F-1,Nombre,Apellido,Puesto," + departamento.getId(),
+                "F-2,Nombre,Apellido,Puesto,999999",
+                "F-3,Nombre,Apellido,Puesto,otro",
+                "F-4,Nombre,Apellido,Puesto," + departamento.getId()));
+
+        assertEquals(2, new ImportadorCsv(sessionFactory, TipoImportacion.EMPLEADOS, fichero).importar(false));
+        assertEquals(2, contarEmpleados("F-%"));
+    }
+
+    /**
+     * Escribe un fichero CSV de empleados con su cabecera.
+     *
+     * @param nombre Nombre del fichero.
+     * @param lineas Filas del fichero, sin la cabecera.
+     * @return Ruta del fichero.
+     * @throws IOException Si no se puede escribir.
+     */
+    private Path escribir(String nombre, List<String> lineas) throws IOException {
+        List<String> contenido = new ArrayList<>(List.of("dni,nombre,apellido,puesto,departamento_id"));
+        contenido.addAll(lineas);
+        return Files.write(directorio.resolve(nombre), contenido, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cuenta los empleados cuyo DNI sigue un patrón.
+     *
+     * @param patron Patrón {@code LIKE} del DNI.
+     * @return Número de empleados.
+     */
+    private static long contarEmpleados(String patron) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("select count(e) from Empleado e where e.dni like :patron", Long.class)
+                    .setParameter("patron", patron)
+                    .getSingleResult();
+        }
+    }
+
+    /**
+     * Lee el punto de control guardado de un fichero.
+     *
+     * @param fichero Fichero importado.
+     * @return Última línea confirmada, si la importación no ha terminado.
+     */
+    private static Optional<Long> puntoControl(Path fichero) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createNativeQuery("SELECT ultima_linea FROM Importaciones WHERE fichero = :fichero", Long.class)
+                    .setParameter("fichero", fichero.toAbsolutePath().normalize().toString())
+                    .uniqueResultOptional();
+        }
+    }
+}
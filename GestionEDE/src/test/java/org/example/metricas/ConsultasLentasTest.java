@@ -0,0 +1,49 @@
+package org.example.metricas;
+
+import org.example.BaseDeDatosPruebas;
+import org.example.repositorios.EmpresaRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que cada SessionFactory tiene su propio detector de sentencias lentas, con su propia
+ * configuración y sus propias sentencias, registrado en JMX con el nombre de su pool mientras está abierta.
+ */
+class ConsultasLentasTest {
+
+    @Test
+    void cadaSessionFactoryTieneSuDetector() throws Exception {
+        Properties todas = new Properties();
+        todas.setProperty(ConsultasLentas.UMBRAL, "0");
+        ObjectName nombreJmx = new ObjectName("org.example:type=ConsultasLentas,name=" + ObjectName.quote("Pruebas-lentas-todas"));
+
+        try (SessionFactory conUmbralCero = BaseDeDatosPruebas.crearSessionFactory("lentas-todas", todas);
+             SessionFactory porDefecto = BaseDeDatosPruebas.crearSessionFactory("lentas-defecto")) {
+            ConsultasLentas detectorCero = ConsultasLentas.de(conUmbralCero);
+            ConsultasLentas detectorPorDefecto = ConsultasLentas.de(porDefecto);
+
+            assertNotSame(detectorCero, detectorPorDefecto);
+            assertEquals(0, detectorCero.getUmbralMs()); // La segunda fábrica no cambia la configuración de la primera
+            assertEquals(500, detectorPorDefecto.getUmbralMs());
+            assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(nombreJmx));
+
+            long antes = detectorPorDefecto.getTotal();
+            new EmpresaRepository(conUmbralCero).leer(1);
+            assertTrue(detectorCero.getTotal() > 0);
+            assertEquals(antes, detectorPorDefecto.getTotal());
+
+            detectorCero.setUmbralMs(-1); // Sin anotar el borrado del esquema al cerrar
+        }
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(nombreJmx));
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.repositorios;
+
+import org.example.PruebaConBaseDeDatos;
+import org.example.busqueda.Coincidencia;
+import org.example.busqueda.IndiceEmpleados;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba {@code actualizarCampos}: el UPDATE directo por JDBC de las columnas indicadas incrementa la
+ * versión, detecta las versiones obsoletas, elimina la fila de la caché de segundo nivel y avisa al índice
+ * de búsqueda, y los cambios de asociación pasan por la entidad y mantienen los contadores.
+ */
+class ActualizarCamposTest extends PruebaConBaseDeDatos {
+
+    /**
+     * Índice de búsqueda registrado en la fábrica de sesiones.
+     */
+    private static IndiceEmpleados indice;
+
+    /**
+     * Departamento de los empleados de prueba.
+     */
+    private static Departamento departamento;
+
+    /**
+     * Departamento al que se mueven empleados.
+     */
+    private static Departamento otroDepartamento;
+
+    @BeforeAll
+    static void crearBaseDeDatos() {
+        abrir("campos");
+        indice = IndiceEmpleados.registrar(sessionFactory);
+        Empresa empresa = crearEmpresa("Empresa");
+        departamento = new Departamento("Ventas", empresa);
+        otroDepartamento = new Departamento("Compras", empresa);
+        departamentoRepository.crearTodos(List.of(departamento, otroDepartamento));
+    }
+
+    @BeforeEach
+    void crearEmpleado() {
+        empleadoRepository.crear(empleado(0, departamento));
+    }
+
+    @Test
+    void actualizaLasColumnasEIncrementaLaVersion() {
+        Empleado antes = leer();
+        sessionFactory.getStatistics().clear();
+
+        assertTrue(empleadoRepository.actualizarCampos(dni(0), Map.of("puesto", "Jefe", "nombre", "Otro")));
+        assertEquals(0, sessionFactory.getStatistics().getEntityUpdateCount()); // UPDATE por JDBC, sin pasar por la entidad
+
+        Empleado despues = leer();
+        assertEquals("Jefe", despues.getPuesto());
+        assertEquals("Otro", despues.getNombre());
+        assertEquals("Apellido0", despues.getApellido());
+        assertEquals(antes.getVersion() + 1, despues.getVersion());
+    }
+
+    @Test
+    void laCacheNoDevuelveLaFilaAnterior() {
+        leer(); // En la caché de segundo nivel
+        assertTrue(sessionFactory.getCache().containsEntity(Empleado.class, dni(0)));
+
+        empleadoRepository.actualizarCampos(dni(0), Map.of("puesto", "Jefe"));
+
+        assertEquals("Jefe", leer().getPuesto()); // El índice de búsqueda puede haberla vuelto a leer, ya actualizada
+    }
+
+    @Test
+    void elIndiceDeBusquedaRecibeElCambio() {
+        indice.cargar();
+
+        empleadoRepository.actualizarCampos(dni(0), Map.of("puesto", "Astronauta" + prueba));
+
+        List<String> dnis = indice.buscar("astronauta" + prueba, 10).stream().map(Coincidencia::dni).toList();
+        assertEquals(List.of(dni(0)), dnis);
+    }
+
+    @Test
+    void versionEsperadaCorrectaYObsoleta() {
+        int version = leer().getVersion();
+
+        assertTrue(empleadoRepository.actualizarCampos(dni(0), version, Map.of("puesto", "Jefe")));
+        ConflictoConcurrenciaException conflicto = assertThrows(ConflictoConcurrenciaException.class,
+                () -> empleadoRepository.actualizarCampos(dni(0), version, Map.of("puesto", "Becario")));
+
+        assertEquals(dni(0), conflicto.getId());
+        assertEquals("Jefe", leer().getPuesto());
+    }
+
+    @Test
+    void empleadoInexistenteDevuelveFalse() {
+        assertFalse(empleadoRepository.actualizarCampos("no-existe", Map.of("puesto", "Jefe")));
+        assertFalse(empleadoRepository.actualizarCampos("no-existe", 0, Map.of("puesto", "Jefe")));
+    }
+
+    @Test
+    void camposNoValidos() {
+        assertThrows(IllegalArgumentException.class, () -> empleadoRepository.actualizarCampos(dni(0), Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> empleadoRepository.actualizarCampos(dni(0), Map.of("sueldo", 1)));
+        assertThrows(IllegalArgumentException.class, () -> empleadoRepository.actualizarCampos(dni(0), Map.of("dni", "otro")));
+        assertThrows(IllegalArgumentException.class, () -> empleadoRepository.actualizarCampos(dni(0), Map.of("version", 7)));
+        assertThrows(IllegalArgumentException.class, () -> empleadoRepository.actualizarCampos(dni(0), Map.of("puesto", 7)));
+
+        assertEquals("Puesto", leer().getPuesto());
+    }
+
+    @Test
+    void cambiarElDepartamentoMantieneLosContadores() {
+        int enOtro = departamentoRepository.leer(otroDepartamento.getId()).orElseThrow().getNumEmpleados();
+
+        assertTrue(empleadoRepository.actualizarCampos(dni(0), Map.of("departamento", otroDepartamento.getId())));
+
+        assertEquals(otroDepartamento.getId(), empleadoRepository.leer(dni(0), Empleado.GRAFO_CON_DEPARTAMENTO)
+                .orElseThrow().getDepartamento().getId());
+        assertEquals(enOtro + 1, departamentoRepository.leer(otroDepartamento.getId()).orElseThrow().getNumEmpleados());
+    }
+
+    @Test
+    void cambiarLaEmpresaDeUnDepartamentoMantieneLosContadores() {
+        Empresa origen = crearEmpresa("Origen");
+        Empresa destino = crearEmpresa("Destino");
+        Departamento movido = new Departamento("Legal", origen);
+        departamentoRepository.crear(movido);
+        int version = departamentoRepository.leer(movido.getId()).orElseThrow().getVersion();
+
+        assertTrue(departamentoRepository.actualizarCampos(movido.getId(), version,
+                Map.of("nombre", "Legal" + prueba, "empresa", destino.getId())));
+
+        Departamento despues = departamentoRepository.leer(movido.getId(), Departamento.GRAFO_CON_EMPRESA).orElseThrow();
+        assertEquals("Legal" + prueba, despues.getNombre());
+        assertEquals(destino.getId(), despues.getEmpresa().getId());
+        assertEquals(0, empresaRepository.leer(origen.getId()).orElseThrow().getNumDepartamentos());
+        assertEquals(1, empresaRepository.leer(destino.getId()).orElseThrow().getNumDepartamentos());
+    }
+
+    /**
+     * Lee el empleado de la prueba en curso.
+     *
+     * @return Empleado leído.
+     */
+    private static Empleado leer() {
+        return empleadoRepository.leer(dni(0)).orElseThrow();
+    }
+}
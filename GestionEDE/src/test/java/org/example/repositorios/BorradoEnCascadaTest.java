@@ -0,0 +1,189 @@
+package org.example.repositorios;
+
+import org.example.PruebaConBaseDeDatos;
+import org.example.busqueda.IndiceEmpleados;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba los borrados en cascada de {@link DepartamentoRepository} y {@link EmpresaRepository} con
+ * sentencias sobre conjuntos: las filas hijas desaparecen, los contadores de las empresas quedan al día,
+ * la caché y el índice de búsqueda no conservan los empleados borrados y el número de sentencias no
+ * depende del número de empleados.
+ */
+class BorradoEnCascadaTest extends PruebaConBaseDeDatos {
+
+    /**
+     * Índice de búsqueda registrado en la fábrica de sesiones.
+     */
+    private static IndiceEmpleados indice;
+
+    /**
+     * Empresa de la prueba.
+     */
+    private Empresa empresa;
+
+    @BeforeAll
+    static void crearBaseDeDatos() {
+        abrir("cascada");
+        indice = IndiceEmpleados.registrar(sessionFactory);
+    }
+
+    @BeforeEach
+    void prepararEmpresa() {
+        empresa = crearEmpresa("Empresa");
+    }
+
+    @Test
+    void borrarDepartamentoBorraSusEmpleados() {
+        Departamento borrado = departamento("Ventas", 5);
+        Departamento otro = departamento("Compras", 3);
+        empleadoRepository.leer(dni(borrado, 0)); // En la caché de segundo nivel
+        indice.cargar();
+
+        departamentoRepository.borrar(borrado.getId());
+
+        assertFalse(departamentoRepository.existe(borrado.getId()));
+        assertEquals(0, empleados(borrado));
+        assertTrue(empleadoRepository.leer(dni(borrado, 0)).isEmpty());
+        assertEquals(3, empleados(otro));
+        Empresa actual = empresaRepository.leer(empresa.getId()).orElseThrow();
+        assertEquals(1, actual.getNumDepartamentos());
+        assertEquals(3, actual.getNumEmpleados());
+        assertTrue(indice.buscar("ventas" + prueba, 10).isEmpty());
+        assertEquals(3, indice.buscar("compras" + prueba, 10).size());
+    }
+
+    @Test
+    void borrarVariosDepartamentos() {
+        Departamento primero = departamento("Ventas", 2);
+        Departamento segundo = departamento("Compras", 4);
+        Departamento queda = departamento("Soporte", 1);
+
+        departamentoRepository.borrarTodos(List.of(primero.getId(), segundo.getId(), -1));
+
+        assertEquals(0, empleados(primero) + empleados(segundo));
+        assertTrue(departamentoRepository.existe(queda.getId()));
+        Empresa actual = empresaRepository.leer(empresa.getId()).orElseThrow();
+        assertEquals(1, actual.getNumDepartamentos());
+        assertEquals(1, actual.getNumEmpleados());
+    }
+
+    @Test
+    void borrarDepartamentoNoHaceUnaSentenciaPorEmpleado() {
+        Departamento pequeno = departamento("Ventas", 2);
+        Departamento grande = departamento("Compras", 60);
+
+        assertEquals(sentenciasAlBorrar(pequeno), sentenciasAlBorrar(grande));
+    }
+
+    @Test
+    void borrarEmpresaBorraSusDepartamentosYEmpleados() {
+        Departamento ventas = departamento("Ventas", 4);
+        Departamento compras = departamento("Compras", 2);
+        Empresa otra = crearEmpresa("Otra");
+        Departamento ajeno = new Departamento("Ajeno", otra);
+        departamentoRepository.crear(ajeno);
+        empleadoRepository.crear(new Empleado("B" + prueba + "-ajeno", "Nombre", "Apellido", "Puesto", ajeno));
+
+        empresaRepository.borrar(empresa.getId());
+
+        assertFalse(empresaRepository.existe(empresa.getId()));
+        assertFalse(departamentoRepository.existe(ventas.getId()));
+        assertFalse(departamentoRepository.existe(compras.getId()));
+        assertEquals(0, empleados(ventas) + empleados(compras));
+        assertEquals(1, empleados(ajeno));
+        assertEquals(1, empresaRepository.leer(otra.getId()).orElseThrow().getNumEmpleados());
+    }
+
+    @Test
+    void borrarEmpresaNoHaceUnaSentenciaPorDepartamentoNiEmpleado() {
+        departamento("Ventas", 1);
+        long pocas = sentencias(() -> empresaRepository.borrar(empresa.getId()));
+
+        empresa = crearEmpresa("Empresa");
+        for (int i = 0; i < 5; i++) {
+            departamento("Departamento" + i, 20);
+        }
+        long muchas = sentencias(() -> empresaRepository.borrar(empresa.getId()));
+
+        assertEquals(pocas, muchas);
+    }
+
+    /**
+     * Crea un departamento de la empresa de la prueba con empleados cuyo puesto es el nombre del departamento.
+     *
+     * @param nombre    Nombre del departamento.
+     * @param empleados Número de empleados.
+     * @return Departamento creado.
+     */
+    private Departamento departamento(String nombre, int empleados) {
+        Departamento departamento = new Departamento(nombre, empresa);
+        departamentoRepository.crear(departamento);
+        List<Empleado> nuevos = new ArrayList<>();
+        for (int i = 0; i < empleados; i++) {
+            nuevos.add(new Empleado(dni(departamento, i), "Nombre" + i, "Apellido" + i, nombre + prueba, departamento));
+        }
+        empleadoRepository.crearTodos(nuevos);
+        return departamento;
+    }
+
+    /**
+     * Cuenta en la base de datos los empleados de un departamento.
+     *
+     * @param departamento Departamento.
+     * @return Número de filas de empleados del departamento.
+     */
+    private static long empleados(Departamento departamento) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createSelectionQuery("select count(e) from Empleado e where e.departamento.id = :id", Long.class)
+                    .setParameter("id", departamento.getId())
+                    .getSingleResult();
+        }
+    }
+
+    /**
+     * Borra un departamento y cuenta las sentencias preparadas.
+     *
+     * @param departamento Departamento a borrar.
+     * @return Sentencias preparadas por Hibernate durante el borrado.
+     */
+    private static long sentenciasAlBorrar(Departamento departamento) {
+        return sentencias(() -> departamentoRepository.borrar(departamento.getId()));
+    }
+
+    /**
+     * Ejecuta una operación y cuenta las sentencias preparadas.
+     *
+     * @param operacion Operación a ejecutar.
+     * @return Sentencias preparadas por Hibernate durante la operación.
+     */
+    private static long sentencias(Runnable operacion) {
+        sessionFactory.getStatistics().clear();
+        operacion.run();
+        return sessionFactory.getStatistics().getPrepareStatementCount();
+    }
+
+    /**
+     * Construye el DNI de un empleado de un departamento de la prueba.
+     *
+     * @param departamento Departamento del empleado.
+     * @param numero       Número del empleado dentro del departamento.
+     * @return DNI único.
+     */
+    private static String dni(Departamento departamento, int numero) {
+        return "B" + departamento.getId() + "-" + numero;
+    }
+}
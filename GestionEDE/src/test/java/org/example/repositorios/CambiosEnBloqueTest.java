@@ -0,0 +1,306 @@
+package org.example.repositorios;
+
+import org.example.BaseDeDatosPruebas;
+import org.example.PruebaConBaseDeDatos;
+import org.example.busqueda.Coincidencia;
+import org.example.busqueda.IndiceEmpleados;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.example.metricas.InspectorSentencias;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba los cambios en bloque de {@link EmpleadoRepository} ({@code moverEmpleados} y
+ * {@code renombrarPuesto}): un único {@code UPDATE versioned}, contadores al día, índice de búsqueda
+ * reindexado solo con los departamentos afectados, empleados afectados bloqueados hasta confirmar y,
+ * si otra transacción añade a la vez un empleado que cumple el filtro, un conflicto que deshace todo el cambio.
+ */
+class CambiosEnBloqueTest extends PruebaConBaseDeDatos {
+
+    /**
+     * Nombre de la base de datos de pruebas, para abrir conexiones propias con las que simular otro usuario.
+     */
+    private static final String BASE_DE_DATOS = "bloques";
+
+    /**
+     * Milisegundos que las conexiones de otro usuario esperan a que se libere una fila bloqueada.
+     */
+    private static final int ESPERA_BLOQUEO_MS = 200;
+
+    /**
+     * Trabajo que se ejecuta una sola vez justo antes de preparar el siguiente UPDATE de empleados, o null.
+     */
+    private static volatile Runnable antesDelUpdate;
+
+    /**
+     * Índice de búsqueda registrado en la fábrica de sesiones.
+     */
+    private static IndiceEmpleados indice;
+
+    /**
+     * Empresa de la prueba.
+     */
+    private Empresa empresa;
+
+    /**
+     * Departamento de origen de la prueba.
+     */
+    private Departamento origen;
+
+    /**
+     * Departamento de destino de la prueba.
+     */
+    private Departamento destino;
+
+    /**
+     * Inspector de sentencias que, además de contarlas, ejecuta {@link #antesDelUpdate} al preparar el
+     * UPDATE de empleados, entre la lectura de los afectados y su modificación.
+     */
+    public static class InspectorConCambioConcurrente extends InspectorSentencias {
+
+        /**
+         * Versión de la forma serializada.
+         */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String inspect(String sql) {
+            Runnable trabajo = antesDelUpdate;
+            if (trabajo != null && sql.toLowerCase(Locale.ROOT).startsWith("update empleados")) {
+                antesDelUpdate = null;
+                trabajo.run();
+            }
+            return super.inspect(sql);
+        }
+    }
+
+    @BeforeAll
+    static void crearBaseDeDatos() {
+        Properties propiedades = new Properties();
+        propiedades.setProperty("hibernate.session_factory.statement_inspector", InspectorConCambioConcurrente.class.getName());
+        abrir(BASE_DE_DATOS, propiedades);
+        indice = IndiceEmpleados.registrar(sessionFactory);
+    }
+
+    @BeforeEach
+    void crearDepartamentos() {
+        empresa = crearEmpresa("Empresa");
+        origen = new Departamento("Origen", empresa);
+        destino = new Departamento("Destino", empresa);
+        departamentoRepository.crearTodos(List.of(origen, destino));
+    }
+
+    @AfterEach
+    void quitarCambioConcurrente() {
+        antesDelUpdate = null; // Antes de que la base compruebe los contadores
+    }
+
+    @Test
+    void moverEmpleadosDeUnDepartamento() {
+        crearEmpleados(origen, "Ventas", 3);
+        crearEmpleados(origen, "Soporte", 2);
+        int version = empleadoRepository.leer(dni("Ventas", 0)).orElseThrow().getVersion(); // También en la caché
+        indice.cargar();
+
+        assertEquals(5, empleadoRepository.moverEmpleados(origen.getId(), null, destino.getId()));
+
+        assertEquals(0, numEmpleados(origen));
+        assertEquals(5, numEmpleados(destino));
+        Empleado movido = empleadoRepository.leer(dni("Ventas", 0), Empleado.GRAFO_CON_DEPARTAMENTO).orElseThrow();
+        assertEquals(destino.getId(), movido.getDepartamento().getId());
+        assertEquals(version + 1, movido.getVersion());
+        assertTrue(indice.buscar("ventas" + prueba, 10).stream().allMatch(c -> c.departamentoId() == destino.getId()));
+    }
+
+    @Test
+    void moverEmpleadosDeUnPuesto() {
+        crearEmpleados(origen, "Ventas", 3);
+        crearEmpleados(origen, "Soporte", 2);
+
+        assertEquals(2, empleadoRepository.moverEmpleados(null, "Soporte" + prueba, destino.getId()));
+
+        assertEquals(3, numEmpleados(origen));
+        assertEquals(2, numEmpleados(destino));
+        assertEquals(0, empleadoRepository.moverEmpleados(null, "Soporte" + prueba, destino.getId())); // Ya están en el destino
+    }
+
+    @Test
+    void moverEmpleadosSinFiltroODestinoInexistente() {
+        assertThrows(IllegalArgumentException.class, () -> empleadoRepository.moverEmpleados(null, null, destino.getId()));
+        assertThrows(IllegalArgumentException.class, () -> empleadoRepository.moverEmpleados(origen.getId(), null, -1));
+    }
+
+    @Test
+    void renombrarPuestoSoloEnLaEmpresaYReindexandoLosAfectados() {
+        crearEmpleados(origen, "Ventas", 1200);
+        crearEmpleados(destino, "Soporte", 3);
+        Empresa otra = crearEmpresa("Otra");
+        Departamento ajeno = new Departamento("Ajeno", otra);
+        departamentoRepository.crear(ajeno);
+        empleadoRepository.crear(new Empleado("X" + prueba, "Nombre", "Apellido", "Ventas" + prueba, ajeno));
+        indice.cargar();
+        int indexados = indice.getTamano();
+        sessionFactory.getStatistics().clear();
+
+        assertEquals(1200, empleadoRepository.renombrarPuesto(empresa.getId(), "Ventas" + prueba, "Comercial" + prueba));
+
+        // Se vuelven a leer solo los departamentos afectados, sin recorrer la tabla
+        long sentencias = sessionFactory.getStatistics().getPrepareStatementCount();
+        assertTrue(sentencias <= 1200 / BaseRepository.TAMANO_LOTE + 5, "Sentencias: " + sentencias);
+        assertEquals(indexados, indice.getTamano());
+        assertEquals(1200, indice.buscar("comercial" + prueba, 2000).size());
+        List<String> sinRenombrar = indice.buscar("ventas" + prueba, 10).stream().map(Coincidencia::dni).toList();
+        assertEquals(List.of("X" + prueba), sinRenombrar);
+    }
+
+    @Test
+    void otroUsuarioNoPuedeCambiarLosEmpleadosQueSeMueven() {
+        crearEmpleados(origen, "Ventas", 4);
+        AtomicBoolean cambiado = new AtomicBoolean(true);
+        antesDelUpdate = () -> cambiado.set(cambiarPuestoComoOtroUsuario(dni("Ventas", 2), "Otro"));
+
+        assertEquals(4, empleadoRepository.moverEmpleados(origen.getId(), "Ventas" + prueba, destino.getId()));
+
+        assertFalse(cambiado.get()); // Ha esperado al bloqueo hasta agotar su tiempo
+        assertEquals(0, numEmpleados(origen));
+        assertEquals(4, numEmpleados(destino));
+        assertEquals("Ventas" + prueba, empleadoRepository.leer(dni("Ventas", 2)).orElseThrow().getPuesto());
+    }
+
+    @Test
+    void otroUsuarioNoPuedeCambiarLosEmpleadosQueSeRenombran() {
+        crearEmpleados(origen, "Ventas", 3);
+        AtomicBoolean cambiado = new AtomicBoolean(true);
+        antesDelUpdate = () -> cambiado.set(cambiarPuestoComoOtroUsuario(dni("Ventas", 0), "Otro"));
+
+        assertEquals(3, empleadoRepository.renombrarPuesto(empresa.getId(), "Ventas" + prueba, "Comercial" + prueba));
+
+        assertFalse(cambiado.get());
+        assertEquals("Comercial" + prueba, empleadoRepository.leer(dni("Ventas", 0)).orElseThrow().getPuesto());
+    }
+
+    @Test
+    void empleadoAnadidoALaVezProduceUnConflictoYDeshaceElMovimiento() {
+        crearEmpleados(origen, "Ventas", 4);
+        antesDelUpdate = () -> anadirComoOtroUsuario(dni("Ventas", 4), "Ventas" + prueba, origen);
+
+        ConflictoConcurrenciaException conflicto = assertThrows(ConflictoConcurrenciaException.class,
+                () -> empleadoRepository.moverEmpleados(origen.getId(), "Ventas" + prueba, destino.getId()));
+
+        assertEquals("Empleado", conflicto.getEntidad());
+        sessionFactory.getCache().evictAllRegions(); // El otro usuario ha escrito sin pasar por Hibernate
+        assertEquals(5, numEmpleados(origen));
+        assertEquals(0, numEmpleados(destino));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(origen.getId(), empleadoRepository.leer(dni("Ventas", i), Empleado.GRAFO_CON_DEPARTAMENTO)
+                    .orElseThrow().getDepartamento().getId());
+        }
+    }
+
+    /**
+     * Crea empleados de un puesto en un departamento.
+     *
+     * @param departamento Departamento de los empleados.
+     * @param puesto       Puesto, al que se añade el número de la prueba.
+     * @param numero       Número de empleados.
+     */
+    private static void crearEmpleados(Departamento departamento, String puesto, int numero) {
+        List<Empleado> empleados = new ArrayList<>();
+        for (int i = 0; i < numero; i++) {
+            empleados.add(new Empleado(dni(puesto, i), "Nombre" + i, "Apellido" + i, puesto + prueba, departamento));
+        }
+        empleadoRepository.crearTodos(empleados);
+    }
+
+    /**
+     * Intenta cambiar el puesto de un empleado con una conexión propia que confirma al momento, como otro
+     * usuario, esperando como mucho {@link #ESPERA_BLOQUEO_MS} a que la fila quede libre.
+     *
+     * @param dni    DNI del empleado.
+     * @param puesto Nuevo puesto.
+     * @return true si ha podido cambiarlo, false si la fila seguía bloqueada.
+     */
+    private static boolean cambiarPuestoComoOtroUsuario(String dni, String puesto) {
+        try (Connection conexion = DriverManager.getConnection(BaseDeDatosPruebas.url(BASE_DE_DATOS), "sa", "");
+             Statement espera = conexion.createStatement();
+             PreparedStatement actualizacion = conexion.prepareStatement(
+                     "update empleados set puesto = ?, version = version + 1 where dni = ?")) {
+            espera.execute("set lock_timeout " + ESPERA_BLOQUEO_MS);
+            actualizacion.setString(1, puesto);
+            actualizacion.setString(2, dni);
+            actualizacion.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Añade un empleado con una conexión propia que confirma al momento, como otro usuario, con sus contadores.
+     *
+     * @param dni          DNI del empleado.
+     * @param puesto       Puesto del empleado.
+     * @param departamento Departamento del empleado.
+     */
+    private void anadirComoOtroUsuario(String dni, String puesto, Departamento departamento) {
+        try (Connection conexion = DriverManager.getConnection(BaseDeDatosPruebas.url(BASE_DE_DATOS), "sa", "");
+             PreparedStatement alta = conexion.prepareStatement("insert into empleados (dni, nombre, apellido, puesto,"
+                     + " departamento_id, version) values (?, 'Nombre', 'Apellido', ?, ?, 0)");
+             PreparedStatement enDepartamento = conexion.prepareStatement(
+                     "update departamentos set num_empleados = num_empleados + 1 where id = ?");
+             PreparedStatement enEmpresa = conexion.prepareStatement(
+                     "update empresas set num_empleados = num_empleados + 1 where id = ?")) {
+            alta.setString(1, dni);
+            alta.setString(2, puesto);
+            alta.setInt(3, departamento.getId());
+            alta.executeUpdate();
+            enDepartamento.setInt(1, departamento.getId());
+            enDepartamento.executeUpdate();
+            enEmpresa.setInt(1, empresa.getId());
+            enEmpresa.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Lee el contador de empleados de un departamento.
+     *
+     * @param departamento Departamento.
+     * @return Número de empleados guardado en el departamento.
+     */
+    private static int numEmpleados(Departamento departamento) {
+        return departamentoRepository.leer(departamento.getId()).orElseThrow().getNumEmpleados();
+    }
+
+    /**
+     * Construye el DNI de un empleado de la prueba en curso.
+     *
+     * @param puesto Puesto del empleado.
+     * @param numero Número del empleado dentro del puesto.
+     * @return DNI único.
+     */
+    private static String dni(String puesto, int numero) {
+        return puesto.charAt(0) + "" + prueba + "-" + numero;
+    }
+}
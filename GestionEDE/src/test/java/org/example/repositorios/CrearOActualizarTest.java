@@ -0,0 +1,182 @@
+package org.example.repositorios;
+
+import org.example.PruebaConBaseDeDatos;
+import org.example.busqueda.Coincidencia;
+import org.example.busqueda.IndiceEmpleados;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba {@code crearOActualizar}: con identificador asignado, el {@code INSERT ... ON DUPLICATE KEY UPDATE}
+ * (en el modo MySQL de H2) crea o sustituye la fila, mantiene los contadores también si cambia el departamento
+ * y no deja la fila anterior en la caché ni en el índice de búsqueda; con identificador generado, crea las
+ * entidades nuevas y actualiza con la versión las existentes.
+ */
+class CrearOActualizarTest extends PruebaConBaseDeDatos {
+
+    /**
+     * Unidad de trabajo compartida por los repositorios.
+     */
+    private static UnidadDeTrabajo unidadDeTrabajo;
+
+    /**
+     * Índice de búsqueda registrado en la fábrica de sesiones.
+     */
+    private static IndiceEmpleados indice;
+
+    /**
+     * Empresa de los departamentos de prueba.
+     */
+    private static Empresa empresa;
+
+    /**
+     * Departamento de los empleados de prueba.
+     */
+    private static Departamento departamento;
+
+    /**
+     * Departamento al que se mueven empleados.
+     */
+    private static Departamento otroDepartamento;
+
+    @BeforeAll
+    static void crearBaseDeDatos() {
+        abrir("upsert");
+        unidadDeTrabajo = new UnidadDeTrabajo(sessionFactory);
+        indice = IndiceEmpleados.registrar(sessionFactory);
+        empresa = crearEmpresa("Empresa");
+        departamento = new Departamento("Ventas", empresa);
+        otroDepartamento = new Departamento("Compras", empresa);
+        departamentoRepository.crearTodos(List.of(departamento, otroDepartamento));
+    }
+
+    @Test
+    void creaElEmpleadoSiNoExiste() {
+        int antes = numEmpleados(departamento);
+
+        assertTrue(empleadoRepository.crearOActualizar(empleado("Puesto", departamento)));
+
+        assertTrue(empleadoRepository.existe(dni(0)));
+        assertEquals(antes + 1, numEmpleados(departamento));
+    }
+
+    @Test
+    void sustituyeElEmpleadoSiExiste() {
+        empleadoRepository.crear(empleado("Puesto", departamento));
+        int version = leer().getVersion(); // También en la caché de segundo nivel
+        int antes = numEmpleados(departamento);
+
+        assertFalse(empleadoRepository.crearOActualizar(empleado("Jefe", departamento)));
+
+        Empleado actual = leer();
+        assertEquals("Jefe", actual.getPuesto());
+        assertEquals(version + 1, actual.getVersion());
+        assertEquals(antes, numEmpleados(departamento));
+    }
+
+    @Test
+    void cambiarElDepartamentoMueveLosContadores() {
+        empleadoRepository.crear(empleado("Puesto", departamento));
+        int enOrigen = numEmpleados(departamento);
+        int enDestino = numEmpleados(otroDepartamento);
+
+        assertFalse(empleadoRepository.crearOActualizar(empleado("Puesto", otroDepartamento)));
+
+        assertEquals(otroDepartamento.getId(), empleadoRepository.leer(dni(0), Empleado.GRAFO_CON_DEPARTAMENTO)
+                .orElseThrow().getDepartamento().getId());
+        assertEquals(enOrigen - 1, numEmpleados(departamento));
+        assertEquals(enDestino + 1, numEmpleados(otroDepartamento));
+    }
+
+    @Test
+    void elIndiceDeBusquedaRecibeLosCambios() {
+        indice.cargar();
+
+        empleadoRepository.crearOActualizar(empleado("Buzo" + prueba, departamento));
+        assertEquals(List.of(dni(0)), buscar("buzo" + prueba));
+        empleadoRepository.crearOActualizar(empleado("Piloto" + prueba, departamento));
+
+        assertEquals(List.of(), buscar("buzo" + prueba));
+        assertEquals(List.of(dni(0)), buscar("piloto" + prueba));
+    }
+
+    @Test
+    void dentroDeUnaUnidadDeTrabajoRefrescaLaEntidadCargada() {
+        empleadoRepository.crear(empleado("Puesto", departamento));
+
+        String puesto = unidadDeTrabajo.ejecutar(() -> {
+            Empleado cargado = leer();
+            empleadoRepository.crearOActualizar(empleado("Jefe", departamento));
+            return cargado.getPuesto();
+        });
+
+        assertEquals("Jefe", puesto);
+    }
+
+    @Test
+    void conIdentificadorGeneradoCreaOActualizaConLaVersion() {
+        Departamento nuevo = new Departamento("Nuevo" + prueba, empresa);
+        assertTrue(departamentoRepository.crearOActualizar(nuevo));
+        assertNotEquals(0, nuevo.getId());
+
+        Departamento leido = departamentoRepository.leer(nuevo.getId()).orElseThrow();
+        Departamento obsoleto = departamentoRepository.leer(nuevo.getId()).orElseThrow();
+        leido.setNombre("Renombrado" + prueba);
+        assertFalse(departamentoRepository.crearOActualizar(leido));
+        assertEquals("Renombrado" + prueba, departamentoRepository.leer(nuevo.getId()).orElseThrow().getNombre());
+
+        obsoleto.setNombre("Obsoleto" + prueba);
+        assertThrows(ConflictoConcurrenciaException.class, () -> departamentoRepository.crearOActualizar(obsoleto));
+    }
+
+    /**
+     * Lee el empleado de la prueba en curso.
+     *
+     * @return Empleado leído.
+     */
+    private static Empleado leer() {
+        return empleadoRepository.leer(dni(0)).orElseThrow();
+    }
+
+    /**
+     * Lee el contador de empleados de un departamento.
+     *
+     * @param departamento Departamento.
+     * @return Número de empleados guardado en el departamento.
+     */
+    private static int numEmpleados(Departamento departamento) {
+        return departamentoRepository.leer(departamento.getId()).orElseThrow().getNumEmpleados();
+    }
+
+    /**
+     * Busca un texto en el índice.
+     *
+     * @param texto Texto a buscar.
+     * @return DNI de los resultados.
+     */
+    private static List<String> buscar(String texto) {
+        return indice.buscar(texto, 10).stream().map(Coincidencia::dni).toList();
+    }
+
+    /**
+     * Crea sin persistir el empleado de la prueba en curso.
+     *
+     * @param puesto       Puesto del empleado.
+     * @param departamento Departamento del empleado.
+     * @return Empleado nuevo.
+     */
+    private static Empleado empleado(String puesto, Departamento departamento) {
+        return new Empleado(dni(0), "Nombre", "Apellido", puesto, departamento);
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.repositorios;
+
+import org.example.BaseDeDatosPruebas;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba cuántas sentencias SQL preparan {@code leer} y {@code listar} con cada grafo de entidad,
+ * con la caché de segundo nivel vacía: los grafos deben cargar sus asociaciones en la misma consulta
+ * y, sin grafo, las asociaciones diferidas no deben cargarse.
+ */
+class GrafosEntidadTest {
+
+    /**
+     * Empleados de prueba, repartidos entre dos departamentos.
+     */
+    private static final int EMPLEADOS = 10;
+
+    /**
+     * Fábrica de sesiones de la base de datos de pruebas.
+     */
+    private static SessionFactory sessionFactory;
+
+    /**
+     * Repositorio de empleados a probar.
+     */
+    private static EmpleadoRepository empleadoRepository;
+
+    /**
+     * Repositorio de departamentos a probar.
+     */
+    private static DepartamentoRepository departamentoRepository;
+
+    /**
+     * Departamento con la mitad de los empleados.
+     */
+    private static Departamento departamento;
+
+    @BeforeAll
+    static void crearDatos() {
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory("grafos");
+        empleadoRepository = new EmpleadoRepository(sessionFactory);
+        departamentoRepository = new DepartamentoRepository(sessionFactory);
+
+        Empresa empresa = new Empresa("Empresa", "Pruebas");
+        new EmpresaRepository(sessionFactory).crear(empresa);
+        departamento = new Departamento("Ventas", empresa);
+        Departamento otro = new Departamento("Compras", empresa);
+        departamentoRepository.crearTodos(List.of(departamento, otro));
+        List<Empleado> empleados = new ArrayList<>();
+        for (int i = 0; i < EMPLEADOS; i++) {
+            empleados.add(new Empleado("G" + i, "Nombre" + i, "Apellido" + i, "Puesto", i % 2 == 0 ? departamento : otro));
+        }
+        empleadoRepository.crearTodos(empleados);
+    }
+
+    @AfterAll
+    static void cerrar() {
+        sessionFactory.close();
+    }
+
+    @BeforeEach
+    void vaciarCache() {
+        sessionFactory.getCache().evictAllRegions(); // Todas las lecturas van a la base de datos
+        sessionFactory.getStatistics().clear();
+    }
+
+    @Test
+    void leerSinGrafoNoCargaElDepartamento() {
+        Empleado empleado = empleadoRepository.leer("G0").orElseThrow();
+
+        assertEquals(1, sentencias());
+        assertFalse(Hibernate.isInitialized(empleado.getDepartamento()));
+    }
+
+    @Test
+    void leerConGrafoBasicoNoCargaElDepartamento() {
+        Empleado empleado = empleadoRepository.leer("G0", Empleado.GRAFO_BASICO).orElseThrow();
+
+        assertEquals(1, sentencias());
+        assertFalse(Hibernate.isInitialized(empleado.getDepartamento()));
+    }
+
+    @Test
+    void leerConGrafoConDepartamentoLoCargaEnLaMismaConsulta() {
+        Empleado empleado = empleadoRepository.leer("G0", Empleado.GRAFO_CON_DEPARTAMENTO).orElseThrow();
+
+        assertEquals(1, sentencias());
+        assertTrue(Hibernate.isInitialized(empleado.getDepartamento()));
+        assertEquals("Ventas", empleado.getDepartamento().getNombre());
+    }
+
+    @Test
+    void listarConGrafoBasicoEsUnaConsulta() {
+        Page<Empleado> pagina = empleadoRepository.listar(PageRequest.primera(EMPLEADOS).conGrafo(Empleado.GRAFO_BASICO));
+
+        assertEquals(EMPLEADOS, pagina.contenido().size());
+        assertEquals(1, sentencias());
+        pagina.contenido().forEach(empleado -> assertFalse(Hibernate.isInitialized(empleado.getDepartamento())));
+    }
+
+    @Test
+    void listarConGrafoConDepartamentoEsUnaConsulta() {
+        Page<Empleado> pagina = empleadoRepository.listar(PageRequest.primera(EMPLEADOS).conGrafo(Empleado.GRAFO_CON_DEPARTAMENTO));
+
+        assertEquals(EMPLEADOS, pagina.contenido().size());
+        assertEquals(1, sentencias()); // Sin N+1: los dos departamentos llegan en la misma consulta
+        pagina.contenido().forEach(empleado -> assertTrue(Hibernate.isInitialized(empleado.getDepartamento())));
+    }
+
+    @Test
+    void leerDepartamentoConGrafoConEmpresaLaCargaEnLaMismaConsulta() {
+        Departamento leido = departamentoRepository.leer(departamento.getId(), Departamento.GRAFO_CON_EMPRESA).orElseThrow();
+
+        assertEquals(1, sentencias());
+        assertTrue(Hibernate.isInitialized(leido.getEmpresa()));
+        assertEquals("Empresa", leido.getEmpresa().getNombre());
+    }
+
+    @Test
+    void listarDepartamentosConYSinGrafo() {
+        Page<Departamento> sinGrafo = departamentoRepository.listar(PageRequest.primera(10));
+        assertEquals(1, sentencias());
+        sinGrafo.contenido().forEach(leido -> assertFalse(Hibernate.isInitialized(leido.getEmpresa())));
+
+        vaciarCache();
+        Page<Departamento> conGrafo = departamentoRepository.listar(PageRequest.primera(10).conGrafo(Departamento.GRAFO_CON_EMPRESA));
+        assertEquals(1, sentencias());
+        conGrafo.contenido().forEach(leido -> assertTrue(Hibernate.isInitialized(leido.getEmpresa())));
+    }
+
+    /**
+     * Obtiene las sentencias preparadas desde el inicio de la prueba.
+     *
+     * @return Número de sentencias preparadas por Hibernate.
+     */
+    private static long sentencias() {
+        Statistics estadisticas = sessionFactory.getStatistics();
+        return estadisticas.getPrepareStatementCount();
+    }
+}
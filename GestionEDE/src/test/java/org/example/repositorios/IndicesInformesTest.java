@@ -0,0 +1,213 @@
+package org.example.repositorios;
+
+import org.example.BaseDeDatosPruebas;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.example.informes.EmpleadoResumen;
+import org.example.metricas.ConsultaLenta;
+import org.example.metricas.ConsultasLentas;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba con {@code EXPLAIN} que las consultas de {@link InformeRepository} usan los índices declarados
+ * en las entidades y que, como tras la migración V3, la clave ajena de empleados se apoya en el índice compuesto.
+ * Las sentencias se capturan con {@link ConsultasLentas} para explicar exactamente el SQL que genera Hibernate.
+ */
+class IndicesInformesTest {
+
+    /**
+     * Índice compuesto de los empleados de un departamento ordenados por apellido y nombre.
+     */
+    private static final String INDICE_EMPLEADOS = "idx_empleados_departamento_apellido_nombre";
+
+    /**
+     * Índice de los departamentos de una empresa.
+     */
+    private static final String INDICE_DEPARTAMENTOS = "idx_departamentos_empresa";
+
+    /**
+     * Fábrica de sesiones de la base de datos de pruebas.
+     */
+    private static SessionFactory sessionFactory;
+
+    /**
+     * Repositorio de informes a probar.
+     */
+    private static InformeRepository informeRepository;
+
+    /**
+     * Empresa con los departamentos del informe.
+     */
+    private static Empresa empresa;
+
+    /**
+     * Departamento con los empleados del informe.
+     */
+    private static Departamento departamento;
+
+    @BeforeAll
+    static void crearDatos() {
+        Properties propiedades = new Properties();
+        propiedades.setProperty(ConsultasLentas.UMBRAL, "0"); // Se guardan todas las sentencias
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory("indices", propiedades);
+        informeRepository = new InformeRepository(sessionFactory);
+
+        empresa = new Empresa("Empresa", "Pruebas");
+        new EmpresaRepository(sessionFactory).crear(empresa);
+        departamento = new Departamento("Ventas", empresa);
+        new DepartamentoRepository(sessionFactory).crearTodos(List.of(departamento, new Departamento("Compras", empresa)));
+        List<Empleado> empleados = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            empleados.add(new Empleado("I" + i, "Nombre" + i, "Apellido" + i, "Puesto", departamento));
+        }
+        new EmpleadoRepository(sessionFactory).crearTodos(empleados);
+
+        // Como tras V3, el único índice por departamento_id es el compuesto. H2, a diferencia de MySQL, siempre da
+        // a una clave ajena un índice propio, así que se quita la restricción para que no compita con el compuesto
+        try (Session session = sessionFactory.openSession()) {
+            session.doWork(conexion -> {
+                try (Statement sentencia = conexion.createStatement()) {
+                    String claveAjena;
+                    try (ResultSet filas = sentencia.executeQuery("select constraint_name from information_schema.table_constraints"
+                            + " where table_name = 'empleados' and constraint_type = 'FOREIGN KEY'")) {
+                        filas.next();
+                        claveAjena = filas.getString(1);
+                    }
+                    sentencia.execute("alter table empleados drop constraint " + claveAjena);
+                }
+            });
+        }
+    }
+
+    @AfterAll
+    static void cerrar() {
+        ConsultasLentas.de(sessionFactory).setUmbralMs(-1); // Sin anotar el borrado del esquema al cerrar
+        sessionFactory.close();
+    }
+
+    @Test
+    void primeraPaginaDeEmpleadosUsaElIndiceCompuesto() {
+        informeRepository.empleadosDeDepartamento(departamento.getId(), null, 5);
+
+        assertTrue(plan(ultima("from Empleados")).contains(INDICE_EMPLEADOS));
+    }
+
+    @Test
+    void paginaSiguienteDeEmpleadosUsaElIndiceCompuesto() {
+        List<EmpleadoResumen> primera = informeRepository.empleadosDeDepartamento(departamento.getId(), null, 5);
+        informeRepository.empleadosDeDepartamento(departamento.getId(), primera.get(4), 5);
+
+        ConsultaLenta siguiente = ultima("from Empleados");
+        assertTrue(siguiente.getParametros().size() > 2); // La de la clave del conjunto, no la primera página
+        assertTrue(plan(siguiente).contains(INDICE_EMPLEADOS));
+    }
+
+    @Test
+    void departamentosDeUnaEmpresaUsanSuIndice() {
+        informeRepository.departamentosConEmpleados(empresa.getId(), 0, 5);
+
+        assertTrue(plan(ultima("from Departamentos")).contains(INDICE_DEPARTAMENTOS));
+    }
+
+    @Test
+    void departamentoDeEmpleadosSoloTieneElIndiceCompuesto() {
+        Set<String> indices = new TreeSet<>();
+        try (Session session = sessionFactory.openSession()) {
+            session.doWork(conexion -> {
+                try (Statement sentencia = conexion.createStatement();
+                     ResultSet filas = sentencia.executeQuery("select index_name, index_type_name from information_schema.indexes"
+                             + " where table_name = 'empleados'")) {
+                    while (filas.next()) {
+                        if (!"PRIMARY KEY".equals(filas.getString(2))) {
+                            indices.add(filas.getString(1));
+                        }
+                    }
+                }
+            });
+        }
+
+        assertEquals(Set.of(INDICE_EMPLEADOS), indices);
+        assertTrue(plan("select dni from empleados where departamento_id = ?", List.of(departamento.getId())).contains(INDICE_EMPLEADOS));
+    }
+
+    @Test
+    void migracionV3CreaLosIndicesDeLasEntidades() throws IOException {
+        String migracion;
+        try (InputStream entrada = getClass().getResourceAsStream("/db/migration/V3__indices_y_longitudes.sql")) {
+            assertNotNull(entrada);
+            migracion = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        int creaCompuesto = migracion.indexOf("ADD INDEX " + INDICE_EMPLEADOS + " (departamento_id, apellido, nombre)");
+        assertTrue(creaCompuesto >= 0);
+        assertTrue(migracion.indexOf("DROP INDEX departamento_id") > creaCompuesto); // La clave ajena nunca se queda sin índice
+        assertTrue(migracion.contains("RENAME INDEX empresa_id TO " + INDICE_DEPARTAMENTOS));
+    }
+
+    /**
+     * Busca la última consulta guardada sobre una tabla.
+     *
+     * @param desde Fragmento {@code from} de la consulta.
+     * @return Consulta más reciente que lo contiene.
+     */
+    private static ConsultaLenta ultima(String desde) {
+        return ConsultasLentas.de(sessionFactory).recientes().stream()
+                .filter(consulta -> consulta.getSql().startsWith("select") && consulta.getSql().contains(desde))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * Obtiene el plan de una consulta guardada con sus mismos parámetros.
+     *
+     * @param consulta Consulta capturada.
+     * @return Plan de ejecución de H2.
+     */
+    private static String plan(ConsultaLenta consulta) {
+        return plan(consulta.getSql(), consulta.getParametros());
+    }
+
+    /**
+     * Obtiene el plan de ejecución de una consulta.
+     *
+     * @param sql        Texto SQL.
+     * @param parametros Parámetros de la consulta.
+     * @return Plan de ejecución de H2, en minúsculas.
+     */
+    private static String plan(String sql, List<Object> parametros) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.doReturningWork(conexion -> {
+                try (PreparedStatement sentencia = conexion.prepareStatement("EXPLAIN " + sql)) {
+                    for (int i = 0; i < parametros.size(); i++) {
+                        sentencia.setObject(i + 1, parametros.get(i));
+                    }
+                    try (ResultSet filas = sentencia.executeQuery()) {
+                        filas.next();
+                        return filas.getString(1).toLowerCase();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.repositorios;
+
+import org.example.PruebaConBaseDeDatos;
+import org.example.configuracion.ContextoInquilino;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que, con una empresa activa en {@link ContextoInquilino}, las escrituras de los repositorios
+ * rechazan las entidades de otra empresa y las que se asocian a otra empresa, y que las operaciones de
+ * {@link AsyncRepository} se ejecutan con la empresa activa del hilo que las lanza.
+ */
+class InquilinoEscriturasTest extends PruebaConBaseDeDatos {
+
+    /**
+     * Ejecutor de las operaciones asíncronas.
+     */
+    private static EjecutorRepositorios ejecutor;
+
+    /**
+     * Empresa activa en las pruebas.
+     */
+    private Empresa propia;
+
+    /**
+     * Departamento de la empresa activa.
+     */
+    private Departamento departamentoPropio;
+
+    /**
+     * Empresa de otro inquilino.
+     */
+    private Empresa ajena;
+
+    /**
+     * Departamento de la otra empresa.
+     */
+    private Departamento departamentoAjeno;
+
+    /**
+     * Empleado de la otra empresa.
+     */
+    private Empleado empleadoAjeno;
+
+    @BeforeAll
+    static void crearBaseDeDatos() {
+        abrir("inquilinos");
+        ejecutor = new EjecutorRepositorios(2);
+    }
+
+    @AfterAll
+    static void cerrarEjecutor() {
+        ejecutor.close();
+    }
+
+    @BeforeEach
+    void crearEmpresas() {
+        propia = crearEmpresa("Propia");
+        ajena = crearEmpresa("Ajena");
+        departamentoPropio = new Departamento("Ventas", propia);
+        departamentoAjeno = new Departamento("Compras", ajena);
+        departamentoRepository.crearTodos(List.of(departamentoPropio, departamentoAjeno));
+        empleadoAjeno = empleado(0, departamentoAjeno);
+        empleadoRepository.crear(empleadoAjeno);
+    }
+
+    @Test
+    void noSeModificaOtraEmpresa() {
+        Empresa copia = empresaRepository.leer(ajena.getId()).orElseThrow();
+        copia.setNombre("Renombrada");
+
+        assertThrows(IllegalArgumentException.class, () -> comoPropia(() -> empresaRepository.actualizar(copia)));
+        assertThrows(IllegalArgumentException.class, () -> comoPropia(() -> empresaRepository.actualizarTodos(List.of(copia))));
+
+        assertEquals("Ajena" + prueba, empresaRepository.leer(ajena.getId()).orElseThrow().getNombre());
+    }
+
+    @Test
+    void noSeCreaUnDepartamentoEnOtraEmpresa() {
+        assertThrows(IllegalArgumentException.class,
+                () -> comoPropia(() -> departamentoRepository.crear(new Departamento("intruso", ajena))));
+        assertThrows(IllegalArgumentException.class, () -> comoPropia(() -> departamentoRepository.crearTodos(
+                List.of(new Departamento("Legal", propia), new Departamento("intruso", ajena)))));
+
+        assertEquals(1, empresaRepository.leer(ajena.getId()).orElseThrow().getNumDepartamentos());
+        assertEquals(1, empresaRepository.leer(propia.getId()).orElseThrow().getNumDepartamentos()); // Se deshace el lote
+    }
+
+    @Test
+    void noSeMueveUnEmpleadoEntreEmpresas() {
+        Empleado traido = empleadoRepository.leer(empleadoAjeno.getDni()).orElseThrow();
+        traido.setDepartamento(departamentoPropio);
+        Empleado llevado = empleado(1, departamentoPropio);
+        comoPropia(() -> empleadoRepository.crear(llevado));
+        llevado.setDepartamento(departamentoAjeno);
+
+        assertThrows(IllegalArgumentException.class, () -> comoPropia(() -> empleadoRepository.actualizar(traido)));
+        assertThrows(IllegalArgumentException.class, () -> comoPropia(() -> empleadoRepository.actualizar(llevado)));
+
+        assertEquals(departamentoAjeno.getId(), departamentoDe(empleadoAjeno.getDni()));
+        assertEquals(departamentoPropio.getId(), departamentoDe(llevado.getDni()));
+    }
+
+    @Test
+    void dentroDeLaEmpresaActivaSeEscribe() {
+        Empleado empleado = empleado(1, departamentoPropio);
+        comoPropia(() -> empleadoRepository.crear(empleado));
+        Departamento otro = new Departamento("Legal", propia);
+        comoPropia(() -> departamentoRepository.crear(otro));
+        empleado.setDepartamento(otro);
+        comoPropia(() -> empleadoRepository.actualizar(empleado));
+        Empresa empresa = empresaRepository.leer(propia.getId()).orElseThrow();
+        empresa.setNombre("Renombrada" + prueba);
+        comoPropia(() -> empresaRepository.actualizar(empresa));
+
+        assertEquals(otro.getId(), departamentoDe(empleado.getDni()));
+        assertEquals("Renombrada" + prueba, empresaRepository.leer(propia.getId()).orElseThrow().getNombre());
+    }
+
+    @Test
+    void lasOperacionesAsincronasUsanLaEmpresaActiva() {
+        AsyncRepository<Empleado, String> empleados = new AsyncRepository<>(empleadoRepository, ejecutor);
+        AsyncRepository<Departamento, Integer> departamentos = new AsyncRepository<>(departamentoRepository, ejecutor);
+
+        assertTrue(empleados.leer(empleadoAjeno.getDni()).join().isPresent());
+        ContextoInquilino.conEmpresa(propia.getId(), () -> {
+            assertFalse(empleados.leer(empleadoAjeno.getDni()).join().isPresent());
+            CompletionException error = assertThrows(CompletionException.class,
+                    () -> departamentos.crear(new Departamento("intruso", ajena)).join());
+            assertInstanceOf(IllegalArgumentException.class, error.getCause());
+            return null;
+        });
+
+        assertEquals(1, empresaRepository.leer(ajena.getId()).orElseThrow().getNumDepartamentos());
+    }
+
+    /**
+     * Ejecuta una escritura con la empresa propia activa.
+     *
+     * @param escritura Escritura a ejecutar.
+     */
+    private void comoPropia(Runnable escritura) {
+        ContextoInquilino.conEmpresa(propia.getId(), () -> {
+            escritura.run();
+            return null;
+        });
+    }
+
+    /**
+     * Lee, sin empresa activa, el departamento de un empleado.
+     *
+     * @param dni DNI del empleado.
+     * @return Identificador de su departamento.
+     */
+    private static int departamentoDe(String dni) {
+        return empleadoRepository.leer(dni, Empleado.GRAFO_CON_DEPARTAMENTO).orElseThrow().getDepartamento().getId();
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.repositorios;
+
+import org.example.PruebaConBaseDeDatos;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Comprueba el bloqueo optimista con {@code @Version} a través de {@code actualizar}: cada actualización
+ * incrementa la versión, una copia obsoleta o de una entidad borrada produce una
+ * {@link ConflictoConcurrenciaException} sin aplicar ningún cambio, y
+ * {@link UnidadDeTrabajo#reintentar} repite el trabajo tras un conflicto.
+ */
+class VersionesTest extends PruebaConBaseDeDatos {
+
+    /**
+     * Unidad de trabajo compartida por los repositorios.
+     */
+    private static UnidadDeTrabajo unidadDeTrabajo;
+
+    /**
+     * Departamento de los empleados de prueba.
+     */
+    private static Departamento departamento;
+
+    @BeforeAll
+    static void crearBaseDeDatos() {
+        abrir("versiones");
+        unidadDeTrabajo = new UnidadDeTrabajo(sessionFactory);
+        departamento = new Departamento("Ventas", crearEmpresa("Empresa"));
+        departamentoRepository.crear(departamento);
+    }
+
+    @BeforeEach
+    void crearEmpleados() {
+        empleadoRepository.crearTodos(List.of(empleado(0, departamento), empleado(1, departamento)));
+    }
+
+    @Test
+    void actualizarIncrementaLaVersion() {
+        Empleado empleado = leer(0);
+        int version = empleado.getVersion();
+        empleado.setPuesto("Jefe");
+        empleadoRepository.actualizar(empleado);
+
+        assertEquals(version + 1, leer(0).getVersion());
+        assertEquals("Jefe", leer(0).getPuesto());
+    }
+
+    @Test
+    void copiaObsoletaProduceUnConflicto() {
+        Empleado primero = leer(0);
+        Empleado obsoleto = leer(0);
+        primero.setPuesto("Jefe");
+        empleadoRepository.actualizar(primero);
+
+        obsoleto.setPuesto("Becario");
+        ConflictoConcurrenciaException conflicto = assertThrows(ConflictoConcurrenciaException.class,
+                () -> empleadoRepository.actualizar(obsoleto));
+
+        assertEquals("Empleado", conflicto.getEntidad());
+        assertEquals(dni(0), conflicto.getId());
+        assertEquals("Jefe", leer(0).getPuesto());
+    }
+
+    @Test
+    void actualizarUnEmpleadoBorradoProduceUnConflicto() {
+        Empleado borrado = leer(0);
+        empleadoRepository.borrar(dni(0));
+
+        borrado.setPuesto("Jefe");
+        assertThrows(ConflictoConcurrenciaException.class, () -> empleadoRepository.actualizar(borrado));
+        assertFalse(empleadoRepository.existe(dni(0)));
+    }
+
+    @Test
+    void conflictoEnUnLoteNoAplicaNingunCambio() {
+        Empleado actual = leer(0);
+        Empleado obsoleto = leer(1);
+        Empleado otro = leer(1);
+        otro.setPuesto("Jefe");
+        empleadoRepository.actualizar(otro);
+
+        actual.setPuesto("Becario");
+        obsoleto.setPuesto("Becario");
+        assertThrows(ConflictoConcurrenciaException.class, () -> empleadoRepository.actualizarTodos(List.of(actual, obsoleto)));
+
+        assertEquals("Puesto", leer(0).getPuesto());
+        assertEquals("Jefe", leer(1).getPuesto());
+    }
+
+    @Test
+    void conflictoDentroDeUnaUnidadDeTrabajoLaDeshace() {
+        Empleado obsoleto = leer(1);
+        Empleado otro = leer(1);
+        otro.setPuesto("Jefe");
+        empleadoRepository.actualizar(otro);
+
+        assertThrows(ConflictoConcurrenciaException.class, () -> unidadDeTrabajo.ejecutar(() -> {
+            Empleado empleado = leer(0);
+            empleado.setPuesto("Becario");
+            empleadoRepository.actualizar(empleado);
+            obsoleto.setPuesto("Becario");
+            empleadoRepository.actualizar(obsoleto);
+        }));
+
+        assertEquals("Puesto", leer(0).getPuesto());
+    }
+
+    @Test
+    void comprobarVersionRechazaOtraVersion() {
+        Empleado empleado = leer(0);
+
+        empleadoRepository.comprobarVersion(empleado, empleado.getVersion());
+        assertThrows(ConflictoConcurrenciaException.class, () -> empleadoRepository.comprobarVersion(empleado, empleado.getVersion() + 1));
+    }
+
+    @Test
+    void reintentarRepiteElTrabajoTrasUnConflicto() {
+        AtomicInteger intentos = new AtomicInteger();
+
+        String puesto = unidadDeTrabajo.reintentar(3, () -> {
+            Empleado empleado = leer(0);
+            if (intentos.incrementAndGet() == 1) {
+                // Otro usuario cambia el empleado, en su propia transacción, después de que este trabajo lo lea
+                CompletableFuture.runAsync(() -> {
+                    Empleado otro = leer(0);
+                    otro.setNombre("Otro");
+                    empleadoRepository.actualizar(otro);
+                }).join();
+            }
+            empleado.setPuesto("Jefe");
+            empleadoRepository.actualizar(empleado);
+            return empleado.getPuesto();
+        });
+
+        assertEquals(2, intentos.get());
+        assertEquals("Jefe", puesto);
+        Empleado empleado = leer(0);
+        assertEquals("Otro", empleado.getNombre());
+        assertEquals("Jefe", empleado.getPuesto());
+    }
+
+    /**
+     * Lee un empleado de la prueba en curso.
+     *
+     * @param numero Número del empleado dentro de la prueba.
+     * @return Empleado leído.
+     */
+    private static Empleado leer(int numero) {
+        return empleadoRepository.leer(dni(numero)).orElseThrow();
+    }
+}
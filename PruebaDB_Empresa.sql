@@ -30,6 +30,20 @@ CREATE TABLE Empleados (
     FOREIGN KEY (departamento_id) REFERENCES Departamentos(id) ON DELETE CASCADE
 );
 
+-- Crear las tablas que emulan las secuencias de identificadores de Hibernate.
+-- Hibernate reserva los identificadores por bloques de 50, lo que permite insertar en lotes JDBC.
+-- El valor inicial deja margen sobre los identificadores de los datos de ejemplo.
+-- (En una base de datos ya existente las crea la migración V5 de GestionEDE con mvn flyway:migrate.)
+CREATE TABLE Empresas_seq (
+    next_val BIGINT
+);
+INSERT INTO Empresas_seq VALUES (101);
+
+CREATE TABLE Departamentos_seq (
+    next_val BIGINT
+);
+INSERT INTO Departamentos_seq VALUES (101);
+
 -- Insertar datos en la tabla de empresas
 INSERT INTO Empresas (nombre, industria) VALUES
 ('TechCorp', 'Tecnología'),
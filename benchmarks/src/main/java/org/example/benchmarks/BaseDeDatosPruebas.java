@@ -0,0 +1,119 @@
+package org.example.benchmarks;
+
+import org.example.configuracion.ConfiguracionHibernate;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.example.repositorios.DepartamentoRepository;
+import org.example.repositorios.EmpleadoRepository;
+import org.example.repositorios.EmpresaRepository;
+import org.hibernate.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Base de datos H2 en memoria, en modo MySQL, sobre la que se ejecutan los benchmarks.
+ * <p>
+ * Usa la misma configuración que la aplicación (hibernate.cfg.xml, pool, lotes y caché de segundo
+ * nivel), cambiando solo la conexión y el dialecto, y crea el esquema desde cero en cada arranque.
+ */
+final class BaseDeDatosPruebas {
+
+    /**
+     * Número de departamentos entre los que se reparten los empleados de prueba.
+     */
+    static final int DEPARTAMENTOS = 10;
+
+    /**
+     * Número de empleados que se insertan en cada transacción al poblar la base de datos.
+     */
+    private static final int EMPLEADOS_POR_TRANSACCION = 10_000;
+
+    /**
+     * Constructor privado: clase de utilidad no instanciable.
+     */
+    private BaseDeDatosPruebas() {}
+
+    /**
+     * Crea una SessionFactory sobre una base de datos H2 en memoria vacía.
+     *
+     * @param nombre Nombre de la base de datos, para que cada estado de benchmark tenga la suya.
+     * @return SessionFactory lista para usarse.
+     */
+    static SessionFactory crearSessionFactory(String nombre) {
+        Properties propiedades = new Properties();
+        propiedades.setProperty("jakarta.persistence.jdbc.url",
+                "jdbc:h2:mem:" + nombre + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        propiedades.setProperty("jakarta.persistence.jdbc.driver", "org.h2.Driver");
+        propiedades.setProperty("jakarta.persistence.jdbc.user", "sa");
+        propiedades.setProperty("jakarta.persistence.jdbc.password", "");
+        propiedades.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        propiedades.setProperty("jakarta.persistence.database-product-name", "H2");
+        propiedades.setProperty("jakarta.persistence.database-major-version", "2");
+        propiedades.setProperty("jakarta.persistence.database-minor-version", "2");
+        propiedades.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        propiedades.setProperty("hibernate.hikari.poolName", "Benchmark-" + nombre);
+        propiedades.setProperty("hibernate.hikari.registerMbeans", "false");
+        return ConfiguracionHibernate.crearSessionFactory(propiedades);
+    }
+
+    /**
+     * Inserta una empresa con {@link #DEPARTAMENTOS} departamentos y reparte entre ellos los empleados indicados.
+     * Los DNI de los empleados son "P0000000" en adelante.
+     *
+     * @param sessionFactory Fábrica de sesiones de la base de datos.
+     * @param empleados      Número de empleados a insertar.
+     * @return Departamentos creados.
+     */
+    static List<Departamento> poblar(SessionFactory sessionFactory, int empleados) {
+        EmpresaRepository empresaRepository = new EmpresaRepository(sessionFactory);
+        DepartamentoRepository departamentoRepository = new DepartamentoRepository(sessionFactory);
+        EmpleadoRepository empleadoRepository = new EmpleadoRepository(sessionFactory);
+
+        Empresa empresa = new Empresa("Benchmark", "Pruebas");
+        empresaRepository.crear(empresa);
+        List<Departamento> departamentos = new ArrayList<>(DEPARTAMENTOS);
+        for (int i = 0; i < DEPARTAMENTOS; i++) {
+            departamentos.add(new Departamento("Departamento " + i, empresa));
+        }
+        departamentoRepository.crearTodos(departamentos);
+
+        // Por bloques, para no mantener en memoria todos los empleados a la vez
+        for (int inicio = 0; inicio < empleados; inicio += EMPLEADOS_POR_TRANSACCION) {
+            empleadoRepository.crearTodos(generarEmpleados("P", inicio,
+                    Math.min(EMPLEADOS_POR_TRANSACCION, empleados - inicio), departamentos));
+        }
+        return departamentos;
+    }
+
+    /**
+     * Genera empleados sin persistir repartidos por turnos entre los departamentos indicados.
+     *
+     * @param prefijo       Prefijo del DNI.
+     * @param desde         Número del primer empleado.
+     * @param cantidad      Número de empleados a generar.
+     * @param departamentos Departamentos a los que se asignan.
+     * @return Lista de empleados nuevos.
+     */
+    static List<Empleado> generarEmpleados(String prefijo, int desde, int cantidad, List<Departamento> departamentos) {
+        List<Empleado> empleados = new ArrayList<>(cantidad);
+        for (int i = desde; i < desde + cantidad; i++) {
+            empleados.add(new Empleado(dni(prefijo, i), "Nombre" + i, "Apellido" + i, "Puesto",
+                    departamentos.get(i % departamentos.size())));
+        }
+        return empleados;
+    }
+
+    /**
+     * Construye el DNI de prueba de un empleado.
+     *
+     * @param prefijo Prefijo del DNI.
+     * @param numero  Número del empleado.
+     * @return DNI con el formato prefijo seguido de siete dígitos.
+     */
+    static String dni(String prefijo, long numero) {
+        return prefijo + String.format("%07d", numero);
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.benchmarks;
+
+import org.example.configuracion.ConfiguracionHibernate;
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.entidades.Empresa;
+import org.example.repositorios.DepartamentoRepository;
+import org.example.repositorios.EmpleadoRepository;
+import org.example.repositorios.EmpresaRepository;
+import org.hibernate.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Herramienta de línea de comandos que compara la velocidad de inserción (filas por segundo)
+ * del bucle entidad a entidad con {@code crear} frente a la inserción por lotes con {@code crearTodos}.
+ * <p>
+ * Uso: {@code java -cp target/benchmarks.jar org.example.benchmarks.BenchmarkLotes [numeroEmpleados]}
+ * (por defecto 10000). A diferencia de los benchmarks JMH, mide la base de datos configurada en
+ * hibernate.cfg.xml, que se puede cambiar con -Djakarta.persistence.jdbc.url=... Los datos de prueba se
+ * eliminan al terminar.
+ */
+public class BenchmarkLotes {
+
+    /**
+     * Método principal de la herramienta.
+     *
+     * @param args Número de empleados a insertar en cada pasada (opcional).
+     */
+    public static void main(String[] args) {
+        int numeroEmpleados = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+
+        try (SessionFactory sessionFactory = ConfiguracionHibernate.crearSessionFactory()) {
+            EmpresaRepository empresaRepository = new EmpresaRepository(sessionFactory);
+            DepartamentoRepository departamentoRepository = new DepartamentoRepository(sessionFactory);
+            EmpleadoRepository empleadoRepository = new EmpleadoRepository(sessionFactory);
+
+            // Empresa y departamento temporales a los que se asignan los empleados de prueba
+            Empresa empresa = new Empresa("Benchmark", "Pruebas");
+            empresaRepository.crear(empresa);
+            Departamento departamento = new Departamento("Benchmark", empresa);
+            departamentoRepository.crear(departamento);
+
+            try {
+                // Pasada 1: una sesión y una transacción por empleado
+                List<Empleado> empleados = generarEmpleados("U", numeroEmpleados, departamento);
+                long inicio = System.nanoTime();
+                empleados.forEach(empleadoRepository::crear);
+                imprimir("crear (entidad a entidad)", numeroEmpleados, System.nanoTime() - inicio);
+                empleadoRepository.borrarTodos(empleados.stream().map(Empleado::getDni).toList());
+
+                // Pasada 2: una única sesión con lotes JDBC
+                empleados = generarEmpleados("L", numeroEmpleados, departamento);
+                inicio = System.nanoTime();
+                empleadoRepository.crearTodos(empleados);
+                imprimir("crearTodos (por lotes)", numeroEmpleados, System.nanoTime() - inicio);
+                empleadoRepository.borrarTodos(empleados.stream().map(Empleado::getDni).toList());
+            } finally {
+                empresaRepository.borrar(empresa.getId()); // Elimina en cascada el departamento temporal
+            }
+        }
+    }
+
+    /**
+     * Genera empleados de prueba con DNI únicos.
+     *
+     * @param prefijo      Prefijo del DNI para distinguir cada pasada.
+     * @param cantidad     Número de empleados a generar.
+     * @param departamento Departamento asignado a todos los empleados.
+     * @return Lista de empleados sin persistir.
+     */
+    private static List<Empleado> generarEmpleados(String prefijo, int cantidad, Departamento departamento) {
+        List<Empleado> empleados = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            empleados.add(new Empleado(prefijo + i, "Nombre" + i, "Apellido" + i, "Puesto", departamento));
+        }
+        return empleados;
+    }
+
+    /**
+     * Muestra el resultado de una pasada.
+     *
+     * @param operacion Nombre de la operación medida.
+     * @param filas     Número de filas insertadas.
+     * @param nanos     Tiempo transcurrido en nanosegundos.
+     */
+    private static void imprimir(String operacion, int filas, long nanos) {
+        double segundos = nanos / 1_000_000_000.0;
+        System.out.printf(">> %-28s %8d filas en %8.2f s -> %10.0f filas/s%n", operacion, filas, segundos, filas / segundos);
+    }
+}
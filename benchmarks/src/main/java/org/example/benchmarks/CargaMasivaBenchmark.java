@@ -0,0 +1,98 @@
+package org.example.benchmarks;
+
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.repositorios.EmpleadoRepository;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la inserción por lotes de empleados con {@code crearTodos} para varios tamaños de carga.
+ * Cada medición es una carga completa sobre la tabla vacía, por lo que se usa el modo de una sola
+ * ejecución y el resultado es el tiempo total de la carga.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CargaMasivaBenchmark {
+
+    /**
+     * Número de empleados que se insertan en cada carga.
+     */
+    @Param({"1000", "100000", "1000000"})
+    private int empleados;
+
+    /**
+     * Fábrica de sesiones de la base de datos de pruebas.
+     */
+    private SessionFactory sessionFactory;
+
+    /**
+     * Repositorio de empleados a medir.
+     */
+    private EmpleadoRepository repository;
+
+    /**
+     * Departamentos a los que se asignan los empleados.
+     */
+    private List<Departamento> departamentos;
+
+    /**
+     * Empleados a insertar en la siguiente carga; se generan fuera de la medición.
+     */
+    private List<Empleado> carga;
+
+    /**
+     * Crea la base de datos con la empresa y los departamentos, sin empleados.
+     */
+    @Setup(Level.Trial)
+    public void preparar() {
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory("carga" + empleados);
+        departamentos = BaseDeDatosPruebas.poblar(sessionFactory, 0);
+        repository = new EmpleadoRepository(sessionFactory);
+    }
+
+    /**
+     * Vacía la tabla de empleados y genera los empleados de la siguiente carga.
+     */
+    @Setup(Level.Iteration)
+    public void prepararCarga() {
+        sessionFactory.inTransaction(session -> session.createMutationQuery("DELETE FROM Empleado").executeUpdate());
+        sessionFactory.getCache().evictAllRegions();
+        carga = BaseDeDatosPruebas.generarEmpleados("M", 0, empleados, departamentos);
+    }
+
+    /**
+     * Cierra la fábrica de sesiones y elimina la base de datos.
+     */
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Inserta todos los empleados de la carga en una única transacción con lotes JDBC.
+     */
+    @Benchmark
+    public void crearTodos() {
+        repository.crearTodos(carga);
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.benchmarks;
+
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.repositorios.AsyncRepository;
+import org.example.repositorios.EjecutorRepositorios;
+import org.example.repositorios.EmpleadoRepository;
+import org.example.repositorios.Page;
+import org.example.repositorios.PageRequest;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Prueba de carga de {@link AsyncRepository}: lanza {@link #OPERACIONES} consultas por invocación
+ * manteniendo como mucho {@code concurrencia} en curso a la vez, de modo que el resultado (consultas
+ * por milisegundo) muestra cómo escala el rendimiento con la concurrencia. Por encima del tamaño del
+ * pool las consultas esperan un permiso en su hilo virtual en lugar de fallar por falta de conexiones.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrenciaBenchmark {
+
+    /**
+     * Número de consultas que se lanzan en cada invocación.
+     */
+    private static final int OPERACIONES = 4096;
+
+    /**
+     * Número de empleados con los que se puebla la base de datos.
+     */
+    private static final int EMPLEADOS = 100_000;
+
+    /**
+     * Número máximo de consultas en curso a la vez.
+     */
+    @Param({"1", "4", "16", "64", "256", "4096"})
+    private int concurrencia;
+
+    /**
+     * Fábrica de sesiones de la base de datos de pruebas.
+     */
+    private SessionFactory sessionFactory;
+
+    /**
+     * Ejecutor con tantos permisos como conexiones tiene el pool.
+     */
+    private EjecutorRepositorios ejecutor;
+
+    /**
+     * Repositorio asíncrono a medir.
+     */
+    private AsyncRepository<Empleado, String> repository;
+
+    /**
+     * Departamentos de la empresa de pruebas.
+     */
+    private List<Departamento> departamentos;
+
+    /**
+     * Crea la base de datos y la puebla antes de las mediciones.
+     */
+    @Setup(Level.Trial)
+    public void preparar() {
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory("concurrencia" + concurrencia);
+        departamentos = BaseDeDatosPruebas.poblar(sessionFactory, EMPLEADOS);
+        ejecutor = new EjecutorRepositorios(sessionFactory);
+        repository = new AsyncRepository<>(new EmpleadoRepository(sessionFactory), ejecutor);
+    }
+
+    /**
+     * Espera a las operaciones pendientes y cierra la base de datos.
+     */
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        ejecutor.close();
+        sessionFactory.close();
+    }
+
+    /**
+     * Lecturas por clave primaria (se resuelven en su mayoría desde la caché de segundo nivel).
+     *
+     * @return Último resultado, para que JMH no elimine las consultas.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPERACIONES)
+    public Optional<Empleado> leer() {
+        return lanzar(() -> repository.leer(BaseDeDatosPruebas.dni("P", ThreadLocalRandom.current().nextInt(EMPLEADOS))));
+    }
+
+    /**
+     * Primera página de empleados de un departamento; siempre consulta la base de datos y ocupa una conexión.
+     *
+     * @return Último resultado, para que JMH no elimine las consultas.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPERACIONES)
+    public Page<Empleado> listar() {
+        return lanzar(() -> {
+            Departamento departamento = departamentos.get(ThreadLocalRandom.current().nextInt(departamentos.size()));
+            return repository.listar(PageRequest.primera(20).filtrando("departamento.id", departamento.getId()));
+        });
+    }
+
+    /**
+     * Lanza {@link #OPERACIONES} consultas con como mucho {@link #concurrencia} en curso y espera a todas.
+     *
+     * @param consulta Lanza una consulta asíncrona.
+     * @param <R>      Tipo del resultado de la consulta.
+     * @return Resultado de la última consulta.
+     */
+    private <R> R lanzar(Supplier<CompletableFuture<R>> consulta) {
+        Semaphore enCurso = new Semaphore(concurrencia);
+        List<CompletableFuture<R>> futuros = new ArrayList<>(OPERACIONES);
+        for (int i = 0; i < OPERACIONES; i++) {
+            enCurso.acquireUninterruptibly();
+            futuros.add(consulta.get().whenComplete((resultado, error) -> enCurso.release()));
+        }
+        CompletableFuture.allOf(futuros.toArray(new CompletableFuture[0])).join();
+        return futuros.get(OPERACIONES - 1).join();
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.benchmarks;
+
+import org.example.entidades.Departamento;
+import org.example.entidades.Empleado;
+import org.example.repositorios.EmpleadoRepository;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mide las operaciones CRUD de {@link org.example.repositorios.BaseRepository} sobre empleados,
+ * con una tabla de {@link #EMPLEADOS} empleados. Cada operación abre su propia sesión y transacción,
+ * igual que desde los menús, y las lecturas pasan por la caché de segundo nivel configurada.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CrudBenchmark {
+
+    /**
+     * Número de empleados con los que se puebla la base de datos.
+     */
+    private static final int EMPLEADOS = 10_000;
+
+    /**
+     * Fábrica de sesiones de la base de datos de pruebas.
+     */
+    private SessionFactory sessionFactory;
+
+    /**
+     * Repositorio de empleados a medir.
+     */
+    private EmpleadoRepository repository;
+
+    /**
+     * Departamentos a los que se asignan los empleados nuevos.
+     */
+    private List<Departamento> departamentos;
+
+    /**
+     * Contador para generar DNI no repetidos en las inserciones.
+     */
+    private final AtomicLong siguienteDni = new AtomicLong();
+
+    /**
+     * Crea la base de datos y la puebla antes de las mediciones.
+     */
+    @Setup(Level.Trial)
+    public void preparar() {
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory("crud");
+        departamentos = BaseDeDatosPruebas.poblar(sessionFactory, EMPLEADOS);
+        repository = new EmpleadoRepository(sessionFactory);
+    }
+
+    /**
+     * Cierra la fábrica de sesiones y elimina la base de datos.
+     */
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Empleado insertado antes de cada invocación de {@link #borrar(EmpleadoABorrar)}, para que cada
+     * borrado elimine una fila existente. Se prepara por invocación porque cada borrado tarda bastante
+     * más que el coste de preparación que añade JMH.
+     */
+    @State(Scope.Thread)
+    public static class EmpleadoABorrar {
+
+        /**
+         * DNI del empleado a borrar en la siguiente invocación.
+         */
+        private String dni;
+
+        /**
+         * Inserta el empleado que se borrará en la siguiente invocación.
+         *
+         * @param crud Estado compartido del benchmark.
+         */
+        @Setup(Level.Invocation)
+        public void insertar(CrudBenchmark crud) {
+            Empleado empleado = crud.nuevoEmpleado("B");
+            crud.repository.crear(empleado);
+            dni = empleado.getDni();
+        }
+    }
+
+    /**
+     * Inserta un empleado nuevo.
+     */
+    @Benchmark
+    public void crear() {
+        repository.crear(nuevoEmpleado("C"));
+    }
+
+    /**
+     * Lee un empleado existente elegido al azar.
+     *
+     * @return Empleado leído, para que JMH no elimine la lectura.
+     */
+    @Benchmark
+    public Optional<Empleado> leer() {
+        return repository.leer(dniAleatorio());
+    }
+
+    /**
+     * Lee un empleado existente junto con su departamento usando el grafo de entidad.
+     *
+     * @return Empleado leído, para que JMH no elimine la lectura.
+     */
+    @Benchmark
+    public Optional<Empleado> leerConDepartamento() {
+        return repository.leer(dniAleatorio(), Empleado.GRAFO_CON_DEPARTAMENTO);
+    }
+
+    /**
+     * Cambia el puesto de un empleado existente elegido al azar.
+     */
+    @Benchmark
+    public void actualizar() {
+        Departamento departamento = departamentos.get(ThreadLocalRandom.current().nextInt(departamentos.size()));
+        Empleado empleado = new Empleado(dniAleatorio(), "Nombre", "Apellido",
+                "Puesto " + ThreadLocalRandom.current().nextInt(100), departamento);
+        repository.actualizar(empleado);
+    }
+
+    /**
+     * Borra un empleado existente.
+     *
+     * @param empleado Empleado insertado para esta invocación.
+     */
+    @Benchmark
+    public void borrar(EmpleadoABorrar empleado) {
+        repository.borrar(empleado.dni);
+    }
+
+    /**
+     * Crea un empleado sin persistir con un DNI no usado.
+     *
+     * @param prefijo Prefijo del DNI.
+     * @return Empleado nuevo.
+     */
+    private Empleado nuevoEmpleado(String prefijo) {
+        Departamento departamento = departamentos.get(ThreadLocalRandom.current().nextInt(departamentos.size()));
+        return new Empleado(BaseDeDatosPruebas.dni(prefijo, siguienteDni.getAndIncrement()),
+                "Nombre", "Apellido", "Puesto", departamento);
+    }
+
+    /**
+     * Elige al azar el DNI de uno de los empleados con los que se pobló la base de datos.
+     *
+     * @return DNI existente.
+     */
+    private static String dniAleatorio() {
+        return BaseDeDatosPruebas.dni("P", ThreadLocalRandom.current().nextInt(EMPLEADOS));
+    }
+}
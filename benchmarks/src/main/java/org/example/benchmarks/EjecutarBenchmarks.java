@@ -0,0 +1,31 @@
+package org.example.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de target/benchmarks.jar. Acepta las mismas opciones que JMH (por ejemplo un
+ * patrón con los benchmarks a ejecutar, {@code -p empleados=1000} o {@code -rf json}) y añade
+ * siempre el perfilador gc, que informa de la tasa de asignación de memoria de cada operación.
+ */
+public class EjecutarBenchmarks {
+
+    /**
+     * Método principal que lanza los benchmarks.
+     *
+     * @param args Opciones de línea de comandos de JMH.
+     * @throws CommandLineOptionException Si las opciones no son válidas.
+     * @throws RunnerException            Si falla la ejecución de algún benchmark.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
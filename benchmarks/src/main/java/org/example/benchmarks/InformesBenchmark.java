@@ -0,0 +1,102 @@
+package org.example.benchmarks;
+
+import org.example.entidades.Departamento;
+import org.example.informes.DepartamentoResumen;
+import org.example.informes.EmpleadoResumen;
+import org.example.repositorios.InformeRepository;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide las dos consultas de informe de los menús: departamentos de una empresa con su número de
+ * empleados ({@code EmpresaMenu}) y primera página de empleados de un departamento ({@code DepartamentoMenu}).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InformesBenchmark {
+
+    /**
+     * Número de empleados con los que se puebla la base de datos.
+     */
+    @Param({"1000", "100000"})
+    private int empleados;
+
+    /**
+     * Tamaño de página de los informes, el mismo que usan los menús.
+     */
+    private static final int TAMANO_PAGINA = 20;
+
+    /**
+     * Fábrica de sesiones de la base de datos de pruebas.
+     */
+    private SessionFactory sessionFactory;
+
+    /**
+     * Repositorio de informes a medir.
+     */
+    private InformeRepository informeRepository;
+
+    /**
+     * Departamentos de la empresa de pruebas.
+     */
+    private List<Departamento> departamentos;
+
+    /**
+     * Crea la base de datos y la puebla antes de las mediciones.
+     */
+    @Setup(Level.Trial)
+    public void preparar() {
+        sessionFactory = BaseDeDatosPruebas.crearSessionFactory("informes" + empleados);
+        departamentos = BaseDeDatosPruebas.poblar(sessionFactory, empleados);
+        informeRepository = new InformeRepository(sessionFactory);
+    }
+
+    /**
+     * Cierra la fábrica de sesiones y elimina la base de datos.
+     */
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Primera página de departamentos de la empresa con su número de empleados.
+     *
+     * @return Filas del informe, para que JMH no elimine la consulta.
+     */
+    @Benchmark
+    public List<DepartamentoResumen> departamentosConEmpleados() {
+        return informeRepository.departamentosConEmpleados(departamentos.get(0).getEmpresa().getId(), 0, TAMANO_PAGINA);
+    }
+
+    /**
+     * Primera página de empleados de un departamento elegido al azar.
+     *
+     * @return Filas del informe, para que JMH no elimine la consulta.
+     */
+    @Benchmark
+    public List<EmpleadoResumen> empleadosDeDepartamento() {
+        Departamento departamento = departamentos.get(ThreadLocalRandom.current().nextInt(departamentos.size()));
+        return informeRepository.empleadosDeDepartamento(departamento.getId(), null, TAMANO_PAGINA);
+    }
+}